@@ -0,0 +1,243 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in alternative to {@link RabbitMQMessageProducer#publish} for high-volume producers.
+ * <p>
+ * Messages are buffered per exchange and routing key and published together once the batch
+ * reaches {@code max-batch-size}, once the first message has lingered for {@code linger}, or on
+ * shutdown. A batch is sent over one channel in one go, so the per-message channel checkout
+ * and flush cost is paid once per batch. Every message is still published on its own, so
+ * consumers see no difference. Order is kept per exchange and routing key. While the broker
+ * blocks publishers, and until what was spilled has drained, batches are spilled through
+ * {@link PublisherFlowControl}.
+ * <p>
+ * Each publish returns a future that completes once its batch has been handed to the broker
+ * (or spilled), and completes exceptionally if that failed, so callers decide how to react.
+ * Messages still buffered when the process dies are lost, so use this only where a few
+ * milliseconds of at-most-once delivery are acceptable.
+ */
+@Slf4j
+@Component
+public class BatchingMessageProducer implements SmartLifecycle {
+
+    private final AmqpTemplate amqpTemplate;
+    private final PublisherFlowControl flowControl;
+    private final int maxBatchSize;
+    private final Duration linger;
+    private final DistributionSummary batchSizes;
+    private final Map<Destination, Buffer> buffers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService lingerTimer;
+
+    private volatile boolean running;
+
+    public BatchingMessageProducer(AmqpTemplate amqpTemplate, MeterRegistry meterRegistry, int maxBatchSize,
+                                   Duration linger) {
+        this(amqpTemplate, meterRegistry, new PublisherFlowControl(), maxBatchSize, linger);
+    }
+
+    @Autowired
+    public BatchingMessageProducer(
+            @Qualifier("veriboardAmqpTemplate") AmqpTemplate amqpTemplate,
+            MeterRegistry meterRegistry,
+            PublisherFlowControl flowControl,
+            @Value("${veriboard.amqp.batching.max-batch-size:100}") int maxBatchSize,
+            @Value("${veriboard.amqp.batching.linger:10ms}") Duration linger) {
+        if (maxBatchSize < 1 || linger.isNegative()) {
+            throw new IllegalArgumentException("Batch size must be positive and linger non-negative");
+        }
+        this.amqpTemplate = amqpTemplate;
+        this.flowControl = flowControl;
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+        this.batchSizes = DistributionSummary.builder("amqp.publish.batch.size")
+                .description("Messages per published batch")
+                .register(meterRegistry);
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "amqp-batch-linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the payload for the next batch to {@code exchange} with {@code routingKey}.
+     * Publishes straight away when the producer is not running.
+     *
+     * @return completes once the message has been published or spilled; completes exceptionally
+     * with the {@link AmqpException} if publishing (or spilling) it failed
+     */
+    public CompletableFuture<Void> publish(Object payload, String exchange, String routingKey) {
+        Destination destination = new Destination(exchange, routingKey);
+        Pending pending = new Pending(payload, new CompletableFuture<>());
+        if (!running) {
+            send(destination, List.of(pending));
+            return pending.published();
+        }
+        Buffer buffer = buffers.computeIfAbsent(destination, Buffer::new);
+        // Re-checked so a publish racing with stop() is not left behind in the buffer
+        if (buffer.add(pending) || !running) {
+            buffer.flush();
+        }
+        return pending.published();
+    }
+
+    /**
+     * Publishes everything buffered so far.
+     */
+    public void flush() {
+        buffers.values().forEach(Buffer::flush);
+    }
+
+    private void send(Destination destination, List<Pending> batch) {
+        // Once the broker unblocks, the rest of the batch can go out directly
+        List<Pending> payloads = batch.subList(spill(destination, batch), batch.size());
+        if (payloads.isEmpty()) {
+            return;
+        }
+        try {
+            if (amqpTemplate instanceof RabbitOperations rabbitOperations) {
+                rabbitOperations.invoke(operations -> {
+                    payloads.forEach(pending -> operations.convertAndSend(
+                            destination.exchange(), destination.routingKey(), pending.payload()));
+                    return null;
+                });
+            } else {
+                payloads.forEach(pending -> amqpTemplate.convertAndSend(
+                        destination.exchange(), destination.routingKey(), pending.payload()));
+            }
+            batchSizes.record(payloads.size());
+            log.debug("Published batch of {} to {} using routingKey {}",
+                    payloads.size(), destination.exchange(), destination.routingKey());
+            payloads.forEach(pending -> pending.published().complete(null));
+        } catch (AmqpException e) {
+            log.error("Publishing batch of {} to {} using routingKey {} failed: {}",
+                    payloads.size(), destination.exchange(), destination.routingKey(), e.getMessage());
+            payloads.forEach(pending -> pending.published().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Hands payloads to the flow control while the broker blocks publishers.
+     *
+     * @return how many leading payloads were spilled (or failed, when the spill journal is full)
+     */
+    private int spill(Destination destination, List<Pending> payloads) {
+        int spilled = 0;
+        try {
+            while (spilled < payloads.size() && flowControl.spillIfBlocked(
+                    payloads.get(spilled).payload(), destination.exchange(), destination.routingKey())) {
+                payloads.get(spilled).published().complete(null);
+                spilled++;
+            }
+        } catch (AmqpException e) {
+            log.error("Spilling {} of a batch of {} to {} using routingKey {} failed: {}", payloads.size() - spilled,
+                    payloads.size(), destination.exchange(), destination.routingKey(), e.getMessage());
+            payloads.subList(spilled, payloads.size()).forEach(pending -> pending.published().completeExceptionally(e));
+            return payloads.size();
+        }
+        return spilled;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Flushes what is buffered; later publishes go out unbatched.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        lingerTimer.shutdownNow();
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Destination(String exchange, String routingKey) {
+    }
+
+    private record Pending(Object payload, CompletableFuture<Void> published) {
+    }
+
+    private final class Buffer {
+
+        private final Destination destination;
+        private final Object sendLock = new Object();
+        private List<Pending> pending = new ArrayList<>();
+        private ScheduledFuture<?> lingerFlush;
+
+        Buffer(Destination destination) {
+            this.destination = destination;
+        }
+
+        /**
+         * @return true once the batch is full
+         */
+        synchronized boolean add(Pending payload) {
+            pending.add(payload);
+            if (pending.size() == 1 && pending.size() < maxBatchSize) {
+                armLinger();
+            }
+            return pending.size() >= maxBatchSize;
+        }
+
+        private void armLinger() {
+            try {
+                lingerFlush = lingerTimer.schedule(this::flush, linger.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; stop() flushes this batch
+            }
+        }
+
+        private synchronized List<Pending> drain() {
+            if (lingerFlush != null) {
+                lingerFlush.cancel(false);
+                lingerFlush = null;
+            }
+            List<Pending> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+
+        /**
+         * Draining and sending under one lock keeps batches for a destination in order.
+         */
+        void flush() {
+            synchronized (sendLock) {
+                List<Pending> batch = drain();
+                if (!batch.isEmpty()) {
+                    send(destination, batch);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package tech.yump.veriboard.amqp;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Binary form of a message and where it was published to, for local journals. Keeps the
+ * body and the properties the application relies on (content type and encoding, message
+ * id, timestamp, headers); header values are written as strings.
+ */
+public final class MessageRecords {
+
+    /**
+     * A message with the exchange and routing key it is published with.
+     */
+    public record AddressedMessage(String exchange, String routingKey, Message message) {
+    }
+
+    private MessageRecords() {
+    }
+
+    public static void write(DataOutput out, String exchange, String routingKey, Message message) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        writeString(out, exchange);
+        writeString(out, routingKey);
+        writeString(out, properties.getContentType());
+        writeString(out, properties.getContentEncoding());
+        writeString(out, properties.getMessageId());
+        out.writeLong(properties.getTimestamp() == null ? -1 : properties.getTimestamp().getTime());
+        out.writeInt(properties.getHeaders().size());
+        for (Map.Entry<String, Object> header : properties.getHeaders().entrySet()) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue() == null ? null : header.getValue().toString());
+        }
+        out.writeInt(message.getBody().length);
+        out.write(message.getBody());
+    }
+
+    public static AddressedMessage read(DataInput in) throws IOException {
+        String exchange = readString(in);
+        String routingKey = readString(in);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(readString(in));
+        properties.setContentEncoding(readString(in));
+        properties.setMessageId(readString(in));
+        long timestamp = in.readLong();
+        if (timestamp >= 0) {
+            properties.setTimestamp(new Date(timestamp));
+        }
+        int headers = in.readInt();
+        for (int i = 0; i < headers; i++) {
+            properties.setHeader(readString(in), readString(in));
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new AddressedMessage(exchange, routingKey, MessageBuilder.withBody(body).andProperties(properties).build());
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,8 @@
+package tech.yump.veriboard.amqp;
+
+/**
+ * Declares the stable type id a payload class travels under. Declare one bean per message
+ * type on both the producing and the consuming side.
+ */
+public record MessageTypeRegistration(String typeId, Class<?> type) {
+}
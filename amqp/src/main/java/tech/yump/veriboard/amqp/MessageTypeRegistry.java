@@ -0,0 +1,59 @@
+package tech.yump.veriboard.amqp;
+
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JavaTypeMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps payload classes to stable type ids carried in the {@code __TypeId__} header, so
+ * producers and consumers agree on ids rather than on fully qualified class names.
+ * <p>
+ * Listener parameter types still take precedence. Otherwise only registered ids resolve: a
+ * class-name header is honoured only for the Jackson mapper's default {@code java.lang} and
+ * {@code java.util} packages, so a message cannot make the consumer instantiate arbitrary classes.
+ */
+@Component
+public class MessageTypeRegistry {
+
+    private final Map<String, Class<?>> types = new HashMap<>();
+
+    public MessageTypeRegistry() {
+        this(List.of());
+    }
+
+    @Autowired
+    public MessageTypeRegistry(ObjectProvider<MessageTypeRegistration> registrations) {
+        this(registrations.orderedStream().toList());
+    }
+
+    public MessageTypeRegistry(List<MessageTypeRegistration> registrations) {
+        registrations.forEach(registration -> register(registration.typeId(), registration.type()));
+    }
+
+    private void register(String typeId, Class<?> type) {
+        Class<?> existing = types.putIfAbsent(typeId, type);
+        if (existing != null && existing != type) {
+            throw new IllegalStateException(
+                    "Message type id " + typeId + " is registered for both " + existing.getName() + " and " + type.getName());
+        }
+    }
+
+    public Map<String, Class<?>> types() {
+        return Map.copyOf(types);
+    }
+
+    /**
+     * Type mapper shared by every codec, so all content types resolve the same ids.
+     */
+    public Jackson2JavaTypeMapper typeMapper() {
+        DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+        typeMapper.setIdClassMapping(types);
+        return typeMapper;
+    }
+}
@@ -0,0 +1,76 @@
+package tech.yump.veriboard.amqp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Spreads keyed messages over {@code veriboard.amqp.partitions} routing-key shards
+ * ({@code <routing-key>.p<n>}), each bound to its own queue, so broker-side work is spread
+ * over several queue processes while all messages for one key stay on one queue, in order.
+ * <p>
+ * Shards are chosen with jump consistent hashing (Lamping and Veach): changing the number
+ * of partitions from n to n+1 only moves 1/(n+1) of the keys. With zero partitions routing
+ * keys are left as they are. Producers and consumers must agree on the partition count.
+ */
+@Component
+public class PartitionRouter {
+
+    private final int partitions;
+
+    public PartitionRouter(@Value("${veriboard.amqp.partitions:0}") int partitions) {
+        if (partitions < 0) {
+            throw new IllegalArgumentException("Partition count must not be negative");
+        }
+        this.partitions = partitions;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 0;
+    }
+
+    /**
+     * Shard of {@code key}; null keys go to shard 0.
+     */
+    public int partition(Object key) {
+        if (!isPartitioned() || key == null) {
+            return 0;
+        }
+        return jumpConsistentHash(key.hashCode(), partitions);
+    }
+
+    /**
+     * Routing key of the shard owning {@code key}, or {@code base} when not partitioned.
+     */
+    public String routingKey(String base, Object key) {
+        return isPartitioned() ? shard(base, partition(key)) : base;
+    }
+
+    /**
+     * Routing keys (or queue names) of every shard of {@code base}.
+     */
+    public List<String> shards(String base) {
+        return IntStream.range(0, partitions).mapToObj(partition -> shard(base, partition)).toList();
+    }
+
+    public static String shard(String base, int partition) {
+        return base + ".p" + partition;
+    }
+
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
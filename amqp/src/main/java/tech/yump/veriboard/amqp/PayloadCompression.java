@@ -0,0 +1,164 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LZ4 compression of message bodies above a size threshold.
+ * <p>
+ * Compressed messages carry {@code content-encoding: lz4[:original-encoding]}, the same
+ * convention Spring AMQP uses for gzip and deflate, so {@link #decompressor()} restores them
+ * transparently and leaves uncompressed messages alone. Consumers always decompress;
+ * producers only compress when enabled, so enable it once every consumer runs this version.
+ * Bodies that do not shrink are sent as they are. The length prefix of a compressed body is
+ * checked against {@code max-decompressed-size} before anything is allocated for it.
+ */
+@Component
+public class PayloadCompression {
+
+    public static final String ENCODING = "lz4";
+
+    private static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int maxDecompressedSize;
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4.safeDecompressor();
+    private final DistributionSummary compressionRatio;
+    private final Timer compressTime;
+    private final Timer decompressTime;
+
+    /**
+     * Decompresses only; used where no configuration is available.
+     */
+    public PayloadCompression() {
+        this(Metrics.globalRegistry, false, Integer.MAX_VALUE, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    public PayloadCompression(MeterRegistry meterRegistry, boolean enabled, int threshold) {
+        this(meterRegistry, enabled, threshold, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    @Autowired
+    public PayloadCompression(
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.amqp.compression.enabled:false}") boolean enabled,
+            @Value("${veriboard.amqp.compression.threshold:2048}") int threshold,
+            @Value("${veriboard.amqp.compression.max-decompressed-size:16777216}") int maxDecompressedSize) {
+        if (maxDecompressedSize < 0) {
+            throw new IllegalArgumentException("Maximum decompressed size must not be negative");
+        }
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.maxDecompressedSize = maxDecompressedSize;
+        this.compressionRatio = DistributionSummary.builder("amqp.compression.ratio")
+                .description("Uncompressed size divided by compressed size of compressed messages")
+                .register(meterRegistry);
+        this.compressTime = Timer.builder("amqp.compression.time")
+                .description("CPU time spent compressing or decompressing message bodies")
+                .tag("operation", "compress")
+                .register(meterRegistry);
+        this.decompressTime = Timer.builder("amqp.compression.time")
+                .description("CPU time spent compressing or decompressing message bodies")
+                .tag("operation", "decompress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Before-publish post processor compressing bodies of at least {@code threshold} bytes.
+     */
+    public MessagePostProcessor compressor() {
+        return this::compress;
+    }
+
+    /**
+     * After-receive post processor for containers and templates. Handles lz4 as well as the
+     * encodings Spring AMQP compresses with natively.
+     */
+    public MessagePostProcessor decompressor() {
+        DelegatingDecompressingPostProcessor delegating = new DelegatingDecompressingPostProcessor();
+        delegating.addDecompressor(ENCODING, this::decompress);
+        return delegating;
+    }
+
+    private Message compress(Message message) {
+        byte[] body = message.getBody();
+        MessageProperties properties = message.getMessageProperties();
+        if (!enabled || body.length < threshold || isCompressed(properties)) {
+            return message;
+        }
+
+        long startNanos = System.nanoTime();
+        int maxLength = compressor.maxCompressedLength(body.length);
+        ByteBuffer compressed = ByteBuffer.allocate(Integer.BYTES + maxLength);
+        compressed.putInt(body.length);
+        int compressedLength = compressor.compress(body, 0, body.length, compressed.array(), Integer.BYTES, maxLength);
+        compressTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        int totalLength = Integer.BYTES + compressedLength;
+        if (totalLength >= body.length) {
+            return message;
+        }
+        compressionRatio.record((double) body.length / totalLength);
+        String originalEncoding = properties.getContentEncoding();
+        properties.setContentEncoding(originalEncoding == null ? ENCODING : ENCODING + ":" + originalEncoding);
+        byte[] compressedBody = new byte[totalLength];
+        System.arraycopy(compressed.array(), 0, compressedBody, 0, totalLength);
+        return new Message(compressedBody, properties);
+    }
+
+    private Message decompress(Message message) {
+        long startNanos = System.nanoTime();
+        ByteBuffer body = ByteBuffer.wrap(message.getBody());
+        try {
+            int length = body.getInt();
+            if (length < 0 || length > maxDecompressedSize) {
+                throw new AmqpException("lz4 message body claims " + length
+                        + " decompressed bytes; at most " + maxDecompressedSize + " are accepted");
+            }
+            byte[] decompressed = new byte[length];
+            int decompressedLength = decompressor.decompress(
+                    message.getBody(), Integer.BYTES, message.getBody().length - Integer.BYTES, decompressed, 0, length);
+            if (decompressedLength != length) {
+                throw new LZ4Exception("Expected " + length + " bytes but decompressed " + decompressedLength);
+            }
+            decompressTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+            MessageProperties properties = message.getMessageProperties();
+            String encoding = properties.getContentEncoding();
+            int delimiter = encoding.indexOf(':');
+            properties.setContentEncoding(delimiter < 0 ? null : encoding.substring(delimiter + 1));
+            properties.setContentLength(length);
+            return new Message(decompressed, properties);
+        } catch (LZ4Exception | BufferUnderflowException e) {
+            throw new AmqpException("Could not decompress lz4 message body", e);
+        }
+    }
+
+    private static boolean isCompressed(MessageProperties properties) {
+        String encoding = properties.getContentEncoding();
+        return encoding != null && (encoding.startsWith(ENCODING) || encoding.startsWith("gzip")
+                || encoding.startsWith("deflate") || encoding.startsWith("zip"));
+    }
+}
@@ -0,0 +1,21 @@
+package tech.yump.veriboard.amqp;
+
+import org.springframework.amqp.core.ReturnedMessage;
+
+/**
+ * Outcome of a confirmed publish.
+ *
+ * @param correlationId id used to correlate the broker confirm
+ * @param acked         whether the broker confirmed the message
+ * @param reason        broker or client reason for a nack, if any
+ * @param returned      the message if the broker could not route it (mandatory publish), else null
+ */
+public record PublishResult(String correlationId, boolean acked, String reason, ReturnedMessage returned) {
+
+    /**
+     * True only if the broker took responsibility for the message and routed it to a queue.
+     */
+    public boolean delivered() {
+        return acked && returned == null;
+    }
+}
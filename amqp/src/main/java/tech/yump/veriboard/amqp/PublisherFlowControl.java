@@ -0,0 +1,232 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a blocked broker from blocking publishing threads.
+ * <p>
+ * When RabbitMQ raises a memory or disk alarm it blocks publishing connections, and a
+ * publish then hangs until the alarm clears. While a connection is blocked, producers
+ * hand their messages to {@link #spillIfBlocked} instead, which converts them and appends
+ * them to a bounded memory-mapped {@link SpillJournal}. Once the broker unblocks, one
+ * thread republishes them in order. New publishes keep going through the journal until it
+ * is empty, so none overtakes a spilled one: the lane listeners and single-active-consumer
+ * partition queues deliver each customer's messages in arrival order. Enabled with
+ * {@code veriboard.amqp.spill.enabled=true}; when the journal is full, spilling fails fast
+ * rather than blocking. The journal defaults to a
+ * file per application and instance (host name and port) under the temp directory.
+ * <p>
+ * A publish that was already under way when the block began still waits for the broker.
+ */
+@Slf4j
+@Component
+public class PublisherFlowControl implements SmartLifecycle {
+
+    private final AmqpTemplate amqpTemplate;
+    private final MessageConverter messageConverter;
+    private final SpillJournal journal;
+    private final Duration retryInterval;
+    private final Set<Connection> blockedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService drainer;
+    private final Counter spilled;
+    private final Counter drained;
+
+    private volatile boolean running;
+
+    /**
+     * Flow control that never spills; publishes block while the broker does.
+     */
+    public PublisherFlowControl() {
+        this.amqpTemplate = null;
+        this.messageConverter = null;
+        this.journal = null;
+        this.retryInterval = Duration.ZERO;
+        this.drainer = null;
+        this.spilled = null;
+        this.drained = null;
+    }
+
+    /**
+     * @param capacity size of the memory-mapped spill file
+     */
+    @Autowired
+    public PublisherFlowControl(
+            @Qualifier("veriboardAmqpTemplate") AmqpTemplate amqpTemplate,
+            MessageConverter messageConverter,
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.amqp.spill.enabled:false}") boolean enabled,
+            @Value("${veriboard.amqp.spill.file:${java.io.tmpdir}/veriboard-amqp-spill/"
+                    + "${spring.application.name:application}-${HOSTNAME:localhost}-${server.port:8080}.journal}")
+            Path file,
+            @Value("${veriboard.amqp.spill.capacity:64MB}") DataSize capacity,
+            @Value("${veriboard.amqp.spill.retry-interval:1s}") Duration retryInterval) {
+        this.amqpTemplate = amqpTemplate;
+        this.messageConverter = messageConverter;
+        this.retryInterval = retryInterval;
+        Gauge.builder("amqp.publish.blocked", blockedConnections, connections -> connections.isEmpty() ? 0 : 1)
+                .description("Whether the broker is blocking publishing connections")
+                .register(meterRegistry);
+        if (!enabled) {
+            this.journal = null;
+            this.drainer = null;
+            this.spilled = null;
+            this.drained = null;
+            return;
+        }
+        this.journal = new SpillJournal(file, Math.toIntExact(capacity.toBytes()));
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "amqp-spill-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("amqp.spill.messages", journal, SpillJournal::size)
+                .description("Messages waiting in the spill journal")
+                .register(meterRegistry);
+        Gauge.builder("amqp.spill.bytes", journal, SpillJournal::bytes)
+                .description("Bytes used in the spill journal")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.spilled = Counter.builder("amqp.spill.spilled")
+                .description("Publishes diverted to the spill journal")
+                .register(meterRegistry);
+        this.drained = Counter.builder("amqp.spill.drained")
+                .description("Spilled messages republished to the broker")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onBlocked(ConnectionBlockedEvent event) {
+        blockedConnections.add(event.getConnection());
+        log.warn("Broker blocked publishing: {}{}", event.getReason(),
+                journal == null ? "" : "; spilling publishes locally");
+    }
+
+    @EventListener
+    public void onUnblocked(ConnectionUnblockedEvent event) {
+        blockedConnections.remove(event.getConnection());
+        log.info("Broker unblocked publishing");
+        scheduleDrain(0);
+    }
+
+    public boolean isBlocked() {
+        if (blockedConnections.isEmpty()) {
+            return false;
+        }
+        // A connection that closed while blocked is replaced by a new, unblocked one
+        blockedConnections.removeIf(connection -> !connection.isOpen());
+        return !blockedConnections.isEmpty();
+    }
+
+    /**
+     * Appends the payload to the spill journal if the broker is blocked, or if spilled
+     * messages are still waiting to be republished, so it is published after them.
+     *
+     * @return true if spilled; false if the caller should publish as usual
+     * @throws AmqpException if the spill journal is full
+     */
+    public boolean spillIfBlocked(Object payload, String exchange, String routingKey) {
+        // The drain removes a message only after sending it, so an empty journal means
+        // every spilled message has reached the broker
+        if (journal == null || (journal.isEmpty() && !isBlocked())) {
+            return false;
+        }
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        journal.append(exchange, routingKey, RabbitMQConfig.publishStamp().postProcessMessage(message));
+        spilled.increment();
+        if (!isBlocked()) {
+            scheduleDrain(0);
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (journal != null && !journal.isEmpty()) {
+            log.info("Draining {} messages spilled before the last shutdown", journal.size());
+            scheduleDrain(0);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            drainer.shutdownNow();
+            journal.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the producers, which may still spill while flushing.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1000;
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (journal == null || !drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drainer.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        while (!isBlocked()) {
+            MessageRecords.AddressedMessage next = journal.peek();
+            if (next == null) {
+                return;
+            }
+            try {
+                amqpTemplate.send(next.exchange(), next.routingKey(), next.message());
+            } catch (AmqpException e) {
+                log.warn("Republishing spilled message to {} using routingKey {} failed, retrying in {}: {}",
+                        next.exchange(), next.routingKey(), retryInterval, e.getMessage());
+                scheduleDrain(retryInterval.toMillis());
+                return;
+            }
+            journal.remove();
+            drained.increment();
+        }
+    }
+}
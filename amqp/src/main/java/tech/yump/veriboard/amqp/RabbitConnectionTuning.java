@@ -0,0 +1,111 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ThreadChannelConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sizes the channel caches of the consumer and publisher connections and exposes them as
+ * gauges.
+ * <p>
+ * {@link RabbitMQConfig} publishes over the connection factory's separate publisher
+ * connection, so a broker blocking publishers does not stall consumers, and publisher and
+ * consumer channels are cached apart. The consumer connection takes Spring Boot's
+ * {@code spring.rabbitmq.cache.channel.*}; the publisher connection may override them with
+ * {@code veriboard.amqp.connections.publisher.*}. With a checkout timeout the cache size
+ * is a hard limit and callers wait up to the timeout for a channel instead of opening and
+ * closing extra ones.
+ * <p>
+ * With {@code thread-affine} enabled, every publishing thread keeps its own channel, which
+ * suits a few hot publisher threads. Channels are then not shared, and correlated
+ * publisher confirms are not available. That connection factory is created here and
+ * destroyed with this bean.
+ */
+@Slf4j
+@Component
+public class RabbitConnectionTuning implements DisposableBean {
+
+    private static final String CONSUMER = "consumer";
+    private static final String PUBLISHER = "publisher";
+
+    private ThreadChannelConnectionFactory threadChannelConnections;
+
+    /**
+     * @param channelCacheSize publisher channels to cache; 0 to keep the consumer connection's setting
+     * @param checkoutTimeout how long a publisher waits for a cached channel; zero to open extra ones
+     */
+    public RabbitConnectionTuning(
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher applicationEventPublisher,
+            @Value("${veriboard.amqp.connections.publisher.channel-cache-size:0}") int channelCacheSize,
+            @Value("${veriboard.amqp.connections.publisher.checkout-timeout:0ms}") Duration checkoutTimeout,
+            @Value("${veriboard.amqp.connections.publisher.thread-affine:false}") boolean threadAffine) {
+        if (!(connectionFactory instanceof CachingConnectionFactory consumerConnections)) {
+            log.info("Not tuning AMQP connection factory of type {}", connectionFactory.getClass().getSimpleName());
+            return;
+        }
+        registerGauges(meterRegistry, CONSUMER, consumerConnections);
+
+        if (threadAffine) {
+            ThreadChannelConnectionFactory publisherConnections =
+                    new ThreadChannelConnectionFactory(consumerConnections.getRabbitConnectionFactory());
+            publisherConnections.setApplicationEventPublisher(applicationEventPublisher);
+            consumerConnections.setPublisherConnectionFactory(publisherConnections);
+            this.threadChannelConnections = publisherConnections;
+            log.info("Publishing over thread-affine channels; correlated publisher confirms are unavailable");
+        } else if (consumerConnections.getPublisherConnectionFactory() instanceof CachingConnectionFactory publisherConnections) {
+            if (channelCacheSize > 0) {
+                publisherConnections.setChannelCacheSize(channelCacheSize);
+            }
+            if (checkoutTimeout.isPositive()) {
+                publisherConnections.setChannelCheckoutTimeout(checkoutTimeout.toMillis());
+            }
+            registerGauges(meterRegistry, PUBLISHER, publisherConnections);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (threadChannelConnections != null) {
+            threadChannelConnections.destroy();
+        }
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String connection, CachingConnectionFactory factory) {
+        // The cache statistics only exist once the factory has opened its connection
+        AtomicBoolean connected = new AtomicBoolean();
+        factory.addConnectionListener(opened -> connected.set(true));
+        Gauge.builder("amqp.connection.channels.cache.size", factory, CachingConnectionFactory::getChannelCacheSize)
+                .description("Channels kept open per connection")
+                .tag("connection", connection)
+                .register(meterRegistry);
+        Gauge.builder("amqp.connection.channels.idle", factory, f -> cacheProperty(f, connected, "idleChannelsNotTx"))
+                .description("Cached channels not in use")
+                .tag("connection", connection)
+                .register(meterRegistry);
+        Gauge.builder("amqp.connection.channels.idle.high.water", factory,
+                        f -> cacheProperty(f, connected, "idleChannelsNotTxHighWater"))
+                .description("Most cached channels ever idle at once")
+                .tag("connection", connection)
+                .register(meterRegistry);
+    }
+
+    private static double cacheProperty(CachingConnectionFactory factory, AtomicBoolean connected, String name) {
+        if (!connected.get()) {
+            return Double.NaN;
+        }
+        String value = factory.getCacheProperties().getProperty(name);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+}
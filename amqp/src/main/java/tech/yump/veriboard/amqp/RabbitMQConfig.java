@@ -1,44 +1,146 @@
 package tech.yump.veriboard.amqp;
 
-import lombok.AllArgsConstructor;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.Date;
+import java.util.UUID;
+
 @Configuration
-@AllArgsConstructor
 public class RabbitMQConfig {
 
+    /**
+     * Publish time in epoch milliseconds; the AMQP timestamp property only has second resolution.
+     */
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
     private final ConnectionFactory connectionFactory;
+    private final MessageTypeRegistry messageTypeRegistry;
+    private final String contentType;
+    private final PayloadCompression payloadCompression;
+
+    public RabbitMQConfig(ConnectionFactory connectionFactory) {
+        this(connectionFactory, new MessageTypeRegistry(), JSON_CONTENT_TYPE, new PayloadCompression());
+    }
+
+    /**
+     * @param contentType codec for outgoing messages, {@code application/json} or {@code application/cbor}
+     */
+    @Autowired
+    public RabbitMQConfig(
+            ConnectionFactory connectionFactory,
+            MessageTypeRegistry messageTypeRegistry,
+            @Value("${veriboard.amqp.content-type:application/json}") String contentType,
+            PayloadCompression payloadCompression) {
+        if (!JSON_CONTENT_TYPE.equals(contentType) && !CborMessageConverter.CONTENT_TYPE.equals(contentType)) {
+            throw new IllegalArgumentException("Unsupported AMQP content type: " + contentType);
+        }
+        this.connectionFactory = connectionFactory;
+        this.messageTypeRegistry = messageTypeRegistry;
+        this.contentType = contentType;
+        this.payloadCompression = payloadCompression;
+    }
 
+    /**
+     * Replaced by the in-process template when {@code veriboard.amqp.transport=in-memory}.
+     */
     @Bean
     @Primary
     @Qualifier("veriboardAmqpTemplate")
+    @ConditionalOnProperty(name = "veriboard.amqp.transport", havingValue = "rabbitmq", matchIfMissing = true)
     public AmqpTemplate amqpTemplate() {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jacksonConverter());
+        rabbitTemplate.setMessageConverter(messageConverter());
+        rabbitTemplate.setBeforePublishPostProcessors(publishStamp(), payloadCompression.compressor());
+        rabbitTemplate.setAfterReceivePostProcessors(payloadCompression.decompressor());
+        // Unroutable messages come back to the sender instead of being dropped silently
+        rabbitTemplate.setMandatory(connectionFactory.isPublisherReturns());
+        // Publishes go over their own connection, so consumers are not held up when the broker blocks publishers
+        rabbitTemplate.setUsePublisherConnection(connectionFactory.getPublisherConnectionFactory() != null);
         return rabbitTemplate;
     }
 
+    /**
+     * Stamps outgoing messages with a message id, which consumers use to drop redeliveries, and
+     * with the publish time so consumers can measure queueing latency, both as the AMQP timestamp
+     * and, to the millisecond, as the {@link #PUBLISHED_AT_HEADER} header.
+     */
+    public static MessagePostProcessor publishStamp() {
+        return message -> {
+            MessageProperties properties = message.getMessageProperties();
+            if (properties.getMessageId() == null) {
+                properties.setMessageId(UUID.randomUUID().toString());
+            }
+            if (properties.getHeader(PUBLISHED_AT_HEADER) == null) {
+                long now = System.currentTimeMillis();
+                properties.setHeader(PUBLISHED_AT_HEADER, now);
+                if (properties.getTimestamp() == null) {
+                    properties.setTimestamp(new Date(now));
+                }
+            }
+            return message;
+        };
+    }
+
     @Bean
     public SimpleRabbitListenerContainerFactory simpleRabbitListenerContainerFactory() {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(jacksonConverter());
+        factory.setMessageConverter(messageConverter());
+        factory.setAfterReceivePostProcessors(payloadCompression.decompressor());
         return factory;
     }
 
+    /**
+     * Applies decompression to the containers of Spring Boot's default listener container
+     * factory as well, which is what plain {@code @RabbitListener} methods run on.
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> decompressingContainerCustomizer() {
+        return container -> container.setAfterReceivePostProcessors(payloadCompression.decompressor());
+    }
+
+    /**
+     * Encodes with the configured content type and decodes by the content type of each
+     * message, so consumers read JSON and CBOR alike while producers switch over.
+     */
     @Bean
+    public MessageConverter messageConverter() {
+        MessageConverter cborConverter = cborConverter();
+        MessageConverter jsonConverter = jacksonConverter();
+        ContentTypeDelegatingMessageConverter messageConverter = new ContentTypeDelegatingMessageConverter(
+                CborMessageConverter.CONTENT_TYPE.equals(contentType) ? cborConverter : jsonConverter);
+        messageConverter.addDelegate(JSON_CONTENT_TYPE, jsonConverter);
+        messageConverter.addDelegate(CborMessageConverter.CONTENT_TYPE, cborConverter);
+        return messageConverter;
+    }
+
     public MessageConverter jacksonConverter() {
-        MessageConverter jackson2JsonMessageConverter = new Jackson2JsonMessageConverter();
+        Jackson2JsonMessageConverter jackson2JsonMessageConverter = new Jackson2JsonMessageConverter();
+        jackson2JsonMessageConverter.setJavaTypeMapper(messageTypeRegistry.typeMapper());
         return jackson2JsonMessageConverter;
     }
 
+    public MessageConverter cborConverter() {
+        return new CborMessageConverter(messageTypeRegistry.typeMapper());
+    }
+
 }
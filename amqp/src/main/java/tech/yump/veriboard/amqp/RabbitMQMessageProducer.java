@@ -1,22 +1,143 @@
 package tech.yump.veriboard.amqp;
 
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import tech.yump.veriboard.amqp.inmemory.InMemoryAmqpTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
-@AllArgsConstructor
 public class RabbitMQMessageProducer {
 
-    @Qualifier("veriboardAmqpTemplate")
     private final AmqpTemplate amqpTemplate;
+    private final PublisherFlowControl flowControl;
+    private final Timer confirmLatencyAcked;
+    private final Timer confirmLatencyNacked;
+    private final Counter nacks;
+    private final Counter returns;
+
+    public RabbitMQMessageProducer(AmqpTemplate amqpTemplate) {
+        this(amqpTemplate, Metrics.globalRegistry);
+    }
+
+    public RabbitMQMessageProducer(AmqpTemplate amqpTemplate, MeterRegistry meterRegistry) {
+        this(amqpTemplate, meterRegistry, new PublisherFlowControl());
+    }
+
+    @Autowired
+    public RabbitMQMessageProducer(
+            @Qualifier("veriboardAmqpTemplate") AmqpTemplate amqpTemplate,
+            MeterRegistry meterRegistry,
+            PublisherFlowControl flowControl) {
+        this.amqpTemplate = amqpTemplate;
+        this.flowControl = flowControl;
+        this.confirmLatencyAcked = confirmLatency(meterRegistry, "ack");
+        this.confirmLatencyNacked = confirmLatency(meterRegistry, "nack");
+        this.nacks = Counter.builder("amqp.publish.nacks")
+                .description("Publishes negatively acknowledged by the broker")
+                .register(meterRegistry);
+        this.returns = Counter.builder("amqp.publish.returns")
+                .description("Mandatory publishes returned as unroutable")
+                .register(meterRegistry);
+    }
 
+    /**
+     * Publishes the payload, or spills it locally while the broker blocks publishers or
+     * earlier spilled messages are draining (see {@link PublisherFlowControl}).
+     */
     public void publish(Object payload, String exchange, String routingKey) {
+        if (flowControl.spillIfBlocked(payload, exchange, routingKey)) {
+            log.info("Broker is blocking publishers or draining; spilled message to {} using routingKey {}",
+                    exchange, routingKey);
+            return;
+        }
         log.info("Publishing to {} using routingKey {}. Payload {}", exchange, routingKey, payload);
         amqpTemplate.convertAndSend(exchange, routingKey, payload);
         log.info("Published to {} using routingKey {}. Payload {}", exchange, routingKey, payload);
     }
+
+    /**
+     * Publishes with a correlated publisher confirm and completes once the broker has
+     * acknowledged (or rejected) the message. Does not block the caller, so any number of
+     * messages can be in flight. Requires {@code spring.rabbitmq.publisher-confirm-type=correlated}
+     * or the in-memory transport; with {@code publisher-returns} enabled, unroutable messages
+     * complete with {@link PublishResult#returned()} set. Fails straight away while the
+     * broker blocks publishers.
+     */
+    public CompletableFuture<PublishResult> publishConfirmed(Object payload, String exchange, String routingKey) {
+        if (flowControl.isBlocked()) {
+            return CompletableFuture.failedFuture(new AmqpException("Broker is blocking publishers"));
+        }
+
+        if (!(amqpTemplate instanceof RabbitTemplate rabbitTemplate) || !confirmsEnabled(rabbitTemplate)) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Publisher confirms are not enabled on the connection factory"));
+        }
+
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        long startNanos = System.nanoTime();
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, payload, correlationData);
+        } catch (AmqpException e) {
+            log.error("Publishing to {} using routingKey {} failed: {}", exchange, routingKey, e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return correlationData.getFuture().thenApply(confirm -> {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            PublishResult result = new PublishResult(
+                    correlationData.getId(), confirm.isAck(), confirm.getReason(), correlationData.getReturned());
+            if (result.acked()) {
+                confirmLatencyAcked.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            } else {
+                confirmLatencyNacked.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                nacks.increment();
+                log.warn("Broker nacked message {} to {} using routingKey {}: {}",
+                        correlationData.getId(), exchange, routingKey, confirm.getReason());
+            }
+            if (result.returned() != null) {
+                returns.increment();
+                log.warn("Message {} to {} using routingKey {} was unroutable: {}",
+                        correlationData.getId(), exchange, routingKey, result.returned().getReplyText());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * The in-memory transport confirms every publish; a broker connection only when configured to.
+     */
+    private static boolean confirmsEnabled(RabbitTemplate rabbitTemplate) {
+        if (rabbitTemplate instanceof InMemoryAmqpTemplate) {
+            return true;
+        }
+        ConnectionFactory connectionFactory = rabbitTemplate.getConnectionFactory();
+        if (connectionFactory != null && rabbitTemplate.isUsePublisherConnection()
+                && connectionFactory.getPublisherConnectionFactory() != null) {
+            connectionFactory = connectionFactory.getPublisherConnectionFactory();
+        }
+        return connectionFactory != null && connectionFactory.isPublisherConfirms();
+    }
+
+    private static Timer confirmLatency(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("amqp.publish.confirm.latency")
+                .description("Time from publish until the broker confirm arrives")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 }
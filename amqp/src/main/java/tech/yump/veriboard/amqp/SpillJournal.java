@@ -0,0 +1,204 @@
+package tech.yump.veriboard.amqp;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded FIFO of messages in a memory-mapped file, holding publishes while the broker
+ * blocks producers.
+ * <p>
+ * Records are kept in a ring after a small header that holds the read and write offsets,
+ * so whatever has not been drained is found again after a restart, and the space of a
+ * drained record is reused right away. Writes land in the page cache: they survive a
+ * crash of the JVM, not of the machine. Appends beyond the free space fail.
+ */
+class SpillJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x5350_4c31; // "SPL1"
+    private static final int HEADER_SIZE = 64;
+    private static final int HEAD_OFFSET = 4;
+    private static final int TAIL_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int end;
+    private int head;
+    private int tail;
+    private int count;
+
+    /**
+     * @param capacity size of the mapped file in bytes, header included; a file that still
+     *                 holds messages keeps the size it was created with
+     */
+    SpillJournal(Path file, int capacity) {
+        if (capacity <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Spill journal capacity must exceed " + HEADER_SIZE + " bytes");
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean pending = holdsMessages(channel);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, pending ? channel.size() : capacity);
+            this.end = buffer.capacity();
+            if (pending) {
+                this.head = buffer.getInt(HEAD_OFFSET);
+                this.tail = buffer.getInt(TAIL_OFFSET);
+                this.count = buffer.getInt(COUNT_OFFSET);
+            } else {
+                buffer.putInt(0, MAGIC);
+                reset();
+            }
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    /**
+     * @throws AmqpException if the journal has no room for the message
+     */
+    synchronized void append(String exchange, String routingKey, Message message) {
+        byte[] record = serialize(exchange, routingKey, message);
+        if (Integer.BYTES + (long) record.length > end - HEADER_SIZE - bytes()) {
+            throw new AmqpException("Spill journal is full (" + count + " messages, " + bytes() + " bytes)");
+        }
+        tail = put(tail, ByteBuffer.allocate(Integer.BYTES).putInt(record.length).array());
+        tail = put(tail, record);
+        count++;
+        writeOffsets();
+    }
+
+    /**
+     * The oldest message, without removing it; null when empty.
+     */
+    synchronized MessageRecords.AddressedMessage peek() {
+        if (count == 0) {
+            return null;
+        }
+        byte[] record = new byte[lengthAt(head)];
+        get(advance(head, Integer.BYTES), record);
+        try {
+            return MessageRecords.read(new DataInputStream(new ByteArrayInputStream(record)));
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    /**
+     * Removes the oldest message, after it has been published.
+     */
+    synchronized void remove() {
+        if (count == 0) {
+            return;
+        }
+        head = advance(head, Integer.BYTES + lengthAt(head));
+        count--;
+        if (count == 0) {
+            reset();
+        } else {
+            writeOffsets();
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    synchronized long bytes() {
+        if (count == 0) {
+            return 0;
+        }
+        return tail > head ? tail - head : end - HEADER_SIZE - (head - tail);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    private void reset() {
+        head = HEADER_SIZE;
+        tail = HEADER_SIZE;
+        count = 0;
+        writeOffsets();
+    }
+
+    private void writeOffsets() {
+        buffer.putInt(HEAD_OFFSET, head);
+        buffer.putInt(TAIL_OFFSET, tail);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    private int lengthAt(int position) {
+        byte[] length = new byte[Integer.BYTES];
+        get(position, length);
+        return ByteBuffer.wrap(length).getInt();
+    }
+
+    /**
+     * Writes {@code bytes} at {@code position}, wrapping around the end of the ring.
+     *
+     * @return the position after the bytes
+     */
+    private int put(int position, byte[] bytes) {
+        int first = Math.min(bytes.length, end - position);
+        buffer.put(position, bytes, 0, first);
+        buffer.put(HEADER_SIZE, bytes, first, bytes.length - first);
+        return advance(position, bytes.length);
+    }
+
+    private void get(int position, byte[] bytes) {
+        int first = Math.min(bytes.length, end - position);
+        buffer.get(position, bytes, 0, first);
+        buffer.get(HEADER_SIZE, bytes, first, bytes.length - first);
+    }
+
+    private int advance(int position, int length) {
+        int next = position + length;
+        return next >= end ? next - end + HEADER_SIZE : next;
+    }
+
+    private static boolean holdsMessages(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(COUNT_OFFSET + Integer.BYTES);
+        channel.read(header, 0);
+        return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(COUNT_OFFSET) > 0;
+    }
+
+    private static byte[] serialize(String exchange, String routingKey, Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.getBody().length + 128);
+        try {
+            MessageRecords.write(new DataOutputStream(bytes), exchange, routingKey, message);
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
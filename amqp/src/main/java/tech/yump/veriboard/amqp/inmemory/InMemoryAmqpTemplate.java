@@ -0,0 +1,127 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link RabbitTemplate} publishing to an {@link InMemoryBroker} instead of a connection,
+ * so code written against {@code AmqpTemplate} or {@code RabbitTemplate} runs unchanged.
+ * <p>
+ * Message conversion and before-publish post processors apply as usual. Publishes are
+ * confirmed as soon as the message is enqueued; with {@code mandatory}, unroutable
+ * messages are reported as returned on their {@link CorrelationData}. Receives
+ * acknowledge immediately. Request/reply is not supported.
+ */
+public class InMemoryAmqpTemplate extends RabbitTemplate {
+
+    private static final int NO_ROUTE = 312;
+
+    private final InMemoryBroker broker;
+    private final List<MessagePostProcessor> beforePublishPostProcessors = new CopyOnWriteArrayList<>();
+
+    public InMemoryAmqpTemplate(InMemoryBroker broker) {
+        this.broker = broker;
+    }
+
+    public InMemoryBroker getBroker() {
+        return broker;
+    }
+
+    /**
+     * No connection factory to check.
+     */
+    @Override
+    public void afterPropertiesSet() {
+    }
+
+    @Override
+    public void setBeforePublishPostProcessors(MessagePostProcessor... beforePublishPostProcessors) {
+        super.setBeforePublishPostProcessors(beforePublishPostProcessors);
+        this.beforePublishPostProcessors.clear();
+        this.beforePublishPostProcessors.addAll(List.of(beforePublishPostProcessors));
+    }
+
+    @Override
+    public void addBeforePublishPostProcessors(MessagePostProcessor... beforePublishPostProcessors) {
+        super.addBeforePublishPostProcessors(beforePublishPostProcessors);
+        this.beforePublishPostProcessors.addAll(List.of(beforePublishPostProcessors));
+    }
+
+    @Override
+    public boolean removeBeforePublishPostProcessor(MessagePostProcessor beforePublishPostProcessor) {
+        super.removeBeforePublishPostProcessor(beforePublishPostProcessor);
+        return this.beforePublishPostProcessors.remove(beforePublishPostProcessor);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        String exchangeName = exchange == null ? "" : exchange;
+        String routingKeyName = routingKey == null ? "" : routingKey;
+        Message messageToSend = message;
+        for (MessagePostProcessor processor : beforePublishPostProcessors) {
+            messageToSend = processor.postProcessMessage(messageToSend, correlationData, exchangeName, routingKeyName);
+        }
+
+        int routed = broker.publish(exchangeName, routingKeyName, messageToSend);
+
+        if (correlationData != null) {
+            if (routed == 0 && Boolean.TRUE.equals(isMandatoryFor(messageToSend))) {
+                correlationData.setReturned(
+                        new ReturnedMessage(messageToSend, NO_ROUTE, "NO_ROUTE", exchangeName, routingKeyName));
+            }
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+    }
+
+    @Override
+    public <T> T invoke(OperationsCallback<T> action, com.rabbitmq.client.ConfirmCallback acks,
+                        com.rabbitmq.client.ConfirmCallback nacks) {
+        // There is no channel to pin; publishes from one thread are ordered anyway
+        return action.doInRabbit(this);
+    }
+
+    @Override
+    protected Message doReceiveNoWait(String queueName) {
+        return take(queueName);
+    }
+
+    /**
+     * @param timeoutMillis how long to wait for a message; negative to wait indefinitely
+     */
+    @Override
+    public Message receive(String queueName, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        long parkNanos = 1_000;
+        Message message = take(queueName);
+        while (message == null && (timeoutMillis < 0 || System.nanoTime() - deadline < 0)) {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos * 2, 1_000_000);
+            message = take(queueName);
+        }
+        return message;
+    }
+
+    @Override
+    protected Message doSendAndReceive(String exchange, String routingKey, Message message,
+                                       CorrelationData correlationData) {
+        throw new AmqpException("Request/reply is not supported by the in-memory AMQP transport");
+    }
+
+    private Message take(String queueName) {
+        InMemoryQueue queue = broker.queue(queueName);
+        InMemoryQueue.Entry entry = queue.poll();
+        if (entry == null) {
+            return null;
+        }
+        queue.ack(entry);
+        return InMemoryListenerContainer.delivery(entry, queueName, 0);
+    }
+}
@@ -0,0 +1,174 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Broker living inside the JVM, standing in for RabbitMQ where producers and consumers
+ * share a process: benchmarks of the messaging path and single-node deployments.
+ * <p>
+ * Routes like RabbitMQ does for direct, fanout and topic exchanges and the default
+ * exchange; headers exchanges and exchange-to-exchange bindings are not supported.
+ * Messages nobody is bound for are dropped. Queues are bounded; a publish to a full
+ * queue waits up to {@code publishTimeout} and then fails. With a journal directory,
+ * every queue keeps its unacknowledged messages in a {@link QueueJournal} there.
+ */
+@Slf4j
+public class InMemoryBroker implements AutoCloseable {
+
+    private record Route(String queue, String routingKey, String[] pattern) {
+    }
+
+    private final int queueCapacity;
+    private final Duration publishTimeout;
+    private final Path journalDir;
+    private final boolean fsync;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, String> exchangeTypes = new ConcurrentHashMap<>();
+    private final Map<String, List<Route>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * @param journalDir directory of the queue journals; null to keep messages in memory only
+     */
+    public InMemoryBroker(int queueCapacity, Duration publishTimeout, Path journalDir, boolean fsync,
+                          MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.publishTimeout = publishTimeout;
+        this.journalDir = journalDir;
+        this.fsync = fsync;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void declare(Declarable declarable) {
+        if (declarable instanceof Queue queue) {
+            queue(queue.getName());
+        } else if (declarable instanceof Exchange exchange) {
+            declareExchange(exchange.getName(), exchange.getType());
+        } else if (declarable instanceof Binding binding) {
+            if (binding.getDestinationType() != Binding.DestinationType.QUEUE) {
+                log.warn("Ignoring binding of exchange {} to exchange {}: not supported in memory",
+                        binding.getExchange(), binding.getDestination());
+                return;
+            }
+            bind(binding.getDestination(), binding.getExchange(), binding.getRoutingKey());
+        }
+    }
+
+    public void declareExchange(String name, String type) {
+        if (ExchangeTypes.HEADERS.equals(type)) {
+            log.warn("Ignoring headers exchange {}: not supported in memory", name);
+            return;
+        }
+        exchangeTypes.put(name, type);
+    }
+
+    public void bind(String queue, String exchange, String routingKey) {
+        queue(queue);
+        routes.computeIfAbsent(exchange, key -> new CopyOnWriteArrayList<>())
+                .add(new Route(queue, routingKey, routingKey.split("\\.", -1)));
+    }
+
+    /**
+     * The queue named {@code name}, declaring it (and recovering its journal) if needed.
+     */
+    public InMemoryQueue queue(String name) {
+        return queues.computeIfAbsent(name, this::createQueue);
+    }
+
+    /**
+     * Delivers {@code message} to every queue bound for {@code routingKey}.
+     *
+     * @return the number of queues the message was delivered to
+     */
+    public int publish(String exchange, String routingKey, Message message) {
+        List<InMemoryQueue> targets = route(exchange, routingKey);
+        if (targets.isEmpty()) {
+            log.debug("Dropping unroutable message to {} using routingKey {}", exchange, routingKey);
+        }
+        for (InMemoryQueue target : targets) {
+            target.publish(message, exchange, routingKey);
+        }
+        return targets.size();
+    }
+
+    @Override
+    public void close() {
+        queues.values().forEach(InMemoryQueue::close);
+    }
+
+    List<InMemoryQueue> route(String exchange, String routingKey) {
+        if (exchange.isEmpty()) {
+            InMemoryQueue queue = queues.get(routingKey);
+            return queue == null ? List.of() : List.of(queue);
+        }
+        String type = exchangeTypes.get(exchange);
+        List<Route> bound = routes.get(exchange);
+        if (type == null || bound == null) {
+            return List.of();
+        }
+        String[] words = ExchangeTypes.DIRECT.equals(type) ? null : routingKey.split("\\.", -1);
+        Collection<InMemoryQueue> targets = new ArrayList<>(1);
+        for (Route route : bound) {
+            boolean matches = switch (type) {
+                case ExchangeTypes.FANOUT -> true;
+                case ExchangeTypes.TOPIC -> topicMatches(route.pattern(), 0, words, 0);
+                default -> route.routingKey().equals(routingKey);
+            };
+            InMemoryQueue queue = queues.get(route.queue());
+            if (matches && !targets.contains(queue)) {
+                targets.add(queue);
+            }
+        }
+        return List.copyOf(targets);
+    }
+
+    /**
+     * AMQP topic matching: {@code *} matches one word, {@code #} zero or more.
+     */
+    static boolean topicMatches(String[] pattern, int p, String[] words, int w) {
+        if (p == pattern.length) {
+            return w == words.length;
+        }
+        if ("#".equals(pattern[p])) {
+            for (int skip = w; skip <= words.length; skip++) {
+                if (topicMatches(pattern, p + 1, words, skip)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return w < words.length
+                && ("*".equals(pattern[p]) || pattern[p].equals(words[w]))
+                && topicMatches(pattern, p + 1, words, w + 1);
+    }
+
+    private InMemoryQueue createQueue(String name) {
+        QueueJournal journal = journalDir == null ? null : new QueueJournal(journalDir.resolve(name + ".journal"), fsync);
+        InMemoryQueue queue = new InMemoryQueue(name, queueCapacity, publishTimeout, journal);
+        if (journal != null && !journal.recovered().isEmpty()) {
+            log.info("Recovered {} messages of queue {} from its journal", journal.recovered().size(), name);
+        }
+        Gauge.builder("amqp.inmemory.queue.depth", queue, InMemoryQueue::depth)
+                .description("Messages waiting in an in-memory queue")
+                .tag("queue", name)
+                .register(meterRegistry);
+        return queue;
+    }
+}
@@ -0,0 +1,283 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Listener container consuming from {@link InMemoryBroker} queues on one thread, round
+ * robin over its queues, with at most {@code prefetch} unacknowledged deliveries.
+ * <p>
+ * Acknowledgement follows the container's {@link AcknowledgeMode}: with {@code MANUAL}
+ * the listener acks through the {@link Channel} it is handed, which only supports
+ * {@code basicAck}, {@code basicNack} and {@code basicReject}; with {@code AUTO} a
+ * delivery is acked once the listener returns, and dropped with an error log if it
+ * throws, as there is no dead letter queue. Unacknowledged deliveries are requeued on stop.
+ * <p>
+ * An idle consumer spins and yields briefly, then parks until a message is enqueued on one
+ * of its queues or, at the prefetch limit, until a delivery is settled.
+ */
+@Slf4j
+public class InMemoryListenerContainer implements MessageListenerContainer {
+
+    private record InFlight(InMemoryQueue queue, InMemoryQueue.Entry entry) {
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    // Only a safety net; enqueues and acks unpark the consumer
+    private static final long IDLE_PARK_NANOS = 1_000_000_000;
+
+    private final InMemoryBroker broker;
+    private final AcknowledgeMode acknowledgeMode;
+    private final int prefetch;
+    private final NavigableMap<Long, InFlight> inFlight = new ConcurrentSkipListMap<>();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final AtomicLong deliveryTags = new AtomicLong();
+    private final Channel channel = channel();
+    private List<String> queueNames = List.of();
+    private MessageListener messageListener;
+    private String listenerId = "in-memory";
+    private boolean autoStartup = true;
+    private volatile boolean running;
+    private volatile Thread consumer;
+
+    public InMemoryListenerContainer(InMemoryBroker broker, AcknowledgeMode acknowledgeMode, int prefetch) {
+        this.broker = broker;
+        this.acknowledgeMode = acknowledgeMode == null ? AcknowledgeMode.AUTO : acknowledgeMode;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void setQueueNames(String... queueNames) {
+        this.queueNames = List.of(queueNames);
+    }
+
+    public List<String> getQueueNames() {
+        return queueNames;
+    }
+
+    @Override
+    public void setupMessageListener(MessageListener messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    @Override
+    public Object getMessageListener() {
+        return messageListener;
+    }
+
+    @Override
+    public void setListenerId(String listenerId) {
+        this.listenerId = listenerId;
+    }
+
+    @Override
+    public void setAutoStartup(boolean autoStartup) {
+        this.autoStartup = autoStartup;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return autoStartup;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        List<InMemoryQueue> queues = queueNames.stream().map(broker::queue).toList();
+        running = true;
+        consumer = new Thread(() -> consume(queues), "in-memory-listener-" + listenerId);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // What the listener has not acked is redelivered, as when a channel closes
+        for (Long deliveryTag : inFlight.keySet()) {
+            settle(deliveryTag, true);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consume(List<InMemoryQueue> queues) {
+        int next = 0;
+        int idle = 0;
+        while (running) {
+            InMemoryQueue.Entry entry = null;
+            InMemoryQueue queue = null;
+            if (inFlightCount.get() < prefetch) {
+                for (int i = 0; i < queues.size() && entry == null; i++) {
+                    queue = queues.get(next);
+                    next = (next + 1) % queues.size();
+                    entry = queue.poll();
+                }
+            }
+            if (entry != null) {
+                deliver(queue, entry);
+                idle = 0;
+            } else if (++idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idle < YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                park(queues);
+            }
+        }
+    }
+
+    private void park(List<InMemoryQueue> queues) {
+        Thread self = Thread.currentThread();
+        queues.forEach(queue -> queue.awaitMessages(self));
+        try {
+            if (running && !hasWork(queues)) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        } finally {
+            queues.forEach(queue -> queue.stopWaiting(self));
+        }
+    }
+
+    private boolean hasWork(List<InMemoryQueue> queues) {
+        if (inFlightCount.get() >= prefetch) {
+            return false;
+        }
+        for (InMemoryQueue queue : queues) {
+            if (queue.depth() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deliver(InMemoryQueue queue, InMemoryQueue.Entry entry) {
+        long deliveryTag = deliveryTags.incrementAndGet();
+        if (acknowledgeMode == AcknowledgeMode.NONE) {
+            queue.ack(entry);
+        } else {
+            inFlight.put(deliveryTag, new InFlight(queue, entry));
+            inFlightCount.incrementAndGet();
+        }
+        Message message = delivery(entry, queue.name(), deliveryTag);
+        try {
+            if (messageListener instanceof ChannelAwareMessageListener channelAwareListener) {
+                channelAwareListener.onMessage(message, channel);
+            } else {
+                messageListener.onMessage(message);
+            }
+            if (acknowledgeMode == AcknowledgeMode.AUTO) {
+                settle(deliveryTag, false);
+            }
+        } catch (Exception e) {
+            log.error("Listener {} failed on message from queue {}", listenerId, queue.name(), e);
+            if (acknowledgeMode == AcknowledgeMode.AUTO) {
+                settle(deliveryTag, false);
+            }
+        }
+    }
+
+    /**
+     * Acks the delivery, or puts it back on its queue when {@code requeue} is set.
+     */
+    private void settle(long deliveryTag, boolean requeue) {
+        InFlight delivery = inFlight.remove(deliveryTag);
+        if (delivery == null) {
+            return;
+        }
+        if (inFlightCount.getAndDecrement() == prefetch) {
+            // The consumer may be parked at the prefetch limit
+            LockSupport.unpark(consumer);
+        }
+        if (requeue) {
+            delivery.queue().requeue(delivery.entry());
+        } else {
+            delivery.queue().ack(delivery.entry());
+        }
+    }
+
+    private void settle(long deliveryTag, boolean multiple, boolean requeue) {
+        if (multiple) {
+            for (Long tag : inFlight.headMap(deliveryTag, true).keySet()) {
+                settle(tag, requeue);
+            }
+        } else {
+            settle(deliveryTag, requeue);
+        }
+    }
+
+    /**
+     * The message handed to a consumer: a copy carrying the delivery details, so a message
+     * routed to several queues is never shared between consumers.
+     */
+    static Message delivery(InMemoryQueue.Entry entry, String queueName, long deliveryTag) {
+        Message message = MessageBuilder.withBody(entry.message().getBody())
+                .copyProperties(entry.message().getMessageProperties())
+                .build();
+        MessageProperties properties = message.getMessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setConsumerQueue(queueName);
+        properties.setReceivedExchange(entry.exchange());
+        properties.setReceivedRoutingKey(entry.routingKey());
+        properties.setRedelivered(entry.redelivered());
+        return message;
+    }
+
+    /**
+     * Channel stand-in for {@link ChannelAwareMessageListener}s, supporting acknowledgement only.
+     */
+    private Channel channel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "basicAck" -> {
+                        settle((long) args[0], (boolean) args[1], false);
+                        yield null;
+                    }
+                    case "basicNack" -> {
+                        settle((long) args[0], (boolean) args[1], (boolean) args[2]);
+                        yield null;
+                    }
+                    case "basicReject" -> {
+                        settle((long) args[0], false, (boolean) args[1]);
+                        yield null;
+                    }
+                    case "getChannelNumber" -> 1;
+                    case "isOpen" -> running;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryChannel[" + listenerId + "]";
+                    default -> throw new UnsupportedOperationException(
+                            "Channel." + method.getName() + " is not supported by the in-memory AMQP transport");
+                });
+    }
+}
@@ -0,0 +1,39 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpoint;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Creates {@link InMemoryListenerContainer}s for {@code @RabbitListener} endpoints. Queue
+ * names and the ack mode are taken from the endpoint (only queue names are supported, not
+ * {@code queuesToDeclare}); the message converter is applied to endpoints without their own.
+ */
+public class InMemoryListenerContainerFactory implements RabbitListenerContainerFactory<InMemoryListenerContainer> {
+
+    private final InMemoryBroker broker;
+    private final MessageConverter messageConverter;
+    private final int prefetch;
+
+    public InMemoryListenerContainerFactory(InMemoryBroker broker, MessageConverter messageConverter, int prefetch) {
+        this.broker = broker;
+        this.messageConverter = messageConverter;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public InMemoryListenerContainer createListenerContainer(RabbitListenerEndpoint endpoint) {
+        InMemoryListenerContainer container = new InMemoryListenerContainer(broker, endpoint.getAckMode(), prefetch);
+        if (endpoint.getId() != null) {
+            container.setListenerId(endpoint.getId());
+        }
+        if (endpoint.getAutoStartup() != null) {
+            container.setAutoStartup(endpoint.getAutoStartup());
+        }
+        if (endpoint.getMessageConverter() == null) {
+            endpoint.setMessageConverter(messageConverter);
+        }
+        endpoint.setupListenerContainer(container);
+        return container;
+    }
+}
@@ -0,0 +1,145 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A queue of the {@link InMemoryBroker}: a bounded lock-free buffer plus, when durability
+ * is enabled, a {@link QueueJournal} of the messages not yet acknowledged. Consumers with
+ * nothing to do park until an enqueue wakes them (see {@link #awaitMessages}).
+ */
+public class InMemoryQueue {
+
+    /**
+     * A message as enqueued, with the exchange and routing key it was published with.
+     */
+    record Entry(long sequence, Message message, String exchange, String routingKey, boolean redelivered) {
+
+        Entry redelivery() {
+            return redelivered ? this : new Entry(sequence, message, exchange, routingKey, true);
+        }
+    }
+
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final String name;
+    private final MpmcBoundedQueue<Entry> entries;
+    private final QueueJournal journal;
+    private final long offerTimeoutNanos;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Thread> waiting = ConcurrentHashMap.newKeySet();
+
+    InMemoryQueue(String name, int capacity, Duration offerTimeout, QueueJournal journal) {
+        this.name = name;
+        this.entries = new MpmcBoundedQueue<>(capacity);
+        this.journal = journal;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        if (journal != null) {
+            for (Entry entry : journal.recovered()) {
+                if (!entries.offer(entry)) {
+                    throw new IllegalStateException("Queue " + name + " is too small for the "
+                            + journal.recovered().size() + " messages recovered from its journal");
+                }
+                sequence.set(Math.max(sequence.get(), entry.sequence()));
+            }
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int depth() {
+        return entries.size();
+    }
+
+    /**
+     * Enqueues, waiting up to the offer timeout while the queue is full.
+     *
+     * @throws AmqpException if the queue stayed full
+     */
+    void publish(Message message, String exchange, String routingKey) {
+        Entry entry = new Entry(sequence.incrementAndGet(), message, exchange, routingKey, false);
+        if (journal != null) {
+            journal.append(entry);
+        }
+        if (!offer(entry)) {
+            if (journal != null) {
+                journal.ack(entry.sequence());
+            }
+            throw new AmqpException("Queue " + name + " is full (" + entries.capacity() + " messages)");
+        }
+    }
+
+    Entry poll() {
+        return entries.poll();
+    }
+
+    /**
+     * Marks a consumed message as done, removing it from the journal.
+     */
+    void ack(Entry entry) {
+        if (journal != null) {
+            journal.ack(entry.sequence());
+        }
+    }
+
+    /**
+     * Puts a delivered but unacknowledged message back for redelivery. It goes to the tail,
+     * so it may be redelivered after messages published later.
+     */
+    void requeue(Entry entry) {
+        if (!offer(entry.redelivery())) {
+            // Stays in the journal, if any, and is recovered on the next start
+            throw new AmqpException("Queue " + name + " is full; could not requeue message " + entry.sequence());
+        }
+    }
+
+    /**
+     * Has {@code consumer} unparked by the next enqueue. The consumer must check the queue
+     * again after this call and before parking, so a message enqueued in between is not missed.
+     */
+    void awaitMessages(Thread consumer) {
+        waiting.add(consumer);
+    }
+
+    void stopWaiting(Thread consumer) {
+        waiting.remove(consumer);
+    }
+
+    void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        if (entries.offer(entry)) {
+            signal();
+            return true;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        long parkNanos = 1_000;
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(parkNanos);
+            if (entries.offer(entry)) {
+                signal();
+                return true;
+            }
+            parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+        }
+        return false;
+    }
+
+    private void signal() {
+        if (!waiting.isEmpty()) {
+            waiting.forEach(LockSupport::unpark);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+import tech.yump.veriboard.amqp.RabbitMQConfig;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * In-process AMQP transport, enabled with {@code veriboard.amqp.transport=in-memory}.
+ * <p>
+ * Replaces the RabbitMQ template and Spring Boot's default listener container factory
+ * with ones backed by an {@link InMemoryBroker}, and declares the application's queues,
+ * exchanges and bindings on it. Producers and consumers must run in the same JVM. No
+ * broker connection is opened, but the RabbitMQ health indicator still checks one; turn
+ * it off with {@code management.health.rabbit.enabled=false}. Payload compression is not
+ * applied, as messages never leave the process.
+ */
+@Configuration
+@ConditionalOnProperty(name = "veriboard.amqp.transport", havingValue = "in-memory")
+public class InMemoryTransportConfig {
+
+    @Value("${veriboard.amqp.in-memory.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${veriboard.amqp.in-memory.publish-timeout:5s}")
+    private Duration publishTimeout;
+
+    @Value("${veriboard.amqp.in-memory.journal-dir:}")
+    private String journalDir;
+
+    @Value("${veriboard.amqp.in-memory.fsync:false}")
+    private boolean fsync;
+
+    @Value("${spring.rabbitmq.listener.simple.prefetch:250}")
+    private int prefetch;
+
+    /**
+     * @see #inMemoryDeclarations
+     */
+    @Bean
+    public InMemoryBroker inMemoryBroker(MeterRegistry meterRegistry) {
+        Path journal = StringUtils.hasText(journalDir) ? Path.of(journalDir) : null;
+        return new InMemoryBroker(queueCapacity, publishTimeout, journal, fsync, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    @Qualifier("veriboardAmqpTemplate")
+    public AmqpTemplate amqpTemplate(InMemoryBroker inMemoryBroker, MessageConverter messageConverter) {
+        InMemoryAmqpTemplate template = new InMemoryAmqpTemplate(inMemoryBroker);
+        template.setMessageConverter(messageConverter);
+        template.setBeforePublishPostProcessors(RabbitMQConfig.publishStamp());
+        template.setMandatory(true);
+        return template;
+    }
+
+    /**
+     * Named like Spring Boot's default factory, so plain {@code @RabbitListener} methods consume in memory.
+     */
+    @Bean
+    public InMemoryListenerContainerFactory rabbitListenerContainerFactory(
+            InMemoryBroker inMemoryBroker,
+            MessageConverter messageConverter) {
+        return new InMemoryListenerContainerFactory(inMemoryBroker, messageConverter, prefetch);
+    }
+
+    /**
+     * Declares the {@link Declarable} beans on the broker once all singletons exist, before
+     * listener containers start.
+     */
+    @Bean
+    public SmartInitializingSingleton inMemoryDeclarations(InMemoryBroker inMemoryBroker, ListableBeanFactory beanFactory) {
+        return () -> {
+            beanFactory.getBeansOfType(Declarable.class).values().forEach(inMemoryBroker::declare);
+            beanFactory.getBeansOfType(Declarables.class).values()
+                    .forEach(declarables -> declarables.getDeclarables().forEach(inMemoryBroker::declare));
+        };
+    }
+}
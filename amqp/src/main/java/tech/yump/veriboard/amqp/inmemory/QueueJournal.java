@@ -0,0 +1,210 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.springframework.amqp.AmqpIOException;
+import tech.yump.veriboard.amqp.MessageRecords;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of the messages of one in-memory queue, so they survive a restart.
+ * <p>
+ * A message is journaled before it is enqueued and an ack record is appended once it has
+ * been consumed. On open, messages without an ack are recovered and the file is compacted
+ * to just those; whenever nothing is outstanding the file is truncated, and once the file
+ * has grown past the compaction threshold with less than half of it still unacknowledged
+ * it is rewritten to the outstanding messages. Messages are stored as
+ * {@link MessageRecords}. With {@code fsync} every write is forced to disk, otherwise a
+ * crash of the machine (not of the JVM) can lose the latest messages.
+ */
+class QueueJournal implements AutoCloseable {
+
+    static final long DEFAULT_COMPACT_THRESHOLD = 16L * 1024 * 1024;
+
+    private static final byte PUBLISH = 'P';
+    private static final byte ACK = 'A';
+    private static final int ACK_RECORD_SIZE = 13;
+
+    private final Path file;
+    private final boolean fsync;
+    private final long compactThreshold;
+    private final List<InMemoryQueue.Entry> recovered;
+    private final Map<Long, Outstanding> outstanding = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long fileBytes;
+    private long outstandingBytes;
+
+    QueueJournal(Path file, boolean fsync) {
+        this(file, fsync, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    QueueJournal(Path file, boolean fsync, long compactThreshold) {
+        this.file = file;
+        this.fsync = fsync;
+        this.compactThreshold = compactThreshold;
+        try {
+            Files.createDirectories(file.getParent());
+            this.recovered = Files.exists(file) ? replay(file) : List.of();
+            compact(recovered);
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    /**
+     * Unacknowledged messages found when the journal was opened, in publish order.
+     */
+    List<InMemoryQueue.Entry> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Current size of the journal file in bytes.
+     */
+    synchronized long size() {
+        return fileBytes;
+    }
+
+    synchronized void append(InMemoryQueue.Entry entry) {
+        try {
+            appendRecord(entry);
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    synchronized void ack(long sequence) {
+        Outstanding acked = outstanding.remove(sequence);
+        if (acked == null) {
+            return;
+        }
+        try {
+            if (outstanding.isEmpty()) {
+                channel.truncate(0);
+                channel.position(0);
+                fileBytes = 0;
+                outstandingBytes = 0;
+                return;
+            }
+            ByteBuffer record = ByteBuffer.allocate(ACK_RECORD_SIZE);
+            record.put(ACK).putInt(8).putLong(sequence).flip();
+            write(record);
+            outstandingBytes -= acked.size();
+            if (fileBytes >= compactThreshold && outstandingBytes * 2 < fileBytes) {
+                compact(outstanding.values().stream().map(Outstanding::entry).toList());
+            }
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    private void appendRecord(InMemoryQueue.Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.message().getBody().length + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUBLISH);
+        out.writeInt(0); // record length, patched below
+        out.writeLong(entry.sequence());
+        writeEntry(out, entry);
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(1, record.remaining() - 5);
+        int size = record.remaining();
+        write(record);
+        outstanding.put(entry.sequence(), new Outstanding(entry, size));
+        outstandingBytes += size;
+    }
+
+    private void write(ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            fileBytes += channel.write(record);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Rewrites the file to just {@code entries} and swaps it in atomically, so a crash
+     * mid-way leaves either the old or the new journal.
+     */
+    private void compact(List<InMemoryQueue.Entry> entries) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        if (channel != null) {
+            channel.close();
+        }
+        outstanding.clear();
+        fileBytes = 0;
+        outstandingBytes = 0;
+        try (FileChannel out = FileChannel.open(compacted,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            this.channel = out;
+            for (InMemoryQueue.Entry entry : entries) {
+                appendRecord(entry);
+            }
+            out.force(true);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static List<InMemoryQueue.Entry> replay(Path file) throws IOException {
+        Map<Long, InMemoryQueue.Entry> pending = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            while (true) {
+                byte type;
+                byte[] record;
+                try {
+                    type = in.readByte();
+                    record = new byte[in.readInt()];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break; // end of file, or a record torn by a crash
+                }
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                long sequence = recordIn.readLong();
+                if (type == PUBLISH) {
+                    pending.put(sequence, readEntry(recordIn, sequence));
+                } else if (type == ACK) {
+                    pending.remove(sequence);
+                } else {
+                    throw new IOException("Corrupt journal " + file + ": unknown record type " + type);
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static void writeEntry(DataOutputStream out, InMemoryQueue.Entry entry) throws IOException {
+        MessageRecords.write(out, entry.exchange(), entry.routingKey(), entry.message());
+    }
+
+    private static InMemoryQueue.Entry readEntry(DataInputStream in, long sequence) throws IOException {
+        MessageRecords.AddressedMessage record = MessageRecords.read(in);
+        return new InMemoryQueue.Entry(sequence, record.message(), record.exchange(), record.routingKey(), true);
+    }
+
+    private record Outstanding(InMemoryQueue.Entry entry, int size) {
+    }
+}
@@ -0,0 +1,62 @@
+package tech.yump.veriboard.amqp.stream;
+
+import com.rabbitmq.stream.Environment;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.rabbit.stream.config.SuperStream;
+import org.springframework.rabbit.stream.producer.RabbitStreamTemplate;
+
+/**
+ * RabbitMQ Streams support, enabled with {@code veriboard.amqp.streams.enabled=true}.
+ * <p>
+ * Declares a super stream partitioned by key and the beans to publish to and consume from
+ * it. Unlike classic queues, streams keep messages after consumption, so new consumer groups
+ * can replay history. Uses the stream {@link Environment} Spring Boot configures from
+ * {@code spring.rabbitmq.stream.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "veriboard.amqp.streams.enabled", havingValue = "true")
+public class StreamConfig {
+
+    @Value("${veriboard.amqp.streams.super-stream:customer.events}")
+    private String superStreamName;
+
+    @Value("${veriboard.amqp.streams.partitions:3}")
+    private int partitions;
+
+    @Value("${veriboard.amqp.streams.sub-entry-size:100}")
+    private int subEntrySize;
+
+    @Bean
+    public SuperStream superStream() {
+        return new SuperStream(superStreamName, partitions);
+    }
+
+    /**
+     * Producer with sub-entry batching: up to {@code sub-entry-size} messages share one
+     * entry on disk and on the wire.
+     */
+    @Bean
+    public RabbitStreamTemplate superStreamTemplate(Environment environment, MessageConverter messageConverter) {
+        RabbitStreamTemplate template = new RabbitStreamTemplate(environment, superStreamName);
+        template.setMessageConverter(messageConverter);
+        template.setSuperStreamRouting(SuperStreamPublisher::partitionKey);
+        template.setProducerCustomizer((name, builder) -> builder.subEntrySize(subEntrySize));
+        return template;
+    }
+
+    @Bean
+    public SuperStreamPublisher superStreamPublisher(RabbitStreamTemplate superStreamTemplate) {
+        return new SuperStreamPublisher(superStreamTemplate, superStreamName);
+    }
+
+    @Bean
+    public SuperStreamConsumerFactory superStreamConsumerFactory(
+            Environment environment,
+            MessageConverter messageConverter) {
+        return new SuperStreamConsumerFactory(environment, messageConverter, superStreamName, partitions);
+    }
+}
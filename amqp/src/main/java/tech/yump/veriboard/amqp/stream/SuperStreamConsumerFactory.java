@@ -0,0 +1,56 @@
+package tech.yump.veriboard.amqp.stream;
+
+import com.rabbitmq.stream.Environment;
+import com.rabbitmq.stream.OffsetSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.rabbit.stream.listener.StreamListenerContainer;
+
+import java.util.function.Consumer;
+
+/**
+ * Creates listener containers that read a super stream as a named consumer group.
+ * <p>
+ * Each partition has one active consumer per group, so a key is processed in order. The
+ * group's offset is stored on the broker as it consumes: a restarted consumer continues where
+ * the group left off, and a new group replays the stream from the beginning. Declare the
+ * returned container as a bean so it starts and stops with the application.
+ */
+@Slf4j
+public class SuperStreamConsumerFactory {
+
+    private final Environment environment;
+    private final MessageConverter messageConverter;
+    private final String superStream;
+    private final int partitions;
+
+    public SuperStreamConsumerFactory(
+            Environment environment,
+            MessageConverter messageConverter,
+            String superStream,
+            int partitions) {
+        this.environment = environment;
+        this.messageConverter = messageConverter;
+        this.superStream = superStream;
+        this.partitions = partitions;
+    }
+
+    /**
+     * @param consumerGroup name offsets are tracked under; one per projection
+     * @param type payload type the messages are converted to
+     */
+    public <T> StreamListenerContainer create(String consumerGroup, Class<T> type, Consumer<T> handler) {
+        StreamListenerContainer container = new StreamListenerContainer(environment);
+        container.superStream(superStream, consumerGroup, partitions);
+        container.setConsumerCustomizer((id, builder) -> builder
+                .offset(OffsetSpecification.first())
+                .autoTrackingStrategy()
+                .builder());
+        container.setupMessageListener(message -> {
+            message.getMessageProperties().setInferredArgumentType(type);
+            handler.accept(type.cast(messageConverter.fromMessage(message)));
+        });
+        log.info("Created consumer group {} on super stream {} with {} partitions", consumerGroup, superStream, partitions);
+        return container;
+    }
+}
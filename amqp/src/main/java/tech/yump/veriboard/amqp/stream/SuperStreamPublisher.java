@@ -0,0 +1,51 @@
+package tech.yump.veriboard.amqp.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.rabbit.stream.producer.RabbitStreamOperations;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes to a super stream, routing each message to a partition by its key, so every
+ * message for one key (e.g. a customer id) lands on the same partition, in order.
+ */
+@Slf4j
+public class SuperStreamPublisher {
+
+    /**
+     * Application property carrying the partition key.
+     */
+    public static final String PARTITION_KEY = "partitionKey";
+
+    private final RabbitStreamOperations streamOperations;
+    private final String superStream;
+
+    public SuperStreamPublisher(RabbitStreamOperations streamOperations, String superStream) {
+        this.streamOperations = streamOperations;
+        this.superStream = superStream;
+    }
+
+    /**
+     * Completes with true once the broker has confirmed the message.
+     */
+    public CompletableFuture<Boolean> publish(String partitionKey, Object payload) {
+        if (partitionKey == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Partition key is required"));
+        }
+        log.debug("Publishing to super stream {} with key {}. Payload {}", superStream, partitionKey, payload);
+        return streamOperations.convertAndSend(payload, message -> {
+            message.getMessageProperties().setHeader(PARTITION_KEY, partitionKey);
+            return message;
+        });
+    }
+
+    /**
+     * Routing function for the stream producer: the partition key set by {@link #publish}.
+     */
+    static String partitionKey(com.rabbitmq.stream.Message message) {
+        Object key = message.getApplicationProperties() == null
+                ? null
+                : message.getApplicationProperties().get(PARTITION_KEY);
+        return key == null ? "" : key.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Batched publishing against a real broker. Checks that messages are delivered and how they
+ * are batched, not how fast; there is no benchmark of batched against single publishes.
+ */
+@Testcontainers
+@DisplayName("Batching Message Producer Integration Tests with Testcontainers")
+class BatchingMessageProducerIntegrationTest {
+
+    @Container
+    static RabbitMQContainer rabbitMQContainer = new RabbitMQContainer("rabbitmq:3.13-management")
+            .withUser("test", "test")
+            .withVhost("/")
+            .withPermission("/", "test", ".*", ".*", ".*");
+
+    private static final String EXCHANGE = "batching.exchange";
+    private static final String QUEUE = "batching.queue";
+    private static final String ROUTING_KEY = "batching.routing.key";
+    private static final int MESSAGES = 20_000;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin rabbitAdmin;
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingMessageProducer batchingProducer;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new CachingConnectionFactory();
+        connectionFactory.setHost(rabbitMQContainer.getHost());
+        connectionFactory.setPort(rabbitMQContainer.getAmqpPort());
+        connectionFactory.setUsername("test");
+        connectionFactory.setPassword("test");
+        connectionFactory.setVirtualHost("/");
+
+        RabbitMQConfig rabbitMQConfig = new RabbitMQConfig(connectionFactory);
+        meterRegistry = new SimpleMeterRegistry();
+        batchingProducer = new BatchingMessageProducer(
+                rabbitMQConfig.amqpTemplate(), meterRegistry, MAX_BATCH_SIZE, Duration.ofMillis(5));
+        batchingProducer.start();
+
+        rabbitAdmin = new RabbitAdmin(connectionFactory);
+        DirectExchange exchange = new DirectExchange(EXCHANGE);
+        Queue queue = new Queue(QUEUE, true);
+        rabbitAdmin.declareExchange(exchange);
+        rabbitAdmin.declareQueue(queue);
+        Binding binding = BindingBuilder.bind(queue).to(exchange).with(ROUTING_KEY);
+        rabbitAdmin.declareBinding(binding);
+        rabbitAdmin.purgeQueue(QUEUE, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchingProducer.stop();
+        rabbitAdmin.purgeQueue(QUEUE, false);
+        connectionFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("Should deliver every batched message")
+    void publish_Batched_ShouldDeliverAllMessages() {
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            batchingProducer.publish(Map.of("sequence", i), EXCHANGE, ROUTING_KEY);
+        }
+
+        // Then
+        awaitQueueDepth(1_000);
+    }
+
+    @Test
+    @DisplayName("Should send messages in batches of up to the batch size")
+    void publish_Batched_ShouldSendFewerBatchesThanMessages() {
+        // When
+        for (int i = 0; i < MESSAGES; i++) {
+            batchingProducer.publish(Map.of("sequence", i), EXCHANGE, ROUTING_KEY);
+        }
+        batchingProducer.flush();
+
+        // Then
+        awaitQueueDepth(MESSAGES);
+        DistributionSummary batches = meterRegistry.get("amqp.publish.batch.size").summary();
+        assertThat(batches.totalAmount()).isEqualTo(MESSAGES);
+        assertThat(batches.max()).isLessThanOrEqualTo(MAX_BATCH_SIZE);
+        assertThat(batches.count()).isLessThan(MESSAGES / 10);
+    }
+
+    private void awaitQueueDepth(int expected) {
+        await().atMost(60, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(rabbitAdmin.getQueueInfo(QUEUE).getMessageCount()).isEqualTo(expected));
+    }
+}
@@ -0,0 +1,142 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Batching Message Producer Tests")
+class BatchingMessageProducerTest {
+
+    private static final String EXCHANGE = "test.exchange";
+    private static final String ROUTING_KEY = "test.routing.key";
+
+    private RabbitTemplate rabbitTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingMessageProducer producer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class))).thenAnswer(invocation ->
+                ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0)).doInRabbit(rabbitTemplate));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (producer != null && producer.isRunning()) {
+            producer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should publish a full batch over one channel as soon as it reaches the batch size")
+    void publish_WhenBatchIsFull_ShouldSendImmediately() {
+        // Given
+        producer = startedProducer(3, Duration.ofHours(1));
+
+        // When
+        producer.publish("one", EXCHANGE, ROUTING_KEY);
+        producer.publish("two", EXCHANGE, ROUTING_KEY);
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+        producer.publish("three", EXCHANGE, ROUTING_KEY);
+
+        // Then
+        var inOrder = inOrder(rabbitTemplate);
+        inOrder.verify(rabbitTemplate).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "one");
+        inOrder.verify(rabbitTemplate).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "two");
+        inOrder.verify(rabbitTemplate).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "three");
+        verify(rabbitTemplate, times(1)).invoke(any(RabbitOperations.OperationsCallback.class));
+        assertThat(meterRegistry.get("amqp.publish.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should publish a partial batch once the linger time has passed")
+    void publish_WhenLingerExpires_ShouldSendPartialBatch() {
+        // Given
+        producer = startedProducer(100, Duration.ofMillis(20));
+
+        // When
+        producer.publish("one", EXCHANGE, ROUTING_KEY);
+
+        // Then
+        verify(rabbitTemplate, timeout(2_000)).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "one");
+    }
+
+    @Test
+    @DisplayName("Should batch each exchange and routing key separately")
+    void publish_DifferentRoutingKeys_ShouldBatchSeparately() {
+        // Given
+        producer = startedProducer(2, Duration.ofHours(1));
+
+        // When
+        producer.publish("a1", EXCHANGE, "key.a");
+        producer.publish("b1", EXCHANGE, "key.b");
+        producer.publish("a2", EXCHANGE, "key.a");
+
+        // Then
+        verify(rabbitTemplate).convertAndSend(EXCHANGE, "key.a", (Object) "a1");
+        verify(rabbitTemplate).convertAndSend(EXCHANGE, "key.a", (Object) "a2");
+        verify(rabbitTemplate, never()).convertAndSend(EXCHANGE, "key.b", (Object) "b1");
+    }
+
+    @Test
+    @DisplayName("Should flush buffered messages on shutdown and publish directly afterwards")
+    void stop_ShouldFlushBufferedMessages() {
+        // Given
+        producer = startedProducer(100, Duration.ofHours(1));
+        producer.publish("buffered", EXCHANGE, ROUTING_KEY);
+
+        // When
+        producer.stop();
+        producer.publish("after", EXCHANGE, ROUTING_KEY);
+
+        // Then
+        verify(rabbitTemplate).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "buffered");
+        verify(rabbitTemplate).convertAndSend(EXCHANGE, ROUTING_KEY, (Object) "after");
+    }
+
+    @Test
+    @DisplayName("Should complete every publish of a batch once sent and fail them when the batch fails")
+    void publish_ShouldReportTheOutcomeOfItsBatch() {
+        // Given
+        producer = startedProducer(2, Duration.ofHours(1));
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(rabbitTemplate).convertAndSend(EXCHANGE, "key.down", (Object) "lost");
+
+        // When
+        CompletableFuture<Void> first = producer.publish("one", EXCHANGE, ROUTING_KEY);
+        CompletableFuture<Void> second = producer.publish("two", EXCHANGE, ROUTING_KEY);
+        CompletableFuture<Void> failed = producer.publish("lost", EXCHANGE, "key.down");
+        assertThat(failed).isNotDone();
+        producer.flush();
+
+        // Then
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(failed).isCompletedExceptionally();
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(AmqpConnectException.class);
+    }
+
+    private BatchingMessageProducer startedProducer(int maxBatchSize, Duration linger) {
+        BatchingMessageProducer batchingProducer =
+                new BatchingMessageProducer(rabbitTemplate, meterRegistry, maxBatchSize, linger);
+        batchingProducer.start();
+        return batchingProducer;
+    }
+}
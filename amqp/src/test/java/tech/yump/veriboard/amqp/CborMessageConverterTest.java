@@ -0,0 +1,123 @@
+package tech.yump.veriboard.amqp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Encoding and decoding with the CBOR converter, and its payload size against JSON. Encode and
+ * decode speed are not measured here; there is no benchmark of CBOR against JSON.
+ */
+@DisplayName("CBOR Message Converter Tests")
+class CborMessageConverterTest {
+
+    private static final String TYPE_ID = "test.notification";
+
+    private MessageTypeRegistry registry;
+    private CborMessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MessageTypeRegistry(List.of(new MessageTypeRegistration(TYPE_ID, TestNotification.class)));
+        converter = new CborMessageConverter(registry.typeMapper());
+    }
+
+    @Test
+    @DisplayName("Should round trip a registered type by its type id")
+    void roundTrip_RegisteredType_ShouldUseTypeId() {
+        // Given
+        TestNotification notification = sample();
+
+        // When
+        Message message = converter.toMessage(notification, new MessageProperties());
+
+        // Then
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(CborMessageConverter.CONTENT_TYPE);
+        assertThat(message.getMessageProperties().<String>getHeader("__TypeId__")).isEqualTo(TYPE_ID);
+        assertThat(converter.fromMessage(message)).isEqualTo(notification);
+    }
+
+    @Test
+    @DisplayName("Should prefer the listener parameter type over the header")
+    void fromMessage_WithInferredType_ShouldUseInferredType() {
+        // Given
+        Message message = converter.toMessage(sample(), new MessageProperties());
+        message.getMessageProperties().setHeader("__TypeId__", "unknown.type");
+        message.getMessageProperties().setInferredArgumentType(TestNotification.class);
+
+        // When
+        Object decoded = converter.fromMessage(message);
+
+        // Then
+        assertThat(decoded).isEqualTo(sample());
+    }
+
+    @Test
+    @DisplayName("Should refuse class-name headers for types outside the registry")
+    void fromMessage_UnregisteredClassNameHeader_ShouldFail() {
+        // Given
+        CborMessageConverter unregisteredProducer = new CborMessageConverter(new MessageTypeRegistry().typeMapper());
+        Message message = unregisteredProducer.toMessage(sample(), new MessageProperties());
+
+        // When / Then
+        assertThat(message.getMessageProperties().<String>getHeader("__TypeId__"))
+                .isEqualTo(TestNotification.class.getName());
+        assertThatThrownBy(() -> converter.fromMessage(message))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not in the trusted packages");
+    }
+
+    @Test
+    @DisplayName("Should reject conflicting registrations for one type id")
+    void registry_ConflictingRegistration_ShouldFail() {
+        assertThatThrownBy(() -> new MessageTypeRegistry(List.of(
+                new MessageTypeRegistration(TYPE_ID, TestNotification.class),
+                new MessageTypeRegistration(TYPE_ID, String.class))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail with a conversion error on a corrupt body")
+    void fromMessage_CorruptBody_ShouldThrow() {
+        // Given
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader("__TypeId__", TYPE_ID);
+        Message message = new Message(new byte[]{(byte) 0xff, 0x01}, properties);
+
+        // When / Then
+        assertThatThrownBy(() -> converter.fromMessage(message)).isInstanceOf(MessageConversionException.class);
+    }
+
+    @Test
+    @DisplayName("Should produce smaller payloads than JSON")
+    void toMessage_ShouldBeSmallerThanJson() {
+        // Given
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        json.setJavaTypeMapper(registry.typeMapper());
+        TestNotification notification = sample();
+
+        // When
+        int jsonSize = json.toMessage(notification, new MessageProperties()).getBody().length;
+        int cborSize = converter.toMessage(notification, new MessageProperties()).getBody().length;
+
+        // Then
+        assertThat(cborSize).isLessThan(jsonSize);
+    }
+
+    private static TestNotification sample() {
+        return new TestNotification(42, "jane.doe@example.com",
+                "Hi Jane, welcome to VeriBoard! We're excited to have you on board.", "BULK");
+    }
+
+    record TestNotification(Integer toCustomerId, String toCustomerEmail, String message, String priority) {
+    }
+}
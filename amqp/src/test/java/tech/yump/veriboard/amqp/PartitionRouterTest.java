@@ -0,0 +1,85 @@
+package tech.yump.veriboard.amqp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Partition Router Tests")
+class PartitionRouterTest {
+
+    @Test
+    @DisplayName("Should leave routing keys unchanged when not partitioned")
+    void routingKey_WithoutPartitions_ShouldReturnBase() {
+        // Given
+        PartitionRouter router = new PartitionRouter(0);
+
+        // When / Then
+        assertThat(router.isPartitioned()).isFalse();
+        assertThat(router.routingKey("internal.notification.routing-key", 42)).isEqualTo("internal.notification.routing-key");
+        assertThat(router.shards("internal.notification.routing-key")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should always route a key to the same shard")
+    void routingKey_SameKey_ShouldBeStable() {
+        // Given
+        PartitionRouter router = new PartitionRouter(8);
+
+        // When
+        String first = router.routingKey("key", 42);
+        String second = router.routingKey("key", 42);
+
+        // Then
+        assertThat(first).isEqualTo(second).startsWith("key.p");
+        assertThat(router.shards("key")).hasSize(8).contains(first);
+    }
+
+    @Test
+    @DisplayName("Should spread keys evenly over the partitions")
+    void partition_ShouldDistributeEvenly() {
+        // Given
+        PartitionRouter router = new PartitionRouter(8);
+        int[] counts = new int[8];
+
+        // When
+        for (int customerId = 1; customerId <= 80_000; customerId++) {
+            counts[router.partition(customerId)]++;
+        }
+
+        // Then
+        for (int count : counts) {
+            assertThat(count).isBetween(9_000, 11_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should only move keys to the new partition when a partition is added")
+    void partition_WhenGrowing_ShouldMoveMinimalKeys() {
+        // Given
+        PartitionRouter eight = new PartitionRouter(8);
+        PartitionRouter nine = new PartitionRouter(9);
+        int moved = 0;
+
+        // When
+        for (int customerId = 1; customerId <= 90_000; customerId++) {
+            int before = eight.partition(customerId);
+            int after = nine.partition(customerId);
+            if (before != after) {
+                assertThat(after).isEqualTo(8);
+                moved++;
+            }
+        }
+
+        // Then: about 1/9 of the keys
+        assertThat(moved).isBetween(9_000, 11_000);
+    }
+
+    @Test
+    @DisplayName("Should send null keys to the first partition and reject negative counts")
+    void partition_EdgeCases() {
+        assertThat(new PartitionRouter(4).partition(null)).isZero();
+        assertThatThrownBy(() -> new PartitionRouter(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,152 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Payload Compression Tests")
+class PayloadCompressionTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PayloadCompression compression;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        compression = new PayloadCompression(meterRegistry, true, THRESHOLD);
+    }
+
+    @Test
+    @DisplayName("Should compress bodies above the threshold and restore them on receive")
+    void compress_LargeBody_ShouldRoundTrip() throws Exception {
+        // Given
+        byte[] body = "{\"message\":\"Hi Jane, welcome to VeriBoard!\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Message message = message(body, "UTF-8");
+
+        // When
+        Message compressed = compression.compressor().postProcessMessage(message);
+        int compressedLength = compressed.getBody().length;
+        String compressedEncoding = compressed.getMessageProperties().getContentEncoding();
+        Message restored = compression.decompressor().postProcessMessage(compressed);
+
+        // Then
+        assertThat(compressedLength).isLessThan(body.length);
+        assertThat(compressedEncoding).isEqualTo("lz4:UTF-8");
+        assertThat(restored.getBody()).isEqualTo(body);
+        assertThat(restored.getMessageProperties().getContentEncoding()).isEqualTo("UTF-8");
+        assertThat(meterRegistry.get("amqp.compression.ratio").summary().mean()).isGreaterThan(1.0);
+        assertThat(meterRegistry.get("amqp.compression.time").tag("operation", "compress").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("amqp.compression.time").tag("operation", "decompress").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave bodies below the threshold untouched")
+    void compress_SmallBody_ShouldNotCompress() throws Exception {
+        // Given
+        Message message = message(new byte[THRESHOLD - 1], "UTF-8");
+
+        // When
+        Message result = compression.compressor().postProcessMessage(message);
+
+        // Then
+        assertThat(result).isSameAs(message);
+        assertThat(result.getMessageProperties().getContentEncoding()).isEqualTo("UTF-8");
+    }
+
+    @Test
+    @DisplayName("Should send incompressible bodies as they are")
+    void compress_IncompressibleBody_ShouldNotCompress() throws Exception {
+        // Given
+        byte[] random = new byte[THRESHOLD * 4];
+        new Random(42).nextBytes(random);
+        Message message = message(random, null);
+
+        // When
+        Message result = compression.compressor().postProcessMessage(message);
+
+        // Then
+        assertThat(result.getBody()).isEqualTo(random);
+        assertThat(result.getMessageProperties().getContentEncoding()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not compress when disabled")
+    void compress_WhenDisabled_ShouldNotCompress() throws Exception {
+        // Given
+        PayloadCompression disabled = new PayloadCompression(meterRegistry, false, THRESHOLD);
+        Message message = message(new byte[THRESHOLD * 4], "UTF-8");
+
+        // When
+        Message result = disabled.compressor().postProcessMessage(message);
+
+        // Then
+        assertThat(result).isSameAs(message);
+    }
+
+    @Test
+    @DisplayName("Should still decompress gzip messages")
+    void decompress_Gzip_ShouldRestore() throws Exception {
+        // Given
+        byte[] body = "hello".repeat(500).getBytes(StandardCharsets.UTF_8);
+        Message gzipped = new GZipPostProcessor().postProcessMessage(message(body, "UTF-8"));
+
+        // When
+        Message restored = compression.decompressor().postProcessMessage(gzipped);
+
+        // Then
+        assertThat(restored.getBody()).isEqualTo(body);
+    }
+
+    @Test
+    @DisplayName("Should fail on a corrupt lz4 body")
+    void decompress_CorruptBody_ShouldThrow() {
+        // Given
+        Message corrupt = message(new byte[]{0, 0, 16, 0, 1, 2, 3}, PayloadCompression.ENCODING);
+
+        // When / Then
+        assertThatThrownBy(() -> compression.decompressor().postProcessMessage(corrupt))
+                .isInstanceOf(AmqpException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject a length prefix beyond the configured maximum without allocating it")
+    void decompress_OversizedLengthPrefix_ShouldThrow() throws Exception {
+        // Given
+        PayloadCompression bounded = new PayloadCompression(meterRegistry, true, THRESHOLD, 4096);
+        byte[] body = "x".repeat(4 * THRESHOLD).getBytes(StandardCharsets.UTF_8);
+        Message compressed = bounded.compressor().postProcessMessage(message(body, null));
+        Message oversized = message(new byte[]{0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1, 2, 3},
+                PayloadCompression.ENCODING);
+        Message negative = message(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1, 2, 3},
+                PayloadCompression.ENCODING);
+
+        // When / Then
+        assertThat(bounded.decompressor().postProcessMessage(compressed).getBody()).isEqualTo(body);
+        assertThatThrownBy(() -> bounded.decompressor().postProcessMessage(oversized))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("at most 4096");
+        assertThatThrownBy(() -> bounded.decompressor().postProcessMessage(negative))
+                .isInstanceOf(AmqpException.class);
+    }
+
+    private static Message message(byte[] body, String contentEncoding) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentEncoding(contentEncoding);
+        return new Message(body, properties);
+    }
+}
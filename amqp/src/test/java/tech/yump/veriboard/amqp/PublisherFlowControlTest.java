@@ -0,0 +1,165 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Publisher Flow Control Tests")
+class PublisherFlowControlTest {
+
+    private static final String EXCHANGE = "internal.exchange";
+    private static final String ROUTING_KEY = "internal.notification.routing-key";
+
+    @TempDir
+    Path dir;
+
+    private final AmqpTemplate amqpTemplate = mock(AmqpTemplate.class);
+    private final Connection connection = mock(Connection.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PublisherFlowControl flowControl;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.isOpen()).thenReturn(true);
+        flowControl = new PublisherFlowControl(amqpTemplate, new SimpleMessageConverter(), meterRegistry, true,
+                dir.resolve("spill.journal"), DataSize.ofKilobytes(64), Duration.ofMillis(10));
+        flowControl.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flowControl.stop();
+    }
+
+    @Test
+    @DisplayName("Should let callers publish directly while the broker accepts publishes")
+    void spillIfBlocked_WhenNotBlocked_ShouldNotSpill() {
+        assertThat(flowControl.spillIfBlocked("payload", EXCHANGE, ROUTING_KEY)).isFalse();
+        verifyNoInteractions(amqpTemplate);
+    }
+
+    @Test
+    @DisplayName("Should spill while blocked and drain in order once unblocked")
+    void spillIfBlocked_WhenBlocked_ShouldSpillAndDrainInOrder() {
+        // Given
+        flowControl.onBlocked(new ConnectionBlockedEvent(connection, "low on memory"));
+
+        // When
+        assertThat(flowControl.spillIfBlocked("first", EXCHANGE, ROUTING_KEY)).isTrue();
+        assertThat(flowControl.spillIfBlocked("second", EXCHANGE, ROUTING_KEY)).isTrue();
+        verifyNoInteractions(amqpTemplate);
+        assertThat(meterRegistry.get("amqp.spill.messages").gauge().value()).isEqualTo(2);
+        flowControl.onUnblocked(new ConnectionUnblockedEvent(connection));
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(meterRegistry.get("amqp.spill.drained").counter().count()).isEqualTo(2));
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(amqpTemplate, times(2)).send(eq(EXCHANGE), eq(ROUTING_KEY), sent.capture());
+        assertThat(sent.getAllValues())
+                .extracting(message -> new String(message.getBody(), StandardCharsets.UTF_8))
+                .containsExactly("first", "second");
+        assertThat(sent.getValue().getMessageProperties().getTimestamp()).isNotNull();
+        assertThat(flowControl.spillIfBlocked("third", EXCHANGE, ROUTING_KEY)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should queue publishes behind spilled messages until they have drained")
+    void spillIfBlocked_WhileDraining_ShouldSpillBehindSpilled() throws InterruptedException {
+        // Given
+        CountDownLatch draining = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            draining.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(amqpTemplate).send(anyString(), anyString(), any(Message.class));
+        flowControl.onBlocked(new ConnectionBlockedEvent(connection, "low on memory"));
+        flowControl.spillIfBlocked("spilled", EXCHANGE, ROUTING_KEY);
+        flowControl.onUnblocked(new ConnectionUnblockedEvent(connection));
+        assertThat(draining.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        boolean spilled = flowControl.spillIfBlocked("later", EXCHANGE, ROUTING_KEY);
+        release.countDown();
+
+        // Then
+        assertThat(spilled).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(meterRegistry.get("amqp.spill.drained").counter().count()).isEqualTo(2));
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(amqpTemplate, times(2)).send(eq(EXCHANGE), eq(ROUTING_KEY), sent.capture());
+        assertThat(sent.getAllValues())
+                .extracting(message -> new String(message.getBody(), StandardCharsets.UTF_8))
+                .containsExactly("spilled", "later");
+        assertThat(flowControl.spillIfBlocked("direct", EXCHANGE, ROUTING_KEY)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep spilled messages and retry when republishing fails")
+    void drain_WhenSendFails_ShouldRetry() {
+        // Given
+        doThrow(new AmqpConnectException(new RuntimeException("connection refused")))
+                .doNothing()
+                .when(amqpTemplate).send(anyString(), anyString(), any(Message.class));
+        flowControl.onBlocked(new ConnectionBlockedEvent(connection, "low on memory"));
+        flowControl.spillIfBlocked("payload", EXCHANGE, ROUTING_KEY);
+
+        // When
+        flowControl.onUnblocked(new ConnectionUnblockedEvent(connection));
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(meterRegistry.get("amqp.spill.drained").counter().count()).isEqualTo(1));
+        verify(amqpTemplate, times(2)).send(eq(EXCHANGE), eq(ROUTING_KEY), any(Message.class));
+    }
+
+    @Test
+    @DisplayName("Should stop counting a connection as blocked once it has closed")
+    void isBlocked_WhenBlockedConnectionCloses_ShouldClear() {
+        // Given
+        flowControl.onBlocked(new ConnectionBlockedEvent(connection, "low on memory"));
+        assertThat(flowControl.isBlocked()).isTrue();
+
+        // When
+        when(connection.isOpen()).thenReturn(false);
+
+        // Then
+        assertThat(flowControl.isBlocked()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should never spill when disabled")
+    void disabled_ShouldNeverSpill() {
+        PublisherFlowControl disabled = new PublisherFlowControl();
+        disabled.onBlocked(new ConnectionBlockedEvent(connection, "low on memory"));
+
+        assertThat(disabled.spillIfBlocked("payload", EXCHANGE, ROUTING_KEY)).isFalse();
+        assertThat(disabled.isBlocked()).isTrue();
+    }
+}
@@ -0,0 +1,92 @@
+package tech.yump.veriboard.amqp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ThreadChannelConnectionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@DisplayName("Rabbit Connection Tuning Tests")
+class RabbitConnectionTuningTest {
+
+    private final CachingConnectionFactory connectionFactory = new CachingConnectionFactory("localhost");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("Should size the publisher channel cache apart from the consumer one")
+    void publisherSettings_ShouldApplyToPublisherConnectionOnly() {
+        // Given
+        connectionFactory.setChannelCacheSize(25);
+
+        // When
+        new RabbitConnectionTuning(connectionFactory, meterRegistry, eventPublisher, 50, Duration.ofMillis(500), false);
+
+        // Then
+        CachingConnectionFactory publisher = (CachingConnectionFactory) connectionFactory.getPublisherConnectionFactory();
+        assertThat(publisher.getChannelCacheSize()).isEqualTo(50);
+        assertThat(connectionFactory.getChannelCacheSize()).isEqualTo(25);
+        assertThat(meterRegistry.get("amqp.connection.channels.cache.size").tag("connection", "publisher")
+                .gauge().value()).isEqualTo(50);
+        assertThat(meterRegistry.get("amqp.connection.channels.cache.size").tag("connection", "consumer")
+                .gauge().value()).isEqualTo(25);
+        assertThat(meterRegistry.get("amqp.connection.channels.idle").tag("connection", "publisher")
+                .gauge().value()).isNaN();
+    }
+
+    @Test
+    @DisplayName("Should keep the inherited publisher settings when none are configured")
+    void defaults_ShouldLeavePublisherConnectionAlone() {
+        // Given
+        connectionFactory.setChannelCacheSize(25);
+        int inherited = ((CachingConnectionFactory) connectionFactory.getPublisherConnectionFactory())
+                .getChannelCacheSize();
+
+        // When
+        new RabbitConnectionTuning(connectionFactory, meterRegistry, eventPublisher, 0, Duration.ZERO, false);
+
+        // Then
+        assertThat(((CachingConnectionFactory) connectionFactory.getPublisherConnectionFactory())
+                .getChannelCacheSize()).isEqualTo(inherited);
+    }
+
+    @Test
+    @DisplayName("Should publish over thread-affine channels when enabled")
+    void threadAffine_ShouldSwapPublisherConnectionFactory() {
+        // When
+        RabbitConnectionTuning tuning =
+                new RabbitConnectionTuning(connectionFactory, meterRegistry, eventPublisher, 50, Duration.ZERO, true);
+
+        // Then
+        assertThat(connectionFactory.getPublisherConnectionFactory())
+                .isInstanceOf(ThreadChannelConnectionFactory.class);
+        assertThat(meterRegistry.find("amqp.connection.channels.cache.size").tag("connection", "publisher")
+                .gauge()).isNull();
+        tuning.destroy();
+    }
+
+    @Test
+    @DisplayName("Should leave other connection factories untouched")
+    void otherConnectionFactory_ShouldBeIgnored() {
+        ConnectionFactory other = mock(ConnectionFactory.class);
+
+        new RabbitConnectionTuning(other, meterRegistry, eventPublisher, 50, Duration.ZERO, false);
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+        verifyNoInteractions(eventPublisher);
+    }
+}
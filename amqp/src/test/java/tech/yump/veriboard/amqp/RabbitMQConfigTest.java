@@ -3,13 +3,20 @@ package tech.yump.veriboard.amqp;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 
+import java.util.Date;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 
 @DisplayName("RabbitMQ Configuration Tests")
@@ -75,7 +82,7 @@ class RabbitMQConfigTest {
         
         RabbitTemplate rabbitTemplate = (RabbitTemplate) amqpTemplate;
         assertThat(rabbitTemplate.getConnectionFactory()).isSameAs(connectionFactory);
-        assertThat(rabbitTemplate.getMessageConverter()).isInstanceOf(Jackson2JsonMessageConverter.class);
+        assertThat(rabbitTemplate.getMessageConverter()).isInstanceOf(ContentTypeDelegatingMessageConverter.class);
     }
 
     @Test
@@ -92,4 +99,68 @@ class RabbitMQConfigTest {
         assertThat(config.jacksonConverter()).isNotNull();
         assertThat(config.simpleRabbitListenerContainerFactory()).isNotNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should stamp published messages with a message id and the publish time unless already set")
+    void publishStamp_ShouldOnlySetMissingStamps() throws Exception {
+        // Given
+        Message unstamped = new Message(new byte[0], new MessageProperties());
+        MessageProperties stampedProperties = new MessageProperties();
+        Date original = new Date(0);
+        stampedProperties.setTimestamp(original);
+        stampedProperties.setHeader(RabbitMQConfig.PUBLISHED_AT_HEADER, 0L);
+        stampedProperties.setMessageId("original");
+        Message stamped = new Message(new byte[0], stampedProperties);
+
+        // When
+        RabbitMQConfig.publishStamp().postProcessMessage(unstamped);
+        RabbitMQConfig.publishStamp().postProcessMessage(stamped);
+
+        // Then
+        assertThat(unstamped.getMessageProperties().getTimestamp()).isNotNull();
+        assertThat((Long) unstamped.getMessageProperties().getHeader(RabbitMQConfig.PUBLISHED_AT_HEADER))
+                .isEqualTo(unstamped.getMessageProperties().getTimestamp().getTime());
+        assertThat(stamped.getMessageProperties().getTimestamp()).isSameAs(original);
+        assertThat((Long) stamped.getMessageProperties().getHeader(RabbitMQConfig.PUBLISHED_AT_HEADER)).isZero();
+        assertThat(unstamped.getMessageProperties().getMessageId()).isNotBlank();
+        assertThat(stamped.getMessageProperties().getMessageId()).isEqualTo("original");
+    }
+
+    @Test
+    @DisplayName("Should encode with the configured codec and decode JSON and CBOR alike")
+    void messageConverter_ShouldReadBothContentTypes() {
+        // Given
+        MessageTypeRegistry registry = new MessageTypeRegistry(
+                List.of(new MessageTypeRegistration("test.payload", TestPayload.class)));
+        PayloadCompression compression = new PayloadCompression();
+        MessageConverter jsonProducer =
+                new RabbitMQConfig(connectionFactory, registry, "application/json", compression).messageConverter();
+        MessageConverter cborProducer =
+                new RabbitMQConfig(connectionFactory, registry, "application/cbor", compression).messageConverter();
+        MessageConverter consumer =
+                new RabbitMQConfig(connectionFactory, registry, "application/json", compression).messageConverter();
+        TestPayload payload = new TestPayload(7, "hello");
+
+        // When
+        Message json = jsonProducer.toMessage(payload, new MessageProperties());
+        Message cbor = cborProducer.toMessage(payload, new MessageProperties());
+
+        // Then
+        assertThat(json.getMessageProperties().getContentType()).isEqualTo("application/json", new PayloadCompression());
+        assertThat(cbor.getMessageProperties().getContentType()).isEqualTo("application/cbor", new PayloadCompression());
+        assertThat(json.getMessageProperties().<String>getHeader("__TypeId__")).isEqualTo("test.payload");
+        assertThat(consumer.fromMessage(json)).isEqualTo(payload);
+        assertThat(consumer.fromMessage(cbor)).isEqualTo(payload);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown outgoing content types")
+    void constructor_UnknownContentType_ShouldFail() {
+        assertThatThrownBy(() -> new RabbitMQConfig(
+                connectionFactory, new MessageTypeRegistry(), "application/xml", new PayloadCompression()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    record TestPayload(Integer id, String text) {
+    }
+}
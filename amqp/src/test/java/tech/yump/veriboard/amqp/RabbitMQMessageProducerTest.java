@@ -1,15 +1,26 @@
 package tech.yump.veriboard.amqp;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -153,6 +164,116 @@ class RabbitMQMessageProducerTest {
                 .convertAndSend(TEST_EXCHANGE, TEST_ROUTING_KEY, payload);
     }
 
+    @Test
+    @DisplayName("Should complete confirmed publish with the broker ack and record latency")
+    void publishConfirmed_WhenAcked_ShouldCompleteWithDeliveredResult() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RabbitTemplate rabbitTemplate = confirmingTemplate();
+        RabbitMQMessageProducer producer = new RabbitMQMessageProducer(rabbitTemplate, meterRegistry);
+
+        // When
+        CompletableFuture<PublishResult> future = producer.publishConfirmed("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+        CorrelationData correlationData = sentCorrelation(rabbitTemplate, "payload");
+        correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        // Then
+        PublishResult result = future.join();
+        assertThat(result.delivered()).isTrue();
+        assertThat(result.correlationId()).isEqualTo(correlationData.getId());
+        assertThat(meterRegistry.get("amqp.publish.confirm.latency").tag("outcome", "ack").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("amqp.publish.nacks").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should report broker nacks and count them")
+    void publishConfirmed_WhenNacked_ShouldCompleteWithReason() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RabbitTemplate rabbitTemplate = confirmingTemplate();
+        RabbitMQMessageProducer producer = new RabbitMQMessageProducer(rabbitTemplate, meterRegistry);
+
+        // When
+        CompletableFuture<PublishResult> future = producer.publishConfirmed("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+        sentCorrelation(rabbitTemplate, "payload").getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+
+        // Then
+        PublishResult result = future.join();
+        assertThat(result.acked()).isFalse();
+        assertThat(result.reason()).isEqualTo("queue full");
+        assertThat(meterRegistry.get("amqp.publish.nacks").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not count unroutable messages as delivered")
+    void publishConfirmed_WhenReturned_ShouldNotBeDelivered() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RabbitTemplate rabbitTemplate = confirmingTemplate();
+        RabbitMQMessageProducer producer = new RabbitMQMessageProducer(rabbitTemplate, meterRegistry);
+
+        // When
+        CompletableFuture<PublishResult> future = producer.publishConfirmed("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+        CorrelationData correlationData = sentCorrelation(rabbitTemplate, "payload");
+        correlationData.setReturned(new ReturnedMessage(
+                new Message(new byte[0], new MessageProperties()), 312, "NO_ROUTE", TEST_EXCHANGE, TEST_ROUTING_KEY));
+        correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        // Then
+        PublishResult result = future.join();
+        assertThat(result.acked()).isTrue();
+        assertThat(result.delivered()).isFalse();
+        assertThat(meterRegistry.get("amqp.publish.returns").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail fast when publisher confirms are not enabled")
+    void publishConfirmed_WithoutConfirms_ShouldFail() {
+        // Given
+        RabbitMQMessageProducer producer = new RabbitMQMessageProducer(mockAmqpTemplate, new SimpleMeterRegistry());
+
+        // When
+        CompletableFuture<PublishResult> future = producer.publishConfirmed("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+
+        // Then
+        assertThat(future).isCompletedExceptionally();
+        verifyNoInteractions(mockAmqpTemplate);
+    }
+
+    @Test
+    @DisplayName("Should spill instead of publishing while the broker blocks publishers")
+    void publish_WhenBrokerBlocks_ShouldSpill() {
+        // Given
+        PublisherFlowControl flowControl = mock(PublisherFlowControl.class);
+        when(flowControl.spillIfBlocked("payload", TEST_EXCHANGE, TEST_ROUTING_KEY)).thenReturn(true);
+        when(flowControl.isBlocked()).thenReturn(true);
+        RabbitMQMessageProducer producer =
+                new RabbitMQMessageProducer(mockAmqpTemplate, new SimpleMeterRegistry(), flowControl);
+
+        // When
+        producer.publish("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+        CompletableFuture<PublishResult> confirmed = producer.publishConfirmed("payload", TEST_EXCHANGE, TEST_ROUTING_KEY);
+
+        // Then
+        verifyNoInteractions(mockAmqpTemplate);
+        assertThat(confirmed).isCompletedExceptionally();
+    }
+
+    private static RabbitTemplate confirmingTemplate() {
+        RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        return rabbitTemplate;
+    }
+
+    private static CorrelationData sentCorrelation(RabbitTemplate rabbitTemplate, Object payload) {
+        ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate).convertAndSend(eq(TEST_EXCHANGE), eq(TEST_ROUTING_KEY), eq(payload), correlation.capture());
+        return correlation.getValue();
+    }
+
     // Test message class for object serialization tests
     public static class TestMessage {
         private String id;
@@ -0,0 +1,120 @@
+package tech.yump.veriboard.amqp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Spill Journal Tests")
+class SpillJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static Message message(String body) {
+        return MessageBuilder.withBody(body.getBytes(StandardCharsets.UTF_8))
+                .setContentType("application/json")
+                .setHeader("__TypeId__", "notification.request")
+                .build();
+    }
+
+    private static String body(MessageRecords.AddressedMessage record) {
+        return new String(record.message().getBody(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should return spilled messages in order and reclaim space once drained")
+    void appendPeekRemove_ShouldBeFifo() {
+        // Given
+        SpillJournal journal = new SpillJournal(dir.resolve("spill.journal"), 4096);
+
+        // When
+        journal.append("internal.exchange", "key.p0", message("first"));
+        journal.append("internal.exchange", "key.p1", message("second"));
+
+        // Then
+        assertThat(journal.size()).isEqualTo(2);
+        MessageRecords.AddressedMessage first = journal.peek();
+        assertThat(body(first)).isEqualTo("first");
+        assertThat(first.exchange()).isEqualTo("internal.exchange");
+        assertThat(first.routingKey()).isEqualTo("key.p0");
+        assertThat(first.message().getMessageProperties().getContentType()).isEqualTo("application/json");
+        journal.remove();
+        assertThat(body(journal.peek())).isEqualTo("second");
+        journal.remove();
+        assertThat(journal.isEmpty()).isTrue();
+        assertThat(journal.bytes()).isZero();
+        assertThat(journal.peek()).isNull();
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should fail instead of growing beyond its capacity")
+    void append_WhenFull_ShouldFail() {
+        // Given
+        SpillJournal journal = new SpillJournal(dir.resolve("spill.journal"), 300);
+        journal.append("exchange", "key", message("x".repeat(100)));
+
+        // When / Then
+        assertThatThrownBy(() -> journal.append("exchange", "key", message("y".repeat(100))))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("full");
+        journal.remove();
+        journal.append("exchange", "key", message("y".repeat(100)));
+        assertThat(journal.size()).isEqualTo(1);
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should reuse drained space while messages are still pending")
+    void append_AfterRemove_ShouldWrapAround() {
+        // Given
+        Path file = dir.resolve("spill.journal");
+        SpillJournal journal = new SpillJournal(file, 512);
+        journal.append("exchange", "key", message("message-0"));
+
+        // When
+        for (int i = 1; i <= 100; i++) {
+            journal.append("exchange", "key", message("message-" + i));
+            assertThat(body(journal.peek())).isEqualTo("message-" + (i - 1));
+            journal.remove();
+        }
+        journal.close();
+        SpillJournal reopened = new SpillJournal(file, 512);
+
+        // Then
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(body(reopened.peek())).isEqualTo("message-100");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should find undrained messages again after a restart")
+    void reopen_ShouldRecoverUndrainedMessages() {
+        // Given
+        Path file = dir.resolve("spill.journal");
+        SpillJournal journal = new SpillJournal(file, 4096);
+        journal.append("exchange", "key", message("drained"));
+        journal.append("exchange", "key", message("pending"));
+        journal.remove();
+        journal.close();
+
+        // When
+        SpillJournal reopened = new SpillJournal(file, 4096);
+
+        // Then
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(body(reopened.peek())).isEqualTo("pending");
+        assertThat((String) reopened.peek().message().getMessageProperties().getHeader("__TypeId__"))
+                .isEqualTo("notification.request");
+        reopened.close();
+    }
+}
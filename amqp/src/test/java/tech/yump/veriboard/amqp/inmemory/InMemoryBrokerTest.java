@@ -0,0 +1,155 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("In-Memory Broker Tests")
+class InMemoryBrokerTest {
+
+    private static InMemoryBroker broker(int capacity, Path journalDir) {
+        return new InMemoryBroker(capacity, Duration.ofMillis(20), journalDir, false, new SimpleMeterRegistry());
+    }
+
+    private static Message message(String body) {
+        return MessageBuilder.withBody(body.getBytes(StandardCharsets.UTF_8))
+                .setContentType("text/plain")
+                .setHeader("__TypeId__", "notification.request")
+                .setTimestamp(new Date(1_700_000_000_000L))
+                .build();
+    }
+
+    private static String body(InMemoryQueue.Entry entry) {
+        return new String(entry.message().getBody(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should route topic exchanges by pattern")
+    void publish_TopicExchange_ShouldMatchPatterns() {
+        // Given
+        InMemoryBroker broker = broker(16, null);
+        TopicExchange exchange = new TopicExchange("internal.exchange");
+        Queue exact = new Queue("exact");
+        Queue anyShard = new Queue("any-shard");
+        Queue everything = new Queue("everything");
+        broker.declare(exchange);
+        broker.declare(BindingBuilder.bind(exact).to(exchange).with("internal.notification"));
+        broker.declare(BindingBuilder.bind(anyShard).to(exchange).with("internal.notification.*"));
+        broker.declare(BindingBuilder.bind(everything).to(exchange).with("internal.#"));
+
+        // When
+        int toExact = broker.publish("internal.exchange", "internal.notification", message("a"));
+        int toShard = broker.publish("internal.exchange", "internal.notification.p1", message("b"));
+        int toNone = broker.publish("internal.exchange", "other.notification", message("c"));
+
+        // Then
+        assertThat(toExact).isEqualTo(2);
+        assertThat(toShard).isEqualTo(2);
+        assertThat(toNone).isZero();
+        assertThat(body(broker.queue("exact").poll())).isEqualTo("a");
+        assertThat(body(broker.queue("any-shard").poll())).isEqualTo("b");
+        assertThat(broker.queue("everything").depth()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should route direct, fanout and default exchanges")
+    void publish_OtherExchangeTypes_ShouldRoute() {
+        // Given
+        InMemoryBroker broker = broker(16, null);
+        DirectExchange direct = new DirectExchange("direct");
+        FanoutExchange fanout = new FanoutExchange("fanout");
+        broker.declare(direct);
+        broker.declare(fanout);
+        broker.declare(BindingBuilder.bind(new Queue("one")).to(direct).with("key"));
+        broker.declare(BindingBuilder.bind(new Queue("one")).to(fanout));
+        broker.declare(BindingBuilder.bind(new Queue("two")).to(fanout));
+
+        // When / Then
+        assertThat(broker.publish("direct", "key", message("x"))).isEqualTo(1);
+        assertThat(broker.publish("direct", "key.other", message("x"))).isZero();
+        assertThat(broker.publish("fanout", "anything", message("x"))).isEqualTo(2);
+        assertThat(broker.publish("", "two", message("x"))).isEqualTo(1);
+        assertThat(broker.publish("missing", "key", message("x"))).isZero();
+        assertThat(broker.queue("one").depth()).isEqualTo(2);
+        assertThat(broker.queue("two").depth()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should fail a publish once the queue stays full")
+    void publish_WhenQueueFull_ShouldFail() {
+        // Given
+        InMemoryBroker broker = broker(2, null);
+        broker.queue("small");
+        broker.publish("", "small", message("1"));
+        broker.publish("", "small", message("2"));
+
+        // When / Then
+        assertThatThrownBy(() -> broker.publish("", "small", message("3")))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("full");
+    }
+
+    @Test
+    @DisplayName("Should recover unacknowledged messages from the journal after a restart")
+    void journal_ShouldRecoverUnackedMessages(@TempDir Path journalDir) {
+        // Given
+        InMemoryBroker broker = broker(16, journalDir);
+        broker.declareExchange("internal.exchange", ExchangeTypes.TOPIC);
+        broker.bind("notification.queue", "internal.exchange", "internal.notification.#");
+        broker.publish("internal.exchange", "internal.notification", message("acked"));
+        broker.publish("internal.exchange", "internal.notification.p2", message("pending"));
+        InMemoryQueue queue = broker.queue("notification.queue");
+        queue.ack(queue.poll());
+        queue.poll(); // delivered but never acknowledged
+        broker.close();
+
+        // When
+        InMemoryBroker restarted = broker(16, journalDir);
+        InMemoryQueue.Entry recovered = restarted.queue("notification.queue").poll();
+
+        // Then
+        assertThat(body(recovered)).isEqualTo("pending");
+        assertThat(recovered.redelivered()).isTrue();
+        assertThat(recovered.routingKey()).isEqualTo("internal.notification.p2");
+        assertThat(recovered.message().getMessageProperties().getContentType()).isEqualTo("text/plain");
+        assertThat(recovered.message().getMessageProperties().getTimestamp()).isEqualTo(new Date(1_700_000_000_000L));
+        assertThat((String) recovered.message().getMessageProperties().getHeader("__TypeId__"))
+                .isEqualTo("notification.request");
+        assertThat(restarted.queue("notification.queue").poll()).isNull();
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should match AMQP topic wildcards")
+    void topicMatches() {
+        assertThat(matches("a.*.c", "a.b.c")).isTrue();
+        assertThat(matches("a.*", "a.b.c")).isFalse();
+        assertThat(matches("a.#", "a")).isTrue();
+        assertThat(matches("#.c", "a.b.c")).isTrue();
+        assertThat(matches("#", "")).isTrue();
+        assertThat(matches("a.#.c", "a.c")).isTrue();
+        assertThat(matches("a.b", "a.bc")).isFalse();
+    }
+
+    private static boolean matches(String pattern, String routingKey) {
+        return InMemoryBroker.topicMatches(pattern.split("\\.", -1), 0, routingKey.split("\\.", -1), 0);
+    }
+}
@@ -0,0 +1,163 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("In-Memory Listener Container Tests")
+class InMemoryListenerContainerTest {
+
+    private final InMemoryBroker broker =
+            new InMemoryBroker(64, Duration.ofMillis(20), null, false, new SimpleMeterRegistry());
+    private InMemoryListenerContainer container;
+
+    @AfterEach
+    void tearDown() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    private static Message message(String body) {
+        return MessageBuilder.withBody(body.getBytes()).build();
+    }
+
+    private static Thread consumerThread(String listenerId) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("in-memory-listener-" + listenerId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should stop delivering at the prefetch limit until deliveries are acked")
+    void manualAck_ShouldRespectPrefetch() {
+        // Given
+        List<Long> deliveryTags = new CopyOnWriteArrayList<>();
+        container = new InMemoryListenerContainer(broker, AcknowledgeMode.MANUAL, 2);
+        container.setQueueNames("work");
+        container.setupMessageListener((ChannelAwareMessageListener) (message, channel) ->
+                deliveryTags.add(message.getMessageProperties().getDeliveryTag()));
+        container.start();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            broker.publish("", "work", message("m" + i));
+        }
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(deliveryTags).hasSize(2));
+        assertThat(broker.queue("work").depth()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should redeliver nacked messages with the redelivered flag set")
+    void nackWithRequeue_ShouldRedeliver() {
+        // Given
+        List<Message> deliveries = new CopyOnWriteArrayList<>();
+        container = new InMemoryListenerContainer(broker, AcknowledgeMode.MANUAL, 10);
+        container.setQueueNames("work");
+        container.setupMessageListener((ChannelAwareMessageListener) (message, channel) -> {
+            deliveries.add(message);
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            if (message.getMessageProperties().isRedelivered()) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                channel.basicNack(deliveryTag, false, true);
+            }
+        });
+        container.start();
+
+        // When
+        broker.publish("", "work", message("retry me"));
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(2));
+        assertThat(deliveries.get(1).getMessageProperties().isRedelivered()).isTrue();
+        assertThat(deliveries.get(1).getMessageProperties().getConsumerQueue()).isEqualTo("work");
+        assertThat(broker.queue("work").depth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should requeue unacknowledged deliveries when stopped")
+    void stop_ShouldRequeueUnacked() {
+        // Given
+        List<Message> deliveries = new CopyOnWriteArrayList<>();
+        container = new InMemoryListenerContainer(broker, AcknowledgeMode.MANUAL, 10);
+        container.setQueueNames("work");
+        container.setupMessageListener((ChannelAwareMessageListener) (message, channel) -> deliveries.add(message));
+        container.start();
+        broker.publish("", "work", message("never acked"));
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(1));
+
+        // When
+        container.stop();
+
+        // Then
+        assertThat(broker.queue("work").depth()).isEqualTo(1);
+        assertThat(broker.queue("work").poll().redelivered()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should park while idle and wake as soon as a message is published")
+    void idle_ShouldParkUntilPublish() {
+        // Given: a first delivery warms up the publish and delivery paths
+        List<Message> deliveries = new CopyOnWriteArrayList<>();
+        container = new InMemoryListenerContainer(broker, AcknowledgeMode.AUTO, 10);
+        container.setQueueNames("work");
+        container.setListenerId("idle");
+        container.setupMessageListener(deliveries::add);
+        container.start();
+        broker.publish("", "work", message("warm up"));
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(1));
+        Thread consumer = consumerThread("idle");
+        await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.getState() == Thread.State.TIMED_WAITING);
+
+        // When
+        broker.publish("", "work", message("wake up"));
+
+        // Then: well within the idle park timeout, so the publish itself woke the consumer
+        await().atMost(300, TimeUnit.MILLISECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(2));
+    }
+
+    @Test
+    @DisplayName("Should resume delivering at the prefetch limit as soon as a delivery is acked")
+    void manualAck_AtPrefetchLimit_ShouldWakeOnAck() throws Exception {
+        // Given
+        List<Message> deliveries = new CopyOnWriteArrayList<>();
+        List<Channel> channels = new CopyOnWriteArrayList<>();
+        container = new InMemoryListenerContainer(broker, AcknowledgeMode.MANUAL, 1);
+        container.setQueueNames("work");
+        container.setListenerId("prefetch");
+        container.setupMessageListener((ChannelAwareMessageListener) (message, channel) -> {
+            deliveries.add(message);
+            channels.add(channel);
+        });
+        container.start();
+        broker.publish("", "work", message("first"));
+        broker.publish("", "work", message("second"));
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(1));
+        Thread consumer = consumerThread("prefetch");
+        await().atMost(5, TimeUnit.SECONDS).until(() -> consumer.getState() == Thread.State.TIMED_WAITING);
+
+        // When
+        channels.get(0).basicAck(deliveries.get(0).getMessageProperties().getDeliveryTag(), false);
+
+        // Then
+        await().atMost(300, TimeUnit.MILLISECONDS).untilAsserted(() -> assertThat(deliveries).hasSize(2));
+    }
+}
@@ -0,0 +1,129 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import tech.yump.veriboard.amqp.PublishResult;
+import tech.yump.veriboard.amqp.RabbitMQMessageProducer;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringJUnitConfig
+@TestPropertySource(properties = "veriboard.amqp.transport=in-memory")
+@DisplayName("In-Memory Transport Configuration Tests")
+class InMemoryTransportConfigTest {
+
+    @Configuration
+    @EnableRabbit
+    @Import(InMemoryTransportConfig.class)
+    static class TestConfig {
+
+        /**
+         * Converts {@code @Value} durations like Spring Boot does.
+         */
+        @Bean
+        static ConversionService conversionService() {
+            return new ApplicationConversionService();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        MessageConverter messageConverter() {
+            return new SimpleMessageConverter();
+        }
+
+        @Bean
+        Declarables notificationBindings() {
+            TopicExchange exchange = new TopicExchange("internal.exchange");
+            Queue queue = new Queue("notification.queue");
+            return new Declarables(exchange, queue,
+                    BindingBuilder.bind(queue).to(exchange).with("internal.notification.#"));
+        }
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener {
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final List<Date> timestamps = new CopyOnWriteArrayList<>();
+
+        @RabbitListener(queues = "notification.queue", ackMode = "MANUAL")
+        void consume(String payload,
+                     @Header(AmqpHeaders.TIMESTAMP) Date publishedAt,
+                     Channel channel,
+                     @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+            received.add(payload);
+            timestamps.add(publishedAt);
+            channel.basicAck(deliveryTag, false);
+        }
+    }
+
+    @Autowired
+    private AmqpTemplate amqpTemplate;
+
+    @Autowired
+    private RecordingListener recordingListener;
+
+    @Autowired
+    private InMemoryBroker inMemoryBroker;
+
+    @Test
+    @DisplayName("Should deliver published messages to @RabbitListener methods and confirm them")
+    void publish_ShouldReachRabbitListener() throws Exception {
+        // Given
+        RabbitMQMessageProducer producer = new RabbitMQMessageProducer(amqpTemplate, new SimpleMeterRegistry());
+
+        // When
+        producer.publish("first", "internal.exchange", "internal.notification.p0");
+        PublishResult confirmed = producer.publishConfirmed("second", "internal.exchange", "internal.notification")
+                .get(5, TimeUnit.SECONDS);
+        PublishResult unroutable = producer.publishConfirmed("lost", "internal.exchange", "elsewhere")
+                .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(amqpTemplate).isInstanceOf(InMemoryAmqpTemplate.class);
+        assertThat(confirmed.acked()).isTrue();
+        assertThat(confirmed.returned()).isNull();
+        assertThat(unroutable.returned()).isNotNull();
+        await().atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(recordingListener.received).containsExactly("first", "second"));
+        assertThat(recordingListener.timestamps).doesNotContainNull();
+        assertThat(inMemoryBroker.queue("notification.queue").depth()).isZero();
+    }
+}
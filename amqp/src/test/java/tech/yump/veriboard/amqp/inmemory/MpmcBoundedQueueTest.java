@@ -0,0 +1,89 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MPMC Bounded Queue Tests")
+class MpmcBoundedQueueTest {
+
+    @Test
+    @DisplayName("Should return elements in FIFO order and refuse offers when full")
+    void offerAndPoll_ShouldBeFifoAndBounded() {
+        // Given
+        MpmcBoundedQueue<Integer> queue = new MpmcBoundedQueue<>(3);
+
+        // When
+        for (int i = 0; i < queue.capacity(); i++) {
+            assertThat(queue.offer(i)).isTrue();
+        }
+
+        // Then
+        assertThat(queue.capacity()).isEqualTo(4);
+        assertThat(queue.offer(99)).isFalse();
+        assertThat(queue.size()).isEqualTo(4);
+        assertThat(queue.poll()).isZero();
+        assertThat(queue.offer(4)).isTrue();
+        assertThat(List.of(queue.poll(), queue.poll(), queue.poll(), queue.poll())).containsExactly(1, 2, 3, 4);
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should hand every element to exactly one consumer under contention")
+    void concurrentProducersAndConsumers_ShouldNotLoseOrDuplicate() throws InterruptedException {
+        // Given
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 50_000;
+        MpmcBoundedQueue<Integer> queue = new MpmcBoundedQueue<>(1024);
+        ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+        List<Thread> threads = new ArrayList<>();
+
+        // When
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    Integer element = queue.poll();
+                    if (element == null) {
+                        Thread.onSpinWait();
+                    } else {
+                        consumed.incrementAndGet();
+                        if (seen.put(element, Boolean.TRUE) != null) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        // Then
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(duplicates).hasValue(0);
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(queue.poll()).isNull();
+    }
+}
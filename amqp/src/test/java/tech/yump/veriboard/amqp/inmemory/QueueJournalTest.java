@@ -0,0 +1,68 @@
+package tech.yump.veriboard.amqp.inmemory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Queue Journal Tests")
+class QueueJournalTest {
+
+    private static final long COMPACT_THRESHOLD = 4096;
+
+    private static InMemoryQueue.Entry entry(long sequence) {
+        return new InMemoryQueue.Entry(sequence,
+                MessageBuilder.withBody(("message-" + sequence).getBytes(StandardCharsets.UTF_8)).build(),
+                "internal.exchange", "internal.notification", false);
+    }
+
+    @Test
+    @DisplayName("Should stay bounded while one message is always outstanding")
+    void ack_WithOutstandingMessage_ShouldCompact(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("queue.journal");
+        QueueJournal journal = new QueueJournal(file, false, COMPACT_THRESHOLD);
+        journal.append(entry(0));
+
+        // When
+        for (long sequence = 1; sequence <= 1_000; sequence++) {
+            journal.append(entry(sequence));
+            journal.ack(sequence - 1);
+        }
+
+        // Then
+        assertThat(journal.size()).isLessThan(2 * COMPACT_THRESHOLD);
+        assertThat(Files.size(file)).isEqualTo(journal.size());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should recover only unacknowledged messages after compaction")
+    void recovered_AfterCompaction_ShouldKeepOutstandingMessages(@TempDir Path dir) {
+        // Given
+        Path file = dir.resolve("queue.journal");
+        QueueJournal journal = new QueueJournal(file, false, COMPACT_THRESHOLD);
+        journal.append(entry(0));
+        for (long sequence = 1; sequence <= 500; sequence++) {
+            journal.append(entry(sequence));
+            if (sequence != 250) {
+                journal.ack(sequence);
+            }
+        }
+        journal.close();
+
+        // When
+        QueueJournal reopened = new QueueJournal(file, false, COMPACT_THRESHOLD);
+
+        // Then
+        assertThat(reopened.recovered()).extracting(InMemoryQueue.Entry::sequence).containsExactly(0L, 250L);
+        assertThat(reopened.recovered()).allMatch(InMemoryQueue.Entry::redelivered);
+        reopened.close();
+    }
+}
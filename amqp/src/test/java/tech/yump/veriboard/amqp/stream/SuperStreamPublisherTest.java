@@ -0,0 +1,74 @@
+package tech.yump.veriboard.amqp.stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.rabbit.stream.producer.RabbitStreamOperations;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Super Stream Publisher Tests")
+class SuperStreamPublisherTest {
+
+    @Mock
+    private RabbitStreamOperations streamOperations;
+
+    @Test
+    @DisplayName("Should tag the message with its partition key and return the confirm future")
+    void publish_ShouldSetPartitionKey() throws Exception {
+        // Given
+        SuperStreamPublisher publisher = new SuperStreamPublisher(streamOperations, "customer.events");
+        CompletableFuture<Boolean> confirm = CompletableFuture.completedFuture(true);
+        when(streamOperations.convertAndSend(eq("payload"), any(MessagePostProcessor.class))).thenReturn(confirm);
+
+        // When
+        CompletableFuture<Boolean> result = publisher.publish("42", "payload");
+
+        // Then
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(streamOperations).convertAndSend(eq("payload"), postProcessor.capture());
+        Message message = postProcessor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        assertThat(message.getMessageProperties().<String>getHeader(SuperStreamPublisher.PARTITION_KEY)).isEqualTo("42");
+        assertThat(result).isSameAs(confirm);
+    }
+
+    @Test
+    @DisplayName("Should refuse messages without a partition key")
+    void publish_WithoutKey_ShouldFail() {
+        // Given
+        SuperStreamPublisher publisher = new SuperStreamPublisher(streamOperations, "customer.events");
+
+        // When
+        CompletableFuture<Boolean> result = publisher.publish(null, "payload");
+
+        // Then
+        assertThat(result).isCompletedExceptionally();
+        verifyNoInteractions(streamOperations);
+    }
+
+    @Test
+    @DisplayName("Should route by the partition key application property")
+    void partitionKey_ShouldReadApplicationProperty() {
+        // Given
+        com.rabbitmq.stream.Message keyed = mock(com.rabbitmq.stream.Message.class);
+        when(keyed.getApplicationProperties()).thenReturn(Map.of(SuperStreamPublisher.PARTITION_KEY, "42"));
+        com.rabbitmq.stream.Message unkeyed = mock(com.rabbitmq.stream.Message.class);
+
+        // When / Then
+        assertThat(SuperStreamPublisher.partitionKey(keyed)).isEqualTo("42");
+        assertThat(SuperStreamPublisher.partitionKey(unkeyed)).isEmpty();
+    }
+}
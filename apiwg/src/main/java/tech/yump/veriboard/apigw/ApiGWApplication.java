@@ -3,7 +3,12 @@ package tech.yump.veriboard.apigw;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(
+        scanBasePackages = {
+                "tech.yump.veriboard.apigw",
+                "tech.yump.veriboard.clients.loadbalancer"
+        }
+)
 public class ApiGWApplication {
     public static void main(String[] args) {
         SpringApplication.run(ApiGWApplication.class, args);
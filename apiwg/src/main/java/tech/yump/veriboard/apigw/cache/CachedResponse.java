@@ -0,0 +1,75 @@
+package tech.yump.veriboard.apigw.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A response held by the {@link ResponseCache}, with the freshness it was stored under.
+ *
+ * @param storedAt {@link System#nanoTime()} when the response was received or last revalidated
+ * @param maxAge how long the response is served without asking the origin
+ * @param staleWhileRevalidate how long after that it is still served while one request revalidates it
+ */
+public record CachedResponse(
+        HttpStatusCode status,
+        HttpHeaders headers,
+        byte[] body,
+        String etag,
+        long storedAt,
+        Duration maxAge,
+        Duration staleWhileRevalidate,
+        AtomicBoolean revalidating) {
+
+    public CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String etag,
+                          long storedAt, Duration maxAge, Duration staleWhileRevalidate) {
+        this(status, HttpHeaders.readOnlyHttpHeaders(headers), body, etag, storedAt, maxAge, staleWhileRevalidate,
+                new AtomicBoolean());
+    }
+
+    public boolean isFresh(long now) {
+        return now - storedAt < maxAge.toNanos();
+    }
+
+    /**
+     * Whether the response is stale but may still be served while it is being revalidated.
+     */
+    public boolean isServableStale(long now) {
+        return !isFresh(now) && now - storedAt < lifetime().toNanos();
+    }
+
+    /**
+     * Claims the revalidation of a stale response; only one request at a time wins.
+     */
+    public boolean tryRevalidate() {
+        return revalidating.compareAndSet(false, true);
+    }
+
+    public void revalidated() {
+        revalidating.set(false);
+    }
+
+    public long ageSeconds(long now) {
+        return Duration.ofNanos(now - storedAt).toSeconds();
+    }
+
+    public Duration lifetime() {
+        return maxAge.plus(staleWhileRevalidate);
+    }
+
+    /**
+     * Approximate heap footprint, for the cache's size bound.
+     */
+    public int weight() {
+        return body.length + headers.size() * 64;
+    }
+
+    /**
+     * The same response, fresh again after the origin confirmed it has not changed.
+     */
+    public CachedResponse refreshed(long now, Duration maxAge, Duration staleWhileRevalidate) {
+        return new CachedResponse(status, headers, body, etag, now, maxAge, staleWhileRevalidate);
+    }
+}
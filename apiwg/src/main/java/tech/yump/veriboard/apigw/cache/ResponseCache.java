@@ -0,0 +1,246 @@
+package tech.yump.veriboard.apigw.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded store of gateway responses, shared by every route using the
+ * {@code ResponseCache} filter.
+ * <p>
+ * Caffeine evicts by W-TinyLFU within {@code veriboard.gateway.response-cache.max-size},
+ * weighing entries by body size, and drops each entry once neither fresh nor servable
+ * stale. Invalidation removes everything at or below a path, found through an index of the
+ * stored keys by path. A response whose request started before an invalidation of its path
+ * is not stored, so a read racing a write cannot put the old representation back; the most
+ * recent invalidations are remembered for that, and once one is forgotten every response
+ * whose request started before it is dropped.
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private static final int REMEMBERED_INVALIDATIONS = 10_000;
+
+    private final Cache<Key, CachedResponse> entries;
+    private final NavigableMap<String, Set<Key>> keysByPath = new TreeMap<>();
+    private final Cache<Scope, Long> invalidations;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong forgottenGeneration = new AtomicLong();
+    private final long maxEntrySize;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param maxSize total body bytes to keep
+     * @param maxEntrySize largest body stored; bigger responses pass through uncached
+     */
+    @Autowired
+    public ResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.gateway.response-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${veriboard.gateway.response-cache.max-entry-size:1MB}") DataSize maxEntrySize) {
+        this(meterRegistry, maxSize, maxEntrySize, System::nanoTime);
+    }
+
+    ResponseCache(MeterRegistry meterRegistry, DataSize maxSize, DataSize maxEntrySize, LongSupplier nanoClock) {
+        this.maxEntrySize = maxEntrySize.toBytes();
+        this.nanoClock = nanoClock;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, CachedResponse response) -> response.weight())
+                .expireAfter(new LifetimeExpiry())
+                .ticker(nanoClock::getAsLong)
+                .evictionListener((Key key, CachedResponse response, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+        this.invalidations = Caffeine.newBuilder()
+                .maximumSize(REMEMBERED_INVALIDATIONS)
+                .evictionListener((Scope scope, Long invalidated, RemovalCause cause) ->
+                        forgottenGeneration.accumulateAndGet(invalidated, Math::max))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.response");
+    }
+
+    public CachedResponse get(Key key) {
+        return entries.getIfPresent(key);
+    }
+
+    /**
+     * Marks the start of an origin request; pass the result to {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the response unless its path was invalidated since {@code generation}.
+     */
+    public void put(Key key, CachedResponse response, long generation) {
+        if (generation < forgottenGeneration.get() || invalidatedSince(key.path(), generation)) {
+            return;
+        }
+        entries.asMap().compute(key, (k, previous) -> {
+            index(k);
+            return response;
+        });
+    }
+
+    public boolean fits(long size) {
+        return size <= maxEntrySize;
+    }
+
+    public long now() {
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * Removes the responses for {@code path} and every path below it.
+     *
+     * @return the number of responses removed
+     */
+    public int invalidate(String path) {
+        return invalidate(path, List.of(new Scope(trimmed(path), true)));
+    }
+
+    /**
+     * Removes what a write to {@code path} may have changed: the resource, everything below
+     * it, and the collection directly above it.
+     */
+    public int invalidateAfterWrite(String path) {
+        String trimmed = trimmed(path);
+        String parent = trimmed.substring(0, Math.max(0, trimmed.lastIndexOf('/')));
+        return invalidate(path, List.of(new Scope(trimmed, true), new Scope(parent, false)));
+    }
+
+    private int invalidate(String path, List<Scope> scopes) {
+        long invalidated = generation.incrementAndGet();
+        scopes.forEach(scope -> invalidations.put(scope, invalidated));
+        List<Key> matching = new ArrayList<>();
+        synchronized (keysByPath) {
+            for (Scope scope : scopes) {
+                removeIndexed(matching, keysByPath.remove(scope.path()));
+                if (scope.subtree()) {
+                    // '0' follows '/', so this is every path below scope.path()
+                    NavigableMap<String, Set<Key>> below = keysByPath.subMap(scope.path() + "/", true,
+                            scope.path() + "0", false);
+                    below.values().forEach(keys -> removeIndexed(matching, keys));
+                    below.clear();
+                }
+            }
+        }
+        entries.invalidateAll(matching);
+        log.debug("Invalidated {} cached responses for {}", matching.size(), path);
+        return matching.size();
+    }
+
+    public void invalidateAll() {
+        long invalidated = generation.incrementAndGet();
+        invalidations.put(new Scope("", true), invalidated);
+        synchronized (keysByPath) {
+            keysByPath.clear();
+        }
+        entries.invalidateAll();
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Whether an invalidation after {@code generation} covered {@code path}, itself or
+     * through one of its ancestors.
+     */
+    private boolean invalidatedSince(String path, long generation) {
+        if (isAfter(invalidations.getIfPresent(new Scope(path, false)), generation)) {
+            return true;
+        }
+        String prefix = path;
+        while (true) {
+            if (isAfter(invalidations.getIfPresent(new Scope(prefix, true)), generation)) {
+                return true;
+            }
+            int slash = prefix.lastIndexOf('/');
+            if (slash < 0) {
+                return false;
+            }
+            prefix = prefix.substring(0, slash);
+        }
+    }
+
+    private static boolean isAfter(Long invalidated, long generation) {
+        return invalidated != null && invalidated > generation;
+    }
+
+    private void index(Key key) {
+        synchronized (keysByPath) {
+            keysByPath.computeIfAbsent(key.path(), path -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void unindex(Key key) {
+        synchronized (keysByPath) {
+            Set<Key> keys = keysByPath.get(key.path());
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByPath.remove(key.path());
+            }
+        }
+    }
+
+    private static void removeIndexed(List<Key> removed, Collection<Key> keys) {
+        if (keys != null) {
+            removed.addAll(keys);
+        }
+    }
+
+    private static String trimmed(String path) {
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * Identifies a stored response: the resource plus the request headers it may vary by.
+     */
+    public record Key(String routeId, String path, String query, String accept, String acceptEncoding) {
+    }
+
+    /**
+     * An invalidated path, alone or with everything below it.
+     */
+    private record Scope(String path, boolean subtree) {
+    }
+
+    private static final class LifetimeExpiry implements Expiry<Key, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(Key key, CachedResponse response, long currentTime) {
+            return response.lifetime().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.lifetime().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Key key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package tech.yump.veriboard.apigw.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Invalidation hook for changes that do not pass through the gateway, such as a consumer
+ * of customer-changed events: {@code DELETE /actuator/responsecache?path=/api/v1/customers/42}
+ * drops that customer's responses, and without {@code path} everything is dropped.
+ */
+@Component
+@Endpoint(id = "responsecache")
+public class ResponseCacheEndpoint {
+
+    private final ResponseCache cache;
+
+    public ResponseCacheEndpoint(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> size() {
+        return Map.of("entries", cache.size());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> invalidate(@Nullable String path) {
+        if (path == null) {
+            cache.invalidateAll();
+            return Map.of("invalidated", "all");
+        }
+        return Map.of("invalidated", cache.invalidate(path));
+    }
+}
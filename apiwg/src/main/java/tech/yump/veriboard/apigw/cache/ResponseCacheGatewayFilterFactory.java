@@ -0,0 +1,342 @@
+package tech.yump.veriboard.apigw.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.yump.veriboard.apigw.coalesce.RequestCoalescingGatewayFilterFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Serves repeated GETs from the {@link ResponseCache} instead of the origin.
+ * <p>
+ * Responses are stored under the origin's {@code Cache-Control} ({@code s-maxage},
+ * {@code max-age}, {@code stale-while-revalidate}), falling back to the route's
+ * {@code ttl} and {@code staleWhileRevalidate}; {@code no-store}, {@code private},
+ * {@code no-cache}, cookies and requests carrying credentials (the route's
+ * {@code credentialHeaders}: {@code Authorization}, {@code X-API-Key} and {@code Cookie} by
+ * default) bypass the cache. Stored responses get an ETag if the origin sent none, and
+ * clients revalidating with a matching {@code If-None-Match} get a 304. Once stale, one request revalidates with the origin
+ * while the others are still served the stale copy. A successful write through the route
+ * invalidates the resource, everything below it and its parent collection.
+ * <p>
+ * {@code X-Cache} tells whether a response was a {@code HIT}, {@code STALE},
+ * {@code REVALIDATED} or {@code MISS}.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Set<String> UNSTORED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.AGE.toLowerCase(Locale.ROOT),
+            CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+    private static final Set<String> CACHEABLE_VARY = Set.of("accept", "accept-encoding");
+
+    private final ResponseCache cache;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache cache) {
+        super(Config.class);
+        this.cache = cache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "staleWhileRevalidate");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+            if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+                return chain.filter(exchange);
+            }
+            if (!HttpMethod.GET.equals(method)) {
+                return chain.filter(exchange).then(Mono.fromRunnable(() -> invalidateAfterWrite(exchange)));
+            }
+            String requestCacheControl = request.getHeaders().getCacheControl();
+            if (hasAny(request.getHeaders(), config.getCredentialHeaders())
+                    || hasDirective(requestCacheControl, "no-store")) {
+                return chain.filter(exchange);
+            }
+
+            ResponseCache.Key key = key(exchange);
+            long now = cache.now();
+            String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            CachedResponse cached = hasDirective(requestCacheControl, "no-cache") ? null : cache.get(key);
+            if (cached != null) {
+                if (cached.isFresh(now)) {
+                    return write(exchange.getResponse(), cached, "HIT", now, ifNoneMatch);
+                }
+                if (cached.isServableStale(now) && !cached.tryRevalidate()) {
+                    return write(exchange.getResponse(), cached, "STALE", now, ifNoneMatch);
+                }
+            }
+
+            ServerWebExchange forwarded = exchange;
+            if (cached != null && cached.etag() != null) {
+                forwarded = exchange.mutate()
+                        .request(builder -> builder.headers(headers -> headers.set(HttpHeaders.IF_NONE_MATCH, cached.etag())))
+                        .build();
+            }
+            CachingResponse response = new CachingResponse(
+                    exchange.getResponse(), config, key, cached, ifNoneMatch, cache.generation());
+            Mono<Void> result = chain.filter(forwarded.mutate().response(response).build());
+            return cached == null ? result : result.doFinally(signal -> cached.revalidated());
+        };
+    }
+
+    private void invalidateAfterWrite(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status != null && !status.isError()) {
+            cache.invalidateAfterWrite(exchange.getRequest().getPath().value());
+        }
+    }
+
+    private static ResponseCache.Key key(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        return new ResponseCache.Key(
+                route == null ? "" : route.getId(),
+                request.getPath().value(),
+                request.getURI().getRawQuery(),
+                String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT)),
+                String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    /**
+     * Writes a stored response, or a 304 when the client already holds it.
+     */
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached, String cacheStatus,
+                                    long now, String ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(now)));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        if (etagMatches(ifNoneMatch, cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Origin freshness for a response that may be stored, or null if it must not be.
+     */
+    static Freshness freshness(HttpHeaders headers, Config config) {
+        String cacheControl = headers.getCacheControl();
+        if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "private")
+                || hasDirective(cacheControl, "no-cache") || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        for (String vary : headers.getVary()) {
+            if (!CACHEABLE_VARY.contains(vary.toLowerCase(Locale.ROOT))) {
+                return null;
+            }
+        }
+        Duration maxAge = directiveSeconds(cacheControl, "s-maxage");
+        if (maxAge == null) {
+            maxAge = directiveSeconds(cacheControl, "max-age");
+        }
+        Duration staleWhileRevalidate = directiveSeconds(cacheControl, "stale-while-revalidate");
+        Freshness freshness = new Freshness(
+                maxAge == null ? config.getTtl() : maxAge,
+                staleWhileRevalidate == null ? config.getStaleWhileRevalidate() : staleWhileRevalidate);
+        return freshness.maxAge().isPositive() || freshness.staleWhileRevalidate().isPositive() ? freshness : null;
+    }
+
+    private static boolean hasAny(HttpHeaders headers, List<String> names) {
+        for (String name : names) {
+            if (headers.containsKey(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String token : cacheControl.split(",")) {
+            String name = token.trim().toLowerCase(Locale.ROOT);
+            int equals = name.indexOf('=');
+            if ((equals < 0 ? name : name.substring(0, equals).trim()).equals(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Duration directiveSeconds(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String token : cacheControl.split(",")) {
+            String[] parts = token.trim().split("=", 2);
+            if (parts.length == 2 && parts[0].trim().equalsIgnoreCase(directive)) {
+                try {
+                    return Duration.ofSeconds(Long.parseLong(parts[1].trim().replace("\"", "")));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaque = withoutWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || withoutWeakPrefix(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static HttpHeaders storedHeaders(HttpHeaders headers) {
+        HttpHeaders stored = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        return stored;
+    }
+
+    record Freshness(Duration maxAge, Duration staleWhileRevalidate) {
+    }
+
+    /**
+     * Captures the origin's answer: stores cacheable 200s and turns a 304 to a
+     * revalidation into the refreshed stored response.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final Config config;
+        private final ResponseCache.Key key;
+        private final CachedResponse cached;
+        private final String ifNoneMatch;
+        private final long generation;
+
+        CachingResponse(ServerHttpResponse delegate, Config config, ResponseCache.Key key, CachedResponse cached,
+                        String ifNoneMatch, long generation) {
+            super(delegate);
+            this.config = config;
+            this.key = key;
+            this.cached = cached;
+            this.ifNoneMatch = ifNoneMatch;
+            this.generation = generation;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (cached != null && HttpStatus.NOT_MODIFIED.isSameCodeAs(status)) {
+                Freshness freshness = freshness(getHeaders(), config);
+                CachedResponse refreshed = freshness == null
+                        ? cached.refreshed(cache.now(), cached.maxAge(), cached.staleWhileRevalidate())
+                        : cached.refreshed(cache.now(), freshness.maxAge(), freshness.staleWhileRevalidate());
+                cache.put(key, refreshed, generation);
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(write(getDelegate(), refreshed, "REVALIDATED", cache.now(), ifNoneMatch));
+            }
+            Freshness freshness = HttpStatus.OK.isSameCodeAs(status) ? freshness(getHeaders(), config) : null;
+            if (freshness == null || !cache.fits(Math.max(0, getHeaders().getContentLength()))) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body)
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> store(status, freshness, bytes));
+        }
+
+        private Mono<Void> store(HttpStatusCode status, Freshness freshness, byte[] bytes) {
+            HttpHeaders headers = getHeaders();
+            if (cache.fits(bytes.length)) {
+                if (headers.getETag() == null) {
+                    headers.setETag("W/\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+                }
+                cache.put(key, new CachedResponse(status, storedHeaders(headers), bytes, headers.getETag(),
+                        cache.now(), freshness.maxAge(), freshness.staleWhileRevalidate()), generation);
+            }
+            headers.set(CACHE_STATUS_HEADER, "MISS");
+            if (etagMatches(ifNoneMatch, headers.getETag())) {
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                return getDelegate().setComplete();
+            }
+            return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+
+        /**
+         * How long responses stay fresh when the origin does not say.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * How long stale responses are still served while one request revalidates, when
+         * the origin does not say.
+         */
+        private Duration staleWhileRevalidate = Duration.ZERO;
+
+        /**
+         * Request headers carrying credentials; requests with any of them bypass the cache.
+         */
+        private List<String> credentialHeaders = RequestCoalescingGatewayFilterFactory.CREDENTIAL_HEADERS;
+    }
+}
@@ -0,0 +1,359 @@
+package tech.yump.veriboard.apigw.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses concurrent identical GETs into one upstream request ("single flight"): the
+ * first request for a key goes upstream and every identical request arriving while it is
+ * in flight waits for its response instead.
+ * <p>
+ * Requests are identical when route, path, query, {@code Accept}, {@code Accept-Encoding}
+ * and the route's {@code scopeHeaders} (by default the credentials) match, so callers only
+ * ever share responses with callers holding the same credentials. At most
+ * {@code maxWaiters} requests wait for one flight; the rest, those still waiting after
+ * {@code timeout}, and those whose leader failed or got a response that cannot be shared
+ * (streamed, larger than {@code veriboard.gateway.coalescing.max-response-size}, or
+ * setting cookies) send their own request.
+ * <p>
+ * Conditional and range requests ({@code If-None-Match}, {@code If-Modified-Since},
+ * {@code Range}, ...) are never coalesced, and {@code 304} and {@code 206} responses are
+ * never shared: their meaning depends on what the leader already had, so an unconditional
+ * follower would get an empty or partial body.
+ * <p>
+ * Shared responses carry {@code X-Coalesced: true}.
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    /**
+     * Request headers that carry the caller's credentials.
+     */
+    public static final List<String> CREDENTIAL_HEADERS =
+            List.of(HttpHeaders.AUTHORIZATION, "X-API-Key", HttpHeaders.COOKIE);
+
+    /**
+     * Request headers that make the response depend on what the caller already has.
+     */
+    private static final List<String> CONDITIONAL_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE,
+            HttpHeaders.IF_MATCH,
+            HttpHeaders.IF_UNMODIFIED_SINCE,
+            HttpHeaders.IF_RANGE,
+            HttpHeaders.RANGE);
+
+    private static final Set<String> UNSHARED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT));
+
+    private final MeterRegistry meterRegistry;
+    private final long maxResponseSize;
+
+    /**
+     * @param maxResponseSize largest response body that is buffered and shared
+     */
+    public RequestCoalescingGatewayFilterFactory(
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.gateway.coalescing.max-response-size:1MB}") DataSize maxResponseSize) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.maxResponseSize = maxResponseSize.toBytes();
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeout", "maxWaiters");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new CoalescingFilter(config);
+    }
+
+    record Key(String routeId, String path, String query, String accept, String acceptEncoding, List<String> scope) {
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * One upstream request and the requests waiting for its response.
+     */
+    private static final class Flight {
+
+        private final Sinks.One<SharedResponse> response = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        void share(SharedResponse shared) {
+            response.tryEmitValue(shared);
+        }
+
+        /**
+         * Lets waiters go their own way; does nothing once the response was shared.
+         */
+        void abandon() {
+            response.tryEmitEmpty();
+        }
+    }
+
+    private final class CoalescingFilter implements GatewayFilter {
+
+        private final Config config;
+        private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+        private final Counter led;
+        private final Counter coalesced;
+        private final Counter overflowed;
+        private final Counter timedOut;
+        private final Counter unshared;
+
+        CoalescingFilter(Config config) {
+            this.config = config;
+            String route = Objects.requireNonNullElse(config.getRouteId(), "unknown");
+            this.led = outcome(route, "leader");
+            this.coalesced = outcome(route, "coalesced");
+            this.overflowed = outcome(route, "overflow");
+            this.timedOut = outcome(route, "timeout");
+            this.unshared = outcome(route, "unshared");
+            Gauge.builder("gateway.coalesce.flights", flights, Map::size)
+                    .description("Upstream requests other identical requests may currently wait for")
+                    .tag("route", route)
+                    .register(meterRegistry);
+        }
+
+        private Counter outcome(String route, String outcome) {
+            return Counter.builder("gateway.coalesce.requests")
+                    .description("GETs by whether they went upstream or waited for an identical one")
+                    .tag("route", route)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!HttpMethod.GET.equals(request.getMethod()) || isConditional(request.getHeaders())) {
+                return chain.filter(exchange);
+            }
+            Key key = key(exchange, config.getScopeHeaders());
+            return Mono.defer(() -> {
+                Flight flight = new Flight();
+                Flight inFlight = flights.putIfAbsent(key, flight);
+                return inFlight == null ? lead(exchange, chain, key, flight) : follow(exchange, chain, inFlight);
+            });
+        }
+
+        private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, Key key, Flight flight) {
+            led.increment();
+            SharingResponse response = new SharingResponse(exchange.getResponse(), () -> flights.remove(key, flight),
+                    flight);
+            return chain.filter(exchange.mutate().response(response).build())
+                    .doFinally(signal -> {
+                        flights.remove(key, flight);
+                        flight.abandon();
+                    });
+        }
+
+        private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight) {
+            if (flight.waiters.incrementAndGet() > config.getMaxWaiters()) {
+                flight.waiters.decrementAndGet();
+                overflowed.increment();
+                return chain.filter(exchange);
+            }
+            return flight.response.asMono()
+                    .timeout(config.getTimeout())
+                    .onErrorResume(TimeoutException.class, e -> {
+                        timedOut.increment();
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> flight.waiters.decrementAndGet())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> {
+                        if (shared.isEmpty()) {
+                            unshared.increment();
+                            return chain.filter(exchange);
+                        }
+                        coalesced.increment();
+                        return write(exchange.getResponse(), shared.get());
+                    });
+        }
+    }
+
+    private static boolean isConditional(HttpHeaders headers) {
+        for (String header : CONDITIONAL_HEADERS) {
+            if (headers.containsKey(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether waiters may be given the response; a 304 or 206 only makes sense to the leader.
+     */
+    private static boolean isShareable(HttpStatusCode status, HttpHeaders headers) {
+        return !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && (status == null
+                || !(status.isSameCodeAs(HttpStatus.NOT_MODIFIED) || status.isSameCodeAs(HttpStatus.PARTIAL_CONTENT)));
+    }
+
+    static Key key(ServerWebExchange exchange, List<String> scopeHeaders) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        List<String> scope = new ArrayList<>(scopeHeaders.size());
+        for (String header : scopeHeaders) {
+            scope.add(String.join(",", headers.getOrEmpty(header)));
+        }
+        return new Key(
+                route == null ? "" : route.getId(),
+                request.getPath().value(),
+                request.getURI().getRawQuery(),
+                String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT)),
+                String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)),
+                scope);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        headers.set(COALESCED_HEADER, "true");
+        headers.setContentLength(shared.body().length);
+        response.setStatusCode(shared.status());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static HttpHeaders sharedHeaders(HttpHeaders headers) {
+        HttpHeaders shared = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!UNSHARED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                shared.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(shared);
+    }
+
+    /**
+     * Buffers the leader's response and hands a copy to the waiters before writing it.
+     */
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final Runnable land;
+        private final Flight flight;
+
+        SharingResponse(ServerHttpResponse delegate, Runnable land, Flight flight) {
+            super(delegate);
+            this.land = land;
+            this.flight = flight;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            land.run();
+            HttpHeaders headers = getHeaders();
+            if (!isShareable(getStatusCode(), headers) || headers.getContentLength() > maxResponseSize) {
+                flight.abandon();
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body)
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        if (bytes.length <= maxResponseSize) {
+                            flight.share(new SharedResponse(getStatusCode(), sharedHeaders(headers), bytes));
+                        } else {
+                            flight.abandon();
+                        }
+                        return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            land.run();
+            flight.abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            land.run();
+            if (!isCommitted() && isShareable(getStatusCode(), getHeaders())) {
+                flight.share(new SharedResponse(getStatusCode(), sharedHeaders(getHeaders()), new byte[0]));
+            } else {
+                flight.abandon();
+            }
+            return super.setComplete();
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        /**
+         * How long a request waits for an identical one before sending its own.
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * Most requests waiting for one upstream request.
+         */
+        private int maxWaiters = 200;
+
+        /**
+         * Request headers that must match for requests to share a response.
+         */
+        private List<String> scopeHeaders = CREDENTIAL_HEADERS;
+    }
+}
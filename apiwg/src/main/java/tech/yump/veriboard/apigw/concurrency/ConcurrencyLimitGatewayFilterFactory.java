@@ -0,0 +1,124 @@
+package tech.yump.veriboard.apigw.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import tech.yump.veriboard.clients.limit.GradientConcurrencyLimit;
+
+import java.util.Objects;
+
+/**
+ * Caps the requests a route has in flight with a {@link GradientConcurrencyLimit} that
+ * adapts to the upstream's measured latency, and answers anything above it with an
+ * immediate {@code 503} and {@code Retry-After} instead of letting it queue.
+ * <p>
+ * The time until the response is complete is the latency sample; upstream errors and 5xx
+ * responses, including the customer service shedding load itself, count as drops.
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new ConcurrencyLimitFilter(config);
+    }
+
+    private final class ConcurrencyLimitFilter implements GatewayFilter {
+
+        private final GradientConcurrencyLimit limit;
+        private final Counter rejected;
+
+        ConcurrencyLimitFilter(Config config) {
+            this.limit = new GradientConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(),
+                    config.getMaxLimit(), config.getTolerance(), config.getSmoothing(), config.getLongWindow());
+            String route = Objects.requireNonNullElse(config.getRouteId(), "unknown");
+            Gauge.builder("gateway.concurrency.limit", limit, GradientConcurrencyLimit::limit)
+                    .description("Requests the route may currently have in flight")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in.flight", limit, GradientConcurrencyLimit::inFlight)
+                    .description("Requests the route has in flight")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("gateway.concurrency.rejected")
+                    .description("Requests turned away because the route was at its concurrency limit")
+                    .tag("route", route)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            GradientConcurrencyLimit.Permit permit = limit.tryAcquire();
+            if (permit == null) {
+                rejected.increment();
+                ServerWebExchangeUtils.setResponseStatus(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange).doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    permit.ignore();
+                    return;
+                }
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                if (signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError())) {
+                    permit.dropped();
+                } else {
+                    permit.success();
+                }
+            });
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 200;
+
+        /**
+         * How much slower than usual responses may get before the limit shrinks.
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Weight of each new limit estimate.
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Responses the usual latency is averaged over.
+         */
+        private int longWindow = 600;
+    }
+}
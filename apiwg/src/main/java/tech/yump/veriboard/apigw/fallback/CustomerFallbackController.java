@@ -0,0 +1,140 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Target of the customer route's circuit breaker fallback.
+ * <p>
+ * Registrations are handed to the {@link RegistrationFallback} and answered with
+ * {@code 202 Accepted} and a tracking id; everything else, and registrations arriving
+ * while the journal is full, get a {@code 503} in the customer service's error format.
+ * The registration body is taken from the route's {@code CacheRequestBody} filter, as the
+ * failed upstream call has already consumed the request. Credential headers are not
+ * journaled, since the segments are plain files; replays reach the customer service without
+ * them.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class CustomerFallbackController {
+
+    static final String REGISTRATION_PATH = "/api/v1/customers";
+    static final String RETRY_AFTER_SECONDS = "30";
+
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            RegistrationFallback.IDEMPOTENCY_KEY_HEADER);
+
+    private final RegistrationFallback registrationFallback;
+
+    @RequestMapping("/fallback/customer")
+    public Mono<ResponseEntity<Map<String, Object>>> fallback(ServerWebExchange exchange) {
+        String path = originalPath(exchange);
+        if (!HttpMethod.POST.equals(exchange.getRequest().getMethod()) || !REGISTRATION_PATH.equals(path)) {
+            return Mono.just(unavailable(path));
+        }
+        return body(exchange)
+                // Appending may map a new journal segment or force it to disk, so off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .map(body -> {
+                    String trackingId = registrationFallback.accept(replayedHeaders(exchange.getRequest().getHeaders()),
+                            body);
+                    return trackingId == null ? unavailable(path) : accepted(trackingId, path);
+                })
+                .defaultIfEmpty(unavailable(path));
+    }
+
+    private static ResponseEntity<Map<String, Object>> accepted(String trackingId, String path) {
+        log.info("Customer service unavailable; registration {} journaled for replay", trackingId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.ACCEPTED.value());
+        response.put("trackingId", trackingId);
+        response.put("message", "The registration has been received and will be processed once the service is available.");
+        response.put("path", path);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    private static ResponseEntity<Map<String, Object>> unavailable(String path) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("error", "Service Temporarily Unavailable");
+        response.put("message", "The service is temporarily unavailable. Please try again later.");
+        response.put("path", path);
+        response.put("retryAfter", RETRY_AFTER_SECONDS);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(response);
+    }
+
+    /**
+     * The path the client asked for, before the gateway forwarded it here.
+     */
+    private static String originalPath(ServerWebExchange exchange) {
+        Set<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        if (originalUrls == null || originalUrls.isEmpty()) {
+            return exchange.getRequest().getPath().value();
+        }
+        return originalUrls.iterator().next().getRawPath();
+    }
+
+    private static Mono<byte[]> body(ServerWebExchange exchange) {
+        Object cached = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        if (cached instanceof String body) {
+            return body.isEmpty() ? Mono.empty() : Mono.just(body.getBytes(StandardCharsets.UTF_8));
+        }
+        if (cached instanceof DataBuffer buffer) {
+            // Still owned by the gateway, so copied without moving its read position
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, bytes.length);
+            return bytes.length == 0 ? Mono.empty() : Mono.just(bytes);
+        }
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .filter(bytes -> bytes.length > 0)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private static Map<String, String> replayedHeaders(HttpHeaders headers) {
+        Map<String, String> replayed = new LinkedHashMap<>();
+        for (String header : REPLAYED_HEADERS) {
+            String value = headers.getFirst(header);
+            if (value != null) {
+                replayed.put(header, value);
+            }
+        }
+        return replayed;
+    }
+}
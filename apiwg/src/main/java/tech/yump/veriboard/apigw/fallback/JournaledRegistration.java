@@ -0,0 +1,55 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A registration accepted while the customer service was unavailable, as kept in the
+ * {@link RegistrationJournal}.
+ *
+ * @param headers the request headers that are replayed with it
+ */
+record JournaledRegistration(String trackingId, Instant receivedAt, Map<String, String> headers, byte[] body) {
+
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(trackingId);
+            out.writeLong(receivedAt.toEpochMilli());
+            out.writeShort(headers.size());
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournaledRegistration fromBytes(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            String trackingId = in.readUTF();
+            Instant receivedAt = Instant.ofEpochMilli(in.readLong());
+            int headerCount = in.readUnsignedShort();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(in.readUTF(), in.readUTF());
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new JournaledRegistration(trackingId, receivedAt, headers, body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Store-and-forward for customer registrations while the customer service is unavailable.
+ * <p>
+ * Registrations the {@code customer-cb} circuit breaker turns away are appended to a
+ * memory-mapped {@link RegistrationJournal} and acknowledged with a tracking id. One
+ * thread replays them in order at no more than {@code replay-rate} per second, and only
+ * when the breaker permits a call, so replays double as its half-open probes and never
+ * hit a service it considers down. Each replay carries the client's
+ * {@code Idempotency-Key}, or the tracking id if it sent none, so a registration the
+ * customer service did receive before failing is not created twice.
+ * <p>
+ * Replays answered with a 4xx other than 408 or 429 are dropped as rejected; any other
+ * failure leaves the registration at the head of the journal and retries after
+ * {@code retry-interval}.
+ * <p>
+ * Registrations already answered with 202 are only replayed if the journal outlives the
+ * process, so {@code journal-dir} must be on persistent storage and named after an
+ * identity the replica keeps across restarts and rescheduling: {@code REPLICA_ID}, e.g. a
+ * StatefulSet pod name, or else the server port. A host name that changes with every pod
+ * would strand the old journal. The journal holds request bodies but no credentials.
+ */
+@Slf4j
+@Component
+public class RegistrationFallback implements SmartLifecycle {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final RegistrationJournal journal;
+    private final WebClient webClient;
+    private final URI target;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration pace;
+    private final Duration retryInterval;
+    private final Duration timeout;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService drainer;
+    private final Counter accepted;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    private volatile boolean running;
+
+    /**
+     * @param journalDir directory of the journal segments; each replica needs its own on persistent
+     *                   storage, by default under {@code VERIBOARD_DATA_DIR} and named after {@code REPLICA_ID}
+     *                   or the port
+     * @param segmentSize size of each memory-mapped journal segment
+     * @param replayRate most registrations replayed per second
+     * @param timeout how long a replay may take before it counts as failed
+     */
+    @Autowired
+    public RegistrationFallback(
+            LoadBalancedExchangeFilterFunction loadBalancerFunction,
+            WebClient.Builder webClientBuilder,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.gateway.registration-fallback.journal-dir:${VERIBOARD_DATA_DIR:${user.home}/.veriboard}"
+                    + "/gateway-registrations/${REPLICA_ID:${server.port:8083}}}") Path journalDir,
+            @Value("${veriboard.gateway.registration-fallback.segment-size:8MB}") DataSize segmentSize,
+            @Value("${veriboard.gateway.registration-fallback.max-segments:16}") int maxSegments,
+            @Value("${veriboard.gateway.registration-fallback.force:false}") boolean force,
+            @Value("${veriboard.gateway.registration-fallback.target-uri:http://customer/api/v1/customers}") URI target,
+            @Value("${veriboard.gateway.registration-fallback.circuit-breaker:customer-cb}") String circuitBreaker,
+            @Value("${veriboard.gateway.registration-fallback.replay-rate:20}") int replayRate,
+            @Value("${veriboard.gateway.registration-fallback.retry-interval:5s}") Duration retryInterval,
+            @Value("${veriboard.gateway.registration-fallback.timeout:10s}") Duration timeout) {
+        this(new RegistrationJournal(journalDir, Math.toIntExact(segmentSize.toBytes()), maxSegments, force),
+                webClientBuilder.clone().filter(loadBalancerFunction).build(),
+                target,
+                circuitBreakerRegistry.circuitBreaker(circuitBreaker),
+                meterRegistry,
+                Duration.ofSeconds(1).dividedBy(Math.max(1, replayRate)),
+                retryInterval,
+                timeout);
+    }
+
+    RegistrationFallback(RegistrationJournal journal, WebClient webClient, URI target, CircuitBreaker circuitBreaker,
+                         MeterRegistry meterRegistry, Duration pace, Duration retryInterval, Duration timeout) {
+        this.journal = journal;
+        this.webClient = webClient;
+        this.target = target;
+        this.circuitBreaker = circuitBreaker;
+        this.pace = pace;
+        this.retryInterval = retryInterval;
+        this.timeout = timeout;
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "registration-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("gateway.registration.journal.pending", journal, RegistrationJournal::size)
+                .description("Registrations waiting to be replayed to the customer service")
+                .register(meterRegistry);
+        Gauge.builder("gateway.registration.journal.segments", journal, RegistrationJournal::segmentCount)
+                .description("Segment files the registration journal uses")
+                .register(meterRegistry);
+        this.accepted = Counter.builder("gateway.registration.accepted")
+                .description("Registrations journaled while the customer service was unavailable")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("gateway.registration.replayed")
+                .description("Journaled registrations the customer service accepted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("gateway.registration.rejected")
+                .description("Journaled registrations the customer service refused")
+                .register(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() != CircuitBreaker.State.OPEN) {
+                scheduleDrain(0);
+            }
+        });
+    }
+
+    /**
+     * Journals a registration for replay.
+     *
+     * @param headers request headers to replay with it
+     * @return its tracking id, or null if the journal is full
+     */
+    public String accept(Map<String, String> headers, byte[] body) {
+        String trackingId = UUID.randomUUID().toString();
+        if (!journal.append(new JournaledRegistration(trackingId, Instant.now(), headers, body))) {
+            log.warn("Registration journal is full; refusing registration");
+            return null;
+        }
+        accepted.increment();
+        scheduleDrain(retryInterval.toMillis());
+        return trackingId;
+    }
+
+    public int pending() {
+        return journal.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!journal.isEmpty()) {
+            log.info("Replaying {} registrations journaled before the last shutdown", journal.size());
+            scheduleDrain(0);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        drainer.shutdownNow();
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drainer.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    /**
+     * Replays the oldest registration, then schedules the next one.
+     */
+    void drain() {
+        drainScheduled.set(false);
+        JournaledRegistration next = journal.peek();
+        if (next == null) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            scheduleDrain(retryInterval.toMillis());
+            return;
+        }
+        long start = System.nanoTime();
+        HttpStatusCode status;
+        try {
+            status = replay(next);
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            log.warn("Replaying registration {} failed, retrying in {}: {}", next.trackingId(), retryInterval,
+                    e.getMessage());
+            scheduleDrain(retryInterval.toMillis());
+            return;
+        }
+        if (retryable(status)) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS,
+                    new IllegalStateException("Customer service answered " + status.value()));
+            log.warn("Customer service answered {} to registration {}, retrying in {}", status.value(),
+                    next.trackingId(), retryInterval);
+            scheduleDrain(retryInterval.toMillis());
+            return;
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        journal.remove();
+        if (status.is2xxSuccessful()) {
+            replayed.increment();
+        } else {
+            rejected.increment();
+            log.warn("Customer service refused registration {} received at {} with {}", next.trackingId(),
+                    next.receivedAt(), status.value());
+        }
+        scheduleDrain(pace.toMillis());
+    }
+
+    private HttpStatusCode replay(JournaledRegistration registration) {
+        return webClient.post()
+                .uri(target)
+                .headers(headers -> {
+                    registration.headers().forEach(headers::set);
+                    headers.putIfAbsent(IDEMPOTENCY_KEY_HEADER, List.of(registration.trackingId()));
+                })
+                .bodyValue(registration.body())
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                .block(timeout);
+    }
+
+    private static boolean retryable(HttpStatusCode status) {
+        return status.is5xxServerError()
+                || status.value() == HttpStatus.REQUEST_TIMEOUT.value()
+                || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+}
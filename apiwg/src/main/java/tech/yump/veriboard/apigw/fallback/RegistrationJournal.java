@@ -0,0 +1,283 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only FIFO of {@link JournaledRegistration}s in memory-mapped segment files.
+ * <p>
+ * Records go to the newest segment; when it is full a new one is started, up to
+ * {@code maxSegments}, after which appends are refused. A separate cursor file keeps the
+ * position of the oldest unreplayed record, and a segment is deleted once the cursor has
+ * moved past it, so the journal only ever needs sequential writes. Each segment header
+ * keeps its write position, so records are found again after a restart. Without
+ * {@code force} writes land in the page cache and survive a crash of the JVM but not of
+ * the machine; with it every append is flushed to disk.
+ */
+class RegistrationJournal implements AutoCloseable {
+
+    private static final int SEGMENT_MAGIC = 0x5247_4a31; // "RGJ1"
+    private static final int CURSOR_MAGIC = 0x5247_4331; // "RGC1"
+    private static final int HEADER_SIZE = 64;
+    private static final int WRITE_POSITION_OFFSET = 4;
+    private static final int CURSOR_SIZE = 16;
+    private static final int CURSOR_SEGMENT_OFFSET = 4;
+    private static final int CURSOR_POSITION_OFFSET = 12;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean force;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final FileChannel cursorChannel;
+    private final MappedByteBuffer cursor;
+    private int readPosition;
+    private int pending;
+
+    /**
+     * @param segmentSize size of each mapped segment file in bytes, header included
+     * @param force whether to flush every append to disk
+     */
+    RegistrationJournal(Path directory, int segmentSize, int maxSegments, boolean force) {
+        if (segmentSize <= HEADER_SIZE || maxSegments < 1) {
+            throw new IllegalArgumentException("Registration journal needs at least one segment larger than "
+                    + HEADER_SIZE + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.force = force;
+        try {
+            Files.createDirectories(directory);
+            this.cursorChannel = FileChannel.open(directory.resolve("cursor"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.cursor = cursorChannel.map(FileChannel.MapMode.READ_WRITE, 0, CURSOR_SIZE);
+            long cursorSegment = cursor.getInt(0) == CURSOR_MAGIC ? cursor.getLong(CURSOR_SEGMENT_OFFSET) : -1;
+            for (Path file : segmentFiles()) {
+                long sequence = sequence(file);
+                if (sequence < cursorSegment) {
+                    Files.delete(file);
+                } else {
+                    segments.addLast(Segment.open(file, sequence, segmentSize));
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.addLast(Segment.open(segmentFile(Math.max(0, cursorSegment)), Math.max(0, cursorSegment),
+                        segmentSize));
+            }
+            Segment head = segments.peekFirst();
+            this.readPosition = head.sequence == cursorSegment
+                    ? Math.min(cursor.getInt(CURSOR_POSITION_OFFSET), head.writePosition)
+                    : HEADER_SIZE;
+            writeCursor();
+            this.pending = countPending();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return false if the journal has no room for the registration
+     */
+    synchronized boolean append(JournaledRegistration registration) {
+        byte[] record = registration.toBytes();
+        int length = Integer.BYTES + record.length;
+        if (length > segmentSize - HEADER_SIZE) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail.writePosition + length > tail.buffer.capacity()) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            long sequence = tail.sequence + 1;
+            tail = Segment.open(segmentFile(sequence), sequence, segmentSize);
+            segments.addLast(tail);
+        }
+        tail.append(record, force);
+        pending++;
+        return true;
+    }
+
+    /**
+     * The oldest registration not yet replayed, without removing it; null when there is none.
+     */
+    synchronized JournaledRegistration peek() {
+        Segment head = advance();
+        if (head == null) {
+            return null;
+        }
+        byte[] record = new byte[head.buffer.getInt(readPosition)];
+        head.buffer.get(readPosition + Integer.BYTES, record);
+        return JournaledRegistration.fromBytes(record);
+    }
+
+    /**
+     * Moves past the oldest registration, after it has been replayed.
+     */
+    synchronized void remove() {
+        Segment head = advance();
+        if (head == null) {
+            return;
+        }
+        readPosition += Integer.BYTES + head.buffer.getInt(readPosition);
+        pending--;
+        writeCursor();
+    }
+
+    synchronized int size() {
+        return pending;
+    }
+
+    synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            cursor.force();
+            cursorChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The segment holding the next record, deleting segments the cursor has left; null if
+     * everything has been read.
+     */
+    private Segment advance() {
+        Segment head = segments.peekFirst();
+        while (readPosition >= head.writePosition) {
+            if (segments.size() == 1) {
+                return null;
+            }
+            segments.removeFirst();
+            head.delete();
+            head = segments.peekFirst();
+            readPosition = HEADER_SIZE;
+            writeCursor();
+        }
+        return head;
+    }
+
+    private int countPending() {
+        int count = 0;
+        int position = readPosition;
+        for (Segment segment : segments) {
+            while (position < segment.writePosition) {
+                position += Integer.BYTES + segment.buffer.getInt(position);
+                count++;
+            }
+            position = HEADER_SIZE;
+        }
+        return count;
+    }
+
+    private void writeCursor() {
+        cursor.putInt(0, CURSOR_MAGIC);
+        cursor.putLong(CURSOR_SEGMENT_OFFSET, segments.peekFirst().sequence);
+        cursor.putInt(CURSOR_POSITION_OFFSET, readPosition);
+        if (force) {
+            cursor.force();
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentFile(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final long sequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(Path file, long sequence, FileChannel channel, MappedByteBuffer buffer, int writePosition) {
+            this.file = file;
+            this.sequence = sequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.writePosition = writePosition;
+        }
+
+        static Segment open(Path file, long sequence, int size) {
+            try {
+                FileChannel channel = FileChannel.open(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                boolean existing = channel.size() >= HEADER_SIZE;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+                if (existing && buffer.getInt(0) == SEGMENT_MAGIC) {
+                    return new Segment(file, sequence, channel, buffer, buffer.getInt(WRITE_POSITION_OFFSET));
+                }
+                buffer.putInt(0, SEGMENT_MAGIC);
+                buffer.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+                return new Segment(file, sequence, channel, buffer, HEADER_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void append(byte[] record, boolean force) {
+            buffer.putInt(writePosition, record.length);
+            buffer.put(writePosition + Integer.BYTES, record);
+            writePosition += Integer.BYTES + record.length;
+            // Published last, so a record is only found after a restart once it is complete
+            buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+            if (force) {
+                buffer.force();
+            }
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package tech.yump.veriboard.apigw.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps hedges at a fraction of the requests.
+ * <p>
+ * Every request deposits {@code ratio} of a token and every hedge withdraws a whole one, so
+ * hedging never adds more than {@code ratio} extra load over time. The balance saves up at
+ * most {@code burst} hedges, so a quiet period cannot fund a storm of them later.
+ */
+final class HedgeBudget {
+
+    private static final long SCALE = 1000;
+
+    private final AtomicLong balance;
+    private final long deposit;
+    private final long cap;
+
+    HedgeBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.cap = burst * SCALE;
+        this.balance = new AtomicLong(cap);
+    }
+
+    void onRequest() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(cap, current + amount));
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
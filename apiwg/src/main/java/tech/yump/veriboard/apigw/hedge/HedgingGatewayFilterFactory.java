@@ -0,0 +1,330 @@
+package tech.yump.veriboard.apigw.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.yump.veriboard.apigw.timing.RequestTiming;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cuts tail latency of idempotent reads by hedging: when the instance serving a GET has
+ * not answered within a recent latency percentile, the same request goes to a second
+ * instance, the first answer wins and the other request is cancelled.
+ * <p>
+ * Only GETs to {@code lb://} routes are hedged; the filter then resolves instances and
+ * proxies the request itself, so it belongs after every filter that changes the request.
+ * The hedge delay is the route's {@code percentile} of recent primary latencies, at least
+ * {@code minDelay}, and {@code initialDelay} until enough samples exist. A budget keeps
+ * hedges below {@code maxExtraLoad} of the route's requests.
+ * <p>
+ * {@code gateway.hedge.latency} is the latency clients saw and
+ * {@code gateway.hedge.primary.latency} that of the first instance, counting a cancelled
+ * primary at the time it lost; the gap between their p99s is a lower bound on what hedging
+ * saved.
+ * <p>
+ * Both requests go through the route's load balancer lifecycle, so a latency-aware
+ * balancer learns from hedged reads as from any other; the losing request completes as
+ * discarded.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    private static final int BUDGET_BURST = 10;
+    private static final int SAMPLES = 1024;
+    private static final int MIN_SAMPLES = 50;
+    private static final int CHOOSE_ATTEMPTS = 3;
+
+    private final ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancers;
+    private final WebClient webClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param maxResponseSize largest response body a hedged route may return
+     */
+    public HedgingGatewayFilterFactory(
+            ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancers,
+            WebClient.Builder webClientBuilder,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.gateway.hedging.max-response-size:1MB}") DataSize maxResponseSize) {
+        super(Config.class);
+        this.loadBalancers = loadBalancers;
+        this.webClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(Math.toIntExact(maxResponseSize.toBytes())))
+                .build();
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new HedgingFilter(config);
+    }
+
+    private record Answer(ResponseEntity<byte[]> response, URI uri, boolean hedged) {
+    }
+
+    private final class HedgingFilter implements GatewayFilter {
+
+        private final Config config;
+        private final LatencyTracker primaryLatencies = new LatencyTracker(SAMPLES, MIN_SAMPLES);
+        private final HedgeBudget budget;
+        private final Timer latency;
+        private final Timer primaryLatency;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter budgetExhausted;
+
+        HedgingFilter(Config config) {
+            this.config = config;
+            this.budget = new HedgeBudget(config.getMaxExtraLoad(), BUDGET_BURST);
+            String route = Objects.requireNonNullElse(config.getRouteId(), "unknown");
+            this.latency = Timer.builder("gateway.hedge.latency")
+                    .description("Latency of hedged routes as seen by clients")
+                    .tag("route", route)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.primaryLatency = Timer.builder("gateway.hedge.primary.latency")
+                    .description("Latency of the first instance asked, up to when it lost to a hedge")
+                    .tag("route", route)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.sent = Counter.builder("gateway.hedge.sent")
+                    .description("Hedged requests sent to a second instance")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            this.won = Counter.builder("gateway.hedge.won")
+                    .description("Hedged requests that answered first")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            this.budgetExhausted = Counter.builder("gateway.hedge.budget.exhausted")
+                    .description("Hedges skipped because the extra load budget was spent")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.hedge.delay", this, filter -> filter.delay(System.nanoTime()).toMillis())
+                    .description("Current wait before hedging")
+                    .tag("route", route)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || route == null
+                    || !"lb".equals(route.getUri().getScheme()) || ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                return chain.filter(exchange);
+            }
+            ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancers.getInstance(route.getUri().getHost());
+            if (loadBalancer == null) {
+                return chain.filter(exchange);
+            }
+            budget.onRequest();
+            String serviceId = route.getUri().getHost();
+            return choose(loadBalancer, null)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(primary -> primary.isEmpty()
+                            ? chain.filter(exchange)
+                            : hedge(exchange, loadBalancer, lifecycles(serviceId), primary.get()));
+        }
+
+        private Mono<Void> hedge(ServerWebExchange exchange, ReactiveLoadBalancer<ServiceInstance> loadBalancer,
+                                 Set<LoadBalancerLifecycle> lifecycles, ServiceInstance primaryInstance) {
+            HttpHeaders headers = requestHeaders(exchange);
+            RequestTiming.markUpstream(exchange);
+            long start = System.nanoTime();
+            Mono<Answer> primary = send(exchange.getRequest(), headers, primaryInstance, false, lifecycles)
+                    .doOnNext(answer -> recordPrimary(start))
+                    .doOnCancel(() -> recordPrimary(start));
+            Mono<Answer> hedge = Mono.delay(delay(start))
+                    .flatMap(tick -> choose(loadBalancer, primaryInstance))
+                    .filter(instance -> {
+                        if (budget.tryWithdraw()) {
+                            return true;
+                        }
+                        budgetExhausted.increment();
+                        return false;
+                    })
+                    .flatMap(instance -> {
+                        sent.increment();
+                        return send(exchange.getRequest(), headers, instance, true, lifecycles);
+                    });
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class,
+                            e -> e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e)
+                    .flatMap(answer -> {
+                        latency.record(Duration.ofNanos(System.nanoTime() - start));
+                        if (answer.hedged()) {
+                            won.increment();
+                        }
+                        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+                        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, answer.uri());
+                        return write(exchange, answer.response());
+                    });
+        }
+
+        private void recordPrimary(long start) {
+            long elapsed = System.nanoTime() - start;
+            primaryLatencies.record(elapsed);
+            primaryLatency.record(Duration.ofNanos(elapsed));
+        }
+
+        Duration delay(long now) {
+            long percentile = primaryLatencies.percentile(config.getPercentile(), now);
+            if (percentile < 0) {
+                return config.getInitialDelay();
+            }
+            Duration delay = Duration.ofNanos(percentile);
+            return delay.compareTo(config.getMinDelay()) < 0 ? config.getMinDelay() : delay;
+        }
+    }
+
+    /**
+     * An instance other than {@code other}; the load balancer is asked a few times since it
+     * may pick the same one again.
+     */
+    private static Mono<ServiceInstance> choose(ReactiveLoadBalancer<ServiceInstance> loadBalancer,
+                                                ServiceInstance other) {
+        return Flux.range(0, other == null ? 1 : CHOOSE_ATTEMPTS)
+                .concatMap(attempt -> Mono.from(loadBalancer.choose()))
+                .filter(Response::hasServer)
+                .map(Response::getServer)
+                .filter(instance -> other == null || !sameInstance(instance, other))
+                .next();
+    }
+
+    private static boolean sameInstance(ServiceInstance a, ServiceInstance b) {
+        return a.getHost().equals(b.getHost()) && a.getPort() == b.getPort();
+    }
+
+    private Set<LoadBalancerLifecycle> lifecycles(String serviceId) {
+        return LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                loadBalancers.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+    }
+
+    private HttpHeaders requestHeaders(ServerWebExchange exchange) {
+        HttpHeaders filtered = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange);
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(filtered);
+        headers.remove(HttpHeaders.HOST);
+        return headers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Answer> send(ServerHttpRequest request, HttpHeaders headers, ServiceInstance instance,
+                              boolean hedged, Set<LoadBalancerLifecycle> lifecycles) {
+        URI uri = LoadBalancerUriTools.reconstructURI(instance, request.getURI());
+        RequestData requestData = new RequestData(request);
+        Request<RequestDataContext> lbRequest = new DefaultRequest<>(new RequestDataContext(requestData));
+        Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+        return webClient.get()
+                .uri(uri)
+                .headers(target -> target.addAll(headers))
+                .exchangeToMono(response -> response.toEntity(byte[].class))
+                .doOnSubscribe(subscription -> lifecycles.forEach(lifecycle -> {
+                    lifecycle.onStart(lbRequest);
+                    lifecycle.onStartRequest(lbRequest, lbResponse);
+                }))
+                .doOnNext(response -> {
+                    ResponseData responseData = new ResponseData(response.getStatusCode(), response.getHeaders(),
+                            new LinkedMultiValueMap<>(), requestData);
+                    lifecycles.forEach(lifecycle -> lifecycle.onComplete(new CompletionContext<>(
+                            CompletionContext.Status.SUCCESS, lbRequest, lbResponse, responseData)));
+                })
+                .doOnError(e -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(new CompletionContext<>(
+                        CompletionContext.Status.FAILED, e, lbRequest, lbResponse))))
+                .doOnCancel(() -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(new CompletionContext<>(
+                        CompletionContext.Status.DISCARD, lbRequest, lbResponse))))
+                .map(response -> new Answer(response, uri, hedged));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<byte[]> answer) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(answer.getStatusCode());
+        HttpHeaders filtered = HttpHeadersFilter.filter(
+                headersFilters.getIfAvailable(), answer.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE);
+        filtered.forEach((name, values) -> response.getHeaders().put(name, new ArrayList<>(values)));
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        byte[] body = answer.getBody();
+        if (body == null) {
+            return response.setComplete();
+        }
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        /**
+         * Percentile of recent latencies after which a hedge is sent.
+         */
+        private double percentile = 95;
+
+        /**
+         * Shortest wait before hedging, however fast the route has been.
+         */
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /**
+         * Wait before hedging until enough latencies have been seen.
+         */
+        private Duration initialDelay = Duration.ofMillis(100);
+
+        /**
+         * Most extra requests hedging may add, as a fraction of the route's requests.
+         */
+        private double maxExtraLoad = 0.05;
+    }
+}
@@ -0,0 +1,60 @@
+package tech.yump.veriboard.apigw.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent latencies of one route, and a percentile over them.
+ * <p>
+ * Samples go into a fixed ring without locking; the percentile is recomputed from a copy at
+ * most once per refresh interval, so the request path only reads a volatile.
+ */
+final class LatencyTracker {
+
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int minSamples;
+
+    private volatile long percentileNanos = -1;
+    private volatile long computedAt;
+
+    LatencyTracker(int capacity, int minSamples) {
+        this.samples = new AtomicLongArray(capacity);
+        this.minSamples = minSamples;
+    }
+
+    void record(long latencyNanos) {
+        long index = recorded.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+
+    /**
+     * @return the latency below which {@code percentile} percent of recent samples fall, or
+     * -1 while there are too few samples
+     */
+    long percentile(double percentile, long now) {
+        if (now - computedAt >= REFRESH_NANOS) {
+            computedAt = now;
+            percentileNanos = compute(percentile);
+        }
+        return percentileNanos;
+    }
+
+    private long compute(double percentile) {
+        int size = (int) Math.min(recorded.get(), samples.length());
+        if (size < minSamples) {
+            return -1;
+        }
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
@@ -0,0 +1,51 @@
+package tech.yump.veriboard.apigw.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+/**
+ * Rate limits by API key when the client sends one that was issued, otherwise by client IP.
+ * <p>
+ * Only keys listed in {@code veriboard.gateway.rate-limit.api-keys} get a bucket of their
+ * own. Any other value is ignored, since a client could otherwise send a fresh key with
+ * every request to get a full bucket each time, and fill the bucket table with them.
+ * <p>
+ * The IP is the connection's remote address; put the gateway behind a proxy that rewrites
+ * it (or enable Spring's forwarded header handling) rather than trusting client headers.
+ */
+@Component
+public class ClientKeyResolver implements KeyResolver {
+
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+
+    /**
+     * @param apiKeys the issued API keys; empty to limit every client by IP
+     */
+    public ClientKeyResolver(
+            @Value("${veriboard.gateway.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${veriboard.gateway.rate-limit.api-keys:}") Set<String> apiKeys) {
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = Set.copyOf(apiKeys);
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        String apiKey = exchange.getRequest().getHeaders().getFirst(apiKeyHeader);
+        if (StringUtils.hasText(apiKey) && apiKeys.contains(apiKey)) {
+            return Mono.just("key:" + apiKey);
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return Mono.empty();
+        }
+        return Mono.just("ip:" + remoteAddress.getHostString());
+    }
+}
@@ -0,0 +1,62 @@
+package tech.yump.veriboard.apigw.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * How many gateway replicas share the configured rate limits.
+ * <p>
+ * Buckets are local to each replica, so a client spread over {@code n} replicas would get
+ * {@code n} times the configured rate. With {@code veriboard.gateway.rate-limit.replica-sync.enabled}
+ * the replica count is looked up in service discovery and each replica enforces its share.
+ * This is approximate: it assumes requests are spread evenly over the replicas.
+ */
+@Slf4j
+@Component
+public class GatewayReplicas {
+
+    private final ObjectProvider<DiscoveryClient> discoveryClient;
+    private final String serviceId;
+    private final boolean syncEnabled;
+
+    private volatile int count = 1;
+
+    public GatewayReplicas(
+            ObjectProvider<DiscoveryClient> discoveryClient,
+            @Value("${spring.application.name}") String serviceId,
+            @Value("${veriboard.gateway.rate-limit.replica-sync.enabled:false}") boolean syncEnabled) {
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.syncEnabled = syncEnabled;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSyncEnabled() {
+        return syncEnabled;
+    }
+
+    /**
+     * Looks the replica count up again, keeping the last known count when discovery fails.
+     */
+    public void refresh() {
+        DiscoveryClient client = discoveryClient.getIfAvailable();
+        if (!syncEnabled || client == null) {
+            return;
+        }
+        try {
+            int replicas = Math.max(1, client.getInstances(serviceId).size());
+            if (replicas != count) {
+                log.info("Sharing rate limits across {} {} replicas", replicas, serviceId);
+                count = replicas;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Looking up {} replicas failed, keeping {}: {}", serviceId, count, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package tech.yump.veriboard.apigw.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process token buckets for the {@code RequestRateLimiter} filter, so rate limiting
+ * costs a compare-and-set instead of a Redis round trip.
+ * <p>
+ * Every key has one {@link AtomicLong} holding the time at which its bucket will be full
+ * again (the generic cell rate algorithm, equivalent to a token bucket). Taking tokens
+ * pushes that time forward by one emission interval per token, and is refused when it
+ * would run further ahead of now than the burst capacity allows. A bucket whose time has
+ * passed is full, which is exactly how an unknown key behaves, so such buckets are evicted
+ * without losing anything. The key table holds at most {@code max-keys} buckets; a key that
+ * arrives while it is full takes the place of a full bucket among a small sample, or else
+ * shares one overflow bucket per route until the maintenance thread has swept the table.
+ * The request path never scans the whole table.
+ * <p>
+ * Routes configure it like the Redis limiter, with {@code local-rate-limiter.*} arguments.
+ * With {@code replica-sync} enabled, each gateway replica enforces its share of the
+ * configured rate, refreshed from service discovery.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> implements SmartLifecycle {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String OVERFLOW_KEY = "\u0000overflow";
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> overflowBuckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private final Config defaultConfig;
+    private final int maxKeys;
+    private final Duration sweepInterval;
+    private final GatewayReplicas replicas;
+    private final Duration replicaSyncInterval;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> denied = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService maintenance;
+    private volatile boolean running;
+
+    /**
+     * @param maxKeys buckets kept before new keys share the overflow bucket
+     * @param sweepInterval how often full buckets are evicted
+     */
+    @Autowired
+    public LocalRateLimiter(
+            ConfigurationService configurationService,
+            GatewayReplicas replicas,
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.gateway.rate-limit.replenish-rate:10}") int replenishRate,
+            @Value("${veriboard.gateway.rate-limit.burst-capacity:20}") int burstCapacity,
+            @Value("${veriboard.gateway.rate-limit.max-keys:100000}") int maxKeys,
+            @Value("${veriboard.gateway.rate-limit.sweep-interval:30s}") Duration sweepInterval,
+            @Value("${veriboard.gateway.rate-limit.replica-sync.interval:15s}") Duration replicaSyncInterval) {
+        this(configurationService, replicas, meterRegistry, new Config()
+                        .setReplenishRate(replenishRate)
+                        .setBurstCapacity(burstCapacity),
+                maxKeys, sweepInterval, replicaSyncInterval, System::nanoTime);
+    }
+
+    LocalRateLimiter(ConfigurationService configurationService, GatewayReplicas replicas, MeterRegistry meterRegistry,
+                     Config defaultConfig, int maxKeys, Duration sweepInterval, Duration replicaSyncInterval,
+                     LongSupplier nanoClock) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.defaultConfig = defaultConfig;
+        this.maxKeys = maxKeys;
+        this.sweepInterval = sweepInterval;
+        this.replicas = replicas;
+        this.replicaSyncInterval = replicaSyncInterval;
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.ratelimit.keys", buckets, Map::size)
+                .description("Rate limit buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return Mono.just(tryAcquire(routeId, id));
+    }
+
+    Response tryAcquire(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        int share = replicas.count();
+        // Each replica admits its share of the rate; the burst never drops below one request
+        long interval = NANOS_PER_SECOND * share / config.getReplenishRate();
+        long burst = Math.max(config.getRequestedTokens(), config.getBurstCapacity() / share);
+        long tolerance = burst * interval;
+        long cost = config.getRequestedTokens() * interval;
+
+        AtomicLong bucket = bucket(routeId, id);
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long next = start + cost;
+            if (next - now > tolerance) {
+                deniedCounter(routeId).increment();
+                long retryAfterNanos = next - now - tolerance;
+                return response(false, config, (tolerance - (start - now)) / interval,
+                        Math.max(1, (retryAfterNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return response(true, config, (tolerance - (next - now)) / interval, 0);
+            }
+        }
+    }
+
+    private AtomicLong bucket(String routeId, String id) {
+        String key = routeId + ':' + id;
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys && !evictSample()) {
+            requestSweep();
+            return overflowBuckets.computeIfAbsent(routeId + ':' + OVERFLOW_KEY,
+                    k -> new AtomicLong(nanoClock.getAsLong()));
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(nanoClock.getAsLong()));
+    }
+
+    /**
+     * Evicts the full buckets among the first few in the table.
+     *
+     * @return whether any bucket was evicted
+     */
+    private boolean evictSample() {
+        long now = nanoClock.getAsLong();
+        boolean evicted = false;
+        Iterator<AtomicLong> sample = buckets.values().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && sample.hasNext(); i++) {
+            if (sample.next().get() - now <= 0) {
+                sample.remove();
+                evicted = true;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Runs a sweep on the maintenance thread ahead of schedule.
+     */
+    private void requestSweep() {
+        ScheduledExecutorService executor = maintenance;
+        if (executor == null || !sweepRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                sweepRequested.set(false);
+                sweep();
+            });
+        } catch (RejectedExecutionException e) {
+            sweepRequested.set(false);
+        }
+    }
+
+    /**
+     * Evicts buckets that have filled up again. A request racing the eviction may find a
+     * fresh bucket, granting at most one extra burst.
+     */
+    void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = nanoClock.getAsLong();
+            buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private static Response response(boolean allowed, Config config, long remaining, long retryAfterSeconds) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(REMAINING_HEADER, Long.toString(Math.max(0, remaining)));
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        headers.put(REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+        if (!allowed) {
+            headers.put(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds));
+        }
+        return new Response(allowed, headers);
+    }
+
+    private Counter deniedCounter(String routeId) {
+        return denied.computeIfAbsent(routeId, route -> Counter.builder("gateway.ratelimit.denied")
+                .description("Requests refused by the local rate limiter")
+                .tag("route", route)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void start() {
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gateway-ratelimit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::sweep,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (replicas.isSyncEnabled()) {
+            maintenance.scheduleWithFixedDelay(replicas::refresh,
+                    0, replicaSyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Getter
+    @Validated
+    public static class Config {
+
+        /**
+         * Tokens added per second.
+         */
+        @Min(1)
+        private int replenishRate = 10;
+
+        /**
+         * Most tokens a bucket holds, i.e. the largest burst admitted at once.
+         */
+        @Min(1)
+        private int burstCapacity = 20;
+
+        /**
+         * Tokens one request takes.
+         */
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+    }
+}
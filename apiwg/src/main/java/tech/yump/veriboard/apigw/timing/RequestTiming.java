@@ -0,0 +1,44 @@
+package tech.yump.veriboard.apigw.timing;
+
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * When a request entered the gateway and when it was sent upstream, kept as an exchange
+ * attribute by {@link ServerTimingFilter}.
+ */
+public final class RequestTiming {
+
+    static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final long NOT_SENT = Long.MIN_VALUE;
+
+    private final long start;
+    private volatile long upstreamStart = NOT_SENT;
+
+    RequestTiming(long start) {
+        this.start = start;
+    }
+
+    /**
+     * Records that the request is being sent upstream now. Filters that proxy requests
+     * themselves call this instead of relying on {@link UpstreamTimingFilter}.
+     */
+    public static void markUpstream(ServerWebExchange exchange) {
+        RequestTiming timing = exchange.getAttribute(ATTRIBUTE);
+        if (timing != null) {
+            timing.upstreamStart = System.nanoTime();
+        }
+    }
+
+    long start() {
+        return start;
+    }
+
+    boolean sentUpstream() {
+        return upstreamStart != NOT_SENT;
+    }
+
+    long upstreamStart() {
+        return upstreamStart;
+    }
+}
@@ -0,0 +1,109 @@
+package tech.yump.veriboard.apigw.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each request takes in total and upstream, records both per route and
+ * returns them in a {@code Server-Timing} header.
+ * <p>
+ * Both are measured up to the moment the response is committed, i.e. when the upstream's
+ * status and headers have arrived; {@code upstream} starts when {@link UpstreamTimingFilter}
+ * or a proxying filter marks the request as sent. The timers publish a percentile histogram
+ * and are looked up once per route, so the request path allocates only the timing holder
+ * and the header value.
+ */
+@Component
+public class ServerTimingFilter implements GlobalFilter, Ordered {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteTimers> timers = new ConcurrentHashMap<>();
+
+    public ServerTimingFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        exchange.getAttributes().put(RequestTiming.ATTRIBUTE, timing);
+        exchange.getResponse().beforeCommit(() -> {
+            complete(exchange, timing, System.nanoTime());
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    private void complete(ServerWebExchange exchange, RequestTiming timing, long now) {
+        RouteTimers routeTimers = timers(exchange);
+        long total = now - timing.start();
+        routeTimers.total().record(total, TimeUnit.NANOSECONDS);
+        StringBuilder header = new StringBuilder(40);
+        if (timing.sentUpstream()) {
+            long upstream = now - timing.upstreamStart();
+            routeTimers.upstream().record(upstream, TimeUnit.NANOSECONDS);
+            appendMetric(header, "upstream", upstream).append(", ");
+        }
+        appendMetric(header, "total", total);
+        exchange.getResponse().getHeaders().set(SERVER_TIMING_HEADER, header.toString());
+    }
+
+    /**
+     * Appends {@code name;dur=<milliseconds with one decimal>} without going through a
+     * formatter.
+     */
+    static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+        long tenthsOfMillis = nanos / 100_000;
+        return header.append(name).append(";dur=").append(tenthsOfMillis / 10).append('.').append(tenthsOfMillis % 10);
+    }
+
+    private RouteTimers timers(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route == null ? UNMATCHED_ROUTE : route.getId();
+        RouteTimers routeTimers = timers.get(routeId);
+        return routeTimers != null ? routeTimers : timers.computeIfAbsent(routeId, this::register);
+    }
+
+    private RouteTimers register(String routeId) {
+        return new RouteTimers(
+                Timer.builder("gateway.request.latency")
+                        .description("Time from a request entering the gateway to its response starting")
+                        .tag("route", routeId)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Timer.builder("gateway.upstream.latency")
+                        .description("Time from a request being sent upstream to its response starting")
+                        .tag("route", routeId)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Runs first so the total covers every other filter.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private record RouteTimers(Timer total, Timer upstream) {
+    }
+}
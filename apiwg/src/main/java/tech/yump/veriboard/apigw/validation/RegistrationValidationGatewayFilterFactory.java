@@ -0,0 +1,302 @@
+package tech.yump.veriboard.apigw.validation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.yump.veriboard.clients.customer.RegistrationRules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejects customer registrations that break the shared {@link RegistrationRules} at the
+ * gateway, so invalid payloads never reach the customer service.
+ * <p>
+ * The JSON body of a {@code POST} to {@code path} is read up to {@code maxBodySize} and
+ * scanned with a streaming parser for the top-level {@code firstName}, {@code lastName}
+ * and {@code email} fields, skipping everything else without building a tree. Violations
+ * are answered with the customer service's {@code 400} error body; malformed JSON gets
+ * its "Malformed JSON request" answer and oversized bodies a {@code 413}. Each distinct
+ * rejection body is serialized once, leaving only the timestamp to write per request, so
+ * rejecting stays cheap under a flood of bad registrations. Valid requests continue with
+ * the buffered body. Whether an email is already registered is left to the
+ * customer service.
+ */
+@Component
+public class RegistrationValidationGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RegistrationValidationGatewayFilterFactory.Config> {
+
+    private static final String FIRST_NAME = "firstName";
+    private static final String LAST_NAME = "lastName";
+    private static final String EMAIL = "email";
+    private static final byte[] TIMESTAMP_PREFIX = "{\"timestamp\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final MeterRegistry meterRegistry;
+
+    public RegistrationValidationGatewayFilterFactory(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("path", "maxBodySize");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new ValidationFilter(config);
+    }
+
+    private record Registration(String firstName, String lastName, String email) {
+    }
+
+    private final class ValidationFilter implements GatewayFilter {
+
+        private final Config config;
+        private final int maxBodySize;
+        private final Counter invalid;
+        private final Counter malformed;
+        private final Counter tooLarge;
+        private final byte[] malformedBody;
+        private final byte[] tooLargeBody;
+        // One per combination of violated rules, of which there are only a few
+        private final Map<String, byte[]> invalidBodies = new ConcurrentHashMap<>();
+
+        ValidationFilter(Config config) {
+            this.config = config;
+            this.maxBodySize = Math.toIntExact(config.getMaxBodySize().toBytes());
+            String route = Objects.requireNonNullElse(config.getRouteId(), "unknown");
+            this.invalid = rejected(route, "invalid");
+            this.malformed = rejected(route, "malformed");
+            this.tooLarge = rejected(route, "too-large");
+            this.malformedBody = errorBody(HttpStatus.BAD_REQUEST, "Bad Request", "Malformed JSON request");
+            this.tooLargeBody = errorBody(HttpStatus.PAYLOAD_TOO_LARGE, "Payload Too Large",
+                    "Registration body exceeds " + maxBodySize + " bytes");
+        }
+
+        /**
+         * The error body after its timestamp, as the customer service's GlobalExceptionHandler
+         * answers; rejections only happen on {@code path}, so that is fixed too.
+         */
+        private byte[] errorBody(HttpStatus status, String error, String message) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", status.value());
+            response.put("error", error);
+            response.put("message", message);
+            response.put("path", config.getPath());
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(response);
+                json[0] = ','; // continues the object opened before the timestamp
+                return json;
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize registration error body", e);
+            }
+        }
+
+        private Counter rejected(String route, String reason) {
+            return Counter.builder("gateway.validation.rejected")
+                    .description("Registrations rejected at the gateway before reaching the customer service")
+                    .tag("route", route)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!HttpMethod.POST.equals(request.getMethod()) || !config.getPath().equals(request.getPath().value())
+                    || !isJson(request.getHeaders().getContentType())) {
+                return chain.filter(exchange);
+            }
+            if (request.getHeaders().getContentLength() > maxBodySize) {
+                tooLarge.increment();
+                return reject(exchange, HttpStatus.PAYLOAD_TOO_LARGE, tooLargeBody);
+            }
+            return DataBufferUtils.join(request.getBody(), maxBodySize)
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(body -> validate(exchange, chain, body))
+                    .onErrorResume(DataBufferLimitException.class, e -> {
+                        tooLarge.increment();
+                        return reject(exchange, HttpStatus.PAYLOAD_TOO_LARGE, tooLargeBody);
+                    });
+        }
+
+        private Mono<Void> validate(ServerWebExchange exchange, GatewayFilterChain chain, byte[] body) {
+            Registration registration;
+            try {
+                registration = parse(body);
+            } catch (IOException e) {
+                malformed.increment();
+                return reject(exchange, HttpStatus.BAD_REQUEST, malformedBody);
+            }
+            List<String> violations = RegistrationRules.violations(
+                    registration.firstName(), registration.lastName(), registration.email());
+            if (!violations.isEmpty()) {
+                invalid.increment();
+                return reject(exchange, HttpStatus.BAD_REQUEST, invalidBodies.computeIfAbsent(
+                        String.join(", ", violations),
+                        message -> errorBody(HttpStatus.BAD_REQUEST, "Validation Failed", message)));
+            }
+            return chain.filter(exchange.mutate().request(new BufferedBodyRequest(exchange.getRequest(), body)).build());
+        }
+    }
+
+    /**
+     * Reads the registration fields from a JSON object, skipping any other content.
+     *
+     * @throws IOException if the body is not a single well-formed JSON object, or a
+     *         registration field holds an object or array
+     */
+    private Registration parse(byte[] body) throws IOException {
+        String firstName = null;
+        String lastName = null;
+        String email = null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Registration must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case FIRST_NAME -> firstName = scalar(parser, value);
+                    case LAST_NAME -> lastName = scalar(parser, value);
+                    case EMAIL -> email = scalar(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after registration");
+            }
+        }
+        return new Registration(firstName, lastName, email);
+    }
+
+    /**
+     * The text of a scalar field, as the customer service would bind it to a string.
+     */
+    private static String scalar(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new JsonParseException(parser, "Registration field " + parser.currentName() + " must be a string");
+    }
+
+    /**
+     * Writes the body's opening {@code timestamp} field with the current time, followed by
+     * the precomputed rest of it.
+     */
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, byte[] errorBody) {
+        byte[] timestamp = LocalDateTime.now().toString().getBytes(StandardCharsets.US_ASCII);
+        ServerWebExchangeUtils.setResponseStatus(exchange, status);
+        ServerHttpResponse response = exchange.getResponse();
+        int length = TIMESTAMP_PREFIX.length + timestamp.length + 1 + errorBody.length;
+        DataBuffer body = response.bufferFactory().allocateBuffer(length)
+                .write(TIMESTAMP_PREFIX)
+                .write(timestamp)
+                .write((byte) '"')
+                .write(errorBody);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(length);
+        return response.writeWith(Mono.just(body));
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                || contentType.getSubtype().endsWith("+json"));
+    }
+
+    /**
+     * The request with its already-read body, replayable for filters further down.
+     */
+    private static final class BufferedBodyRequest extends ServerHttpRequestDecorator {
+
+        private final byte[] body;
+        private final HttpHeaders headers;
+
+        BufferedBodyRequest(ServerHttpRequest delegate, byte[] body) {
+            super(delegate);
+            this.body = body;
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.setContentLength(body.length);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        /**
+         * Request path of registrations; other requests pass unchecked.
+         */
+        private String path = "/api/v1/customers";
+
+        /**
+         * Largest registration body accepted.
+         */
+        private DataSize maxBodySize = DataSize.ofKilobytes(16);
+    }
+}
@@ -0,0 +1,121 @@
+package tech.yump.veriboard.apigw.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.reactive.ReactiveManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.codec.CodecsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.HttpHandlerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.ReactiveWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the endpoint over HTTP with the gateway's own actuator exposure settings, without
+ * the routes and discovery of the full application. The management port is random here,
+ * but still separate from the public one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = ResponseCacheEndpointTest.EndpointConfig.class,
+        properties = "management.server.port=0")
+@DisplayName("Response Cache Endpoint Tests")
+class ResponseCacheEndpointTest {
+
+    private static final String PATH = "/api/v1/customers/42";
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private ResponseCache cache;
+
+    private void store(String path) {
+        cache.put(new ResponseCache.Key("customer", path, null, "", ""),
+                new CachedResponse(HttpStatus.OK, new HttpHeaders(), new byte[0], "\"1\"",
+                        cache.now(), Duration.ofMinutes(1), Duration.ZERO),
+                cache.generation());
+    }
+
+    private WebTestClient client(int port) {
+        return WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @Test
+    @DisplayName("Should not serve the endpoint on the public port")
+    void delete_OnPublicPort_ShouldNotBeFound() {
+        // Given
+        cache.invalidateAll();
+        store(PATH);
+
+        // When / Then
+        client(port).delete().uri("/actuator/responsecache")
+                .exchange()
+                .expectStatus().isNotFound();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should invalidate a path and everything below it over HTTP")
+    void delete_WithPath_ShouldInvalidateBelowPath() {
+        // Given
+        cache.invalidateAll();
+        store(PATH);
+        store(PATH + "/summary");
+        store("/api/v1/customers/7");
+
+        // When / Then
+        WebTestClient webTestClient = client(managementPort);
+        webTestClient.delete().uri("/actuator/responsecache?path={path}", PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.invalidated").isEqualTo(2);
+        webTestClient.get().uri("/actuator/responsecache")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.entries").isEqualTo(1);
+        assertThat(cache.get(new ResponseCache.Key("customer", "/api/v1/customers/7", null, "", ""))).isNotNull();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ReactiveWebServerFactoryAutoConfiguration.class,
+            HttpHandlerAutoConfiguration.class,
+            WebFluxAutoConfiguration.class,
+            CodecsAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            EndpointAutoConfiguration.class,
+            WebEndpointAutoConfiguration.class,
+            ManagementContextAutoConfiguration.class,
+            ReactiveManagementContextAutoConfiguration.class
+    })
+    @Import({ResponseCache.class, ResponseCacheEndpoint.class})
+    static class EndpointConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
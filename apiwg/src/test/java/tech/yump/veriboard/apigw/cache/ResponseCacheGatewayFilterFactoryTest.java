@@ -0,0 +1,213 @@
+package tech.yump.veriboard.apigw.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Response Cache Filter Tests")
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/v1/customers/42";
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final List<ServerWebExchange> originRequests = new ArrayList<>();
+    private ResponseCache cache;
+    private GatewayFilter filter;
+    private String originBody = "{\"id\":42}";
+    private String originCacheControl;
+    private HttpStatus originStatus = HttpStatus.OK;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(new SimpleMeterRegistry(), DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), now::get);
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setTtl(Duration.ofSeconds(5));
+        config.setStaleWhileRevalidate(Duration.ofSeconds(30));
+        filter = new ResponseCacheGatewayFilterFactory(cache).apply(config);
+    }
+
+    private final GatewayFilterChain origin = exchange -> {
+        originRequests.add(exchange);
+        ServerHttpResponse response = exchange.getResponse();
+        if (originStatus == HttpStatus.NOT_MODIFIED) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.writeWith(Mono.empty());
+        }
+        response.setStatusCode(originStatus);
+        if (originCacheControl != null) {
+            response.getHeaders().setCacheControl(originCacheControl);
+        }
+        byte[] body = originBody.getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    };
+
+    private MockServerWebExchange get(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, origin).block();
+        return exchange;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        MockServerHttpResponse response = exchange.getResponse();
+        return response.getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the cache while fresh")
+    void get_WhenFresh_ShouldNotReachOrigin() {
+        // Given
+        MockServerWebExchange miss = get(MockServerHttpRequest.get(PATH));
+
+        // When
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        MockServerWebExchange hit = get(MockServerHttpRequest.get(PATH));
+
+        // Then
+        assertThat(originRequests).hasSize(1);
+        assertThat(miss.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("MISS");
+        assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("HIT");
+        assertThat(hit.getResponse().getHeaders().getFirst(HttpHeaders.AGE)).isEqualTo("2");
+        assertThat(body(hit)).isEqualTo(originBody);
+        assertThat(hit.getResponse().getHeaders().getETag())
+                .isNotNull()
+                .isEqualTo(miss.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 to clients that already hold the cached representation")
+    void get_WithMatchingIfNoneMatch_ShouldReturnNotModified() {
+        // Given
+        String etag = get(MockServerHttpRequest.get(PATH)).getResponse().getHeaders().getETag();
+
+        // When
+        MockServerWebExchange revalidation = get(MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        // Then
+        assertThat(revalidation.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(body(revalidation)).isEmpty();
+        assertThat(originRequests).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should revalidate a stale response with the origin and keep serving its body")
+    void get_WhenStale_ShouldRevalidateConditionally() {
+        // Given
+        String etag = get(MockServerHttpRequest.get(PATH)).getResponse().getHeaders().getETag();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        originStatus = HttpStatus.NOT_MODIFIED;
+
+        // When
+        MockServerWebExchange revalidated = get(MockServerHttpRequest.get(PATH));
+        MockServerWebExchange hit = get(MockServerHttpRequest.get(PATH));
+
+        // Then
+        assertThat(originRequests).hasSize(2);
+        assertThat(originRequests.get(1).getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo(etag);
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("REVALIDATED");
+        assertThat(body(revalidated)).isEqualTo(originBody);
+        assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("HIT");
+    }
+
+    @Test
+    @DisplayName("Should serve the stale copy while another request revalidates")
+    void get_WhenStaleAndRevalidating_ShouldServeStale() {
+        // Given
+        get(MockServerHttpRequest.get(PATH));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        ResponseCache.Key key = new ResponseCache.Key("", PATH, null, "", "");
+        assertThat(cache.get(key).tryRevalidate()).isTrue();
+
+        // When
+        MockServerWebExchange stale = get(MockServerHttpRequest.get(PATH));
+
+        // Then
+        assertThat(originRequests).hasSize(1);
+        assertThat(stale.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("STALE");
+        assertThat(body(stale)).isEqualTo(originBody);
+    }
+
+    @Test
+    @DisplayName("Should not store responses the origin marks as uncacheable")
+    void get_WhenNoStore_ShouldAlwaysReachOrigin() {
+        originCacheControl = "no-store";
+
+        get(MockServerHttpRequest.get(PATH));
+        get(MockServerHttpRequest.get(PATH));
+
+        assertThat(originRequests).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should drop the resource and its collection after a write through the gateway")
+    void write_ShouldInvalidateResourceAndParent() {
+        // Given
+        get(MockServerHttpRequest.get(PATH));
+        get(MockServerHttpRequest.get(PATH + "/summary"));
+        get(MockServerHttpRequest.get("/api/v1/customers"));
+        get(MockServerHttpRequest.get("/api/v1/customers/7"));
+
+        // When
+        get(MockServerHttpRequest.put(PATH));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(new ResponseCache.Key("", "/api/v1/customers/7", null, "", ""))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache for requests carrying credentials")
+    void get_WithCredentialHeader_ShouldAlwaysReachOrigin() {
+        get(MockServerHttpRequest.get(PATH).header("X-API-Key", "key-1"));
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.COOKIE, "session=1"));
+
+        assertThat(originRequests).hasSize(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should only drop in-flight responses for the paths an invalidation covered")
+    void put_AfterInvalidation_ShouldSkipOnlyAffectedPaths() {
+        // Given
+        long started = cache.generation();
+        ResponseCache.Key affected = new ResponseCache.Key("", PATH + "/summary", null, "", "");
+        ResponseCache.Key unaffected = new ResponseCache.Key("", "/api/v1/customers/7", null, "", "");
+        CachedResponse response = new CachedResponse(HttpStatus.OK, new HttpHeaders(), new byte[0], "\"1\"",
+                cache.now(), Duration.ofSeconds(5), Duration.ZERO);
+
+        // When
+        cache.invalidate(PATH);
+        cache.put(affected, response, started);
+        cache.put(unaffected, response, started);
+
+        // Then
+        assertThat(cache.get(affected)).isNull();
+        assertThat(cache.get(unaffected)).isNotNull();
+    }
+}
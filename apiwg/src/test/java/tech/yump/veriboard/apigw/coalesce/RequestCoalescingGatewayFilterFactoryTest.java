@@ -0,0 +1,202 @@
+package tech.yump.veriboard.apigw.coalesce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Request Coalescing Filter Tests")
+class RequestCoalescingGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/v1/customers/42";
+    private static final String BODY = "{\"id\":42}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamRequests = new AtomicInteger();
+    private final RequestCoalescingGatewayFilterFactory.Config config = new RequestCoalescingGatewayFilterFactory.Config();
+    private GatewayFilter filter;
+    private Duration upstreamLatency = Duration.ofMillis(100);
+
+    private final GatewayFilterChain upstream = exchange -> Mono.delay(upstreamLatency).then(Mono.defer(() -> {
+        upstreamRequests.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    }));
+
+    @BeforeEach
+    void setUp() {
+        config.setRouteId("customer");
+        filter = new RequestCoalescingGatewayFilterFactory(meterRegistry, DataSize.ofKilobytes(64)).apply(config);
+    }
+
+    private List<MockServerWebExchange> concurrently(int requests, String... authorizations) {
+        List<MockServerWebExchange> exchanges = IntStream.range(0, requests)
+                .mapToObj(i -> {
+                    MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(PATH);
+                    if (authorizations.length > 0) {
+                        request.header(HttpHeaders.AUTHORIZATION, authorizations[i % authorizations.length]);
+                    }
+                    return MockServerWebExchange.from(request);
+                })
+                .toList();
+        Mono.when(exchanges.stream().map(exchange -> filter.filter(exchange, upstream)).toList()).block();
+        return exchanges;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("gateway.coalesce.requests").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should send concurrent identical GETs upstream once and give every caller the response")
+    void filter_WithIdenticalConcurrentGets_ShouldShareOneUpstreamRequest() {
+        // When
+        List<MockServerWebExchange> exchanges = concurrently(10);
+
+        // Then
+        assertThat(upstreamRequests).hasValue(1);
+        assertThat(exchanges).allSatisfy(exchange -> {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(body(exchange)).isEqualTo(BODY);
+        });
+        assertThat(exchanges.stream()
+                .filter(exchange -> exchange.getResponse().getHeaders().containsKey(
+                        RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                .count()).isEqualTo(9);
+        assertThat(exchanges.get(9).getResponse().getHeaders().getContentType())
+                .isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(outcome("coalesced")).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Should never share a response between different credentials")
+    void filter_WithDifferentCredentials_ShouldNotShare() {
+        // When
+        concurrently(4, "Bearer alice", "Bearer bob");
+
+        // Then
+        assertThat(upstreamRequests).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should send conditional GETs upstream on their own and not hand their 304 to others")
+    void filter_WithConditionalLeader_ShouldNotShareNotModified() {
+        // Given
+        GatewayFilterChain revalidating = exchange -> {
+            if (exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)) {
+                return Mono.delay(upstreamLatency).then(Mono.defer(() -> {
+                    upstreamRequests.incrementAndGet();
+                    exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+                    return exchange.getResponse().setComplete();
+                }));
+            }
+            return upstream.filter(exchange);
+        };
+        MockServerWebExchange conditional = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"1\""));
+        List<MockServerWebExchange> unconditional = IntStream.range(0, 3)
+                .mapToObj(i -> MockServerWebExchange.from(MockServerHttpRequest.get(PATH)))
+                .toList();
+
+        // When
+        Mono.when(filter.filter(conditional, revalidating),
+                Mono.delay(Duration.ofMillis(20)).then(Mono.when(unconditional.stream()
+                        .map(exchange -> filter.filter(exchange, revalidating)).toList()))).block();
+
+        // Then
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unconditional).allSatisfy(exchange -> {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(body(exchange)).isEqualTo(BODY);
+        });
+        assertThat(upstreamRequests).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should never share a 304, even one sent to an unconditional leader")
+    void filter_WhenLeaderGetsNotModified_ShouldLetWaitersGoUpstream() {
+        // Given
+        GatewayFilterChain notModified = exchange -> Mono.delay(upstreamLatency).then(Mono.defer(() -> {
+            upstreamRequests.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+            return exchange.getResponse().setComplete();
+        }));
+        List<MockServerWebExchange> exchanges = IntStream.range(0, 3)
+                .mapToObj(i -> MockServerWebExchange.from(MockServerHttpRequest.get(PATH)))
+                .toList();
+
+        // When
+        Mono.when(exchanges.stream().map(exchange -> filter.filter(exchange, notModified)).toList()).block();
+
+        // Then
+        assertThat(upstreamRequests).hasValue(3);
+        assertThat(outcome("coalesced")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let requests beyond the waiter limit go upstream themselves")
+    void filter_WhenTooManyWaiters_ShouldSendOwnRequests() {
+        // Given
+        config.setMaxWaiters(2);
+        filter = new RequestCoalescingGatewayFilterFactory(new SimpleMeterRegistry(), DataSize.ofKilobytes(64))
+                .apply(config);
+
+        // When
+        List<MockServerWebExchange> exchanges = concurrently(5);
+
+        // Then
+        assertThat(upstreamRequests).hasValue(3);
+        assertThat(exchanges).allSatisfy(exchange -> assertThat(body(exchange)).isEqualTo(BODY));
+    }
+
+    @Test
+    @DisplayName("Should stop waiting after the timeout and send its own request")
+    void filter_WhenLeaderIsSlow_ShouldTimeOutAndSendOwnRequest() {
+        // Given
+        config.setTimeout(Duration.ofMillis(50));
+        upstreamLatency = Duration.ofMillis(200);
+
+        // When
+        List<MockServerWebExchange> exchanges = concurrently(2);
+
+        // Then
+        assertThat(upstreamRequests).hasValue(2);
+        assertThat(exchanges).allSatisfy(exchange -> assertThat(body(exchange)).isEqualTo(BODY));
+        assertThat(outcome("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should start a new upstream request once the previous one has answered")
+    void filter_AfterResponse_ShouldNotReuseIt() {
+        // When
+        concurrently(1);
+        concurrently(1);
+
+        // Then
+        assertThat(upstreamRequests).hasValue(2);
+    }
+}
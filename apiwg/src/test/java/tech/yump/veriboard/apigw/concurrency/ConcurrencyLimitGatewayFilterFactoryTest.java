@@ -0,0 +1,71 @@
+package tech.yump.veriboard.apigw.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Concurrency Limit Filter Tests")
+class ConcurrencyLimitGatewayFilterFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GatewayFilter filter(int limit) {
+        ConcurrencyLimitGatewayFilterFactory.Config config = new ConcurrencyLimitGatewayFilterFactory.Config();
+        config.setRouteId("customer");
+        config.setInitialLimit(limit);
+        config.setMinLimit(1);
+        return new ConcurrencyLimitGatewayFilterFactory(meterRegistry).apply(config);
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/customers/42"));
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After at once when the route is at its limit")
+    void filter_AtLimit_ShouldShedWithServiceUnavailable() {
+        // Given
+        GatewayFilter filter = filter(1);
+        Sinks.Empty<Void> upstream = Sinks.empty();
+        filter.filter(exchange(), exchange -> upstream.asMono()).subscribe();
+
+        // When
+        MockServerWebExchange shed = exchange();
+        filter.filter(shed, exchange -> Mono.error(new AssertionError("must not reach upstream"))).block();
+
+        // Then
+        assertThat(shed.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should admit the next request once the previous one has completed")
+    void filter_AfterCompletion_ShouldReleasePermit() {
+        // Given
+        GatewayFilter filter = filter(1);
+        Sinks.Empty<Void> upstream = Sinks.empty();
+        filter.filter(exchange(), exchange -> upstream.asMono()).subscribe();
+        upstream.tryEmitEmpty();
+
+        // When
+        MockServerWebExchange next = exchange();
+        filter.filter(next, exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        }).block();
+
+        // Then
+        assertThat(next.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("gateway.concurrency.in.flight").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,141 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Registration Fallback Tests")
+class RegistrationFallbackTest {
+
+    private static final byte[] BODY = "{\"firstName\":\"Ada\"}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClientRequest> replays = new ArrayList<>();
+    private final CircuitBreaker circuitBreaker = CircuitBreakerRegistry.ofDefaults().circuitBreaker("customer-cb");
+    private HttpStatus upstreamStatus = HttpStatus.CREATED;
+    private RegistrationFallback fallback;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    replays.add(request);
+                    return Mono.just(ClientResponse.create(upstreamStatus).build());
+                })
+                .build();
+        fallback = new RegistrationFallback(new RegistrationJournal(directory, 64 * 1024, 2, false), webClient,
+                URI.create("http://customer/api/v1/customers"), circuitBreaker, meterRegistry,
+                Duration.ofMillis(1), Duration.ofHours(1), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fallback.stop();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should replay a journaled registration with the tracking id as idempotency key")
+    void drain_WhenServiceAccepts_ShouldReplayAndRemove() {
+        // Given
+        String trackingId = fallback.accept(Map.of("Content-Type", "application/json"), BODY);
+
+        // When
+        fallback.drain();
+
+        // Then
+        assertThat(trackingId).isNotNull();
+        assertThat(replays).hasSize(1);
+        assertThat(replays.get(0).url().toString()).isEqualTo("http://customer/api/v1/customers");
+        assertThat(replays.get(0).headers().getFirst(RegistrationFallback.IDEMPOTENCY_KEY_HEADER))
+                .isEqualTo(trackingId);
+        assertThat(fallback.pending()).isZero();
+        assertThat(counter("gateway.registration.replayed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the client's own idempotency key")
+    void drain_WithClientIdempotencyKey_ShouldSendIt() {
+        // Given
+        fallback.accept(Map.of(RegistrationFallback.IDEMPOTENCY_KEY_HEADER, "client-key"), BODY);
+
+        // When
+        fallback.drain();
+
+        // Then
+        assertThat(replays.get(0).headers().getFirst(RegistrationFallback.IDEMPOTENCY_KEY_HEADER))
+                .isEqualTo("client-key");
+    }
+
+    @Test
+    @DisplayName("Should keep the registration when the customer service is still failing")
+    void drain_WhenServiceFails_ShouldKeepRegistration() {
+        // Given
+        upstreamStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        fallback.accept(Map.of(), BODY);
+
+        // When
+        fallback.drain();
+
+        // Then
+        assertThat(replays).hasSize(1);
+        assertThat(fallback.pending()).isEqualTo(1);
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop a registration the customer service rejects")
+    void drain_WhenServiceRejects_ShouldRemoveRegistration() {
+        // Given
+        upstreamStatus = HttpStatus.BAD_REQUEST;
+        fallback.accept(Map.of(), BODY);
+
+        // When
+        fallback.drain();
+
+        // Then
+        assertThat(fallback.pending()).isZero();
+        assertThat(counter("gateway.registration.rejected")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not replay while the circuit breaker is open")
+    void drain_WhenBreakerOpen_ShouldNotReplay() {
+        // Given
+        fallback.accept(Map.of(), BODY);
+        circuitBreaker.transitionToOpenState();
+
+        // When
+        fallback.drain();
+
+        // Then
+        assertThat(replays).isEmpty();
+        assertThat(fallback.pending()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,124 @@
+package tech.yump.veriboard.apigw.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Registration Journal Tests")
+class RegistrationJournalTest {
+
+    private static final int SEGMENT_SIZE = 512;
+
+    @TempDir
+    Path directory;
+
+    private static JournaledRegistration registration(int i) {
+        return new JournaledRegistration("tracking-" + i, Instant.ofEpochMilli(1_700_000_000_000L + i),
+                Map.of("Content-Type", "application/json"),
+                ("{\"firstName\":\"Customer " + i + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return registrations in the order they were appended")
+    void peekAndRemove_ShouldBeFifo() {
+        try (RegistrationJournal journal = new RegistrationJournal(directory, SEGMENT_SIZE, 4, false)) {
+            // Given
+            journal.append(registration(1));
+            journal.append(registration(2));
+
+            // When
+            JournaledRegistration first = journal.peek();
+            journal.remove();
+            JournaledRegistration second = journal.peek();
+
+            // Then
+            assertThat(first.trackingId()).isEqualTo("tracking-1");
+            assertThat(first.headers()).containsEntry("Content-Type", "application/json");
+            assertThat(new String(first.body(), StandardCharsets.UTF_8)).contains("Customer 1");
+            assertThat(first.receivedAt()).isEqualTo(Instant.ofEpochMilli(1_700_000_000_001L));
+            assertThat(second.trackingId()).isEqualTo("tracking-2");
+            assertThat(journal.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should roll over to new segments and delete those that have been replayed")
+    void append_WhenSegmentIsFull_ShouldRollAndLaterDelete() throws Exception {
+        try (RegistrationJournal journal = new RegistrationJournal(directory, SEGMENT_SIZE, 8, false)) {
+            // Given
+            for (int i = 0; i < 20; i++) {
+                assertThat(journal.append(registration(i))).isTrue();
+            }
+            assertThat(segmentFiles()).isGreaterThan(1);
+
+            // When
+            for (int i = 0; i < 20; i++) {
+                assertThat(journal.peek().trackingId()).isEqualTo("tracking-" + i);
+                journal.remove();
+            }
+
+            // Then
+            assertThat(journal.peek()).isNull();
+            assertThat(journal.isEmpty()).isTrue();
+            assertThat(segmentFiles()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should resume from the last replayed registration after a restart")
+    void reopen_ShouldRecoverPendingRegistrations() {
+        // Given
+        try (RegistrationJournal journal = new RegistrationJournal(directory, SEGMENT_SIZE, 8, false)) {
+            for (int i = 0; i < 12; i++) {
+                journal.append(registration(i));
+            }
+            for (int i = 0; i < 7; i++) {
+                journal.remove();
+            }
+        }
+
+        // When
+        try (RegistrationJournal journal = new RegistrationJournal(directory, SEGMENT_SIZE, 8, false)) {
+            // Then
+            assertThat(journal.size()).isEqualTo(5);
+            assertThat(journal.peek().trackingId()).isEqualTo("tracking-7");
+            journal.append(registration(12));
+            assertThat(journal.size()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse registrations once every segment is full")
+    void append_WhenFull_ShouldRefuse() {
+        try (RegistrationJournal journal = new RegistrationJournal(directory, SEGMENT_SIZE, 2, false)) {
+            // Given
+            int appended = 0;
+            while (journal.append(registration(appended))) {
+                appended++;
+            }
+
+            // When
+            journal.remove();
+
+            // Then
+            assertThat(appended).isGreaterThan(0);
+            assertThat(journal.size()).isEqualTo(appended - 1);
+            assertThat(journal.segmentCount()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package tech.yump.veriboard.apigw.hedge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Hedge Budget Tests")
+class HedgeBudgetTest {
+
+    @Test
+    @DisplayName("Should allow one hedge per twenty requests at a five percent budget")
+    void tryWithdraw_ShouldFollowRatio() {
+        // Given
+        HedgeBudget budget = new HedgeBudget(0.05, 1);
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        // When
+        for (int i = 0; i < 19; i++) {
+            budget.onRequest();
+        }
+
+        // Then
+        assertThat(budget.tryWithdraw()).isFalse();
+        budget.onRequest();
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not save up more than its burst")
+    void onRequest_ShouldCapBalance() {
+        HedgeBudget budget = new HedgeBudget(0.05, 2);
+        for (int i = 0; i < 1000; i++) {
+            budget.onRequest();
+        }
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+}
@@ -0,0 +1,150 @@
+package tech.yump.veriboard.apigw.hedge;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Hedging Filter Tests")
+class HedgingGatewayFilterFactoryTest {
+
+    private final ServiceInstance slow = new DefaultServiceInstance("customer-1", "customer", "slow.pod", 8080, false);
+    private final ServiceInstance fast = new DefaultServiceInstance("customer-2", "customer", "fast.pod", 8080, false);
+    private final Map<String, Duration> latencies = Map.of("slow.pod", Duration.ofSeconds(2), "fast.pod", Duration.ZERO);
+    private final List<String> requestedHosts = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayFilterChain unroutable = exchange -> Mono.error(new AssertionError("should not be routed"));
+    private List<ServiceInstance> choices;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AtomicInteger position = new AtomicInteger();
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = request ->
+                Mono.just(new DefaultResponse(choices.get(position.getAndIncrement() % choices.size())));
+        ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancers = mock(ReactiveLoadBalancer.Factory.class);
+        when(loadBalancers.getInstance("customer")).thenReturn(loadBalancer);
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable()).thenReturn(List.of());
+
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> {
+            String host = request.url().getHost();
+            requestedHosts.add(host);
+            return Mono.delay(latencies.get(host)).map(tick -> ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", "text/plain")
+                    .body("answered by " + host)
+                    .build());
+        });
+        HedgingGatewayFilterFactory.Config config = new HedgingGatewayFilterFactory.Config();
+        config.setRouteId("customer");
+        config.setInitialDelay(Duration.ofMillis(50));
+        filter = new HedgingGatewayFilterFactory(loadBalancers, webClient, headersFilters, meterRegistry,
+                DataSize.ofKilobytes(64)).apply(config);
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("customer")
+                .uri(URI.create("lb://customer"))
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+
+    @Test
+    @DisplayName("Should hedge to a second instance and answer with whichever is first")
+    void get_WhenPrimaryIsSlow_ShouldAnswerFromHedge() {
+        // Given
+        choices = List.of(slow, fast);
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/customers/42").build());
+
+        // When
+        filter.filter(exchange, unroutable).block(Duration.ofSeconds(1));
+
+        // Then
+        assertThat(requestedHosts).containsExactly("slow.pod", "fast.pod");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("answered by fast.pod");
+        assertThat(ServerWebExchangeUtils.isAlreadyRouted(exchange)).isTrue();
+        assertThat(meterRegistry.get("gateway.hedge.sent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.hedge.won").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.hedge.primary.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not hedge when the primary answers in time")
+    void get_WhenPrimaryIsFast_ShouldNotHedge() {
+        // Given
+        choices = List.of(fast, slow);
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/customers/42").build());
+
+        // When
+        filter.filter(exchange, unroutable).block(Duration.ofSeconds(1));
+
+        // Then
+        assertThat(requestedHosts).containsExactly("fast.pod");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("answered by fast.pod");
+        assertThat(meterRegistry.get("gateway.hedge.sent").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop hedging once the extra load budget is spent")
+    void get_WhenBudgetSpent_ShouldWaitForPrimary() {
+        // Given
+        choices = List.of(slow, fast);
+        for (int i = 0; i < 10; i++) {
+            filter.filter(exchange(MockServerHttpRequest.get("/api/v1/customers/" + i).build()), unroutable)
+                    .block(Duration.ofSeconds(1));
+        }
+        requestedHosts.clear();
+
+        // When
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/customers/42").build());
+        filter.filter(exchange, unroutable).block(Duration.ofSeconds(3));
+
+        // Then
+        assertThat(requestedHosts).containsExactly("slow.pod");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("answered by slow.pod");
+        assertThat(meterRegistry.get("gateway.hedge.budget.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave non-GET requests to the regular routing")
+    void post_ShouldNotBeHedged() {
+        choices = List.of(slow, fast);
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/v1/customers").build());
+
+        filter.filter(exchange, e -> Mono.empty()).block(Duration.ofSeconds(1));
+
+        assertThat(requestedHosts).isEmpty();
+    }
+}
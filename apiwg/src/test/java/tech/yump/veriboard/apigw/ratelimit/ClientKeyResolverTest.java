@@ -0,0 +1,40 @@
+package tech.yump.veriboard.apigw.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Client Key Resolver Tests")
+class ClientKeyResolverTest {
+
+    private final ClientKeyResolver resolver = new ClientKeyResolver("X-API-Key", Set.of("issued-key"));
+
+    private String resolve(String apiKey) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/customers/42")
+                .remoteAddress(new InetSocketAddress("203.0.113.7", 51234));
+        if (apiKey != null) {
+            request.header("X-API-Key", apiKey);
+        }
+        return resolver.resolve(MockServerWebExchange.from(request)).block();
+    }
+
+    @Test
+    @DisplayName("Should give an issued API key its own bucket")
+    void resolve_WithIssuedKey_ShouldUseKey() {
+        assertThat(resolve("issued-key")).isEqualTo("key:issued-key");
+    }
+
+    @Test
+    @DisplayName("Should limit by IP when the API key was not issued, however often it changes")
+    void resolve_WithUnknownKeys_ShouldUseIp() {
+        assertThat(resolve("random-1")).isEqualTo("ip:203.0.113.7");
+        assertThat(resolve("random-2")).isEqualTo("ip:203.0.113.7");
+        assertThat(resolve(null)).isEqualTo("ip:203.0.113.7");
+    }
+}
@@ -0,0 +1,133 @@
+package tech.yump.veriboard.apigw.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Local Rate Limiter Tests")
+class LocalRateLimiterTest {
+
+    private static final String ROUTE = "customer";
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final GatewayReplicas replicas = mock(GatewayReplicas.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LocalRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        when(replicas.count()).thenReturn(1);
+        limiter = limiter(3);
+    }
+
+    private LocalRateLimiter limiter(int maxKeys) {
+        LocalRateLimiter.Config config = new LocalRateLimiter.Config().setReplenishRate(10).setBurstCapacity(5);
+        return new LocalRateLimiter(null, replicas, meterRegistry, config, maxKeys,
+                Duration.ofSeconds(30), Duration.ofSeconds(15), now::get);
+    }
+
+    @Test
+    @DisplayName("Should admit a full burst, then refuse until tokens are replenished")
+    void tryAcquire_ShouldAdmitBurstThenRefill() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.0.1").isAllowed()).isTrue();
+        }
+        RateLimiter.Response refused = limiter.tryAcquire(ROUTE, "ip:10.0.0.1");
+
+        // Then
+        assertThat(refused.isAllowed()).isFalse();
+        assertThat(refused.getHeaders())
+                .containsEntry(LocalRateLimiter.REMAINING_HEADER, "0")
+                .containsEntry(LocalRateLimiter.RETRY_AFTER_HEADER, "1");
+        assertThat(meterRegistry.get("gateway.ratelimit.denied").tag("route", ROUTE).counter().count())
+                .isEqualTo(1);
+        assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.0.2").isAllowed()).isTrue();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        RateLimiter.Response refilled = limiter.tryAcquire(ROUTE, "ip:10.0.0.1");
+        assertThat(refilled.isAllowed()).isTrue();
+        assertThat(refilled.getHeaders()).containsEntry(LocalRateLimiter.REMAINING_HEADER, "0");
+    }
+
+    @Test
+    @DisplayName("Should evict buckets once they have filled up again")
+    void sweep_ShouldEvictOnlyFullBuckets() {
+        // Given
+        limiter.tryAcquire(ROUTE, "ip:10.0.0.1");
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(ROUTE, "ip:10.0.0.2");
+        }
+
+        // When
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        limiter.sweep();
+
+        // Then
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.ratelimit.keys").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should share an overflow bucket when the key table is full of busy buckets")
+    void tryAcquire_WhenTableFull_ShouldUseOverflowBucket() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(ROUTE, "ip:10.0.0." + i);
+        }
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.1." + i).isAllowed()).isTrue();
+        }
+
+        // Then
+        assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.1.99").isAllowed()).isFalse();
+        assertThat(limiter.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should give a new key the place of a full bucket when the key table is full")
+    void tryAcquire_WhenTableFull_ShouldEvictFullBucket() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(ROUTE, "ip:10.0.0." + i);
+        }
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.1.1").isAllowed()).isTrue();
+        }
+
+        // Then
+        assertThat(limiter.tryAcquire(ROUTE, "ip:10.0.1.2").isAllowed()).isTrue();
+        assertThat(limiter.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should enforce only this replica's share of the rate")
+    void tryAcquire_WithReplicas_ShouldDivideLimits() {
+        // Given
+        when(replicas.count()).thenReturn(2);
+
+        // When
+        int admitted = 0;
+        while (limiter.tryAcquire(ROUTE, "key:abc").isAllowed()) {
+            admitted++;
+        }
+
+        // Then
+        assertThat(admitted).isEqualTo(2);
+    }
+}
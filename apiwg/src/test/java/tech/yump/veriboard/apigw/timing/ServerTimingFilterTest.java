@@ -0,0 +1,79 @@
+package tech.yump.veriboard.apigw.timing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Server Timing Filter Tests")
+class ServerTimingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServerTimingFilter serverTiming = new ServerTimingFilter(meterRegistry);
+    private final UpstreamTimingFilter upstreamTiming = new UpstreamTimingFilter();
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/customers/42"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("customer")
+                .uri(URI.create("lb://customer"))
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+
+    @Test
+    @DisplayName("Should record total and upstream latency per route and return them as Server-Timing")
+    void filter_ShouldRecordAndReportLatencies() {
+        // Given
+        MockServerWebExchange exchange = exchange();
+        GatewayFilterChain upstream = e -> Mono.delay(Duration.ofMillis(30)).then(e.getResponse().setComplete());
+
+        // When
+        serverTiming.filter(exchange, e -> Mono.delay(Duration.ofMillis(20))
+                        .then(upstreamTiming.filter(e, upstream)))
+                .block();
+
+        // Then
+        String header = exchange.getResponse().getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING_HEADER);
+        assertThat(header).matches("upstream;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d");
+        double total = meterRegistry.get("gateway.request.latency").tag("route", "customer").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+        double upstreamTime = meterRegistry.get("gateway.upstream.latency").tag("route", "customer").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+        assertThat(upstreamTime).isGreaterThanOrEqualTo(30);
+        assertThat(total).isGreaterThanOrEqualTo(50).isGreaterThan(upstreamTime);
+    }
+
+    @Test
+    @DisplayName("Should report only the total when nothing was sent upstream")
+    void filter_WhenAnsweredByGateway_ShouldReportTotalOnly() {
+        MockServerWebExchange exchange = exchange();
+
+        serverTiming.filter(exchange, e -> e.getResponse().setComplete()).block();
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING_HEADER))
+                .startsWith("total;dur=");
+        assertThat(meterRegistry.get("gateway.upstream.latency").timer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should format durations as milliseconds with one decimal")
+    void appendMetric_ShouldFormatMilliseconds() {
+        assertThat(ServerTimingFilter.appendMetric(new StringBuilder(), "total", 12_345_678).toString())
+                .isEqualTo("total;dur=12.3");
+        assertThat(ServerTimingFilter.appendMetric(new StringBuilder(), "total", 50_000).toString())
+                .isEqualTo("total;dur=0.0");
+    }
+}
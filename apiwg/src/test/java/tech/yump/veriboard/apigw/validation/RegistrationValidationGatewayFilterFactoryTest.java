@@ -0,0 +1,151 @@
+package tech.yump.veriboard.apigw.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Registration Validation Filter Tests")
+class RegistrationValidationGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/v1/customers";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> forwardedBodies = new ArrayList<>();
+    private final RegistrationValidationGatewayFilterFactory.Config config =
+            new RegistrationValidationGatewayFilterFactory.Config();
+    private GatewayFilter filter;
+
+    private final GatewayFilterChain upstream = exchange -> DataBufferUtils.join(exchange.getRequest().getBody())
+            .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+            .doOnNext(forwardedBodies::add)
+            .then(Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.CREATED)));
+
+    @BeforeEach
+    void setUp() {
+        config.setRouteId("customer");
+        filter = new RegistrationValidationGatewayFilterFactory(new ObjectMapper(), meterRegistry).apply(config);
+    }
+
+    private MockServerWebExchange post(String body) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post(PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body));
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    @Test
+    @DisplayName("Should forward a valid registration with its body intact")
+    void filter_WithValidRegistration_ShouldForward() {
+        // Given
+        String registration = "{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"email\":\"ada@example.com\","
+                + "\"extra\":{\"nested\":[1,2]}}";
+
+        // When
+        MockServerWebExchange exchange = post(registration);
+
+        // Then
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(forwardedBodies).containsExactly(registration);
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid registration with the customer service's messages")
+    void filter_WithInvalidRegistration_ShouldRejectWith400() {
+        // When
+        MockServerWebExchange exchange = post("{\"firstName\":\"Ada\",\"lastName\":\" \",\"email\":\"not-an-email\"}");
+
+        // Then
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(body(exchange))
+                .contains("\"error\":\"Validation Failed\"")
+                .contains("\"message\":\"Last name is required, Email format is invalid\"")
+                .contains("\"path\":\"/api/v1/customers\"");
+        assertThat(forwardedBodies).isEmpty();
+        assertThat(meterRegistry.get("gateway.validation.rejected").tag("reason", "invalid").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should answer every rejection with a complete error body of its own")
+    void filter_WithRepeatedRejections_ShouldWriteWholeErrorBody() throws Exception {
+        // When
+        post("{\"firstName\":\"Ada\",\"lastName\":\"\",\"email\":\"ada@example.com\"}");
+        MockServerWebExchange exchange = post("{\"firstName\":\"Ada\",\"lastName\":\"\",\"email\":\"ada@example.com\"}");
+
+        // Then
+        JsonNode error = new ObjectMapper().readTree(body(exchange));
+        assertThat(error.fieldNames()).toIterable()
+                .containsExactly("timestamp", "status", "error", "message", "path");
+        assertThat(LocalDateTime.parse(error.get("timestamp").asText())).isNotNull();
+        assertThat(error.get("status").asInt()).isEqualTo(400);
+        assertThat(error.get("message").asText()).isEqualTo("Last name is required");
+        assertThat(exchange.getResponse().getHeaders().getContentLength())
+                .isEqualTo(body(exchange).getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed JSON")
+    void filter_WithMalformedJson_ShouldRejectWith400() {
+        // When
+        MockServerWebExchange exchange = post("{\"firstName\":\"Ada\",");
+
+        // Then
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(body(exchange)).contains("\"message\":\"Malformed JSON request\"");
+        assertThat(forwardedBodies).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject bodies larger than the limit")
+    void filter_WithOversizedBody_ShouldRejectWith413() {
+        // Given
+        config.setMaxBodySize(DataSize.ofBytes(32));
+        filter = new RegistrationValidationGatewayFilterFactory(new ObjectMapper(), meterRegistry).apply(config);
+
+        // When
+        MockServerWebExchange exchange = post("{\"firstName\":\"" + "A".repeat(100) + "\"}");
+
+        // Then
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(forwardedBodies).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should leave other requests alone")
+    void filter_WithOtherRequest_ShouldNotValidate() {
+        // Given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.put(PATH + "/42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{}"));
+
+        // When
+        filter.filter(exchange, upstream).block();
+
+        // Then
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+}
@@ -0,0 +1,54 @@
+package tech.yump.veriboard.clients.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The format rules a customer registration must satisfy, shared by the customer service
+ * and the gateway so both reject the same payloads with the same messages.
+ * <p>
+ * Rules that need the customer data, such as email uniqueness, stay in the customer
+ * service.
+ */
+public final class RegistrationRules {
+
+    public static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[A-Za-z0-9+_.-]+@[A-Za-z0-9-]+\\.[A-Za-z]{2,}$"
+    );
+
+    public static final String FIRST_NAME_REQUIRED = "First name is required";
+    public static final String LAST_NAME_REQUIRED = "Last name is required";
+    public static final String EMAIL_REQUIRED = "Email is required";
+    public static final String EMAIL_INVALID = "Email format is invalid";
+
+    private RegistrationRules() {
+    }
+
+    /**
+     * @return the violated rules' messages in a fixed order; empty if the registration is well-formed
+     */
+    public static List<String> violations(String firstName, String lastName, String email) {
+        List<String> errors = new ArrayList<>(3);
+        if (isBlankOrNull(firstName)) {
+            errors.add(FIRST_NAME_REQUIRED);
+        }
+        if (isBlankOrNull(lastName)) {
+            errors.add(LAST_NAME_REQUIRED);
+        }
+        if (isBlankOrNull(email)) {
+            errors.add(EMAIL_REQUIRED);
+        } else if (!isValidEmailFormat(email)) {
+            errors.add(EMAIL_INVALID);
+        }
+        return errors;
+    }
+
+    public static boolean isValidEmailFormat(String email) {
+        return EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    private static boolean isBlankOrNull(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
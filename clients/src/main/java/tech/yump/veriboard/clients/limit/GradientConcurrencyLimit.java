@@ -0,0 +1,161 @@
+package tech.yump.veriboard.clients.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that follows measured latency instead of a fixed number, after the
+ * gradient algorithm of Netflix's concurrency-limits.
+ * <p>
+ * Each completed request compares a long moving average of round-trip times, the latency
+ * the service has when not queueing, with the latest one. While they stay within
+ * {@code tolerance} of each other the limit grows by about its square root per sample;
+ * once requests start queueing the latest RTT rises and the limit shrinks in proportion,
+ * by at most half. Failed requests count as a drop and cut the limit by a tenth. Samples
+ * taken while less than half the limit was used say nothing about capacity and only feed
+ * the averages.
+ * <p>
+ * Callers that get no {@link Permit} should be turned away at once rather than queued,
+ * which is what keeps latency near the no-load baseline under overload.
+ */
+public final class GradientConcurrencyLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int longWindow;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRtt;
+    private int samples;
+
+    /**
+     * @param tolerance how much slower than the long-term RTT requests may get before the limit shrinks
+     * @param smoothing weight of each new limit estimate, between 0 and 1
+     * @param longWindow number of samples the long-term RTT averages over
+     */
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    double tolerance, double smoothing, int longWindow) {
+        this(initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow, System::nanoTime);
+    }
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                             double tolerance, double smoothing, int longWindow, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max, got " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * A permit to start a request, or null when the limit is reached.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void onSample(long rtt, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * DROP_BACKOFF);
+            return;
+        }
+        if (rtt <= 0) {
+            return;
+        }
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRtt += (rtt - longRtt) / samples;
+        } else {
+            longRtt += (rtt - longRtt) / longWindow;
+        }
+        // After an overload the long-term average has absorbed queueing delay; let it recover faster
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / rtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    /**
+     * One admitted request; exactly one of the completion methods must be called.
+     */
+    public final class Permit {
+
+        private final long start;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long start, int inFlightAtStart) {
+            this.start = start;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * The request completed; its latency is a sample of the service's capacity.
+         */
+        public void success() {
+            release(false, true);
+        }
+
+        /**
+         * The request failed or timed out because the service was overloaded.
+         */
+        public void dropped() {
+            release(true, true);
+        }
+
+        /**
+         * The request ended in a way that says nothing about capacity, e.g. it was cancelled.
+         */
+        public void ignore() {
+            release(false, false);
+        }
+
+        private void release(boolean dropped, boolean sample) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            inFlight.decrementAndGet();
+            if (sample) {
+                onSample(nanoClock.getAsLong() - start, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
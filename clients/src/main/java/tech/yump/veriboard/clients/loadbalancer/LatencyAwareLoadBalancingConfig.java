@@ -0,0 +1,19 @@
+package tech.yump.veriboard.clients.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes every load-balanced call, Feign clients and {@code lb://} gateway routes alike,
+ * through {@link PeakEwmaLoadBalancer} instead of round robin.
+ * <p>
+ * The balancer needs the individual instances, so with Kubernetes discovery
+ * {@code spring.cloud.kubernetes.loadbalancer.mode} must be {@code POD}; in {@code SERVICE}
+ * mode there is only the Service's address to choose from.
+ */
+@Configuration
+@ConditionalOnProperty(name = "veriboard.loadbalancer.latency-aware.enabled", havingValue = "true")
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LatencyAwareLoadBalancingConfig {
+}
@@ -0,0 +1,194 @@
+package tech.yump.veriboard.clients.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Picks two random instances and sends the request to the one with the lower cost, where
+ * cost is a peak-sensitive moving average of its latency times its requests in flight plus
+ * one ("power of two choices" over peak EWMA).
+ * <p>
+ * A slower answer than the average replaces it at once, faster ones pull it down with a
+ * weight that depends on the time since the last update, and an idle instance's average
+ * decays towards zero so it is tried again. Failures and 5xx responses count as at least
+ * {@code failurePenalty}. Statistics come from the load balancer lifecycle callbacks, so
+ * requests that bypass them only affect the choice through their absence.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceSuppliers;
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceSuppliers, String serviceId,
+                                Duration decay, Duration failurePenalty) {
+        this(instanceSuppliers, serviceId, decay, failurePenalty, System::nanoTime);
+    }
+
+    PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceSuppliers, String serviceId,
+                         Duration decay, Duration failurePenalty, LongSupplier nanoClock) {
+        this.instanceSuppliers = instanceSuppliers;
+        this.serviceId = serviceId;
+        this.decayNanos = decay.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = instanceSuppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 0) {
+            log.warn("No instances available for service {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (stats.size() > 2 * size) {
+            forgetGone(instances);
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        long now = nanoClock.getAsLong();
+        return new DefaultResponse(stats(b).cost(now) < stats(a).cost(now) ? b : a);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(nanoClock.getAsLong());
+        }
+        stats(lbResponse.getServer()).pending.incrementAndGet();
+    }
+
+    /**
+     * A discarded request, e.g. one cancelled because a hedge answered first, still tells
+     * that the instance took at least this long.
+     */
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats instance = stats.get(key(lbResponse.getServer()));
+        if (instance == null) {
+            return;
+        }
+        instance.pending.updateAndGet(pending -> Math.max(0, pending - 1));
+        Request<Object> request = completion.getLoadBalancerRequest();
+        if (request == null || !(request.getContext() instanceof TimedRequestContext timed)
+                || timed.getRequestStartTime() == 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long latency = now - timed.getRequestStartTime();
+        if (failed(completion)) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        instance.observe(latency, now);
+    }
+
+    private static boolean failed(CompletionContext<Object, ServiceInstance, Object> completion) {
+        if (completion.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        return completion.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null
+                && response.getHttpStatus().is5xxServerError();
+    }
+
+    private InstanceStats stats(ServiceInstance instance) {
+        String key = key(instance);
+        InstanceStats instanceStats = stats.get(key);
+        return instanceStats != null ? instanceStats : stats.computeIfAbsent(key, k -> new InstanceStats());
+    }
+
+    /**
+     * Drops statistics of instances that left the list and have nothing in flight.
+     */
+    private void forgetGone(List<ServiceInstance> instances) {
+        Set<String> current = instances.stream().map(PeakEwmaLoadBalancer::key).collect(Collectors.toSet());
+        stats.entrySet().removeIf(entry -> !current.contains(entry.getKey()) && entry.getValue().pending.get() == 0);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+
+    int tracked() {
+        return stats.size();
+    }
+
+    private final class InstanceStats {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private double ewma;
+        private long updatedAt = nanoClock.getAsLong();
+
+        /**
+         * Moves the average towards {@code latency}, or straight to it when it is higher.
+         */
+        synchronized void observe(long latency, long now) {
+            double weight = Math.exp(-Math.max(0, now - updatedAt) / decayNanos);
+            ewma = latency > ewma ? latency : ewma * weight + latency * (1 - weight);
+            updatedAt = Math.max(updatedAt, now);
+        }
+
+        synchronized double cost(long now) {
+            observe(0, now);
+            int inFlight = pending.get();
+            if (ewma == 0 && inFlight > 0) {
+                return failurePenaltyNanos + inFlight;
+            }
+            return ewma * (inFlight + 1);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package tech.yump.veriboard.clients.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Per-service load balancer configuration, registered through
+ * {@link LatencyAwareLoadBalancingConfig}. It is deliberately not a {@code @Configuration}:
+ * it must only be read by the load balancer's child contexts, never by component scanning.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public PeakEwmaLoadBalancer peakEwmaLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            @Value("${veriboard.loadbalancer.latency-aware.decay:10s}") Duration decay,
+            @Value("${veriboard.loadbalancer.latency-aware.failure-penalty:1s}") Duration failurePenalty) {
+        String serviceId = LoadBalancerClientFactory.getName(environment);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, decay, failurePenalty);
+    }
+}
@@ -1,6 +1,8 @@
 package tech.yump.veriboard.clients.notification;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 
 @FeignClient(
@@ -11,4 +13,10 @@ public interface NotificationClient {
 
     @PostMapping(path = "api/v1/notification")
     void sendNotification(NotificationRequest notificationRequest);
+
+    @PostMapping(path = "api/v1/notification/scheduled")
+    Long scheduleNotification(ScheduledNotificationRequest scheduledNotificationRequest);
+
+    @DeleteMapping(path = "api/v1/notification/scheduled/{id}")
+    void cancelScheduledNotification(@PathVariable("id") Long id);
 }
@@ -0,0 +1,31 @@
+package tech.yump.veriboard.clients.notification;
+
+/**
+ * Delivery priority of a notification. Each priority travels on its own lane
+ * (routing key and queue), so a bulk backlog never sits in front of an alert.
+ */
+public enum NotificationPriority {
+
+    /** Time-critical alerts such as fraud holds. */
+    HIGH(".high"),
+
+    /** Regular transactional notifications; uses the base routing key and queue. */
+    NORMAL(""),
+
+    /** Campaigns and welcome mail that can tolerate minutes of delay. */
+    BULK(".bulk");
+
+    private final String laneSuffix;
+
+    NotificationPriority(String laneSuffix) {
+        this.laneSuffix = laneSuffix;
+    }
+
+    /**
+     * Qualifies a base routing key or queue name with this priority's lane,
+     * e.g. {@code notification.queue} becomes {@code notification.queue.high}.
+     */
+    public String lane(String base) {
+        return base + laneSuffix;
+    }
+}
@@ -3,6 +3,22 @@ package tech.yump.veriboard.clients.notification;
 public record NotificationRequest(
         Integer toCustomerId,
         String toCustomerEmail,
-        String message
+        String message,
+        NotificationPriority priority
 ) {
+
+    /**
+     * Type id the request travels under on AMQP, independent of this class name.
+     */
+    public static final String MESSAGE_TYPE = "notification.request";
+
+    public NotificationRequest {
+        if (priority == null) {
+            priority = NotificationPriority.NORMAL;
+        }
+    }
+
+    public NotificationRequest(Integer toCustomerId, String toCustomerEmail, String message) {
+        this(toCustomerId, toCustomerEmail, message, NotificationPriority.NORMAL);
+    }
 }
@@ -0,0 +1,21 @@
+package tech.yump.veriboard.clients.notification;
+
+import java.time.Instant;
+
+/**
+ * A notification to be sent at {@code sendAt}; a time in the past sends it right away.
+ */
+public record ScheduledNotificationRequest(
+        Integer toCustomerId,
+        String toCustomerEmail,
+        String message,
+        NotificationPriority priority,
+        Instant sendAt
+) {
+
+    public ScheduledNotificationRequest {
+        if (priority == null) {
+            priority = NotificationPriority.NORMAL;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package tech.yump.veriboard.clients.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationRulesTest {
+
+    @Test
+    void violations_WithValidRegistration_ShouldBeEmpty() {
+        // When
+        List<String> violations = RegistrationRules.violations("Ada", "Lovelace", "ada@example.com");
+
+        // Then
+        assertTrue(violations.isEmpty());
+    }
+
+    @Test
+    void violations_WithBlankFields_ShouldListEveryMissingField() {
+        // When
+        List<String> violations = RegistrationRules.violations(" ", null, "");
+
+        // Then
+        assertEquals(List.of(RegistrationRules.FIRST_NAME_REQUIRED, RegistrationRules.LAST_NAME_REQUIRED,
+                RegistrationRules.EMAIL_REQUIRED), violations);
+    }
+
+    @Test
+    void violations_WithInvalidEmail_ShouldReportFormat() {
+        // When
+        List<String> violations = RegistrationRules.violations("Ada", "Lovelace", "ada@example");
+
+        // Then
+        assertEquals(List.of(RegistrationRules.EMAIL_INVALID), violations);
+    }
+}
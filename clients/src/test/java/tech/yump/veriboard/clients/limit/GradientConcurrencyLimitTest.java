@@ -0,0 +1,97 @@
+package tech.yump.veriboard.clients.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 2, 100, 1.5, 0.2, 600, clock::get);
+
+    /**
+     * Runs one round of as many concurrent requests as the limit admits, each taking {@code latencyMillis}.
+     */
+    private void saturate(long latencyMillis) {
+        List<GradientConcurrencyLimit.Permit> permits = new ArrayList<>();
+        GradientConcurrencyLimit.Permit permit;
+        while ((permit = limit.tryAcquire()) != null) {
+            permits.add(permit);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        permits.forEach(GradientConcurrencyLimit.Permit::success);
+    }
+
+    @Test
+    void tryAcquire_AtLimit_ShouldReject() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(limit.tryAcquire());
+        }
+
+        // When
+        GradientConcurrencyLimit.Permit rejected = limit.tryAcquire();
+
+        // Then
+        assertNull(rejected);
+        assertEquals(10, limit.inFlight());
+    }
+
+    @Test
+    void success_WithSteadyLatency_ShouldRaiseLimit() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            saturate(20);
+        }
+
+        // Then
+        assertTrue(limit.limit() > 10, "limit was " + limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void success_WhenLatencyRises_ShouldLowerLimit() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            saturate(20);
+        }
+        int before = limit.limit();
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            saturate(100);
+        }
+
+        // Then
+        assertTrue(limit.limit() < before, "limit went from " + before + " to " + limit.limit());
+    }
+
+    @Test
+    void dropped_ShouldBackOffButNotBelowMinimum() {
+        // When
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire().dropped();
+        }
+
+        // Then
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void permit_ShouldOnlyBeReleasedOnce() {
+        // Given
+        GradientConcurrencyLimit.Permit permit = limit.tryAcquire();
+
+        // When
+        permit.success();
+        permit.ignore();
+
+        // Then
+        assertEquals(0, limit.inFlight());
+    }
+}
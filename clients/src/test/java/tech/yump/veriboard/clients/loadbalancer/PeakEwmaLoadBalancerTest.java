@@ -0,0 +1,140 @@
+package tech.yump.veriboard.clients.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final ServiceInstance FAST = new DefaultServiceInstance("fast", "customer", "10.0.0.1", 8080, false);
+    private static final ServiceInstance SLOW = new DefaultServiceInstance("slow", "customer", "10.0.0.2", 8080, false);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+            ServiceInstanceListSuppliers.toProvider("customer", FAST, SLOW), "customer",
+            Duration.ofSeconds(10), Duration.ofSeconds(1), clock::get);
+
+    private Request<Object> start(ServiceInstance instance) {
+        Request<Object> request = new DefaultRequest<>(new DefaultRequestContext());
+        loadBalancer.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void complete(Request<Object> request, ServiceInstance instance, HttpStatus status) {
+        ResponseData response = new ResponseData(status, new HttpHeaders(), new LinkedMultiValueMap<>(), null);
+        loadBalancer.onComplete(new CompletionContext<>(
+                CompletionContext.Status.SUCCESS, request, new DefaultResponse(instance), response));
+    }
+
+    private void call(ServiceInstance instance, Duration latency, HttpStatus status) {
+        Request<Object> request = start(instance);
+        clock.addAndGet(latency.toNanos());
+        complete(request, instance, status);
+    }
+
+    @Test
+    void choose_ShouldPreferInstanceWithLowerLatency() {
+        // Given
+        call(FAST, Duration.ofMillis(10), HttpStatus.OK);
+        call(SLOW, Duration.ofMillis(200), HttpStatus.OK);
+
+        // When / Then
+        for (int i = 0; i < 20; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(List.of(FAST, SLOW));
+            assertSame(FAST, response.getServer());
+        }
+    }
+
+    @Test
+    void choose_ShouldAvoidInstanceWithRequestsInFlight() {
+        // Given
+        call(FAST, Duration.ofMillis(10), HttpStatus.OK);
+        call(SLOW, Duration.ofMillis(10), HttpStatus.OK);
+        start(FAST);
+        start(FAST);
+
+        // When
+        Response<ServiceInstance> response = loadBalancer.choose(List.of(FAST, SLOW));
+
+        // Then
+        assertSame(SLOW, response.getServer());
+    }
+
+    @Test
+    void onComplete_WithServerError_ShouldChargeFailurePenalty() {
+        // Given
+        call(FAST, Duration.ofMillis(10), HttpStatus.SERVICE_UNAVAILABLE);
+        call(SLOW, Duration.ofMillis(200), HttpStatus.OK);
+
+        // When
+        Response<ServiceInstance> response = loadBalancer.choose(List.of(FAST, SLOW));
+
+        // Then
+        assertSame(SLOW, response.getServer());
+    }
+
+    @Test
+    void choose_ShouldTrySlowInstanceAgainOnceItsPeakHasDecayed() {
+        // Given
+        call(SLOW, Duration.ofMillis(500), HttpStatus.OK);
+        clock.addAndGet(Duration.ofSeconds(60).toNanos());
+        call(FAST, Duration.ofMillis(20), HttpStatus.OK);
+
+        // When
+        Response<ServiceInstance> response = loadBalancer.choose(List.of(FAST, SLOW));
+
+        // Then
+        assertSame(SLOW, response.getServer());
+    }
+
+    @Test
+    void choose_ShouldResolveInstancesFromSupplier() {
+        // When
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+
+        // Then
+        assertNotNull(response);
+        assertTrue(response.hasServer());
+    }
+
+    @Test
+    void choose_WithoutInstances_ShouldReturnEmptyResponse() {
+        // When
+        Response<ServiceInstance> response = loadBalancer.choose(List.of());
+
+        // Then
+        assertFalse(response.hasServer());
+    }
+
+    @Test
+    void choose_ShouldForgetInstancesThatLeft() {
+        // Given
+        call(FAST, Duration.ofMillis(10), HttpStatus.OK);
+        call(SLOW, Duration.ofMillis(10), HttpStatus.OK);
+        ServiceInstance replacement = new DefaultServiceInstance("new", "customer", "10.0.0.3", 8080, false);
+        call(replacement, Duration.ofMillis(10), HttpStatus.OK);
+
+        // When
+        loadBalancer.choose(List.of(replacement));
+
+        // Then
+        assertEquals(1, loadBalancer.tracked());
+    }
+}
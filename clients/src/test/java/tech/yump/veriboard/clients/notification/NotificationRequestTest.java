@@ -112,4 +112,23 @@ class NotificationRequestTest {
         assertEquals(email, request.toCustomerEmail());
         assertEquals(message, request.message());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void constructor_WithoutPriority_ShouldDefaultToNormal() {
+        // When
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Welcome!");
+        NotificationRequest explicitNull = new NotificationRequest(1, "test@example.com", "Welcome!", null);
+
+        // Then
+        assertEquals(NotificationPriority.NORMAL, request.priority());
+        assertEquals(request, explicitNull);
+    }
+
+    @Test
+    void lane_ShouldOnlyQualifyNonNormalPriorities() {
+        // When & Then
+        assertEquals("notification.queue", NotificationPriority.NORMAL.lane("notification.queue"));
+        assertEquals("notification.queue.high", NotificationPriority.HIGH.lane("notification.queue"));
+        assertEquals("notification.queue.bulk", NotificationPriority.BULK.lane("notification.queue"));
+    }
+}
@@ -3,14 +3,16 @@ package tech.yump.veriboard.customer.domain.exceptions;
 /**
  * Domain exception for fraud detection.
  * Thrown when a customer registration is blocked due to fraud.
+ * <p>
+ * An expected outcome rather than a fault, so it is created without a stack trace.
  */
 public class CustomerFraudException extends RuntimeException {
     
     public CustomerFraudException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public CustomerFraudException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 } 
\ No newline at end of file
@@ -3,14 +3,16 @@ package tech.yump.veriboard.customer.domain.exceptions;
 /**
  * Domain exception for customer validation failures.
  * Thrown when customer data doesn't meet business rules.
+ * <p>
+ * An expected outcome rather than a fault, so it is created without a stack trace.
  */
 public class CustomerValidationException extends RuntimeException {
     
     public CustomerValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public CustomerValidationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 } 
\ No newline at end of file
@@ -1,12 +1,11 @@
 package tech.yump.veriboard.customer.domain.services;
 
+import tech.yump.veriboard.clients.customer.RegistrationRules;
 import tech.yump.veriboard.customer.domain.CustomerRegistrationRequest;
 import tech.yump.veriboard.customer.domain.exceptions.CustomerValidationException;
 import tech.yump.veriboard.customer.domain.ports.CustomerRepository;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Domain service for customer validation logic.
@@ -14,10 +13,6 @@ import java.util.regex.Pattern;
  */
 public class CustomerValidationService {
     
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-        "^[A-Za-z0-9+_.-]+@[A-Za-z0-9-]+\\.[A-Za-z]{2,}$"
-    );
-    
     private final CustomerRepository customerRepository;
     
     public CustomerValidationService(CustomerRepository customerRepository) {
@@ -30,29 +25,13 @@ public class CustomerValidationService {
      * @throws CustomerValidationException if validation fails
      */
     public void validateCustomerRegistration(CustomerRegistrationRequest request) {
-        List<String> errors = new ArrayList<>();
-        
-        // Validate required fields
-        if (isBlankOrNull(request.firstName())) {
-            errors.add("First name is required");
-        }
-        
-        if (isBlankOrNull(request.lastName())) {
-            errors.add("Last name is required");
-        }
-        
-        if (isBlankOrNull(request.email())) {
-            errors.add("Email is required");
-        } else {
-            // Validate email format first
-            if (!isValidEmailFormat(request.email())) {
-                errors.add("Email format is invalid");
-            } else {
-                // Only check uniqueness if format is valid
-                if (customerRepository.findByEmail(request.email()).isPresent()) {
-                    errors.add("Email is already registered");
-                }
-            }
+        // Format rules are shared with the gateway, which rejects most invalid payloads early
+        List<String> errors = RegistrationRules.violations(request.firstName(), request.lastName(), request.email());
+
+        // Only check uniqueness if the email is present and well-formed
+        if (!isBlankOrNull(request.email()) && RegistrationRules.isValidEmailFormat(request.email())
+                && customerRepository.findByEmail(request.email()).isPresent()) {
+            errors.add("Email is already registered");
         }
         
         if (!errors.isEmpty()) {
@@ -63,8 +42,4 @@ public class CustomerValidationService {
     private boolean isBlankOrNull(String value) {
         return value == null || value.trim().isEmpty();
     }
-    
-    private boolean isValidEmailFormat(String email) {
-        return EMAIL_PATTERN.matcher(email).matches();
-    }
 } 
\ No newline at end of file
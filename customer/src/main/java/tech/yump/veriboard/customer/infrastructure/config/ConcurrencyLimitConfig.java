@@ -0,0 +1,40 @@
+package tech.yump.veriboard.customer.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import tech.yump.veriboard.clients.limit.GradientConcurrencyLimit;
+import tech.yump.veriboard.customer.infrastructure.web.ConcurrencyLimitFilter;
+
+/**
+ * Puts the customer API behind an adaptive concurrency limit; actuator endpoints stay
+ * reachable when it is shedding load.
+ */
+@Configuration
+@ConditionalOnProperty(name = "veriboard.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${veriboard.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${veriboard.concurrency-limit.min-limit:5}") int minLimit,
+            @Value("${veriboard.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${veriboard.concurrency-limit.tolerance:1.5}") double tolerance,
+            @Value("${veriboard.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${veriboard.concurrency-limit.long-window:600}") int longWindow) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -2,6 +2,8 @@ package tech.yump.veriboard.customer.infrastructure.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tech.yump.veriboard.amqp.MessageTypeRegistration;
+import tech.yump.veriboard.clients.notification.NotificationRequest;
 import tech.yump.veriboard.customer.application.CustomerService;
 import tech.yump.veriboard.customer.domain.ports.CustomerRepository;
 import tech.yump.veriboard.customer.domain.ports.FraudCheckService;
@@ -36,4 +38,9 @@ public class CustomerConfiguration {
                 fraudCheckService,
                 notificationService);
     }
-} 
\ No newline at end of file
+
+    @Bean
+    public MessageTypeRegistration notificationRequestMessageType() {
+        return new MessageTypeRegistration(NotificationRequest.MESSAGE_TYPE, NotificationRequest.class);
+    }
+}
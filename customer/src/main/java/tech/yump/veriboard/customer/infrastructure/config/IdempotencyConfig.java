@@ -0,0 +1,54 @@
+package tech.yump.veriboard.customer.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+import tech.yump.veriboard.customer.infrastructure.idempotency.IdempotencyStore;
+import tech.yump.veriboard.customer.infrastructure.idempotency.JpaIdempotencyRecordRepository;
+import tech.yump.veriboard.customer.infrastructure.web.IdempotencyFilter;
+
+import java.time.Duration;
+
+/**
+ * Honours {@code Idempotency-Key} on customer registrations, so retries by clients and
+ * the gateway return the first response instead of registering again. Runs after the
+ * concurrency limit, so shed requests never claim a key.
+ * <p>
+ * Off unless {@code veriboard.idempotency.enabled} is set, since it needs the
+ * {@code idempotency_keys} table (see {@code scripts/customer-idempotency-schema.sql}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "veriboard.idempotency.enabled", havingValue = "true", matchIfMissing = false)
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyStore idempotencyStore(
+            JpaIdempotencyRecordRepository repository,
+            @Value("${veriboard.idempotency.max-keys:100000}") int maxKeys,
+            @Value("${veriboard.idempotency.ttl:24h}") Duration ttl,
+            @Value("${veriboard.idempotency.claim-timeout:1m}") Duration claimTimeout,
+            @Value("${veriboard.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        return new IdempotencyStore(repository, maxKeys, ttl, claimTimeout, waitTimeout);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore idempotencyStore,
+            @Value("${veriboard.idempotency.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${veriboard.idempotency.max-body-size:1MB}") DataSize maxBodySize,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(idempotencyStore, apiKeyHeader, Math.toIntExact(maxBodySize.toBytes()),
+                        objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/v1/customers", "/api/v1/customers/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,56 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claimed {@code Idempotency-Key} and, once the request has completed, its response.
+ * Shared by all replicas, so a key claimed on one is seen by the others.
+ * <p>
+ * Not created by Hibernate where {@code ddl-auto} is {@code validate}; apply
+ * {@code scripts/customer-idempotency-schema.sql} before enabling idempotency there.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /**
+     * SHA-256 of the caller and the {@code Idempotency-Key}, hex encoded.
+     */
+    @Id
+    @Column(length = 64)
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 of the request body, hex encoded.
+     */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Null while the request is still being processed.
+     */
+    private Integer responseStatus;
+
+    private String responseContentType;
+
+    @Column(length = IdempotencyStore.MAX_RESPONSE_SIZE)
+    private byte[] responseBody;
+
+    private LocalDateTime completedAt;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,291 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the response to each {@code Idempotency-Key} so that retries of a request get
+ * it back instead of running the request again.
+ * <p>
+ * Completed responses are kept in a bounded in-memory cache in front of the
+ * {@code idempotency_keys} table, which all replicas share. A request claims its key by
+ * inserting a row; the primary key makes sure only one replica runs it. Duplicates on the
+ * same replica wait up to {@code waitTimeout} for the running request's response, while
+ * duplicates on other replicas are told it is still in progress. A claim whose request
+ * has not completed within {@code claimTimeout}, e.g. because its replica died, may be
+ * taken over. Keys expire after {@code ttl}.
+ * <p>
+ * A claim is identified by its fingerprint and the time it was made, which is the row's
+ * {@code created_at}. Completing or abandoning a key only touches the row while that claim
+ * still holds it, so a request that was taken over cannot overwrite or release the key of
+ * the request that took over.
+ */
+@Slf4j
+public class IdempotencyStore implements SmartLifecycle {
+
+    public static final int MAX_KEY_LENGTH = 255;
+    static final int MAX_RESPONSE_SIZE = 64 * 1024;
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    public enum Outcome {
+        /** The caller holds the key and must {@link #complete} or {@link #abandon} it. */
+        EXECUTE,
+        /** The key's response is in {@link Claim#response()}. */
+        REPLAY,
+        /** The key was used for a request with a different body. */
+        MISMATCH,
+        /** Another request with the key is still being processed. */
+        IN_PROGRESS
+    }
+
+    public record Claim(Outcome outcome, StoredResponse response) {
+
+        private static final Claim EXECUTE = new Claim(Outcome.EXECUTE, null);
+        private static final Claim MISMATCH = new Claim(Outcome.MISMATCH, null);
+        private static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, null);
+
+        static Claim replay(StoredResponse response, String fingerprint) {
+            return response.fingerprint().equals(fingerprint) ? new Claim(Outcome.REPLAY, response) : MISMATCH;
+        }
+    }
+
+    /**
+     * A request running on this replica; completes with its response, or null if it was abandoned.
+     *
+     * @param claimedAt the {@code created_at} its claim gives the row, truncated to what the table keeps
+     */
+    private record Flight(String fingerprint, LocalDateTime claimedAt, CompletableFuture<StoredResponse> response) {
+    }
+
+    private final JpaIdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final Duration waitTimeout;
+    private final Cache<String, StoredResponse> completed;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purger;
+
+    private volatile boolean running;
+
+    /**
+     * @param maxKeys completed responses kept in memory
+     */
+    public IdempotencyStore(JpaIdempotencyRecordRepository repository, int maxKeys, Duration ttl,
+                            Duration claimTimeout, Duration waitTimeout) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.claimTimeout = claimTimeout;
+        this.waitTimeout = waitTimeout;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Claims the key for a request whose body has the given fingerprint, waiting for a
+     * duplicate already running on this replica.
+     */
+    public Claim claim(String key, String fingerprint) {
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            StoredResponse response = completed.getIfPresent(key);
+            if (response != null) {
+                return Claim.replay(response, fingerprint);
+            }
+            Flight flight = new Flight(fingerprint, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS),
+                    new CompletableFuture<>());
+            Flight running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                return claimShared(key, flight);
+            }
+            if (!running.fingerprint().equals(fingerprint)) {
+                return Claim.MISMATCH;
+            }
+            response = await(running);
+            if (response != null) {
+                return Claim.replay(response, fingerprint);
+            }
+            if (!running.response().isDone()) {
+                return Claim.IN_PROGRESS;
+            }
+            // The running request was abandoned; try to run it ourselves
+        }
+        return Claim.IN_PROGRESS;
+    }
+
+    /**
+     * Stores the response of a request that claimed the key, and hands it to waiting duplicates.
+     * If the claim was taken over meanwhile, the response is dropped and the key released on
+     * this replica, leaving the row to the request that took over.
+     */
+    public void complete(String key, StoredResponse response) {
+        Flight flight = inFlight.get(key);
+        if (flight == null) {
+            log.warn("Idempotency key {} is not claimed on this replica; not storing its response", key);
+            return;
+        }
+        if (response.body().length > MAX_RESPONSE_SIZE) {
+            log.warn("Response for idempotency key {} is too large to keep; releasing the key", key);
+            abandon(key);
+            return;
+        }
+        try {
+            int stored = repository.completeClaim(key, flight.fingerprint(), flight.claimedAt(), response.status(),
+                    response.contentType(), response.body(), LocalDateTime.now());
+            if (stored == 0) {
+                log.warn("Idempotency key {} was taken over by another request; dropping its response", key);
+                land(key, null);
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not store the response for idempotency key {}: {}", key, e.getMessage());
+        }
+        completed.put(key, response);
+        land(key, response);
+    }
+
+    /**
+     * Releases a key whose request failed in a way a retry may fix, so the retry runs it again.
+     */
+    public void abandon(String key) {
+        Flight flight = inFlight.get(key);
+        if (flight == null) {
+            return;
+        }
+        try {
+            repository.deleteClaim(key, flight.fingerprint(), flight.claimedAt());
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency key {}: {}", key, e.getMessage());
+        }
+        land(key, null);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        long interval = Math.max(1, ttl.toMinutes() / 4);
+        purger.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        purger.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void purge() {
+        try {
+            int purged = repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency keys", purged);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Purging expired idempotency keys failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the key in the shared table once this replica holds it.
+     */
+    private Claim claimShared(String key, Flight flight) {
+        Claim claim;
+        try {
+            claim = claimRecord(key, flight.fingerprint(), flight.claimedAt());
+        } catch (RuntimeException e) {
+            land(key, null);
+            throw e;
+        }
+        if (claim.outcome() == Outcome.REPLAY) {
+            completed.put(key, claim.response());
+            land(key, claim.response());
+        } else if (claim.outcome() != Outcome.EXECUTE) {
+            land(key, null);
+        }
+        return claim;
+    }
+
+    private Claim claimRecord(String key, String fingerprint, LocalDateTime now) {
+        Optional<IdempotencyRecord> found = repository.findById(key);
+        if (found.isEmpty()) {
+            try {
+                repository.saveAndFlush(IdempotencyRecord.builder()
+                        .idempotencyKey(key)
+                        .fingerprint(fingerprint)
+                        .createdAt(now)
+                        .build());
+                return Claim.EXECUTE;
+            } catch (DataIntegrityViolationException e) {
+                // Another replica claimed it first
+                return Claim.IN_PROGRESS;
+            }
+        }
+        IdempotencyRecord record = found.get();
+        boolean expired = record.getCreatedAt().isBefore(now.minus(ttl));
+        if (!expired && record.getResponseStatus() != null) {
+            return Claim.replay(new StoredResponse(record.getFingerprint(), record.getResponseStatus(),
+                    record.getResponseContentType(), record.getResponseBody()), fingerprint);
+        }
+        if (!expired && record.getCreatedAt().isAfter(now.minus(claimTimeout))) {
+            return record.getFingerprint().equals(fingerprint) ? Claim.IN_PROGRESS : Claim.MISMATCH;
+        }
+        // Expired, or claimed by a request that never completed
+        record.setFingerprint(fingerprint);
+        record.setCreatedAt(now);
+        record.setResponseStatus(null);
+        record.setResponseContentType(null);
+        record.setResponseBody(null);
+        record.setCompletedAt(null);
+        try {
+            repository.saveAndFlush(record);
+            return Claim.EXECUTE;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return Claim.IN_PROGRESS;
+        }
+    }
+
+    private StoredResponse await(Flight flight) {
+        try {
+            return flight.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void land(String key, StoredResponse response) {
+        Flight flight = inFlight.remove(key);
+        if (flight != null) {
+            flight.response().complete(response);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Spring Data JPA repository for stored idempotency keys.
+ */
+@Repository
+public interface JpaIdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Deletes keys created before the cutoff.
+     * @return the number of keys deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+
+    /**
+     * Stores the response of the claim made at {@code claimedAt} for the fingerprint, unless
+     * the key has been taken over or completed since.
+     * @return 1 if the response was stored, 0 if the claim is no longer held
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r
+            set r.responseStatus = :status, r.responseContentType = :contentType, r.responseBody = :body,
+                r.completedAt = :completedAt, r.version = r.version + 1
+            where r.idempotencyKey = :key and r.fingerprint = :fingerprint and r.createdAt = :claimedAt
+                and r.responseStatus is null""")
+    int completeClaim(String key, String fingerprint, LocalDateTime claimedAt, Integer status, String contentType,
+                      byte[] body, LocalDateTime completedAt);
+
+    /**
+     * Deletes the key if it is still held by the claim made at {@code claimedAt} for the fingerprint.
+     * @return the number of keys deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.idempotencyKey = :key and r.fingerprint = :fingerprint and r.createdAt = :claimedAt
+                and r.responseStatus is null""")
+    int deleteClaim(String key, String fingerprint, LocalDateTime claimedAt);
+}
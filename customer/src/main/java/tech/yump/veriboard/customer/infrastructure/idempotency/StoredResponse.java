@@ -0,0 +1,7 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+/**
+ * The response of a completed request, as returned again for its {@code Idempotency-Key}.
+ */
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
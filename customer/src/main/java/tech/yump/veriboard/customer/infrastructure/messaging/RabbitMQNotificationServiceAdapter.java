@@ -1,22 +1,39 @@
 package tech.yump.veriboard.customer.infrastructure.messaging;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import tech.yump.veriboard.amqp.RabbitMQMessageProducer;
+import tech.yump.veriboard.amqp.BatchingMessageProducer;
+import tech.yump.veriboard.amqp.PartitionRouter;
 import tech.yump.veriboard.customer.domain.Customer;
 import tech.yump.veriboard.customer.domain.ports.NotificationService;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 
 /**
  * Adapter that implements the domain NotificationService port using RabbitMQ.
  * This bridges the domain layer with the messaging infrastructure.
+ * Publishing is batched and completes after this method returns; a failed publish is logged
+ * and counted in {@code customer.notification.publish.failed}.
  */
+@Slf4j
 @Component
 public class RabbitMQNotificationServiceAdapter implements NotificationService {
     
-    private final RabbitMQMessageProducer messageProducer;
+    private final BatchingMessageProducer messageProducer;
+    private final PartitionRouter partitionRouter;
+    private final Counter publishFailures;
     
-    public RabbitMQNotificationServiceAdapter(RabbitMQMessageProducer messageProducer) {
+    public RabbitMQNotificationServiceAdapter(
+            BatchingMessageProducer messageProducer,
+            PartitionRouter partitionRouter,
+            MeterRegistry meterRegistry) {
         this.messageProducer = messageProducer;
+        this.partitionRouter = partitionRouter;
+        this.publishFailures = Counter.builder("customer.notification.publish.failed")
+                .description("Welcome notifications whose batched publish failed")
+                .register(meterRegistry);
     }
     
     @Override
@@ -25,13 +42,25 @@ public class RabbitMQNotificationServiceAdapter implements NotificationService {
                 customer.getId(),
                 customer.getEmail(),
                 String.format("Hi %s, welcome to VeriBoard! We're excited to have you on board.", 
-                            customer.getFirstName())
+                            customer.getFirstName()),
+                NotificationPriority.BULK
         );
         
+        // Welcome mail goes on the bulk lane so sign-up bursts never delay alerts,
+        // and is batched so bulk onboarding does not pay a publish per customer.
+        // The customer's partition keeps their notifications in order.
         messageProducer.publish(
             notificationRequest, 
             "internal.exchange", 
-            "internal.notification.routing-key"
-        );
+            partitionRouter.routingKey(
+                notificationRequest.priority().lane("internal.notification.routing-key"),
+                customer.getId())
+        ).whenComplete((published, failure) -> {
+            if (failure != null) {
+                publishFailures.increment();
+                log.error("Welcome notification for customer {} was not published: {}",
+                        customer.getId(), failure.getMessage());
+            }
+        });
     }
 } 
\ No newline at end of file
@@ -3,21 +3,29 @@ package tech.yump.veriboard.customer.infrastructure.outbox;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.yump.veriboard.amqp.stream.SuperStreamPublisher;
 import tech.yump.veriboard.customer.domain.events.CustomerEvent;
 
 /**
  * JPA-based implementation of OutboxEventPublisher.
  * Stores events in the database for the Outbox pattern.
+ * When RabbitMQ Streams are enabled, committed events are also appended to the customer
+ * events super stream, partitioned by customer id, so projections can replay them.
  */
 @Component
 @Slf4j
 public class JpaOutboxEventPublisher implements OutboxEventPublisher {
     
     private final ObjectMapper objectMapper;
+    private final SuperStreamPublisher streamPublisher;
     
-    public JpaOutboxEventPublisher(ObjectMapper objectMapper) {
+    public JpaOutboxEventPublisher(ObjectMapper objectMapper, ObjectProvider<SuperStreamPublisher> streamPublisher) {
         this.objectMapper = objectMapper;
+        this.streamPublisher = streamPublisher.getIfAvailable();
     }
     
     @Override
@@ -42,9 +50,39 @@ public class JpaOutboxEventPublisher implements OutboxEventPublisher {
             // For now, just log the event (in production, you'd save to database)
             log.info("Event stored in outbox: {}", outboxEvent);
             
+            if (streamPublisher != null) {
+                appendToStreamAfterCommit(event);
+            }
+            
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize event: {}", event, e);
             throw new RuntimeException("Failed to publish event to outbox", e);
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Appends only once the business transaction has committed, so rolled back
+     * registrations never reach the stream.
+     */
+    private void appendToStreamAfterCommit(CustomerEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendToStream(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                appendToStream(event);
+            }
+        });
+    }
+    
+    private void appendToStream(CustomerEvent event) {
+        streamPublisher.publish(event.getAggregateId(), event).whenComplete((confirmed, ex) -> {
+            if (ex != null || !Boolean.TRUE.equals(confirmed)) {
+                log.error("Event {} for customer {} was not appended to the stream: {}",
+                        event.getEventId(), event.getCustomerId(), ex != null ? ex.getMessage() : "not confirmed");
+            }
+        });
+    }
+}
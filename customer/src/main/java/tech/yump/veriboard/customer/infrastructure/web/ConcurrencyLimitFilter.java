@@ -0,0 +1,116 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tech.yump.veriboard.clients.limit.GradientConcurrencyLimit;
+
+import java.io.IOException;
+
+/**
+ * Sheds API requests beyond an adaptive concurrency limit with an immediate 503, before
+ * they take a request thread's worth of database and fraud check capacity.
+ * <p>
+ * Latency is measured around the whole request; exceptions and 5xx responses count as
+ * drops. Rejections use the error body of {@link GlobalExceptionHandler}.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final GradientConcurrencyLimit limit;
+    private final ObjectWriter errorWriter;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimit limit, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.limit = limit;
+        this.errorWriter = objectMapper.writerFor(ErrorResponse.class);
+        Gauge.builder("http.server.concurrency.limit", limit, GradientConcurrencyLimit::limit)
+                .description("Requests the service may currently have in flight")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in.flight", limit, GradientConcurrencyLimit::inFlight)
+                .description("Requests the service has in flight")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.server.concurrency.rejected")
+                .description("Requests turned away because the service was at its concurrency limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GradientConcurrencyLimit.Permit permit = limit.tryAcquire();
+        if (permit == null) {
+            rejected.increment();
+            reject(request, response);
+            return;
+        }
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitReleasingListener(permit));
+            } else {
+                release(permit, failed, response);
+            }
+        }
+    }
+
+    private static void release(GradientConcurrencyLimit.Permit permit, boolean failed,
+                                HttpServletResponse response) {
+        if (failed || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            permit.dropped();
+        } else {
+            permit.success();
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Concurrency limit {} reached, rejecting {}", limit.limit(), request.getRequestURI());
+        ErrorResponse body = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable",
+                "Too many concurrent requests, please retry shortly", request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        errorWriter.writeValue(response.getOutputStream(), body);
+    }
+
+    private record PermitReleasingListener(GradientConcurrencyLimit.Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(permit, false, (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.dropped();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.dropped();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Body of every error answer of the customer web layer.
+ * <p>
+ * A fixed type rather than a map lets Jackson resolve its serializer once and reuse it,
+ * instead of looking one up for each entry of each error.
+ *
+ * @param message   always written, as null when the cause carried no message
+ * @param retryAfter seconds until a retry may succeed; left out except for temporary failures
+ */
+@JsonPropertyOrder({"timestamp", "status", "error", "message", "path", "retryAfter"})
+public record ErrorResponse(
+        LocalDateTime timestamp,
+        int status,
+        String error,
+        String message,
+        String path,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String retryAfter) {
+
+    public ErrorResponse(int status, String error, String message, String path) {
+        this(LocalDateTime.now(), status, error, message, path, null);
+    }
+}
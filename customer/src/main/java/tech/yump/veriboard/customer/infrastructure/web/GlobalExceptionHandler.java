@@ -1,75 +1,65 @@
 package tech.yump.veriboard.customer.infrastructure.web;
 
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import tech.yump.veriboard.customer.domain.exceptions.CustomerFraudException;
 import tech.yump.veriboard.customer.domain.exceptions.CustomerValidationException;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Global exception handler for the customer web layer.
  * Converts domain exceptions to appropriate HTTP responses.
+ * <p>
+ * Rejections of client input are expected in bulk under abusive traffic, so they are
+ * logged through a {@link RejectionLog} rather than one line each.
  */
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final int REJECTIONS_LOGGED_PER_SECOND = 10;
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final RejectionLog rejectionLog = new RejectionLog(log, REJECTIONS_LOGGED_PER_SECOND);
+
     @ExceptionHandler(CustomerValidationException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationException(
+    public ResponseEntity<ErrorResponse> handleValidationException(
             CustomerValidationException ex, WebRequest request) {
         
-        log.warn("Customer validation failed: {}", ex.getMessage());
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.BAD_REQUEST.value());
-        response.put("error", "Validation Failed");
-        response.put("message", ex.getMessage());
-        response.put("path", request.getDescription(false).replace("uri=", ""));
+        rejectionLog.warn("Customer validation failed: {}", ex.getMessage());
         
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.badRequest().body(new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(), "Validation Failed", ex.getMessage(), path(request)));
     }
 
     @ExceptionHandler(CustomerFraudException.class)
-    public ResponseEntity<Map<String, Object>> handleFraudException(
+    public ResponseEntity<ErrorResponse> handleFraudException(
             CustomerFraudException ex, WebRequest request) {
         
-        log.warn("Customer fraud detected: {}", ex.getMessage());
+        rejectionLog.warn("Customer fraud detected: {}", ex.getMessage());
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.CONFLICT.value());
-        response.put("error", "Registration Blocked");
-        response.put("message", ex.getMessage());
-        response.put("path", request.getDescription(false).replace("uri=", ""));
-        
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(
+                HttpStatus.CONFLICT.value(), "Registration Blocked", ex.getMessage(), path(request)));
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<Map<String, Object>> handleMalformedJsonException(
+    public ResponseEntity<ErrorResponse> handleMalformedJsonException(
             HttpMessageNotReadableException ex, WebRequest request) {
         
-        log.warn("Malformed JSON request: {}", ex.getMessage());
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.BAD_REQUEST.value());
-        response.put("error", "Bad Request");
-        response.put("message", "Malformed JSON request");
-        response.put("path", request.getDescription(false).replace("uri=", ""));
+        rejectionLog.warn("Malformed JSON request: {}", ex.getMessage());
         
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.badRequest().body(new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(), "Bad Request", "Malformed JSON request", path(request)));
     }
 
     /**
@@ -77,22 +67,20 @@ public class GlobalExceptionHandler {
      * Returns service unavailable with fallback guidance.
      */
     @ExceptionHandler(CallNotPermittedException.class)
-    public ResponseEntity<Map<String, Object>> handleCircuitBreakerException(
+    public ResponseEntity<ErrorResponse> handleCircuitBreakerException(
             CallNotPermittedException ex, WebRequest request) {
         
-        log.warn("Circuit breaker is open: {}", ex.getMessage());
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
-        response.put("error", "Service Temporarily Unavailable");
-        response.put("message", "The service is temporarily unavailable. Please try again later.");
-        response.put("path", request.getDescription(false).replace("uri=", ""));
-        response.put("retryAfter", "30"); // seconds
+        rejectionLog.warn("Circuit breaker is open: {}", ex.getMessage());
         
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .header("Retry-After", "30")
-                .body(response);
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .body(new ErrorResponse(
+                        LocalDateTime.now(),
+                        HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Service Temporarily Unavailable",
+                        "The service is temporarily unavailable. Please try again later.",
+                        path(request),
+                        RETRY_AFTER_SECONDS));
     }
     
     /**
@@ -100,34 +88,38 @@ public class GlobalExceptionHandler {
      * Returns request timeout with guidance.
      */
     @ExceptionHandler(TimeoutException.class)
-    public ResponseEntity<Map<String, Object>> handleTimeoutException(
+    public ResponseEntity<ErrorResponse> handleTimeoutException(
             TimeoutException ex, WebRequest request) {
         
         log.warn("Request timed out: {}", ex.getMessage());
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.REQUEST_TIMEOUT.value());
-        response.put("error", "Request Timeout");
-        response.put("message", "The request took too long to process. Please try again.");
-        response.put("path", request.getDescription(false).replace("uri=", ""));
-        
-        return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(response);
+        return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(new ErrorResponse(
+                HttpStatus.REQUEST_TIMEOUT.value(), "Request Timeout",
+                "The request took too long to process. Please try again.", path(request)));
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGeneralException(
+    public ResponseEntity<ErrorResponse> handleGeneralException(
             Exception ex, WebRequest request) {
         
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        response.put("error", "Internal Server Error");
-        response.put("message", "An unexpected error occurred");
-        response.put("path", request.getDescription(false).replace("uri=", ""));
-        
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponse(
+                HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal Server Error",
+                "An unexpected error occurred", path(request)));
+    }
+
+    /**
+     * The request URI, read directly where possible rather than parsed out of the description.
+     */
+    private static String path(WebRequest request) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletRequest servletRequest = nativeRequest.getNativeRequest(HttpServletRequest.class);
+            if (servletRequest != null) {
+                return servletRequest.getRequestURI();
+            }
+        }
+        String description = request.getDescription(false);
+        return description.startsWith("uri=") ? description.substring("uri=".length()) : description;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import tech.yump.veriboard.customer.infrastructure.idempotency.IdempotencyStore;
+import tech.yump.veriboard.customer.infrastructure.idempotency.StoredResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs a {@code POST} carrying an {@code Idempotency-Key} header at most once per key.
+ * <p>
+ * The first request with a key runs as usual and its response is kept in the
+ * {@link IdempotencyStore}; later requests with the key and the same method, path and
+ * body get that response back, marked {@code Idempotent-Replayed: true}, without
+ * reaching the controller. A duplicate arriving while the first is still running waits
+ * for its response. Reusing a key for a different request is answered with {@code 422},
+ * and a duplicate still in progress elsewhere with {@code 409} and {@code Retry-After}.
+ * <p>
+ * Keys are scoped to the caller: the authenticated principal, or else the API key or
+ * {@code Authorization} header, so one caller cannot replay another's response by
+ * guessing its key. Anonymous callers are only told apart by client address; behind a
+ * proxy that is the proxy's address unless {@code server.forward-headers-strategy} is set,
+ * so anonymous callers behind one proxy share their keys. Only a hash of caller and key is stored. Bodies larger than
+ * {@code maxBodySize} are answered with {@code 413}, since they have to be held in memory
+ * for the fingerprint.
+ * <p>
+ * 5xx, 408 and 429 responses are not kept, so a retry after them runs the request again.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final IdempotencyStore store;
+    private final String apiKeyHeader;
+    private final int maxBodySize;
+    private final ObjectWriter errorWriter;
+    private final Map<IdempotencyStore.Outcome, Counter> outcomes = new EnumMap<>(IdempotencyStore.Outcome.class);
+
+    /**
+     * @param apiKeyHeader header identifying the caller when there is no authenticated principal
+     * @param maxBodySize  largest request body in bytes that is read for the fingerprint
+     */
+    public IdempotencyFilter(IdempotencyStore store, String apiKeyHeader, int maxBodySize,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.apiKeyHeader = apiKeyHeader;
+        this.maxBodySize = maxBodySize;
+        this.errorWriter = objectMapper.writerFor(ErrorResponse.class);
+        for (IdempotencyStore.Outcome outcome : IdempotencyStore.Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("http.server.idempotency.requests")
+                    .description("Requests with an Idempotency-Key by whether they ran or got a kept response")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST, "Bad Request",
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + IdempotencyStore.MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getContentLengthLong() > maxBodySize ? null : readBody(request.getInputStream());
+        if (body == null) {
+            writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Payload Too Large",
+                    "Requests with an " + IDEMPOTENCY_KEY_HEADER + " are limited to " + maxBodySize + " bytes");
+            return;
+        }
+        String fingerprint = fingerprint(request, body);
+        String storedKey = scopedKey(caller(request), key);
+        IdempotencyStore.Claim claim = store.claim(storedKey, fingerprint);
+        outcomes.get(claim.outcome()).increment();
+        switch (claim.outcome()) {
+            case REPLAY -> replay(response, claim.response());
+            case MISMATCH -> writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY, "Unprocessable Entity",
+                    IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+                writeError(request, response, HttpStatus.CONFLICT, "Conflict",
+                        "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+            }
+            case EXECUTE -> execute(new CachedBodyRequest(request, body), response, chain, storedKey, fingerprint);
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         String key, String fingerprint) throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean kept = false;
+        try {
+            chain.doFilter(request, recorded);
+            int status = recorded.getStatus();
+            if (status < HttpStatus.INTERNAL_SERVER_ERROR.value()
+                    && status != HttpStatus.REQUEST_TIMEOUT.value()
+                    && status != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                store.complete(key, new StoredResponse(fingerprint, status, recorded.getContentType(),
+                        recorded.getContentAsByteArray()));
+                kept = true;
+            }
+        } finally {
+            if (!kept) {
+                store.abandon(key);
+            }
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * The body, or null if it is larger than {@code maxBodySize}.
+     */
+    private byte[] readBody(InputStream input) throws IOException {
+        byte[] body = input.readNBytes(maxBodySize + 1);
+        return body.length > maxBodySize ? null : body;
+    }
+
+    private String caller(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null) {
+            return "api-key:" + apiKey;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization != null ? "authorization:" + authorization : "anonymous:" + request.getRemoteAddr();
+    }
+
+    /**
+     * SHA-256 over caller and key, so keys of different callers never meet and no
+     * credential ends up in the store.
+     */
+    static String scopedKey(String caller, String key) {
+        MessageDigest digest = sha256();
+        digest.update(caller.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String error, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        errorWriter.writeValue(response.getOutputStream(),
+                new ErrorResponse(status.value(), error, message, request.getRequestURI()));
+    }
+
+    /**
+     * SHA-256 over method, path and body, so a key cannot be replayed for another request.
+     */
+    static String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ' ');
+        digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        return HexFormat.of().formatHex(digest.digest(body));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The request with its body already read for the fingerprint.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Body was already read");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
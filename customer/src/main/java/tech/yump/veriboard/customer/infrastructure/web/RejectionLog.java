@@ -0,0 +1,60 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs rejected requests at no more than {@code perSecond} lines a second, so a flood of
+ * invalid requests does not turn into a flood of log lines. The first line after a quiet
+ * period reports how many were left out.
+ */
+class RejectionLog {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger log;
+    private final int perSecond;
+    private final LongSupplier nanoClock;
+    private final AtomicLong windowStart;
+    private final AtomicInteger logged = new AtomicInteger();
+    private final AtomicInteger suppressed = new AtomicInteger();
+
+    RejectionLog(Logger log, int perSecond) {
+        this(log, perSecond, System::nanoTime);
+    }
+
+    RejectionLog(Logger log, int perSecond, LongSupplier nanoClock) {
+        this.log = log;
+        this.perSecond = perSecond;
+        this.nanoClock = nanoClock;
+        this.windowStart = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Logs at WARN unless this second's allowance is used up.
+     */
+    void warn(String format, Object argument) {
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            logged.set(0);
+        }
+        if (logged.incrementAndGet() > perSecond) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        int skipped = suppressed.getAndSet(0);
+        if (skipped > 0) {
+            log.warn(format + " ({} similar rejections not logged)", argument, skipped);
+        } else {
+            log.warn(format, argument);
+        }
+    }
+}
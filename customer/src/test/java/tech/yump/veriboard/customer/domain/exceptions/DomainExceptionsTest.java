@@ -0,0 +1,24 @@
+package tech.yump.veriboard.customer.domain.exceptions;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Domain Exceptions Tests")
+class DomainExceptionsTest {
+
+    @Test
+    @DisplayName("Should create domain exceptions without capturing a stack trace")
+    void shouldCreateDomainExceptionsWithoutStackTrace() {
+        // When
+        CustomerValidationException validation = new CustomerValidationException("Email is required");
+        CustomerFraudException fraud = new CustomerFraudException("Blocked", new IllegalStateException("cause"));
+
+        // Then
+        assertThat(validation.getStackTrace()).isEmpty();
+        assertThat(validation).hasMessage("Email is required");
+        assertThat(fraud.getStackTrace()).isEmpty();
+        assertThat(fraud.getCause()).hasMessage("cause");
+    }
+}
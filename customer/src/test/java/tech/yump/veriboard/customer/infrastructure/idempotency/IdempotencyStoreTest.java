@@ -0,0 +1,168 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Idempotency Store Tests")
+class IdempotencyStoreTest {
+
+    private static final String KEY = "key-1";
+    private static final String FINGERPRINT = "a".repeat(64);
+    private static final StoredResponse CREATED = new StoredResponse(FINGERPRINT, 201, "application/json",
+            "{\"customerId\":1}".getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private JpaIdempotencyRecordRepository repository;
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(repository, 100, Duration.ofHours(24), Duration.ofMinutes(1),
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should let the first request run and replay its response afterwards")
+    void shouldReplayCompletedResponse() {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        when(repository.completeClaim(eq(KEY), eq(FINGERPRINT), any(), eq(201), any(), any(), any())).thenReturn(1);
+
+        // When
+        IdempotencyStore.Claim first = store.claim(KEY, FINGERPRINT);
+        store.complete(KEY, CREATED);
+        IdempotencyStore.Claim retry = store.claim(KEY, FINGERPRINT);
+
+        // Then
+        assertThat(first.outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+        assertThat(retry.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(retry.response()).isSameAs(CREATED);
+        verify(repository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectDifferentFingerprint() {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        when(repository.completeClaim(eq(KEY), eq(FINGERPRINT), any(), eq(201), any(), any(), any())).thenReturn(1);
+        store.claim(KEY, FINGERPRINT);
+        store.complete(KEY, CREATED);
+
+        // When
+        IdempotencyStore.Claim claim = store.claim(KEY, "b".repeat(64));
+
+        // Then
+        assertThat(claim.outcome()).isEqualTo(IdempotencyStore.Outcome.MISMATCH);
+    }
+
+    @Test
+    @DisplayName("Should make a concurrent duplicate wait for the running request's response")
+    void shouldMakeConcurrentDuplicateWait() throws Exception {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        when(repository.completeClaim(eq(KEY), eq(FINGERPRINT), any(), eq(201), any(), any(), any())).thenReturn(1);
+        store.claim(KEY, FINGERPRINT);
+
+        // When
+        CompletableFuture<IdempotencyStore.Claim> duplicate = CompletableFuture.supplyAsync(
+                () -> store.claim(KEY, FINGERPRINT));
+        Thread.sleep(50);
+        assertThat(duplicate).isNotDone();
+        store.complete(KEY, CREATED);
+
+        // Then
+        IdempotencyStore.Claim claim = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(claim.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(claim.response()).isSameAs(CREATED);
+    }
+
+    @Test
+    @DisplayName("Should replay a response another replica stored")
+    void shouldReplayResponseFromTable() {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.of(IdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .fingerprint(FINGERPRINT)
+                .createdAt(LocalDateTime.now().minusMinutes(5))
+                .responseStatus(201)
+                .responseContentType("application/json")
+                .responseBody(CREATED.body())
+                .build()));
+
+        // When
+        IdempotencyStore.Claim claim = store.claim(KEY, FINGERPRINT);
+
+        // Then
+        assertThat(claim.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(claim.response().status()).isEqualTo(201);
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Should report a key another replica claimed first as in progress")
+    void shouldReportKeyClaimedElsewhere() {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // When
+        IdempotencyStore.Claim claim = store.claim(KEY, FINGERPRINT);
+
+        // Then
+        assertThat(claim.outcome()).isEqualTo(IdempotencyStore.Outcome.IN_PROGRESS);
+    }
+
+    @Test
+    @DisplayName("Should let a retry run again after the request was abandoned")
+    void shouldRunAgainAfterAbandon() {
+        // Given
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        store.claim(KEY, FINGERPRINT);
+
+        // When
+        store.abandon(KEY);
+        IdempotencyStore.Claim retry = store.claim(KEY, FINGERPRINT);
+
+        // Then
+        assertThat(retry.outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+        verify(repository).deleteClaim(eq(KEY), eq(FINGERPRINT), any());
+    }
+
+    @Test
+    @DisplayName("Should drop the response of a request whose claim was taken over")
+    void shouldDropResponseOfTakenOverClaim() {
+        // Given: the completion update misses, as another request has claimed the key since
+        when(repository.findById(KEY)).thenReturn(Optional.empty());
+        store.claim(KEY, FINGERPRINT);
+
+        // When
+        store.complete(KEY, CREATED);
+        IdempotencyStore.Claim retry = store.claim(KEY, FINGERPRINT);
+
+        // Then: nothing was replayed from memory, the retry went back to the table
+        assertThat(retry.outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+        verify(repository, never()).deleteClaim(any(), any(), any());
+        verify(repository, times(2)).saveAndFlush(any(IdempotencyRecord.class));
+    }
+}
@@ -0,0 +1,79 @@
+package tech.yump.veriboard.customer.infrastructure.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Idempotency Record Repository Tests")
+class JpaIdempotencyRecordRepositoryTest {
+
+    private static final String KEY = "k".repeat(64);
+    private static final String FINGERPRINT = "a".repeat(64);
+    private static final byte[] BODY = "{\"customerId\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private JpaIdempotencyRecordRepository repository;
+
+    private IdempotencyRecord claim(LocalDateTime claimedAt) {
+        return repository.saveAndFlush(IdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .fingerprint(FINGERPRINT)
+                .createdAt(claimedAt)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should store the response while the claim still holds the key")
+    void completeClaim_WhenClaimHeld_ShouldStoreResponse() {
+        // Given
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        claim(claimedAt);
+
+        // When
+        int stored = repository.completeClaim(KEY, FINGERPRINT, claimedAt, 201, "application/json", BODY,
+                claimedAt.plusSeconds(1));
+
+        // Then
+        assertThat(stored).isEqualTo(1);
+        IdempotencyRecord record = repository.findById(KEY).orElseThrow();
+        assertThat(record.getResponseStatus()).isEqualTo(201);
+        assertThat(record.getResponseBody()).isEqualTo(BODY);
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should neither complete nor release a key taken over by a later claim")
+    void completeClaim_WhenTakenOver_ShouldLeaveKeyAlone() {
+        // Given
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        IdempotencyRecord record = claim(claimedAt.minusMinutes(5));
+        record.setCreatedAt(claimedAt);
+        repository.saveAndFlush(record);
+
+        // When
+        int stored = repository.completeClaim(KEY, FINGERPRINT, claimedAt.minusMinutes(5), 201, "application/json",
+                BODY, claimedAt);
+        int deleted = repository.deleteClaim(KEY, FINGERPRINT, claimedAt.minusMinutes(5));
+
+        // Then
+        assertThat(stored).isZero();
+        assertThat(deleted).isZero();
+        IdempotencyRecord current = repository.findById(KEY).orElseThrow();
+        assertThat(current.getResponseStatus()).isNull();
+        assertThat(current.getCreatedAt()).isEqualTo(claimedAt);
+        repository.deleteAll();
+    }
+}
@@ -1,17 +1,22 @@
 package tech.yump.veriboard.customer.infrastructure.messaging;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import tech.yump.veriboard.amqp.RabbitMQMessageProducer;
+import org.springframework.amqp.AmqpConnectException;
+import tech.yump.veriboard.amqp.BatchingMessageProducer;
+import tech.yump.veriboard.amqp.PartitionRouter;
 import tech.yump.veriboard.customer.domain.Customer;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -21,15 +26,17 @@ import static org.mockito.Mockito.*;
 class RabbitMQNotificationServiceAdapterTest {
 
     @Mock
-    private RabbitMQMessageProducer messageProducer;
+    private BatchingMessageProducer messageProducer;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private RabbitMQNotificationServiceAdapter notificationServiceAdapter;
-
     private Customer customer;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        notificationServiceAdapter = new RabbitMQNotificationServiceAdapter(
+                messageProducer, new PartitionRouter(0), meterRegistry);
         customer = new Customer(1, "John", "Doe", "john.doe@example.com");
     }
 
@@ -37,7 +44,7 @@ class RabbitMQNotificationServiceAdapterTest {
     @DisplayName("Should send welcome notification successfully")
     void shouldSendWelcomeNotificationSuccessfully() {
         // Given
-        doNothing().when(messageProducer).publish(any(), anyString(), anyString());
+        when(messageProducer.publish(any(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         notificationServiceAdapter.sendWelcomeNotification(customer);
@@ -57,7 +64,7 @@ class RabbitMQNotificationServiceAdapterTest {
         assertThat(capturedRequest.toString()).contains("Hi John, welcome to VeriBoard! We're excited to have you on board."); // Message
 
         assertThat(exchangeCaptor.getValue()).isEqualTo("internal.exchange");
-        assertThat(routingKeyCaptor.getValue()).isEqualTo("internal.notification.routing-key");
+        assertThat(routingKeyCaptor.getValue()).isEqualTo("internal.notification.routing-key.bulk");
     }
 
     @Test
@@ -65,7 +72,7 @@ class RabbitMQNotificationServiceAdapterTest {
     void shouldHandleCustomerWithDifferentNameCorrectly() {
         // Given
         Customer customerWithDifferentName = new Customer(2, "Jane", "Smith", "jane.smith@example.com");
-        doNothing().when(messageProducer).publish(any(), anyString(), anyString());
+        when(messageProducer.publish(any(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         notificationServiceAdapter.sendWelcomeNotification(customerWithDifferentName);
@@ -82,7 +89,23 @@ class RabbitMQNotificationServiceAdapterTest {
     }
 
     @Test
-    @DisplayName("Should handle messaging exceptions gracefully")
+    @DisplayName("Should count and log batches that fail after the call has returned")
+    void shouldCountFailedBatchedPublishes() {
+        // Given
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        when(messageProducer.publish(any(), anyString(), anyString())).thenReturn(published);
+        notificationServiceAdapter.sendWelcomeNotification(customer);
+        assertThat(meterRegistry.get("customer.notification.publish.failed").counter().count()).isZero();
+
+        // When
+        published.completeExceptionally(new AmqpConnectException(new ConnectException("RabbitMQ connection failed")));
+
+        // Then
+        assertThat(meterRegistry.get("customer.notification.publish.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should propagate failures raised while queueing the notification")
     void shouldHandleMessagingExceptionsGracefully() {
         // Given
         doThrow(new RuntimeException("RabbitMQ connection failed"))
@@ -93,7 +116,7 @@ class RabbitMQNotificationServiceAdapterTest {
             .isInstanceOf(RuntimeException.class)
             .hasMessage("RabbitMQ connection failed");
 
-        verify(messageProducer).publish(any(NotificationRequest.class), eq("internal.exchange"), eq("internal.notification.routing-key"));
+        verify(messageProducer).publish(any(NotificationRequest.class), eq("internal.exchange"), eq("internal.notification.routing-key.bulk"));
     }
 
     @Test
@@ -101,7 +124,7 @@ class RabbitMQNotificationServiceAdapterTest {
     void shouldCreateCorrectNotificationMessageFormat() {
         // Given
         Customer customerWithSpecialName = new Customer(3, "María José", "González", "maria.gonzalez@example.com");
-        doNothing().when(messageProducer).publish(any(), anyString(), anyString());
+        when(messageProducer.publish(any(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         notificationServiceAdapter.sendWelcomeNotification(customerWithSpecialName);
@@ -113,4 +136,22 @@ class RabbitMQNotificationServiceAdapterTest {
         NotificationRequest capturedRequest = requestCaptor.getValue();
         assertThat(capturedRequest.toString()).contains("Hi María José, welcome to VeriBoard! We're excited to have you on board.");
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should route to the customer's partition when partitioning is enabled")
+    void shouldRouteToCustomerPartition() {
+        // Given
+        PartitionRouter fourPartitions = new PartitionRouter(4);
+        RabbitMQNotificationServiceAdapter partitionedAdapter =
+                new RabbitMQNotificationServiceAdapter(messageProducer, fourPartitions, meterRegistry);
+        when(messageProducer.publish(any(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        partitionedAdapter.sendWelcomeNotification(customer);
+        partitionedAdapter.sendWelcomeNotification(customer);
+
+        // Then
+        String expectedRoutingKey = "internal.notification.routing-key.bulk.p" + fourPartitions.partition(customer.getId());
+        verify(messageProducer, times(2)).publish(any(NotificationRequest.class), eq("internal.exchange"), eq(expectedRoutingKey));
+    }
+}
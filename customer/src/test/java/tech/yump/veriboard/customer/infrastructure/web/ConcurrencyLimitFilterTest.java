@@ -0,0 +1,65 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tech.yump.veriboard.clients.limit.GradientConcurrencyLimit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Concurrency Limit Filter Tests")
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(1, 1, 10, 1.5, 0.2, 600);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            limit, JsonMapper.builder().findAndAddModules().build(), meterRegistry);
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("POST", "/api/v1/customers");
+    }
+
+    @Test
+    @DisplayName("Should pass requests through and release the permit afterwards")
+    void shouldPassRequestsWithinLimit() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request(), response, chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should shed requests over the limit with 503 and Retry-After")
+    void shouldShedRequestsOverLimit() throws Exception {
+        // Given
+        GradientConcurrencyLimit.Permit busy = limit.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request(), response, chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getContentAsString())
+                .contains("\"status\":503")
+                .contains("\"path\":\"/api/v1/customers\"");
+        assertThat(meterRegistry.get("http.server.concurrency.rejected").counter().count()).isEqualTo(1);
+        busy.ignore();
+    }
+}
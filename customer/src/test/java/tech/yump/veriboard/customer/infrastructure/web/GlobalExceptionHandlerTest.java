@@ -1,5 +1,8 @@
 package tech.yump.veriboard.customer.infrastructure.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,7 +17,6 @@ import tech.yump.veriboard.customer.domain.exceptions.CustomerFraudException;
 import tech.yump.veriboard.customer.domain.exceptions.CustomerValidationException;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,18 +43,18 @@ class GlobalExceptionHandlerTest {
         CustomerValidationException exception = new CustomerValidationException("Email is required");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleValidationException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleValidationException(exception, webRequest);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("status")).isEqualTo(400);
-        assertThat(body.get("error")).isEqualTo("Validation Failed");
-        assertThat(body.get("message")).isEqualTo("Email is required");
-        assertThat(body.get("path")).isEqualTo("/api/v1/customers");
-        assertThat(body.get("timestamp")).isInstanceOf(LocalDateTime.class);
+        assertThat(body.status()).isEqualTo(400);
+        assertThat(body.error()).isEqualTo("Validation Failed");
+        assertThat(body.message()).isEqualTo("Email is required");
+        assertThat(body.path()).isEqualTo("/api/v1/customers");
+        assertThat(body.timestamp()).isInstanceOf(LocalDateTime.class);
     }
 
     @Test
@@ -62,18 +64,18 @@ class GlobalExceptionHandlerTest {
         CustomerFraudException exception = new CustomerFraudException("Customer registration blocked due to fraud detection");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleFraudException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleFraudException(exception, webRequest);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
         
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("status")).isEqualTo(409);
-        assertThat(body.get("error")).isEqualTo("Registration Blocked");
-        assertThat(body.get("message")).isEqualTo("Customer registration blocked due to fraud detection");
-        assertThat(body.get("path")).isEqualTo("/api/v1/customers");
-        assertThat(body.get("timestamp")).isInstanceOf(LocalDateTime.class);
+        assertThat(body.status()).isEqualTo(409);
+        assertThat(body.error()).isEqualTo("Registration Blocked");
+        assertThat(body.message()).isEqualTo("Customer registration blocked due to fraud detection");
+        assertThat(body.path()).isEqualTo("/api/v1/customers");
+        assertThat(body.timestamp()).isInstanceOf(LocalDateTime.class);
     }
 
     @Test
@@ -83,18 +85,18 @@ class GlobalExceptionHandlerTest {
         HttpMessageNotReadableException exception = new HttpMessageNotReadableException("JSON parse error");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleMalformedJsonException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleMalformedJsonException(exception, webRequest);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("status")).isEqualTo(400);
-        assertThat(body.get("error")).isEqualTo("Bad Request");
-        assertThat(body.get("message")).isEqualTo("Malformed JSON request");
-        assertThat(body.get("path")).isEqualTo("/api/v1/customers");
-        assertThat(body.get("timestamp")).isInstanceOf(LocalDateTime.class);
+        assertThat(body.status()).isEqualTo(400);
+        assertThat(body.error()).isEqualTo("Bad Request");
+        assertThat(body.message()).isEqualTo("Malformed JSON request");
+        assertThat(body.path()).isEqualTo("/api/v1/customers");
+        assertThat(body.timestamp()).isInstanceOf(LocalDateTime.class);
     }
 
     @Test
@@ -104,18 +106,18 @@ class GlobalExceptionHandlerTest {
         Exception exception = new RuntimeException("Database connection failed");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleGeneralException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleGeneralException(exception, webRequest);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("status")).isEqualTo(500);
-        assertThat(body.get("error")).isEqualTo("Internal Server Error");
-        assertThat(body.get("message")).isEqualTo("An unexpected error occurred");
-        assertThat(body.get("path")).isEqualTo("/api/v1/customers");
-        assertThat(body.get("timestamp")).isInstanceOf(LocalDateTime.class);
+        assertThat(body.status()).isEqualTo(500);
+        assertThat(body.error()).isEqualTo("Internal Server Error");
+        assertThat(body.message()).isEqualTo("An unexpected error occurred");
+        assertThat(body.path()).isEqualTo("/api/v1/customers");
+        assertThat(body.timestamp()).isInstanceOf(LocalDateTime.class);
     }
 
     @Test
@@ -126,12 +128,12 @@ class GlobalExceptionHandlerTest {
         CustomerValidationException exception = new CustomerValidationException("Invalid data");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleValidationException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleValidationException(exception, webRequest);
 
         // Then
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("path")).isEqualTo("/api/v1/customers/register");
+        assertThat(body.path()).isEqualTo("/api/v1/customers/register");
     }
 
     @Test
@@ -141,13 +143,30 @@ class GlobalExceptionHandlerTest {
         CustomerValidationException exception = new CustomerValidationException(null);
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleValidationException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleValidationException(exception, webRequest);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("message")).isNull();
+        assertThat(body.message()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should keep a null message in the JSON body and leave out retryAfter")
+    void shouldSerializeNullMessage() throws Exception {
+        // Given
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        ErrorResponse body = globalExceptionHandler
+                .handleValidationException(new CustomerValidationException(null), webRequest).getBody();
+
+        // When
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(body));
+
+        // Then
+        assertThat(json.has("message")).isTrue();
+        assertThat(json.get("message").isNull()).isTrue();
+        assertThat(json.has("retryAfter")).isFalse();
     }
 
     @Test
@@ -158,11 +177,11 @@ class GlobalExceptionHandlerTest {
         CustomerValidationException exception = new CustomerValidationException("Test message");
 
         // When
-        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleValidationException(exception, webRequest);
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleValidationException(exception, webRequest);
 
         // Then
-        Map<String, Object> body = response.getBody();
+        ErrorResponse body = response.getBody();
         assertThat(body).isNotNull();
-        assertThat(body.get("path")).isEqualTo("");
+        assertThat(body.path()).isEqualTo("");
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import tech.yump.veriboard.customer.infrastructure.idempotency.IdempotencyStore;
+import tech.yump.veriboard.customer.infrastructure.idempotency.JpaIdempotencyRecordRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Idempotency Filter Tests")
+class IdempotencyFilterTest {
+
+    private static final int MAX_BODY_SIZE = 1024;
+    private static final String REGISTRATION = "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"john.doe@example.com\"}";
+
+    @Mock
+    private JpaIdempotencyRecordRepository repository;
+
+    private final AtomicInteger registrations = new AtomicInteger();
+    private int upstreamStatus = HttpStatus.CREATED.value();
+    private IdempotencyFilter filter;
+
+    private final HttpServlet controller = new HttpServlet() {
+        @Override
+        protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+            int id = registrations.incrementAndGet();
+            response.setStatus(upstreamStatus);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"customerId\":" + id + ",\"bodyLength\":" + body.length() + "}");
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(repository.findById(any())).thenReturn(Optional.empty());
+        lenient().when(repository.completeClaim(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        IdempotencyStore store = new IdempotencyStore(repository, 100, Duration.ofHours(24), Duration.ofMinutes(1),
+                Duration.ofSeconds(5));
+        filter = new IdempotencyFilter(store, "X-API-Key", MAX_BODY_SIZE,
+                JsonMapper.builder().findAndAddModules().build(), new SimpleMeterRegistry());
+    }
+
+    private MockHttpServletResponse post(String key, String body) throws Exception {
+        return post(key, null, body);
+    }
+
+    private MockHttpServletResponse post(String key, String apiKey, String body) throws Exception {
+        return post(key, apiKey, "127.0.0.1", body);
+    }
+
+    private MockHttpServletResponse post(String key, String apiKey, String remoteAddr, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/customers");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should return the first response to a retry without registering again")
+    void shouldReplayFirstResponse() throws Exception {
+        // When
+        MockHttpServletResponse first = post("key-1", REGISTRATION);
+        MockHttpServletResponse retry = post("key-1", REGISTRATION);
+
+        // Then
+        assertThat(registrations).hasValue(1);
+        assertThat(first.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(first.getContentAsString()).isEqualTo("{\"customerId\":1,\"bodyLength\":" + REGISTRATION.length() + "}");
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Should answer 422 when a key is reused with a different body")
+    void shouldRejectReusedKey() throws Exception {
+        // Given
+        post("key-1", REGISTRATION);
+
+        // When
+        MockHttpServletResponse response = post("key-1", REGISTRATION.replace("John", "Jane"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        assertThat(response.getContentAsString()).contains("\"status\":422");
+        assertThat(registrations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should run the request again after a server error")
+    void shouldNotKeepServerErrors() throws Exception {
+        // Given
+        upstreamStatus = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        post("key-1", REGISTRATION);
+        upstreamStatus = HttpStatus.CREATED.value();
+
+        // When
+        MockHttpServletResponse retry = post("key-1", REGISTRATION);
+
+        // Then
+        assertThat(registrations).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not replay one caller's response to another caller using the same key")
+    void shouldScopeKeysToCaller() throws Exception {
+        // Given
+        MockHttpServletResponse first = post("key-1", "api-key-a", REGISTRATION);
+
+        // When
+        MockHttpServletResponse other = post("key-1", "api-key-b", REGISTRATION);
+        MockHttpServletResponse retry = post("key-1", "api-key-a", REGISTRATION);
+
+        // Then
+        assertThat(registrations).hasValue(2);
+        assertThat(other.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(other.getContentAsString()).isNotEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        verify(repository, never()).findById(contains("api-key"));
+    }
+
+    @Test
+    @DisplayName("Should not replay one anonymous caller's response to another client address")
+    void shouldScopeAnonymousKeysToClientAddress() throws Exception {
+        // Given
+        post("key-1", null, "10.0.0.1", REGISTRATION);
+
+        // When
+        MockHttpServletResponse other = post("key-1", null, "10.0.0.2", REGISTRATION);
+        MockHttpServletResponse retry = post("key-1", null, "10.0.0.1", REGISTRATION);
+
+        // Then
+        assertThat(registrations).hasValue(2);
+        assertThat(other.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Should answer 413 for a body larger than the limit without running the request")
+    void shouldRejectOversizedBody() throws Exception {
+        // When
+        MockHttpServletResponse response = post("key-1", "x".repeat(MAX_BODY_SIZE + 1));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(response.getContentAsString()).contains("\"status\":413");
+        assertThat(registrations).hasValue(0);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Should leave requests without a key alone")
+    void shouldIgnoreRequestsWithoutKey() throws Exception {
+        // When
+        post(null, REGISTRATION);
+        post(null, REGISTRATION);
+
+        // Then
+        assertThat(registrations).hasValue(2);
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,61 @@
+package tech.yump.veriboard.customer.infrastructure.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Rejection Log Tests")
+class RejectionLogTest {
+
+    @Mock
+    private Logger logger;
+
+    private final AtomicLong clock = new AtomicLong();
+    private RejectionLog rejectionLog;
+
+    @BeforeEach
+    void setUp() {
+        when(logger.isWarnEnabled()).thenReturn(true);
+        rejectionLog = new RejectionLog(logger, 2, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should log no more than the allowance per second")
+    void shouldLimitLinesPerSecond() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            rejectionLog.warn("Customer validation failed: {}", "Email is required");
+        }
+
+        // Then
+        verify(logger, times(2)).warn("Customer validation failed: {}", (Object) "Email is required");
+        verifyNoMoreInteractions(ignoreStubs(logger));
+    }
+
+    @Test
+    @DisplayName("Should report how many rejections were left out once logging resumes")
+    void shouldReportSuppressedCount() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            rejectionLog.warn("Customer validation failed: {}", "Email is required");
+        }
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        rejectionLog.warn("Customer validation failed: {}", "Email is required");
+
+        // Then
+        verify(logger).warn("Customer validation failed: {} ({} similar rejections not logged)",
+                "Email is required", 3);
+    }
+}
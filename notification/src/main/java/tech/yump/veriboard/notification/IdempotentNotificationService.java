@@ -5,6 +5,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
+import tech.yump.veriboard.notification.delivery.DeliveryPipeline;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -20,9 +21,13 @@ import java.util.Optional;
 public class IdempotentNotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final DeliveryPipeline deliveryPipeline;
 
-    public IdempotentNotificationService(NotificationRepository notificationRepository) {
+    public IdempotentNotificationService(
+            NotificationRepository notificationRepository,
+            DeliveryPipeline deliveryPipeline) {
         this.notificationRepository = notificationRepository;
+        this.deliveryPipeline = deliveryPipeline;
     }
 
     /**
@@ -50,14 +55,15 @@ public class IdempotentNotificationService {
                     .toCustomerEmail(request.toCustomerEmail())
                     .sender("VeriBoard")
                     .message(request.message())
+                    .priority(request.priority())
                     .sentAt(LocalDateTime.now())
                     .idempotencyKey(idempotencyKey)
                     .build();
 
             notificationRepository.save(notification);
             
-            // Here you would actually send the email/SMS
-            sendActualNotification(notification);
+            // Delivery runs on the channel workers once this transaction has committed
+            deliveryPipeline.submitAfterCommit(notification);
             
             log.info("Notification processed successfully for customer: {}", request.toCustomerId());
 
@@ -132,19 +138,4 @@ public class IdempotentNotificationService {
         // For now, return empty to demonstrate the pattern
         return Optional.empty();
     }
-
-    /**
-     * Placeholder for actual notification sending logic.
-     * This could integrate with email services, SMS providers, etc.
-     */
-    private void sendActualNotification(Notification notification) {
-        log.info("Sending notification to: {} - Message: {}", 
-                notification.getToCustomerEmail(), 
-                notification.getMessage());
-        
-        // Implement actual notification sending here
-        // - Email service integration
-        // - SMS service integration
-        // - Push notification service
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
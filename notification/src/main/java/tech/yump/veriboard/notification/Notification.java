@@ -1,6 +1,9 @@
 package tech.yump.veriboard.notification;
 
 import lombok.*;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.notification.delivery.DeliveryStatus;
+import tech.yump.veriboard.notification.delivery.NotificationChannel;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -35,4 +38,26 @@ public class Notification {
     @Column(unique = true)
     private String idempotencyKey;
 
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private NotificationPriority priority = NotificationPriority.NORMAL;
+
+    // Delivery tracking, written back asynchronously by the delivery pipeline
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private NotificationChannel channel = NotificationChannel.EMAIL;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private DeliveryStatus deliveryStatus = DeliveryStatus.PENDING;
+
+    private LocalDateTime deliveredAt;
+
+    // Last time a replica claimed the notification for delivery or a delivery failed; null until then
+    private LocalDateTime lastAttemptAt;
+
+    // Failed hand-overs to the provider; the retry sweep gives up once the configured maximum is reached
+    @Builder.Default
+    private Integer deliveryAttempts = 0;
+
 }
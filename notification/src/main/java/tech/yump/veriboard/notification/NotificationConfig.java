@@ -2,11 +2,22 @@ package tech.yump.veriboard.notification;
 
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tech.yump.veriboard.amqp.MessageTypeRegistration;
+import tech.yump.veriboard.amqp.PartitionRouter;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.clients.notification.NotificationRequest;
+import tech.yump.veriboard.notification.rabbitmq.NotificationQueues;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class NotificationConfig {
@@ -20,6 +31,14 @@ public class NotificationConfig {
     @Value("${rabbitmq.routing-keys.internal-notification}")
     private String internalNotificationRoutingKey;
 
+    @Value("${notification.partitions.owned:}")
+    private List<Integer> ownedPartitions;
+
+    @Bean
+    public MessageTypeRegistration notificationRequestMessageType() {
+        return new MessageTypeRegistration(NotificationRequest.MESSAGE_TYPE, NotificationRequest.class);
+    }
+
     @Bean
     public TopicExchange internalTopicExchange() {
         return new TopicExchange(this.internalExchange);
@@ -38,6 +57,68 @@ public class NotificationConfig {
                 .with(this.internalNotificationRoutingKey);
     }
 
+    // Alerts and bulk mail get their own queues so neither waits behind the other
+
+    @Bean
+    public Queue highPriorityNotificationQueue() {
+        return new Queue(NotificationPriority.HIGH.lane(this.notificationQueue));
+    }
+
+    @Bean
+    public Queue bulkNotificationQueue() {
+        return new Queue(NotificationPriority.BULK.lane(this.notificationQueue));
+    }
+
+    @Bean
+    public Binding internalToHighPriorityNotificationBinding() {
+        return BindingBuilder
+                .bind(highPriorityNotificationQueue())
+                .to(internalTopicExchange())
+                .with(NotificationPriority.HIGH.lane(this.internalNotificationRoutingKey));
+    }
+
+    @Bean
+    public Binding internalToBulkNotificationBinding() {
+        return BindingBuilder
+                .bind(bulkNotificationQueue())
+                .to(internalTopicExchange())
+                .with(NotificationPriority.BULK.lane(this.internalNotificationRoutingKey));
+    }
+
+    /**
+     * Partition queues of every lane, bound to the matching routing-key shard. Single active
+     * consumer keeps per-customer order when several instances subscribe to one partition.
+     */
+    @Bean
+    public Declarables notificationPartitionQueues(PartitionRouter partitionRouter) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            String laneQueue = priority.lane(this.notificationQueue);
+            String laneRoutingKey = priority.lane(this.internalNotificationRoutingKey);
+            for (int partition = 0; partition < partitionRouter.partitions(); partition++) {
+                Queue queue = QueueBuilder.durable(PartitionRouter.shard(laneQueue, partition))
+                        .singleActiveConsumer()
+                        .build();
+                declarables.add(queue);
+                declarables.add(BindingBuilder
+                        .bind(queue)
+                        .to(internalTopicExchange())
+                        .with(PartitionRouter.shard(laneRoutingKey, partition)));
+            }
+        }
+        return new Declarables(declarables);
+    }
+
+    @Bean
+    public Queue notificationDeadLetterQueue(NotificationQueues notificationQueues) {
+        return QueueBuilder.durable(notificationQueues.deadLetter()).build();
+    }
+
+    @Bean
+    public NotificationQueues notificationQueues(PartitionRouter partitionRouter) {
+        return new NotificationQueues(this.notificationQueue, partitionRouter, ownedPartitions);
+    }
+
     public String getInternalExchange() {
         return internalExchange;
     }
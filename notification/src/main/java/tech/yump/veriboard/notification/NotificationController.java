@@ -3,23 +3,39 @@ package tech.yump.veriboard.notification;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping(value = "api/v1/notification")
-@AllArgsConstructor
 @Slf4j
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final Executor notificationRequestExecutor;
+    private final int maxBulkSize;
+
+    public NotificationController(
+            NotificationService notificationService,
+            @Qualifier("notificationRequestExecutor") Executor notificationRequestExecutor,
+            @Value("${notification.http.bulk.max-size:500}") int maxBulkSize) {
+        this.notificationService = notificationService;
+        this.notificationRequestExecutor = notificationRequestExecutor;
+        this.maxBulkSize = maxBulkSize;
+    }
 
     @PostMapping
     @CircuitBreaker(name = "notification-processing", fallbackMethod = "fallbackNotification")
@@ -27,26 +43,69 @@ public class NotificationController {
     @TimeLimiter(name = "notification-processing")
     public CompletableFuture<Void> sendNotification(@RequestBody NotificationRequest notificationRequest) {
         log.info("Processing notification request: {}", notificationRequest);
-        
-        return CompletableFuture.runAsync(() -> {
+
+        return runBounded(() -> {
             notificationService.send(notificationRequest);
             log.debug("Notification processed successfully for customer: {}", notificationRequest.toCustomerId());
         });
     }
-    
+
+    @PostMapping("/bulk")
+    @CircuitBreaker(name = "notification-processing", fallbackMethod = "fallbackBulkNotification")
+    @TimeLimiter(name = "notification-processing")
+    public CompletableFuture<Void> sendNotifications(@RequestBody List<NotificationRequest> notificationRequests) {
+        if (notificationRequests.size() > maxBulkSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBulkSize + " notifications are accepted per request");
+        }
+        log.info("Processing bulk notification request with {} notifications", notificationRequests.size());
+
+        return runBounded(() -> notificationService.sendAll(notificationRequests));
+    }
+
+    /**
+     * Runs the task on the request bulkhead; a saturated pool answers 429 so callers back off.
+     */
+    private CompletableFuture<Void> runBounded(Runnable task) {
+        try {
+            return CompletableFuture.runAsync(task, notificationRequestExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Notification request executor saturated, rejecting request");
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Notification service is saturated");
+        }
+    }
+
     /**
      * Fallback method for notification processing when service is degraded.
      * Logs the failure and provides graceful degradation.
      */
     public CompletableFuture<Void> fallbackNotification(NotificationRequest notificationRequest, Exception ex) {
-        log.warn("Notification service degraded for customer {}. Notification will be queued for retry. Error: {}", 
+        log.warn("Notification service degraded for customer {}. Notification will be queued for retry. Error: {}",
                 notificationRequest.toCustomerId(), ex.getMessage());
-        
+
         // In a real implementation, you might:
         // 1. Store the notification in a dead letter queue
         // 2. Send to an alternative notification channel
         // 3. Schedule for later retry
-        
+
         return CompletableFuture.completedFuture(null);
     }
+
+    /**
+     * Rejections (429, 400) are answers to the caller, not degradation; pass them through.
+     */
+    public CompletableFuture<Void> fallbackNotification(NotificationRequest notificationRequest, ResponseStatusException ex) {
+        return CompletableFuture.failedFuture(ex);
+    }
+
+    public CompletableFuture<Void> fallbackBulkNotification(List<NotificationRequest> notificationRequests, Exception ex) {
+        log.warn("Notification service degraded, {} bulk notifications not processed. Error: {}",
+                notificationRequests.size(), ex.getMessage());
+        return CompletableFuture.failedFuture(
+                new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Notification service is degraded", ex));
+    }
+
+    public CompletableFuture<Void> fallbackBulkNotification(List<NotificationRequest> notificationRequests, ResponseStatusException ex) {
+        return CompletableFuture.failedFuture(ex);
+    }
 }
@@ -0,0 +1,39 @@
+package tech.yump.veriboard.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bulkhead for HTTP notification requests.
+ * Requests run on their own bounded pool instead of the JVM-wide common pool; once the pool
+ * and its queue are full new requests are rejected rather than queued without limit.
+ */
+@Configuration
+public class NotificationExecutorConfig {
+
+    @Value("${notification.http.executor.core-size:4}")
+    private int coreSize;
+
+    @Value("${notification.http.executor.max-size:16}")
+    private int maxSize;
+
+    @Value("${notification.http.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean("notificationRequestExecutor")
+    public ThreadPoolTaskExecutor notificationRequestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-http-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
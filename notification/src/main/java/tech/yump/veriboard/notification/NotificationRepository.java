@@ -1,6 +1,73 @@
 package tech.yump.veriboard.notification;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import tech.yump.veriboard.notification.delivery.DeliveryStatus;
+import tech.yump.veriboard.notification.delivery.NotificationChannel;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Integer> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Records the delivery outcome for a batch of notifications in a single statement.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Notification n set n.deliveryStatus = :status, n.deliveredAt = :deliveredAt where n.id in :ids")
+    int updateDeliveryStatus(
+            @Param("ids") Collection<Integer> ids,
+            @Param("status") DeliveryStatus status,
+            @Param("deliveredAt") LocalDateTime deliveredAt);
+
+    /**
+     * Records a failed delivery attempt for a batch of notifications.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Notification n set n.deliveryStatus = :status, n.lastAttemptAt = :failedAt, "
+            + "n.deliveryAttempts = coalesce(n.deliveryAttempts, 0) + 1 where n.id in :ids")
+    int recordDeliveryFailure(
+            @Param("ids") Collection<Integer> ids,
+            @Param("status") DeliveryStatus status,
+            @Param("failedAt") LocalDateTime failedAt);
+
+    /**
+     * Notifications of a channel that are still undelivered: pending since before {@code before}, or
+     * last attempted before {@code before}, with fewer than {@code maxAttempts} attempts.
+     */
+    @Query("select n from Notification n where n.channel = :channel and n.deliveryStatus in :statuses "
+            + "and coalesce(n.lastAttemptAt, n.sentAt) < :before "
+            + "and coalesce(n.deliveryAttempts, 0) < :maxAttempts order by n.id")
+    List<Notification> findRetryable(
+            @Param("channel") NotificationChannel channel,
+            @Param("statuses") Collection<DeliveryStatus> statuses,
+            @Param("before") LocalDateTime before,
+            @Param("maxAttempts") int maxAttempts,
+            Pageable page);
+
+    /**
+     * Claims a notification found by {@link #findRetryable} for this replica by moving its last
+     * attempt to {@code claimedAt}, if it is still undelivered and nobody claimed it since. Another
+     * replica's sweep then skips it until the retry delay has passed again.
+     *
+     * @return 1 if claimed, 0 if another replica got there first or it was delivered meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("update Notification n set n.lastAttemptAt = :claimedAt where n.id = :id "
+            + "and n.deliveryStatus in :statuses and coalesce(n.lastAttemptAt, n.sentAt) < :before")
+    int claimForRetry(
+            @Param("id") Integer id,
+            @Param("statuses") Collection<DeliveryStatus> statuses,
+            @Param("before") LocalDateTime before,
+            @Param("claimedAt") LocalDateTime claimedAt);
 }
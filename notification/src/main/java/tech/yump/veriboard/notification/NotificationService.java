@@ -1,34 +1,89 @@
 package tech.yump.veriboard.notification;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
+import tech.yump.veriboard.notification.delivery.DeliveryPipeline;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Service
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final DeliveryPipeline deliveryPipeline;
 
-    public NotificationService(NotificationRepository notificationRepository) {
+    public NotificationService(NotificationRepository notificationRepository, DeliveryPipeline deliveryPipeline) {
         this.notificationRepository = notificationRepository;
+        this.deliveryPipeline = deliveryPipeline;
     }
 
     public void send(NotificationRequest request) {
+        send(request, null);
+    }
+
+    /**
+     * Sends a notification at most once per {@code messageId}: a redelivered message whose
+     * notification already exists is skipped. The id is stored as the notification's unique
+     * idempotency key, so concurrent redeliveries are caught by the constraint.
+     *
+     * @param messageId id of the message that carried the request, or null if it has none
+     */
+    public void send(NotificationRequest request, String messageId) {
+        if (messageId != null && notificationRepository.existsByIdempotencyKey(messageId)) {
+            log.info("Notification for message {} already exists; skipping redelivery", messageId);
+            return;
+        }
         log.info("Sending notification to customer {}: {}", request.toCustomerId(), request.message());
         
-        notificationRepository.save(
-                Notification.builder()
-                        .toCustomerId(request.toCustomerId())
-                        .toCustomerEmail(request.toCustomerEmail())
-                        .sender("VeriBoard")
-                        .message(request.message())
-                        .sentAt(LocalDateTime.now())
-                        .build()
-        );
+        Notification notification = toNotification(request);
+        notification.setIdempotencyKey(messageId);
+        try {
+            notificationRepository.save(notification);
+        } catch (DataIntegrityViolationException e) {
+            if (messageId == null) {
+                throw e;
+            }
+            log.info("Notification for message {} was stored concurrently; skipping redelivery", messageId);
+            return;
+        }
+
+        // Actual e-mail delivery happens on the channel workers, never on the caller's thread
+        deliveryPipeline.submitAfterCommit(notification);
         
         log.info("Notification saved successfully for customer {}", request.toCustomerId());
     }
+
+    /**
+     * Persists a batch of notifications in one transaction; inserts are grouped by the
+     * JDBC batch size and delivery starts once the whole batch has committed.
+     */
+    @Transactional
+    public void sendAll(List<NotificationRequest> requests) {
+        log.info("Sending {} notifications", requests.size());
+
+        List<Notification> notifications = requests.stream()
+                .map(this::toNotification)
+                .toList();
+        notificationRepository.saveAll(notifications);
+
+        notifications.forEach(deliveryPipeline::submitAfterCommit);
+
+        log.info("{} notifications saved successfully", notifications.size());
+    }
+
+    private Notification toNotification(NotificationRequest request) {
+        return Notification.builder()
+                .toCustomerId(request.toCustomerId())
+                .toCustomerEmail(request.toCustomerEmail())
+                .sender("VeriBoard")
+                .message(request.message())
+                .priority(request.priority())
+                .sentAt(LocalDateTime.now())
+                .build();
+    }
 }
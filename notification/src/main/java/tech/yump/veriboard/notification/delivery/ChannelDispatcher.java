@@ -0,0 +1,155 @@
+package tech.yump.veriboard.notification.delivery;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.notification.Notification;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off between persisted notifications and one channel provider.
+ * A fixed number of workers each own one provider session, which caps the number of
+ * connections and in-flight messages per provider. Sessions are reused across batches
+ * and closed once they have been idle for the configured timeout. Queued notifications are
+ * taken in weighted priority order (see {@link LaneQueue}).
+ */
+@Slf4j
+class ChannelDispatcher {
+
+    private final ChannelSender sender;
+    private final ChannelLimits limits;
+    private final LaneQueue queue;
+    private final Consumer<List<DeliveryResult>> resultSink;
+    private final Map<NotificationPriority, Timer> deliveryLatency = new EnumMap<>(NotificationPriority.class);
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    ChannelDispatcher(ChannelSender sender, Consumer<List<DeliveryResult>> resultSink, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.limits = sender.limits();
+        this.queue = new LaneQueue(limits.queueCapacity());
+        this.resultSink = resultSink;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            deliveryLatency.put(priority, Timer.builder("notification.delivery.latency")
+                    .description("Time between persisting a notification and handing it to the provider")
+                    .tag("channel", sender.channel().name())
+                    .tag("priority", priority.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    boolean offer(Notification notification) {
+        return running && queue.offer(notification);
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    void start() {
+        running = true;
+        String prefix = "delivery-" + sender.channel().name().toLowerCase() + "-";
+        for (int i = 0; i < limits.maxSessions(); i++) {
+            Thread worker = new Thread(this::work, prefix + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops accepting work and waits for queued notifications to be delivered.
+     */
+    void stop(long timeoutMillis) {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    private void work() {
+        List<Notification> batch = new ArrayList<>(limits.batchSize());
+        ChannelSession session = null;
+        try {
+            while (running || !queue.isEmpty()) {
+                Notification first = queue.poll(limits.idleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    session = close(session);
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, limits.batchSize() - 1);
+
+                session = deliver(session, batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(session);
+        }
+    }
+
+    private ChannelSession deliver(ChannelSession session, List<Notification> batch) {
+        try {
+            if (session == null) {
+                session = sender.openSession();
+            }
+            resultSink.accept(session.deliver(batch));
+            recordLatency(batch);
+            return session;
+        } catch (IOException | RuntimeException e) {
+            log.error("{} delivery of {} notifications failed: {}",
+                    sender.channel(), batch.size(), e.getMessage());
+            List<DeliveryResult> failed = new ArrayList<>(batch.size());
+            for (Notification notification : batch) {
+                failed.add(DeliveryResult.failed(notification.getId(), e.getMessage()));
+            }
+            resultSink.accept(failed);
+            return close(session);
+        }
+    }
+
+    private void recordLatency(List<Notification> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Notification notification : batch) {
+            if (notification.getSentAt() != null && notification.getPriority() != null) {
+                deliveryLatency.get(notification.getPriority())
+                        .record(Duration.between(notification.getSentAt(), now));
+            }
+        }
+    }
+
+    private ChannelSession close(ChannelSession session) {
+        if (session != null) {
+            try {
+                session.close();
+            } catch (IOException e) {
+                log.debug("Closing {} session failed: {}", sender.channel(), e.getMessage());
+            }
+        }
+        return null;
+    }
+}
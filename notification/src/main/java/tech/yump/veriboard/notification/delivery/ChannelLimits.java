@@ -0,0 +1,25 @@
+package tech.yump.veriboard.notification.delivery;
+
+import java.time.Duration;
+
+/**
+ * Per-provider concurrency limits for a delivery channel.
+ *
+ * @param maxSessions   number of concurrent provider sessions (connections) kept open
+ * @param queueCapacity notifications per priority lane allowed to wait for a free session before submissions are refused
+ * @param batchSize     notifications handed to a session in one go
+ * @param idleTimeout   how long an unused session is kept open before it is closed
+ */
+public record ChannelLimits(
+        int maxSessions,
+        int queueCapacity,
+        int batchSize,
+        Duration idleTimeout
+) {
+
+    public ChannelLimits {
+        if (maxSessions < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Channel limits must be positive");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tech.yump.veriboard.notification.delivery;
+
+import java.io.IOException;
+
+/**
+ * Provider integration for one delivery channel.
+ * Implementations are registered as beans and picked up by the {@link DeliveryPipeline}.
+ */
+public interface ChannelSender {
+
+    NotificationChannel channel();
+
+    ChannelLimits limits();
+
+    /**
+     * Opens a new session with the provider. Called lazily by delivery workers.
+     */
+    ChannelSession openSession() throws IOException;
+}
@@ -0,0 +1,22 @@
+package tech.yump.veriboard.notification.delivery;
+
+import tech.yump.veriboard.notification.Notification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An open, reusable session with a channel provider (for example an SMTP connection).
+ * Sessions are owned by a single delivery worker and are never shared between threads.
+ */
+public interface ChannelSession extends Closeable {
+
+    /**
+     * Delivers a batch of notifications over this session.
+     *
+     * @return one result per notification in the batch
+     * @throws IOException if the session broke and must be discarded
+     */
+    List<DeliveryResult> deliver(List<Notification> batch) throws IOException;
+}
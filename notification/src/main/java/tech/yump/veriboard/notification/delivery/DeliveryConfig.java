@@ -0,0 +1,87 @@
+package tech.yump.veriboard.notification.delivery;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.yump.veriboard.notification.NotificationRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wires the channel senders into the asynchronous delivery pipeline.
+ */
+@Configuration
+public class DeliveryConfig {
+
+    @Value("${notification.delivery.smtp.host:localhost}")
+    private String smtpHost;
+
+    @Value("${notification.delivery.smtp.port:1025}")
+    private int smtpPort;
+
+    @Value("${notification.delivery.smtp.helo:notification.veriboard.local}")
+    private String smtpHelo;
+
+    @Value("${notification.delivery.smtp.from:no-reply@veriboard.tech}")
+    private String smtpFrom;
+
+    @Value("${notification.delivery.smtp.timeout:10s}")
+    private Duration smtpTimeout;
+
+    @Value("${notification.delivery.email.max-sessions:4}")
+    private int emailMaxSessions;
+
+    @Value("${notification.delivery.email.queue-capacity:10000}")
+    private int emailQueueCapacity;
+
+    @Value("${notification.delivery.email.batch-size:50}")
+    private int emailBatchSize;
+
+    @Value("${notification.delivery.email.idle-timeout:30s}")
+    private Duration emailIdleTimeout;
+
+    @Value("${notification.delivery.status.batch-size:200}")
+    private int statusBatchSize;
+
+    @Value("${notification.delivery.status.flush-interval:250ms}")
+    private Duration statusFlushInterval;
+
+    @Value("${notification.delivery.retry.interval:1m}")
+    private Duration retryInterval;
+
+    @Value("${notification.delivery.retry.delay:5m}")
+    private Duration retryDelay;
+
+    @Value("${notification.delivery.retry.max-attempts:5}")
+    private int retryMaxAttempts;
+
+    @Value("${notification.delivery.retry.batch-size:500}")
+    private int retryBatchSize;
+
+    @Bean
+    public ChannelSender emailChannelSender() {
+        return new SmtpChannelSender(
+                smtpHost,
+                smtpPort,
+                smtpHelo,
+                smtpFrom,
+                smtpTimeout,
+                new ChannelLimits(emailMaxSessions, emailQueueCapacity, emailBatchSize, emailIdleTimeout));
+    }
+
+    @Bean
+    public DeliveryPipeline deliveryPipeline(
+            List<ChannelSender> channelSenders,
+            NotificationRepository notificationRepository,
+            MeterRegistry meterRegistry) {
+        return new DeliveryPipeline(
+                channelSenders,
+                notificationRepository,
+                statusBatchSize,
+                statusFlushInterval,
+                new DeliveryRetry(retryInterval, retryDelay, retryMaxAttempts, retryBatchSize),
+                meterRegistry);
+    }
+}
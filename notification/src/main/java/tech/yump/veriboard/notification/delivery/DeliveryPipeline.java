@@ -0,0 +1,193 @@
+package tech.yump.veriboard.notification.delivery;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.yump.veriboard.notification.Notification;
+import tech.yump.veriboard.notification.NotificationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous delivery of persisted notifications.
+ * Callers (AMQP listeners, HTTP handlers) only enqueue; per-channel workers talk to the
+ * providers with bounded concurrency and the outcome is written back in batches.
+ * A notification that cannot be queued stays {@link DeliveryStatus#PENDING}; a periodic retry sweep
+ * re-queues pending and failed notifications until they are sent or run out of attempts. Every
+ * replica sweeps the same table, so each notification is claimed in the database before it is
+ * re-queued, and only the replica whose claim succeeded delivers it.
+ */
+@Slf4j
+public class DeliveryPipeline implements SmartLifecycle {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+    private static final Set<DeliveryStatus> RETRYABLE = EnumSet.of(DeliveryStatus.PENDING, DeliveryStatus.FAILED);
+
+    private final Map<NotificationChannel, ChannelDispatcher> dispatchers = new EnumMap<>(NotificationChannel.class);
+    private final DeliveryStatusWriter statusWriter;
+    private final NotificationRepository notificationRepository;
+    private final DeliveryRetry retry;
+    // Queued or being delivered, until the outcome is written back; the retry sweep skips these
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ScheduledExecutorService retrySweep;
+
+    public DeliveryPipeline(
+            List<ChannelSender> senders,
+            NotificationRepository notificationRepository,
+            int statusBatchSize,
+            Duration statusFlushInterval,
+            DeliveryRetry retry,
+            MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.retry = retry;
+        this.statusWriter = new DeliveryStatusWriter(
+                notificationRepository, statusBatchSize, statusFlushInterval, inFlight::removeAll);
+        for (ChannelSender sender : senders) {
+            if (dispatchers.putIfAbsent(sender.channel(), new ChannelDispatcher(sender, statusWriter::accept, meterRegistry)) != null) {
+                throw new IllegalStateException("More than one sender registered for channel " + sender.channel());
+            }
+        }
+    }
+
+    /**
+     * Queues a persisted notification for delivery.
+     *
+     * @return false if the channel has no sender or its queue is full; the retry sweep picks it up later
+     */
+    public boolean submit(Notification notification) {
+        ChannelDispatcher dispatcher = dispatchers.get(notification.getChannel());
+        if (dispatcher == null) {
+            log.warn("No sender registered for channel {}; notification {} stays pending",
+                    notification.getChannel(), notification.getId());
+            return false;
+        }
+        Integer id = notification.getId();
+        if (id != null && !inFlight.add(id)) {
+            return true;
+        }
+        if (!dispatcher.offer(notification)) {
+            if (id != null) {
+                inFlight.remove(id);
+            }
+            log.warn("{} delivery queue is full; notification {} stays pending",
+                    notification.getChannel(), id);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues the notification once the surrounding transaction has committed, so workers never
+     * see rows that may still roll back. Without an active transaction it is queued immediately.
+     */
+    public void submitAfterCommit(Notification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(notification);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(notification);
+            }
+        });
+    }
+
+    public int queued(NotificationChannel channel) {
+        ChannelDispatcher dispatcher = dispatchers.get(channel);
+        return dispatcher != null ? dispatcher.queued() : 0;
+    }
+
+    /**
+     * Re-queues notifications that have been pending or failed for longer than the retry delay,
+     * up to one batch per channel and only while the channel queue has room. Notifications another
+     * replica claimed first are skipped.
+     *
+     * @return the number of notifications re-queued
+     */
+    int retryUndelivered() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(retry.delay());
+        int requeued = 0;
+        for (NotificationChannel channel : dispatchers.keySet()) {
+            List<Notification> undelivered = notificationRepository.findRetryable(
+                    channel, RETRYABLE, before, retry.maxAttempts(), PageRequest.ofSize(retry.batchSize()));
+            for (Notification notification : undelivered) {
+                if (inFlight.contains(notification.getId())
+                        || notificationRepository.claimForRetry(notification.getId(), RETRYABLE, before, now) == 0) {
+                    continue;
+                }
+                // A claim whose notification does not fit the queue lapses after the retry delay
+                if (!submit(notification)) {
+                    break;
+                }
+                requeued++;
+            }
+        }
+        if (requeued > 0) {
+            log.info("Re-queued {} undelivered notifications", requeued);
+        }
+        return requeued;
+    }
+
+    private void sweep() {
+        try {
+            retryUndelivered();
+        } catch (RuntimeException e) {
+            log.error("Delivery retry sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        statusWriter.start();
+        dispatchers.values().forEach(ChannelDispatcher::start);
+        retrySweep = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = retry.interval().toMillis();
+        retrySweep.scheduleWithFixedDelay(this::sweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (retrySweep != null) {
+            retrySweep.shutdownNow();
+            retrySweep = null;
+        }
+        dispatchers.values().forEach(dispatcher -> dispatcher.stop(SHUTDOWN_TIMEOUT_MILLIS));
+        statusWriter.stop(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before and stopped after the message listener containers that feed it.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1000;
+    }
+}
@@ -0,0 +1,19 @@
+package tech.yump.veriboard.notification.delivery;
+
+/**
+ * Outcome of handing a single notification to its channel provider.
+ */
+public record DeliveryResult(
+        Integer notificationId,
+        DeliveryStatus status,
+        String detail
+) {
+
+    public static DeliveryResult sent(Integer notificationId) {
+        return new DeliveryResult(notificationId, DeliveryStatus.SENT, null);
+    }
+
+    public static DeliveryResult failed(Integer notificationId, String detail) {
+        return new DeliveryResult(notificationId, DeliveryStatus.FAILED, detail);
+    }
+}
@@ -0,0 +1,27 @@
+package tech.yump.veriboard.notification.delivery;
+
+import java.time.Duration;
+
+/**
+ * How the delivery pipeline picks up notifications that were never queued or whose delivery failed.
+ *
+ * @param interval    time between retry sweeps
+ * @param delay       minimum time a notification has been pending, or since it was last claimed or failed, before it
+ *                    is re-queued; also how long a claim keeps other replicas off it, so it must exceed the time a
+ *                    notification may spend queued and being delivered
+ * @param maxAttempts failed attempts after which a notification is left {@link DeliveryStatus#FAILED}
+ * @param batchSize   notifications re-queued per channel and sweep
+ */
+public record DeliveryRetry(
+        Duration interval,
+        Duration delay,
+        int maxAttempts,
+        int batchSize
+) {
+
+    public DeliveryRetry {
+        if (interval.isNegative() || interval.isZero() || delay.isNegative() || maxAttempts < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Delivery retry settings must be positive");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package tech.yump.veriboard.notification.delivery;
+
+/**
+ * Lifecycle of a persisted notification with respect to its delivery channel.
+ */
+public enum DeliveryStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,134 @@
+package tech.yump.veriboard.notification.delivery;
+
+import lombok.extern.slf4j.Slf4j;
+import tech.yump.veriboard.notification.NotificationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects delivery results from all channel workers and writes them back in batches,
+ * so a burst of deliveries costs one UPDATE per status instead of one per notification.
+ * Failures also bump the attempt counter the retry sweep uses.
+ */
+@Slf4j
+class DeliveryStatusWriter {
+
+    private final NotificationRepository notificationRepository;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Consumer<Collection<Integer>> recorded;
+    private final LinkedBlockingQueue<DeliveryResult> results = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    DeliveryStatusWriter(
+            NotificationRepository notificationRepository,
+            int batchSize,
+            Duration flushInterval,
+            Consumer<Collection<Integer>> recorded) {
+        this.notificationRepository = notificationRepository;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.recorded = recorded;
+    }
+
+    void accept(List<DeliveryResult> batch) {
+        results.addAll(batch);
+    }
+
+    void start() {
+        running = true;
+        flusher = new Thread(this::run, "delivery-status-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    void stop(long timeoutMillis) {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        // Whatever the flusher did not get to is written synchronously
+        flush();
+    }
+
+    private void run() {
+        List<DeliveryResult> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                DeliveryResult first = results.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give concurrent workers the rest of the interval to fill the batch
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize && System.nanoTime() < deadline) {
+                    DeliveryResult next = results.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    results.drainTo(batch, batchSize - batch.size());
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void flush() {
+        List<DeliveryResult> batch = new ArrayList<>(batchSize);
+        while (results.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<DeliveryResult> batch) {
+        Map<DeliveryStatus, List<Integer>> idsByStatus = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryResult result : batch) {
+            if (result.notificationId() == null) {
+                continue;
+            }
+            if (result.status() == DeliveryStatus.FAILED) {
+                log.warn("Delivery of notification {} failed: {}", result.notificationId(), result.detail());
+            }
+            idsByStatus.computeIfAbsent(result.status(), status -> new ArrayList<>()).add(result.notificationId());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        idsByStatus.forEach((status, ids) -> {
+            try {
+                if (status == DeliveryStatus.FAILED) {
+                    notificationRepository.recordDeliveryFailure(ids, status, now);
+                } else {
+                    notificationRepository.updateDeliveryStatus(ids, status, now);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to record delivery status {} for {} notifications: {}",
+                        status, ids.size(), e.getMessage(), e);
+            }
+            // Unrecorded outcomes leave the rows retryable, so a duplicate is preferred over a loss
+            recorded.accept(ids);
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package tech.yump.veriboard.notification.delivery;
+
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.notification.Notification;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue with one FIFO lane per {@link NotificationPriority}, drained by weighted
+ * round robin. Each lane has its own capacity, so a full bulk lane never rejects an alert,
+ * and a queued alert waits for at most one round of the other lanes however deep they are.
+ */
+class LaneQueue {
+
+    /** Consecutive takes per lane in one round, indexed by priority ordinal. */
+    private static final int[] WEIGHTS = weights();
+
+    private final int laneCapacity;
+    private final ArrayDeque<Notification>[] lanes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private int size;
+    private int cursor;
+    private int credit = WEIGHTS[0];
+
+    @SuppressWarnings("unchecked")
+    LaneQueue(int laneCapacity) {
+        this.laneCapacity = laneCapacity;
+        this.lanes = new ArrayDeque[NotificationPriority.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+    }
+
+    boolean offer(Notification notification) {
+        ArrayDeque<Notification> lane = lanes[laneOf(notification)];
+        lock.lock();
+        try {
+            if (lane.size() >= laneCapacity) {
+                return false;
+            }
+            lane.addLast(notification);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Notification poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int drainTo(Collection<Notification> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && size > 0) {
+                target.add(next());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Takes the next element in weighted round-robin order; the caller holds the lock and size > 0.
+     * Empty lanes forfeit the rest of their credit so idle priorities never stall the others.
+     */
+    private Notification next() {
+        while (credit == 0 || lanes[cursor].isEmpty()) {
+            cursor = (cursor + 1) % lanes.length;
+            credit = WEIGHTS[cursor];
+        }
+        credit--;
+        size--;
+        return lanes[cursor].pollFirst();
+    }
+
+    private static int laneOf(Notification notification) {
+        NotificationPriority priority = notification.getPriority();
+        return (priority != null ? priority : NotificationPriority.NORMAL).ordinal();
+    }
+
+    private static int[] weights() {
+        int[] weights = new int[NotificationPriority.values().length];
+        weights[NotificationPriority.HIGH.ordinal()] = 8;
+        weights[NotificationPriority.NORMAL.ordinal()] = 3;
+        weights[NotificationPriority.BULK.ordinal()] = 1;
+        return weights;
+    }
+}
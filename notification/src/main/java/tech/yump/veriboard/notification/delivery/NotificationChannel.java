@@ -0,0 +1,10 @@
+package tech.yump.veriboard.notification.delivery;
+
+/**
+ * Channels a notification can be delivered through.
+ * Each channel is served by its own {@link ChannelSender} and concurrency limits.
+ */
+public enum NotificationChannel {
+    EMAIL,
+    SMS
+}
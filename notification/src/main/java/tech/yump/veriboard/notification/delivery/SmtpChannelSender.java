@@ -0,0 +1,48 @@
+package tech.yump.veriboard.notification.delivery;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * E-mail channel backed by a plain SMTP relay.
+ * Every worker keeps its own {@link SmtpSession} open and pipelines the messages of a batch over it.
+ */
+public class SmtpChannelSender implements ChannelSender {
+
+    private final String host;
+    private final int port;
+    private final String heloName;
+    private final String from;
+    private final Duration timeout;
+    private final ChannelLimits limits;
+
+    public SmtpChannelSender(
+            String host,
+            int port,
+            String heloName,
+            String from,
+            Duration timeout,
+            ChannelLimits limits) {
+        this.host = host;
+        this.port = port;
+        this.heloName = heloName;
+        this.from = from;
+        this.timeout = timeout;
+        this.limits = limits;
+    }
+
+    @Override
+    public NotificationChannel channel() {
+        return NotificationChannel.EMAIL;
+    }
+
+    @Override
+    public ChannelLimits limits() {
+        return limits;
+    }
+
+    @Override
+    public ChannelSession openSession() throws IOException {
+        return SmtpSession.open(host, port, heloName, from, timeout);
+    }
+}
@@ -0,0 +1,273 @@
+package tech.yump.veriboard.notification.delivery;
+
+import lombok.extern.slf4j.Slf4j;
+import tech.yump.veriboard.notification.Notification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Single SMTP connection that is reused for many messages.
+ * When the server advertises PIPELINING (RFC 2920) the envelope commands of a message are sent
+ * in one write together with the end of the previous message, so each message costs a single
+ * round trip instead of four.
+ */
+@Slf4j
+class SmtpSession implements ChannelSession {
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+    private final String heloName;
+    private final String from;
+    private final boolean pipelining;
+
+    private SmtpSession(Socket socket, String heloName, String from) throws IOException {
+        this.socket = socket;
+        this.reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        this.heloName = heloName;
+        this.from = from;
+
+        expect(readReply(), 220);
+        write("EHLO " + heloName);
+        writer.flush();
+        Reply ehlo = expect(readReply(), 250);
+        this.pipelining = ehlo.lines().stream()
+                .anyMatch(line -> line.toUpperCase(Locale.ROOT).startsWith("PIPELINING"));
+    }
+
+    static SmtpSession open(String host, int port, String heloName, String from, Duration timeout)
+            throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), (int) timeout.toMillis());
+            socket.setSoTimeout((int) timeout.toMillis());
+            socket.setTcpNoDelay(true);
+            SmtpSession session = new SmtpSession(socket, heloName, from);
+            log.debug("Opened SMTP session to {}:{} (pipelining: {})", host, port, session.pipelining);
+            return session;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    boolean isPipelining() {
+        return pipelining;
+    }
+
+    @Override
+    public List<DeliveryResult> deliver(List<Notification> batch) throws IOException {
+        return pipelining ? deliverPipelined(batch) : deliverSequentially(batch);
+    }
+
+    private List<DeliveryResult> deliverPipelined(List<Notification> batch) throws IOException {
+        List<DeliveryResult> results = new ArrayList<>(batch.size());
+        Notification pending = null;
+        String pendingFailure = null;
+        boolean resetNeeded = false;
+
+        for (Notification notification : batch) {
+            String recipient = notification.getToCustomerEmail();
+            if (!isValidAddress(recipient)) {
+                results.add(DeliveryResult.failed(notification.getId(), "Invalid recipient address"));
+                continue;
+            }
+
+            // One group: [end of previous message] [RSET] MAIL RCPT DATA
+            if (resetNeeded) {
+                write("RSET");
+            }
+            write("MAIL FROM:<" + from + ">");
+            write("RCPT TO:<" + recipient + ">");
+            write("DATA");
+            writer.flush();
+
+            if (pending != null) {
+                results.add(completion(pending, pendingFailure, readReply()));
+                pending = null;
+            }
+            if (resetNeeded) {
+                readReply();
+                resetNeeded = false;
+            }
+
+            Reply mail = readReply();
+            Reply rcpt = readReply();
+            Reply data = readReply();
+
+            if (data.code() == 354) {
+                pendingFailure = firstFailure(mail, rcpt);
+                if (pendingFailure == null) {
+                    writeContent(notification);
+                } else {
+                    write(".");
+                }
+                pending = notification;
+            } else {
+                String failure = firstFailure(mail, rcpt);
+                results.add(DeliveryResult.failed(notification.getId(), failure != null ? failure : data.text()));
+                resetNeeded = true;
+            }
+        }
+
+        if (pending != null) {
+            writer.flush();
+            results.add(completion(pending, pendingFailure, readReply()));
+        }
+        if (resetNeeded) {
+            command("RSET");
+        }
+        return results;
+    }
+
+    private List<DeliveryResult> deliverSequentially(List<Notification> batch) throws IOException {
+        List<DeliveryResult> results = new ArrayList<>(batch.size());
+
+        for (Notification notification : batch) {
+            String recipient = notification.getToCustomerEmail();
+            if (!isValidAddress(recipient)) {
+                results.add(DeliveryResult.failed(notification.getId(), "Invalid recipient address"));
+                continue;
+            }
+
+            Reply mail = command("MAIL FROM:<" + from + ">");
+            Reply rcpt = mail.positive() ? command("RCPT TO:<" + recipient + ">") : mail;
+            Reply data = rcpt.positive() ? command("DATA") : rcpt;
+            if (data.code() != 354) {
+                results.add(DeliveryResult.failed(notification.getId(), data.text()));
+                command("RSET");
+                continue;
+            }
+
+            writeContent(notification);
+            writer.flush();
+            results.add(completion(notification, null, readReply()));
+        }
+        return results;
+    }
+
+    private DeliveryResult completion(Notification notification, String failure, Reply reply) {
+        if (failure != null) {
+            return DeliveryResult.failed(notification.getId(), failure);
+        }
+        return reply.positive()
+                ? DeliveryResult.sent(notification.getId())
+                : DeliveryResult.failed(notification.getId(), reply.text());
+    }
+
+    private void writeContent(Notification notification) throws IOException {
+        String sender = notification.getSender() != null ? notification.getSender() : "VeriBoard";
+        write("From: " + sender + " <" + from + ">");
+        write("To: <" + notification.getToCustomerEmail() + ">");
+        write("Subject: " + sender + " notification");
+        write("Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()));
+        write("Message-ID: <notification-" + notification.getId() + "@" + heloName + ">");
+        write("MIME-Version: 1.0");
+        write("Content-Type: text/plain; charset=UTF-8");
+        write("Content-Transfer-Encoding: 8bit");
+        write("");
+
+        String message = notification.getMessage() != null ? notification.getMessage() : "";
+        for (String line : message.split("\r\n|\r|\n", -1)) {
+            // Dot-stuffing (RFC 5321 section 4.5.2)
+            write(line.startsWith(".") ? "." + line : line);
+        }
+        write(".");
+    }
+
+    private Reply command(String command) throws IOException {
+        write(command);
+        writer.flush();
+        return readReply();
+    }
+
+    private void write(String line) throws IOException {
+        writer.write(line);
+        writer.write("\r\n");
+    }
+
+    private Reply readReply() throws IOException {
+        List<String> lines = new ArrayList<>(1);
+        while (true) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new EOFException("SMTP server closed the connection");
+            }
+            if (line.length() < 3) {
+                throw new IOException("Malformed SMTP reply: " + line);
+            }
+            lines.add(line.length() > 4 ? line.substring(4) : "");
+            if (line.length() == 3 || line.charAt(3) != '-') {
+                try {
+                    return new Reply(Integer.parseInt(line.substring(0, 3)), lines);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed SMTP reply: " + line, e);
+                }
+            }
+        }
+    }
+
+    private static Reply expect(Reply reply, int code) throws IOException {
+        if (reply.code() != code) {
+            throw new IOException("Unexpected SMTP reply: " + reply.text());
+        }
+        return reply;
+    }
+
+    private static String firstFailure(Reply... replies) {
+        for (Reply reply : replies) {
+            if (!reply.positive()) {
+                return reply.text();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isValidAddress(String address) {
+        return address != null
+                && !address.isBlank()
+                && address.chars().noneMatch(c -> c == '\r' || c == '\n' || c == '<' || c == '>');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            command("QUIT");
+        } catch (IOException e) {
+            log.debug("SMTP QUIT failed: {}", e.getMessage());
+        } finally {
+            socket.close();
+        }
+    }
+
+    private record Reply(int code, List<String> lines) {
+
+        boolean positive() {
+            return code >= 200 && code < 300;
+        }
+
+        String text() {
+            return code + " " + String.join(" ", lines);
+        }
+    }
+}
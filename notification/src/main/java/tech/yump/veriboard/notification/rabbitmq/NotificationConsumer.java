@@ -4,11 +4,13 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 import tech.yump.veriboard.notification.NotificationService;
 
+/**
+ * Processes notification requests taken off the priority lanes by {@link NotificationLaneListener}.
+ */
 @AllArgsConstructor
 @Component
 @Slf4j
@@ -16,14 +18,13 @@ public class NotificationConsumer {
 
     private final NotificationService notificationService;
 
-    @RabbitListener(queues = "${rabbitmq.queue.notification}")
     @CircuitBreaker(name = "notification-processing", fallbackMethod = "fallbackConsumer")
     @Retry(name = "notification-processing")
-    public void consumer(NotificationRequest notificationRequest) {
+    public void consumer(NotificationRequest notificationRequest, String messageId) {
         log.info("Consumed notification request from queue: {}", notificationRequest);
         
         try {
-            notificationService.send(notificationRequest);
+            notificationService.send(notificationRequest, messageId);
             log.debug("Successfully processed notification for customer: {}", notificationRequest.toCustomerId());
         } catch (Exception e) {
             log.error("Failed to process notification for customer: {}. Error: {}", 
@@ -34,21 +35,13 @@ public class NotificationConsumer {
     
     /**
      * Fallback method for message consumption when service is degraded.
-     * This prevents message loss during service degradation.
+     * The failure is passed on so the lane listener dead-letters the message instead of
+     * acknowledging a notification that was never stored.
      */
-    public void fallbackConsumer(NotificationRequest notificationRequest, Exception ex) {
+    public void fallbackConsumer(NotificationRequest notificationRequest, String messageId, RuntimeException ex) {
         log.warn("Notification processing circuit breaker activated for customer {}. " +
-                "Message will be handled by fallback mechanism. Error: {}", 
-                notificationRequest.toCustomerId(), ex.getMessage());
-        
-        // In a real implementation, you might:
-        // 1. Send to a dead letter queue for manual processing
-        // 2. Store in a database for later retry
-        // 3. Send via alternative notification channel
-        // 4. Alert operations team
-        
-        // For now, just log the fallback action
-        log.info("Notification fallback: storing message for customer {} for later processing", 
-                notificationRequest.toCustomerId());
+                "Message {} will be dead-lettered. Error: {}",
+                notificationRequest.toCustomerId(), messageId, ex.getMessage());
+        throw ex;
     }
 }
@@ -0,0 +1,40 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One partitioned dispatcher per priority lane. Partitions set the lane's parallelism
+ * (and so its weight); per-customer order holds within a lane.
+ */
+@Configuration
+public class NotificationDispatchConfig {
+
+    @Value("${notification.lanes.high.partitions:4}")
+    private int highPartitions;
+
+    @Value("${notification.lanes.normal.partitions:4}")
+    private int normalPartitions;
+
+    @Value("${notification.lanes.bulk.partitions:2}")
+    private int bulkPartitions;
+
+    @Value("${notification.lanes.partition-capacity:64}")
+    private int partitionCapacity;
+
+    @Bean
+    public PartitionedDispatcher highPriorityDispatcher() {
+        return new PartitionedDispatcher("notification-high", highPartitions, partitionCapacity);
+    }
+
+    @Bean
+    public PartitionedDispatcher normalPriorityDispatcher() {
+        return new PartitionedDispatcher("notification-normal", normalPartitions, partitionCapacity);
+    }
+
+    @Bean
+    public PartitionedDispatcher bulkDispatcher() {
+        return new PartitionedDispatcher("notification-bulk", bulkPartitions, partitionCapacity);
+    }
+}
@@ -0,0 +1,204 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import tech.yump.veriboard.amqp.RabbitMQConfig;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.clients.notification.NotificationRequest;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One listener per priority lane. Each lane has a single consumer, so deliveries are taken
+ * in queue order, and fans them out over a {@link PartitionedDispatcher} keyed by customer:
+ * notifications for one customer are processed in order while different customers run in
+ * parallel. Messages are acknowledged once processed, so the listener prefetch bounds the
+ * work in flight and a full partition stops the consumer from taking more.
+ * Queueing latency (publish to consume) is recorded per priority from the millisecond
+ * publish header stamped by the producers' template.
+ * <p>
+ * A lane listener consumes the lane queue and the lane's partition queues this instance
+ * owns (see {@link NotificationQueues}); a customer always maps to one partition queue, so
+ * order holds across them.
+ * <p>
+ * Requests that fail are moved to the dead-letter queue rather than requeued, which would put
+ * them behind later notifications for the same customer. Redeliveries (an ack lost with its
+ * channel) are dropped by message id in {@link tech.yump.veriboard.notification.NotificationService}.
+ * On shutdown the partitions are drained while the listener channels are still open, so
+ * their acks are not lost; deliveries arriving meanwhile are left unacknowledged for redelivery.
+ */
+@Component
+@Slf4j
+public class NotificationLaneListener {
+
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+
+    private final NotificationConsumer notificationConsumer;
+    private final AmqpTemplate amqpTemplate;
+    private final String deadLetterQueue;
+    private final Map<NotificationPriority, PartitionedDispatcher> dispatchers = new EnumMap<>(NotificationPriority.class);
+    private final Map<NotificationPriority, Timer> queueLatency = new EnumMap<>(NotificationPriority.class);
+
+    private volatile boolean draining;
+
+    public NotificationLaneListener(
+            NotificationConsumer notificationConsumer,
+            @Qualifier("veriboardAmqpTemplate") AmqpTemplate amqpTemplate,
+            NotificationQueues notificationQueues,
+            MeterRegistry meterRegistry,
+            @Qualifier("highPriorityDispatcher") PartitionedDispatcher highPriorityDispatcher,
+            @Qualifier("normalPriorityDispatcher") PartitionedDispatcher normalPriorityDispatcher,
+            @Qualifier("bulkDispatcher") PartitionedDispatcher bulkDispatcher) {
+        this.notificationConsumer = notificationConsumer;
+        this.amqpTemplate = amqpTemplate;
+        this.deadLetterQueue = notificationQueues.deadLetter();
+        dispatchers.put(NotificationPriority.HIGH, highPriorityDispatcher);
+        dispatchers.put(NotificationPriority.NORMAL, normalPriorityDispatcher);
+        dispatchers.put(NotificationPriority.BULK, bulkDispatcher);
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            queueLatency.put(priority, Timer.builder("notification.queue.latency")
+                    .description("Time between publishing a notification request and consuming it")
+                    .tag("priority", priority.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    @RabbitListener(queues = "#{@notificationQueues.high()}", ackMode = "MANUAL")
+    public void consumeHigh(
+            NotificationRequest notificationRequest,
+            @Header(name = RabbitMQConfig.PUBLISHED_AT_HEADER, required = false) Long publishedAt,
+            @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId,
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws InterruptedException {
+        consume(NotificationPriority.HIGH, notificationRequest, publishedAt, messageId, channel, deliveryTag);
+    }
+
+    @RabbitListener(queues = "#{@notificationQueues.normal()}", ackMode = "MANUAL")
+    public void consumeNormal(
+            NotificationRequest notificationRequest,
+            @Header(name = RabbitMQConfig.PUBLISHED_AT_HEADER, required = false) Long publishedAt,
+            @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId,
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws InterruptedException {
+        consume(NotificationPriority.NORMAL, notificationRequest, publishedAt, messageId, channel, deliveryTag);
+    }
+
+    @RabbitListener(queues = "#{@notificationQueues.bulk()}", ackMode = "MANUAL")
+    public void consumeBulk(
+            NotificationRequest notificationRequest,
+            @Header(name = RabbitMQConfig.PUBLISHED_AT_HEADER, required = false) Long publishedAt,
+            @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId,
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws InterruptedException {
+        consume(NotificationPriority.BULK, notificationRequest, publishedAt, messageId, channel, deliveryTag);
+    }
+
+    /**
+     * Runs before the listener containers are stopped (and their channels closed): stops
+     * dispatching and waits for the partitions to finish and acknowledge what they hold.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void drain() throws InterruptedException {
+        draining = true;
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        for (Map.Entry<NotificationPriority, PartitionedDispatcher> lane : dispatchers.entrySet()) {
+            if (!lane.getValue().drain(Math.max(1, deadline - System.currentTimeMillis()))) {
+                log.warn("{} lane still had {} notifications in progress at shutdown; they will be redelivered",
+                        lane.getKey(), lane.getValue().queued());
+            }
+        }
+    }
+
+    private void consume(
+            NotificationPriority lane,
+            NotificationRequest notificationRequest,
+            Long publishedAt,
+            String messageId,
+            Channel channel,
+            long deliveryTag) throws InterruptedException {
+        if (draining) {
+            // Left unacknowledged; the broker requeues it in place when the channel closes
+            return;
+        }
+        if (publishedAt != null) {
+            long latencyMillis = System.currentTimeMillis() - publishedAt;
+            queueLatency.get(lane).record(Math.max(0, latencyMillis), TimeUnit.MILLISECONDS);
+        }
+        NotificationRequest request = notificationRequest.priority() == lane
+                ? notificationRequest
+                : onArrivalLane(notificationRequest, lane);
+
+        dispatchers.get(lane).dispatch(request.toCustomerId(), () -> process(request, messageId, channel, deliveryTag));
+    }
+
+    private void process(NotificationRequest request, String messageId, Channel channel, long deliveryTag) {
+        try {
+            notificationConsumer.consumer(request, messageId);
+        } catch (RuntimeException e) {
+            log.error("Notification for customer {} failed, moving it to {}: {}",
+                    request.toCustomerId(), deadLetterQueue, e.getMessage());
+            if (!deadLetter(request, messageId)) {
+                nack(channel, deliveryTag);
+                return;
+            }
+        }
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            // Channel is gone; the broker redelivers the message and the redelivery is dropped by message id
+            log.warn("Could not acknowledge notification for customer {}: {}", request.toCustomerId(), e.getMessage());
+        }
+    }
+
+    private boolean deadLetter(NotificationRequest request, String messageId) {
+        try {
+            amqpTemplate.convertAndSend("", deadLetterQueue, request, message -> {
+                message.getMessageProperties().setMessageId(messageId);
+                return message;
+            });
+            return true;
+        } catch (AmqpException e) {
+            log.error("Could not dead-letter notification for customer {}: {}", request.toCustomerId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Last resort when the request can be neither processed nor dead-lettered.
+     */
+    private static void nack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicNack(deliveryTag, false, true);
+        } catch (IOException e) {
+            log.warn("Could not reject delivery {}: {}", deliveryTag, e.getMessage());
+        }
+    }
+
+    /**
+     * The lane a message arrived on is what the publisher chose; keep it for delivery.
+     */
+    private static NotificationRequest onArrivalLane(NotificationRequest notificationRequest, NotificationPriority lane) {
+        log.debug("Notification for customer {} declared {} but arrived on the {} lane",
+                notificationRequest.toCustomerId(), notificationRequest.priority(), lane);
+        return new NotificationRequest(
+                notificationRequest.toCustomerId(),
+                notificationRequest.toCustomerEmail(),
+                notificationRequest.message(),
+                lane);
+    }
+}
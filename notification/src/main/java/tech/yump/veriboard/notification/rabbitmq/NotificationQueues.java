@@ -0,0 +1,70 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import tech.yump.veriboard.amqp.PartitionRouter;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queues each lane listener consumes: the lane's unpartitioned queue (still bound for
+ * producers that do not partition) plus the partition queues this instance owns. Owning a
+ * subset lets the partitions of a lane be spread over several instances.
+ */
+public class NotificationQueues {
+
+    private static final String DEAD_LETTER_SUFFIX = ".dead-letter";
+
+    private final Map<NotificationPriority, List<String>> queues = new EnumMap<>(NotificationPriority.class);
+    private final String deadLetter;
+
+    /**
+     * @param ownedPartitions partitions to consume; empty for all of them
+     */
+    public NotificationQueues(String notificationQueue, PartitionRouter partitionRouter, Collection<Integer> ownedPartitions) {
+        for (Integer partition : ownedPartitions) {
+            if (partition < 0 || partition >= partitionRouter.partitions()) {
+                throw new IllegalArgumentException("Owned partition " + partition + " does not exist; there are "
+                        + partitionRouter.partitions() + " partitions");
+            }
+        }
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            String laneQueue = priority.lane(notificationQueue);
+            List<String> laneQueues = new ArrayList<>();
+            laneQueues.add(laneQueue);
+            for (int partition = 0; partition < partitionRouter.partitions(); partition++) {
+                if (ownedPartitions.isEmpty() || ownedPartitions.contains(partition)) {
+                    laneQueues.add(PartitionRouter.shard(laneQueue, partition));
+                }
+            }
+            queues.put(priority, List.copyOf(laneQueues));
+        }
+        this.deadLetter = notificationQueue + DEAD_LETTER_SUFFIX;
+    }
+
+    /**
+     * Queue that requests which could not be processed are moved to, for inspection or replay.
+     */
+    public String deadLetter() {
+        return deadLetter;
+    }
+
+    public List<String> lane(NotificationPriority priority) {
+        return queues.get(priority);
+    }
+
+    public String[] high() {
+        return lane(NotificationPriority.HIGH).toArray(String[]::new);
+    }
+
+    public String[] normal() {
+        return lane(NotificationPriority.NORMAL).toArray(String[]::new);
+    }
+
+    public String[] bulk() {
+        return lane(NotificationPriority.BULK).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,164 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Key-partitioned execution stage. Tasks with the same key always run on the same
+ * single-threaded partition, in submission order, while different keys run in parallel.
+ * Partition queues are bounded: when one is full {@link #dispatch} blocks, which stops the
+ * listener from taking further deliveries until the partition catches up.
+ */
+@Slf4j
+public class PartitionedDispatcher implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final String name;
+    private final List<BlockingQueue<Runnable>> queues;
+    private final List<Thread> workers = new ArrayList<>();
+    // Dispatched tasks that have not finished running; drain() waits on idle for it to reach zero
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Object idle = new Object();
+
+    private volatile boolean running;
+
+    public PartitionedDispatcher(String name, int partitions, int queueCapacity) {
+        if (partitions < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Partitions and queue capacity must be positive");
+        }
+        this.name = name;
+        this.queues = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    /**
+     * Queues the task on the partition owning {@code key}; null keys share partition 0.
+     * Blocks while that partition is full.
+     */
+    public void dispatch(Integer key, Runnable task) throws InterruptedException {
+        outstanding.incrementAndGet();
+        try {
+            queues.get(partition(key)).put(task);
+        } catch (InterruptedException e) {
+            finished();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every task dispatched so far has run, without stopping the workers.
+     *
+     * @return false if tasks were still outstanding when the timeout elapsed
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (idle) {
+            while (outstanding.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                idle.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public int partition(Integer key) {
+        return key == null ? 0 : Math.floorMod(key, queues.size());
+    }
+
+    public int partitions() {
+        return queues.size();
+    }
+
+    public int queued() {
+        return queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Runnable> queue = queues.get(i);
+            Thread worker = new Thread(() -> work(queue), name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops taking new work once queued tasks have run.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before and stopped after the listener containers feeding it, and stopped
+     * before the delivery pipeline it feeds.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 500;
+    }
+
+    private void work(BlockingQueue<Runnable> queue) {
+        try {
+            while (running || !queue.isEmpty()) {
+                Runnable task = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Task on {} failed: {}", Thread.currentThread().getName(), e.getMessage(), e);
+                } finally {
+                    finished();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finished() {
+        if (outstanding.decrementAndGet() == 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+}
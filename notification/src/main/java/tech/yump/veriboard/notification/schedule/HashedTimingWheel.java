@@ -0,0 +1,268 @@
+package tech.yump.veriboard.notification.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese and Lauck). Timeouts hash into one of a fixed number of
+ * buckets by deadline tick; a single worker thread advances one bucket per tick and hands
+ * every expired task of that tick to the expiry handler as one batch.
+ * <p>
+ * Scheduling and cancelling are O(1): callers only enqueue onto lock-free queues that the
+ * worker drains at the start of each tick, and a bucket is a doubly linked list. Precision
+ * is one tick.
+ */
+@Slf4j
+public class HashedTimingWheel<T> {
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final Consumer<List<T>> expiryHandler;
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+
+    private volatile long startNanos;
+    private volatile boolean running;
+    private long tick;
+
+    public HashedTimingWheel(String name, Duration tickDuration, int ticksPerWheel, Consumer<List<T>> expiryHandler) {
+        if (tickDuration.toNanos() <= 0 || ticksPerWheel < 1) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new HashedTimingWheel.Bucket[Math.max(1, size)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.expiryHandler = expiryHandler;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Stops the worker; timeouts still in the wheel are dropped.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules {@code task} to expire after {@code delay}; non-positive delays expire on the next tick.
+     */
+    public Timeout schedule(T task, Duration delay) {
+        long deadline = System.nanoTime() + Math.max(0, delay.toNanos()) - startNanos;
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of scheduled timeouts that have neither expired nor been cancelled.
+     */
+    public long size() {
+        return pending.get();
+    }
+
+    private void run() {
+        List<T> expired = new ArrayList<>();
+        while (running) {
+            if (!awaitNextTick()) {
+                break;
+            }
+            processCancellations();
+            transferAdditions();
+            wheel[(int) (tick & mask)].expire(expired);
+            tick++;
+            if (!expired.isEmpty()) {
+                try {
+                    expiryHandler.accept(List.copyOf(expired));
+                } catch (RuntimeException e) {
+                    log.error("Handling {} expired timeouts failed: {}", expired.size(), e.getMessage(), e);
+                }
+                expired.clear();
+            }
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick; false once the wheel is stopped.
+     */
+    private boolean awaitNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferAdditions() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = additions.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == STATE_CANCELLED) {
+                continue;
+            }
+            long deadlineTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            // Deadlines already passed go into the current bucket
+            long bucketTick = Math.max(deadlineTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public final class Timeout {
+
+        private final T task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+        // Owned by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(T task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        /**
+         * @return false if the timeout already expired or was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancellations.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        private boolean expire() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(List<T> expired) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        expired.add(timeout.task);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
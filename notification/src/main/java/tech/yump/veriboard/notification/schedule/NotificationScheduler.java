@@ -0,0 +1,221 @@
+package tech.yump.veriboard.notification.schedule;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import tech.yump.veriboard.clients.notification.ScheduledNotificationRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends scheduled notifications at their due time.
+ * <p>
+ * Due times are persisted; only the notifications due within the next load window are held
+ * in a {@link HashedTimingWheel}, so memory is bounded by the window (and a hard cap) rather
+ * than by the number of pending reminders. A loader walks the (status, sendAt) index with a
+ * keyset cursor to fill the wheel ahead of time; notifications scheduled inside the current
+ * window go straight into the wheel. Scheduling and cancelling are O(1) in memory.
+ * When the wheel hits its cap the loader stops and resumes as soon as sends bring the wheel
+ * back under a low-water mark, rather than waiting for the next periodic load.
+ * Due notifications are sent and marked sent in one transaction, so a restart or a second
+ * replica loading the same rows never sends twice.
+ */
+@Slf4j
+@Component
+public class NotificationScheduler implements SmartLifecycle {
+
+    // Loading resumes once a full wheel has drained to this fraction of the cap
+    private static final double LOW_WATER_RATIO = 0.75;
+
+    private final ScheduledNotificationService scheduledNotificationService;
+    private final Duration loadWindow;
+    private final int loadPageSize;
+    private final long maxInMemory;
+    private final long lowWater;
+    private final Duration retryDelay;
+
+    private final HashedTimingWheel<Long> wheel;
+    private final Map<Long, HashedTimingWheel<Long>.Timeout> timeouts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker;
+
+    private volatile Instant horizon = Instant.EPOCH;
+    private volatile boolean running;
+    // Set when a load stopped at the cap; cleared when the resuming load is queued
+    private final AtomicBoolean saturated = new AtomicBoolean();
+
+    // Keyset cursor of the loader; only touched by the worker thread
+    private Instant cursorSendAt = Instant.EPOCH;
+    private long cursorId;
+
+    public NotificationScheduler(
+            ScheduledNotificationService scheduledNotificationService,
+            MeterRegistry meterRegistry,
+            @Value("${notification.schedule.tick-duration:100ms}") Duration tickDuration,
+            @Value("${notification.schedule.wheel-size:512}") int wheelSize,
+            @Value("${notification.schedule.load-window:10m}") Duration loadWindow,
+            @Value("${notification.schedule.load-page-size:1000}") int loadPageSize,
+            @Value("${notification.schedule.max-in-memory:200000}") long maxInMemory,
+            @Value("${notification.schedule.retry-delay:30s}") Duration retryDelay) {
+        this.scheduledNotificationService = scheduledNotificationService;
+        this.loadWindow = loadWindow;
+        this.loadPageSize = loadPageSize;
+        this.maxInMemory = maxInMemory;
+        this.lowWater = (long) (maxInMemory * LOW_WATER_RATIO);
+        this.retryDelay = retryDelay;
+        this.wheel = new HashedTimingWheel<>("notification-schedule-wheel", tickDuration, wheelSize, this::onDue);
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-schedule-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("notification.scheduled.in.memory", wheel, HashedTimingWheel::size)
+                .description("Scheduled notifications currently held in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persists the notification and, if it falls inside the loaded window, arms its timer.
+     *
+     * @return id of the scheduled notification
+     */
+    public Long schedule(ScheduledNotificationRequest request) {
+        if (request.sendAt() == null) {
+            throw new IllegalArgumentException("sendAt is required");
+        }
+        ScheduledNotification scheduled = scheduledNotificationService.save(request);
+        if (scheduled.getSendAt().isBefore(horizon)) {
+            track(scheduled.getId(), scheduled.getSendAt());
+        }
+        log.info("Scheduled notification {} for customer {} at {}",
+                scheduled.getId(), scheduled.getToCustomerId(), scheduled.getSendAt());
+        return scheduled.getId();
+    }
+
+    /**
+     * @return false if the notification does not exist or is no longer pending
+     */
+    public boolean cancel(Long id) {
+        boolean cancelled = scheduledNotificationService.cancel(id);
+        HashedTimingWheel<Long>.Timeout timeout = timeouts.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return cancelled;
+    }
+
+    public long inMemory() {
+        return wheel.size();
+    }
+
+    /**
+     * Loads the pending notifications due before the next horizon into the wheel.
+     */
+    void loadWindow() {
+        Instant nextHorizon = Instant.now().plus(loadWindow);
+        // Published first: anything scheduled from now on inside the window is armed directly
+        horizon = nextHorizon;
+        int loaded = 0;
+        while (wheel.size() < maxInMemory) {
+            List<ScheduledNotification> page = scheduledNotificationService.loadWindow(
+                    nextHorizon, cursorSendAt, cursorId, loadPageSize);
+            for (ScheduledNotification scheduled : page) {
+                track(scheduled.getId(), scheduled.getSendAt());
+            }
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                ScheduledNotification last = page.get(page.size() - 1);
+                cursorSendAt = last.getSendAt();
+                cursorId = last.getId();
+            }
+            if (page.size() < loadPageSize) {
+                break;
+            }
+        }
+        if (wheel.size() >= maxInMemory) {
+            saturated.set(true);
+            log.warn("Scheduled notification wheel is full ({}); loading resumes once it drains below {}",
+                    wheel.size(), lowWater);
+        }
+        if (loaded > 0) {
+            log.debug("Loaded {} scheduled notifications due before {}", loaded, nextHorizon);
+        }
+    }
+
+    private void track(Long id, Instant sendAt) {
+        timeouts.computeIfAbsent(id, key -> wheel.schedule(key, Duration.between(Instant.now(), sendAt)));
+    }
+
+    /**
+     * Runs on the wheel thread; the database work is handed to the worker so ticks stay on time.
+     */
+    private void onDue(List<Long> ids) {
+        ids.forEach(timeouts::remove);
+        worker.execute(() -> send(ids));
+        if (wheel.size() <= lowWater && saturated.compareAndSet(true, false)) {
+            worker.execute(this::loadSafely);
+        }
+    }
+
+    private void send(List<Long> ids) {
+        try {
+            scheduledNotificationService.sendDue(ids);
+        } catch (RuntimeException e) {
+            log.error("Sending {} scheduled notifications failed, retrying in {}: {}",
+                    ids.size(), retryDelay, e.getMessage());
+            Instant retryAt = Instant.now().plus(retryDelay);
+            ids.forEach(id -> track(id, retryAt));
+        }
+    }
+
+    private void loadSafely() {
+        try {
+            loadWindow();
+        } catch (RuntimeException e) {
+            log.error("Loading scheduled notifications failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        wheel.start();
+        long intervalMillis = Math.max(1_000, loadWindow.toMillis() / 2);
+        worker.scheduleWithFixedDelay(this::loadSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        worker.shutdown();
+        try {
+            worker.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wheel.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped before the delivery pipeline it feeds.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 500;
+    }
+}
@@ -0,0 +1,54 @@
+package tech.yump.veriboard.notification.schedule;
+
+import jakarta.persistence.*;
+import lombok.*;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+
+import java.time.Instant;
+
+/**
+ * A notification waiting for its send time. Only the rows due within the scheduler's load
+ * window are held in memory; the (status, send_at) index serves that window query.
+ */
+@Entity
+@Table(
+        name = "scheduled_notification",
+        indexes = @Index(name = "idx_scheduled_notification_status_send_at", columnList = "status, sendAt, id")
+)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode
+public class ScheduledNotification {
+
+    @Id
+    @SequenceGenerator(
+            name = "scheduled_notification_id_sequence",
+            sequenceName = "scheduled_notification_id_sequence"
+    )
+    @GeneratedValue(
+            strategy = GenerationType.SEQUENCE,
+            generator = "scheduled_notification_id_sequence"
+    )
+    private Long id;
+    private Integer toCustomerId;
+    private String toCustomerEmail;
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private NotificationPriority priority = NotificationPriority.NORMAL;
+
+    @Column(nullable = false)
+    private Instant sendAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private ScheduledNotificationStatus status = ScheduledNotificationStatus.PENDING;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,39 @@
+package tech.yump.veriboard.notification.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import tech.yump.veriboard.clients.notification.ScheduledNotificationRequest;
+
+@RestController
+@RequestMapping(value = "api/v1/notification/scheduled")
+@AllArgsConstructor
+@Slf4j
+public class ScheduledNotificationController {
+
+    private final NotificationScheduler notificationScheduler;
+
+    @PostMapping
+    public Long scheduleNotification(@RequestBody ScheduledNotificationRequest scheduledNotificationRequest) {
+        log.info("Scheduling notification request: {}", scheduledNotificationRequest);
+        if (scheduledNotificationRequest.sendAt() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sendAt is required");
+        }
+        return notificationScheduler.schedule(scheduledNotificationRequest);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelScheduledNotification(@PathVariable("id") Long id) {
+        return notificationScheduler.cancel(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,45 @@
+package tech.yump.veriboard.notification.schedule;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ScheduledNotificationRepository extends JpaRepository<ScheduledNotification, Long> {
+
+    /**
+     * One page of the load window, keyset-paginated on (sendAt, id) after the given cursor.
+     */
+    @Query("select s from ScheduledNotification s " +
+            "where s.status = :status and s.sendAt < :horizon " +
+            "and (s.sendAt > :afterSendAt or (s.sendAt = :afterSendAt and s.id > :afterId)) " +
+            "order by s.sendAt, s.id")
+    List<ScheduledNotification> findWindowPage(
+            @Param("status") ScheduledNotificationStatus status,
+            @Param("horizon") Instant horizon,
+            @Param("afterSendAt") Instant afterSendAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Locks the rows so that only one replica sends a due notification.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ScheduledNotification> findByIdInAndStatus(Collection<Long> ids, ScheduledNotificationStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("update ScheduledNotification s set s.status = :to where s.id = :id and s.status = :from")
+    int transition(
+            @Param("id") Long id,
+            @Param("from") ScheduledNotificationStatus from,
+            @Param("to") ScheduledNotificationStatus to);
+}
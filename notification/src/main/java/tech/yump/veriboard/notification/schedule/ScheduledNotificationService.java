@@ -0,0 +1,82 @@
+package tech.yump.veriboard.notification.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.yump.veriboard.clients.notification.NotificationRequest;
+import tech.yump.veriboard.clients.notification.ScheduledNotificationRequest;
+import tech.yump.veriboard.notification.NotificationService;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistence side of scheduled notifications; the timing itself lives in {@link NotificationScheduler}.
+ */
+@Slf4j
+@Service
+public class ScheduledNotificationService {
+
+    private final ScheduledNotificationRepository scheduledNotificationRepository;
+    private final NotificationService notificationService;
+
+    public ScheduledNotificationService(
+            ScheduledNotificationRepository scheduledNotificationRepository,
+            NotificationService notificationService) {
+        this.scheduledNotificationRepository = scheduledNotificationRepository;
+        this.notificationService = notificationService;
+    }
+
+    public ScheduledNotification save(ScheduledNotificationRequest request) {
+        ScheduledNotification scheduled = ScheduledNotification.builder()
+                .toCustomerId(request.toCustomerId())
+                .toCustomerEmail(request.toCustomerEmail())
+                .message(request.message())
+                .priority(request.priority())
+                .sendAt(request.sendAt())
+                .createdAt(Instant.now())
+                .build();
+        return scheduledNotificationRepository.save(scheduled);
+    }
+
+    public boolean cancel(Long id) {
+        return scheduledNotificationRepository.transition(
+                id, ScheduledNotificationStatus.PENDING, ScheduledNotificationStatus.CANCELLED) == 1;
+    }
+
+    public List<ScheduledNotification> loadWindow(Instant horizon, Instant afterSendAt, Long afterId, int pageSize) {
+        return scheduledNotificationRepository.findWindowPage(
+                ScheduledNotificationStatus.PENDING,
+                horizon,
+                afterSendAt,
+                afterId,
+                PageRequest.of(0, pageSize));
+    }
+
+    /**
+     * Sends the due notifications that are still pending and marks them sent, in one transaction.
+     * Rows cancelled in the meantime, or already sent by another replica, are skipped.
+     *
+     * @return number of notifications sent
+     */
+    @Transactional
+    public int sendDue(Collection<Long> ids) {
+        List<ScheduledNotification> due = scheduledNotificationRepository.findByIdInAndStatus(
+                ids, ScheduledNotificationStatus.PENDING);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        due.forEach(scheduled -> scheduled.setStatus(ScheduledNotificationStatus.SENT));
+        notificationService.sendAll(due.stream()
+                .map(scheduled -> new NotificationRequest(
+                        scheduled.getToCustomerId(),
+                        scheduled.getToCustomerEmail(),
+                        scheduled.getMessage(),
+                        scheduled.getPriority()))
+                .toList());
+        log.debug("Sent {} scheduled notifications", due.size());
+        return due.size();
+    }
+}
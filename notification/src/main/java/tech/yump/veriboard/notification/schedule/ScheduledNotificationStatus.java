@@ -0,0 +1,7 @@
+package tech.yump.veriboard.notification.schedule;
+
+public enum ScheduledNotificationStatus {
+    PENDING,
+    SENT,
+    CANCELLED
+}
@@ -5,16 +5,29 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(NotificationController.class)
+@WebMvcTest(controllers = NotificationController.class, properties = "notification.http.bulk.max-size=2")
+@Import(NotificationExecutorConfig.class)
 class NotificationControllerTest {
 
     @Autowired
@@ -41,7 +54,7 @@ class NotificationControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
 
-        verify(notificationService).send(any(NotificationRequest.class));
+        verify(notificationService, timeout(1000)).send(any(NotificationRequest.class));
     }
 
     @Test
@@ -59,7 +72,7 @@ class NotificationControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
 
-        verify(notificationService).send(any(NotificationRequest.class));
+        verify(notificationService, timeout(1000)).send(any(NotificationRequest.class));
     }
 
     @Test
@@ -77,6 +90,60 @@ class NotificationControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
 
-        verify(notificationService).send(request);
+        verify(notificationService, timeout(1000)).send(request);
+    }
+
+    @Test
+    void sendNotification_WhenExecutorSaturated_ShouldRejectWith429() {
+        // Given
+        NotificationController controller = new NotificationController(
+                notificationService,
+                command -> {
+                    throw new RejectedExecutionException("saturated");
+                },
+                500);
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Test notification");
+
+        // When & Then
+        assertThatThrownBy(() -> controller.sendNotification(request))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void sendNotifications_ShouldPersistWholeBatch() throws Exception {
+        // Given
+        List<NotificationRequest> requests = List.of(
+                new NotificationRequest(1, "first@example.com", "First"),
+                new NotificationRequest(2, "second@example.com", "Second"));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/v1/notification/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        verify(notificationService).sendAll(requests);
+    }
+
+    @Test
+    void sendNotifications_WithTooManyNotifications_ShouldReturn400() throws Exception {
+        // Given
+        List<NotificationRequest> requests = List.of(
+                new NotificationRequest(1, "first@example.com", "First"),
+                new NotificationRequest(2, "second@example.com", "Second"),
+                new NotificationRequest(3, "third@example.com", "Third"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/notification/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest());
+
+        verify(notificationService, never()).sendAll(any());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,77 @@
+package tech.yump.veriboard.notification;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tech.yump.veriboard.notification.delivery.DeliveryStatus;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Notification Repository Tests")
+class NotificationRepositoryTest {
+
+    private static final Set<DeliveryStatus> RETRYABLE = EnumSet.of(DeliveryStatus.PENDING, DeliveryStatus.FAILED);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private Notification persist(LocalDateTime sentAt) {
+        return notificationRepository.save(Notification.builder()
+                .toCustomerId(1)
+                .toCustomerEmail("customer@example.com")
+                .sender("VeriBoard")
+                .message("Hi")
+                .sentAt(sentAt)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should let only the first of two sweeps claim a notification")
+    void claimForRetry_WhenClaimedTwice_ShouldSucceedOnce() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime before = now.minusMinutes(5);
+        Notification notification = persist(now.minusMinutes(10));
+
+        // When
+        int first = notificationRepository.claimForRetry(notification.getId(), RETRYABLE, before, now);
+        int second = notificationRepository.claimForRetry(notification.getId(), RETRYABLE, before, now.plusSeconds(1));
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(notificationRepository.findById(notification.getId()).orElseThrow().getLastAttemptAt())
+                .isEqualTo(now);
+    }
+
+    @Test
+    @DisplayName("Should record a failure as the last attempt, not as a delivery")
+    void recordDeliveryFailure_ShouldLeaveDeliveredAtEmpty() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Notification notification = persist(now.minusMinutes(10));
+
+        // When
+        notificationRepository.recordDeliveryFailure(List.of(notification.getId()), DeliveryStatus.FAILED, now);
+
+        // Then
+        Notification failed = notificationRepository.findById(notification.getId()).orElseThrow();
+        assertThat(failed.getDeliveredAt()).isNull();
+        assertThat(failed.getLastAttemptAt()).isEqualTo(now);
+        assertThat(failed.getDeliveryAttempts()).isEqualTo(1);
+        assertThat(notificationRepository.claimForRetry(failed.getId(), RETRYABLE, now.minusMinutes(5), now)).isZero();
+    }
+}
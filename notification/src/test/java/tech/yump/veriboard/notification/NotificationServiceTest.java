@@ -5,7 +5,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
+import tech.yump.veriboard.notification.delivery.DeliveryPipeline;
+import tech.yump.veriboard.notification.delivery.DeliveryStatus;
+
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -17,11 +22,14 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Mock
+    private DeliveryPipeline deliveryPipeline;
+
     private NotificationService notificationService;
 
     @BeforeEach
     void setUp() {
-        notificationService = new NotificationService(notificationRepository);
+        notificationService = new NotificationService(notificationRepository, deliveryPipeline);
     }
 
     @Test
@@ -127,4 +135,83 @@ class NotificationServiceTest {
             notification.getSentAt() != null
         ));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void send_ShouldHandPendingNotificationToDeliveryPipeline() {
+        // Given
+        NotificationRequest request = new NotificationRequest(
+                1,
+                "test@example.com",
+                "Welcome!"
+        );
+
+        // When
+        notificationService.send(request);
+
+        // Then
+        verify(deliveryPipeline).submitAfterCommit(argThat(notification ->
+            notification.getDeliveryStatus() == DeliveryStatus.PENDING &&
+            "test@example.com".equals(notification.getToCustomerEmail())
+        ));
+    }
+
+    @Test
+    void sendAll_ShouldSaveBatchInOneCallAndDeliverEach() {
+        // Given
+        List<NotificationRequest> requests = List.of(
+                new NotificationRequest(1, "first@example.com", "First"),
+                new NotificationRequest(2, "second@example.com", "Second"),
+                new NotificationRequest(3, "third@example.com", "Third"));
+
+        // When
+        notificationService.sendAll(requests);
+
+        // Then
+        verify(notificationRepository).saveAll(argThat(notifications ->
+            notifications instanceof List<Notification> list && list.size() == 3
+        ));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(deliveryPipeline, times(3)).submitAfterCommit(any(Notification.class));
+    }
+
+    @Test
+    void send_WithMessageId_ShouldStoreItAsIdempotencyKey() {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Welcome!");
+
+        // When
+        notificationService.send(request, "message-1");
+
+        // Then
+        verify(notificationRepository).save(argThat(notification -> "message-1".equals(notification.getIdempotencyKey())));
+        verify(deliveryPipeline).submitAfterCommit(any(Notification.class));
+    }
+
+    @Test
+    void send_WithRedeliveredMessageId_ShouldSkipDuplicate() {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Welcome!");
+        when(notificationRepository.existsByIdempotencyKey("message-1")).thenReturn(true);
+
+        // When
+        notificationService.send(request, "message-1");
+
+        // Then
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verifyNoInteractions(deliveryPipeline);
+    }
+
+    @Test
+    void send_WhenRedeliveryIsStoredConcurrently_ShouldSkipDuplicate() {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Welcome!");
+        when(notificationRepository.save(any(Notification.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // When
+        notificationService.send(request, "message-1");
+
+        // Then
+        verifyNoInteractions(deliveryPipeline);
+    }
+}
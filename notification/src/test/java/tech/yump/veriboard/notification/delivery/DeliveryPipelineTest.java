@@ -0,0 +1,245 @@
+package tech.yump.veriboard.notification.delivery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.yump.veriboard.notification.Notification;
+import tech.yump.veriboard.notification.NotificationRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Delivery Pipeline Tests")
+class DeliveryPipelineTest {
+
+    private static final DeliveryRetry RETRY = new DeliveryRetry(Duration.ofHours(1), Duration.ofMinutes(5), 5, 100);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LocalSmtpServer server;
+    private DeliveryPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalSmtpServer(true);
+        SmtpChannelSender emailSender = new SmtpChannelSender(
+                server.host(),
+                server.port(),
+                "test.local",
+                "no-reply@veriboard.tech",
+                Duration.ofSeconds(5),
+                new ChannelLimits(2, 1000, 10, Duration.ofMillis(200)));
+        pipeline = new DeliveryPipeline(
+                List.of(emailSender), notificationRepository, 100, Duration.ofMillis(50), RETRY, meterRegistry);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline.isRunning()) {
+            pipeline.stop();
+        }
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should deliver submitted notifications and write statuses back in batches")
+    @SuppressWarnings("unchecked")
+    void submit_ShouldDeliverAndRecordStatusInBatches() {
+        // Given
+        List<Notification> notifications = IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> SmtpChannelSenderTest.notification(i, "customer" + i + "@example.com", "Hi " + i))
+                .toList();
+
+        // When
+        notifications.forEach(pipeline::submit);
+        pipeline.stop();
+
+        // Then
+        assertThat(server.messages()).hasSize(50);
+        assertThat(server.sessions()).isLessThanOrEqualTo(2);
+
+        ArgumentCaptor<Collection<Integer>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository, atLeastOnce()).updateDeliveryStatus(ids.capture(), eq(DeliveryStatus.SENT), any());
+        List<Integer> recorded = new ArrayList<>();
+        ids.getAllValues().forEach(recorded::addAll);
+        assertThat(recorded).containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, 50).boxed().toList());
+        assertThat(ids.getAllValues().size()).isLessThan(50);
+        assertThat(meterRegistry.get("notification.delivery.latency").tag("priority", "NORMAL").timer().count())
+                .isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should record failed deliveries with FAILED status")
+    @SuppressWarnings("unchecked")
+    void submit_WithRejectedRecipient_ShouldRecordFailure() {
+        // Given
+        Notification rejected = SmtpChannelSenderTest.notification(7, "rejected@example.com", "Hi");
+
+        // When
+        pipeline.submit(rejected);
+        pipeline.stop();
+
+        // Then
+        ArgumentCaptor<Collection<Integer>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository).recordDeliveryFailure(ids.capture(), eq(DeliveryStatus.FAILED), any());
+        assertThat(ids.getValue()).containsExactly(7);
+        verify(notificationRepository, never()).updateDeliveryStatus(any(), eq(DeliveryStatus.SENT), any());
+    }
+
+    @Test
+    @DisplayName("Should leave notifications for channels without a sender pending")
+    void submit_WithUnknownChannel_ShouldRefuse() {
+        // Given
+        Notification sms = SmtpChannelSenderTest.notification(1, "customer@example.com", "Hi");
+        sms.setChannel(NotificationChannel.SMS);
+
+        // When
+        boolean accepted = pipeline.submit(sms);
+
+        // Then
+        assertThat(accepted).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should refuse notifications once the channel queue is full and re-queue them on the retry sweep")
+    void submit_WithFullQueue_ShouldRefuseAndRetryLater() throws Exception {
+        // Given
+        pipeline.stop();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+        ChannelSender blocking = new ChannelSender() {
+            @Override
+            public NotificationChannel channel() {
+                return NotificationChannel.EMAIL;
+            }
+
+            @Override
+            public ChannelLimits limits() {
+                return new ChannelLimits(1, 1, 1, Duration.ofSeconds(1));
+            }
+
+            @Override
+            public ChannelSession openSession() {
+                return new ChannelSession() {
+                    @Override
+                    public List<DeliveryResult> deliver(List<Notification> batch) throws IOException {
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        batch.forEach(notification -> delivered.add(notification.getId()));
+                        return batch.stream().map(notification -> DeliveryResult.sent(notification.getId())).toList();
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        };
+        pipeline = new DeliveryPipeline(
+                List.of(blocking), notificationRepository, 100, Duration.ofMillis(50), RETRY, meterRegistry);
+        pipeline.start();
+        Notification first = SmtpChannelSenderTest.notification(1, "customer1@example.com", "Hi");
+        Notification second = SmtpChannelSenderTest.notification(2, "customer2@example.com", "Hi");
+        Notification third = SmtpChannelSenderTest.notification(3, "customer3@example.com", "Hi");
+        assertThat(pipeline.submit(first)).isTrue();
+        await(() -> pipeline.queued(NotificationChannel.EMAIL) == 0);
+        assertThat(pipeline.submit(second)).isTrue();
+
+        // When
+        boolean accepted = pipeline.submit(third);
+        when(notificationRepository.findRetryable(eq(NotificationChannel.EMAIL), any(), any(), eq(5), any()))
+                .thenReturn(List.of(second, third))
+                .thenReturn(List.of(third));
+        when(notificationRepository.claimForRetry(eq(3), any(), any(), any())).thenReturn(1);
+        int requeuedWhileFull = pipeline.retryUndelivered();
+        release.countDown();
+        await(() -> pipeline.queued(NotificationChannel.EMAIL) == 0);
+        int requeued = pipeline.retryUndelivered();
+        pipeline.stop();
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(requeuedWhileFull).isZero();
+        assertThat(requeued).isEqualTo(1);
+        assertThat(delivered).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Should leave notifications another replica claimed first to that replica")
+    void retryUndelivered_WhenClaimedElsewhere_ShouldSkip() {
+        // Given
+        Notification notification = SmtpChannelSenderTest.notification(1, "customer@example.com", "Hi");
+        when(notificationRepository.findRetryable(eq(NotificationChannel.EMAIL), any(), any(), eq(5), any()))
+                .thenReturn(List.of(notification));
+        when(notificationRepository.claimForRetry(eq(1), any(), any(), any())).thenReturn(0);
+
+        // When
+        int requeued = pipeline.retryUndelivered();
+
+        // Then
+        assertThat(requeued).isZero();
+        assertThat(pipeline.queued(NotificationChannel.EMAIL)).isZero();
+        assertThat(server.messages()).isEmpty();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should only hand over notifications after the transaction commits")
+    void submitAfterCommit_WithActiveTransaction_ShouldDeferUntilCommit() {
+        // Given
+        Notification notification = SmtpChannelSenderTest.notification(1, "customer@example.com", "Hi");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            pipeline.submitAfterCommit(notification);
+
+            // Then
+            assertThat(pipeline.queued(NotificationChannel.EMAIL)).isZero();
+            assertThat(server.messages()).isEmpty();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        pipeline.stop();
+        assertThat(server.messages()).hasSize(1);
+    }
+}
@@ -0,0 +1,91 @@
+package tech.yump.veriboard.notification.delivery;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.notification.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Lane Queue Tests")
+class LaneQueueTest {
+
+    @Test
+    @DisplayName("Should take high priority notifications ahead of a bulk backlog")
+    void drainTo_WithBulkBacklog_ShouldServeHighPriorityWithinOneRound() {
+        // Given
+        LaneQueue queue = new LaneQueue(1000);
+        for (int i = 0; i < 500; i++) {
+            queue.offer(notification(i, NotificationPriority.BULK));
+        }
+        queue.offer(notification(1000, NotificationPriority.HIGH));
+
+        // When
+        List<Notification> firstRound = new ArrayList<>();
+        queue.drainTo(firstRound, 12);
+
+        // Then
+        assertThat(firstRound).extracting(Notification::getId).contains(1000);
+    }
+
+    @Test
+    @DisplayName("Should share capacity by weight while every lane has work")
+    void drainTo_WithAllLanesBusy_ShouldFollowWeights() {
+        // Given
+        LaneQueue queue = new LaneQueue(1000);
+        for (int i = 0; i < 100; i++) {
+            queue.offer(notification(i, NotificationPriority.BULK));
+            queue.offer(notification(i, NotificationPriority.NORMAL));
+            queue.offer(notification(i, NotificationPriority.HIGH));
+        }
+
+        // When
+        List<Notification> taken = new ArrayList<>();
+        queue.drainTo(taken, 120);
+
+        // Then
+        assertThat(taken).filteredOn(n -> n.getPriority() == NotificationPriority.HIGH).hasSize(80);
+        assertThat(taken).filteredOn(n -> n.getPriority() == NotificationPriority.NORMAL).hasSize(30);
+        assertThat(taken).filteredOn(n -> n.getPriority() == NotificationPriority.BULK).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("Should keep FIFO order within a lane")
+    void poll_ShouldKeepOrderWithinLane() throws Exception {
+        // Given
+        LaneQueue queue = new LaneQueue(10);
+        queue.offer(notification(1, NotificationPriority.NORMAL));
+        queue.offer(notification(2, NotificationPriority.NORMAL));
+
+        // When & Then
+        assertThat(queue.poll(1, TimeUnit.MILLISECONDS).getId()).isEqualTo(1);
+        assertThat(queue.poll(1, TimeUnit.MILLISECONDS).getId()).isEqualTo(2);
+        assertThat(queue.poll(1, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should bound each lane separately")
+    void offer_WithFullBulkLane_ShouldStillAcceptHighPriority() {
+        // Given
+        LaneQueue queue = new LaneQueue(2);
+        queue.offer(notification(1, NotificationPriority.BULK));
+        queue.offer(notification(2, NotificationPriority.BULK));
+
+        // When & Then
+        assertThat(queue.offer(notification(3, NotificationPriority.BULK))).isFalse();
+        assertThat(queue.offer(notification(4, NotificationPriority.HIGH))).isTrue();
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    private static Notification notification(int id, NotificationPriority priority) {
+        return Notification.builder()
+                .id(id)
+                .toCustomerEmail("customer" + id + "@example.com")
+                .priority(priority)
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package tech.yump.veriboard.notification.delivery;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server used to exercise the delivery pipeline without a real relay.
+ * Recipients starting with "reject" are refused with 550.
+ */
+class LocalSmtpServer implements AutoCloseable {
+
+    record ReceivedMessage(String from, String to, String data) {
+    }
+
+    private final ServerSocket serverSocket;
+    private final boolean pipelining;
+    private final List<ReceivedMessage> messages = new CopyOnWriteArrayList<>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger pipelinedEnvelopes = new AtomicInteger();
+
+    LocalSmtpServer(boolean pipelining) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.pipelining = pipelining;
+        Thread acceptor = new Thread(this::acceptLoop, "local-smtp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String host() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    List<ReceivedMessage> messages() {
+        return messages;
+    }
+
+    int sessions() {
+        return sessions.get();
+    }
+
+    /**
+     * Number of envelopes whose RCPT command had already arrived when MAIL was processed.
+     */
+    int pipelinedEnvelopes() {
+        return pipelinedEnvelopes.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.incrementAndGet();
+                clients.add(socket);
+                Thread handler = new Thread(() -> handle(socket), "local-smtp-session");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+
+            reply(out, "220 localhost ESMTP ready");
+            String from = null;
+            String to = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, pipelining
+                            ? "250-localhost\r\n250-PIPELINING\r\n250 8BITMIME"
+                            : "250-localhost\r\n250 8BITMIME");
+                    case "MAIL" -> {
+                        if (in.ready()) {
+                            pipelinedEnvelopes.incrementAndGet();
+                        }
+                        from = address(line);
+                        to = null;
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String recipient = address(line);
+                        if (recipient.startsWith("reject")) {
+                            reply(out, "550 Mailbox unavailable");
+                        } else {
+                            to = recipient;
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        if (from == null || to == null) {
+                            reply(out, "554 No valid recipients");
+                            continue;
+                        }
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        messages.add(new ReceivedMessage(from, to, readData(in)));
+                        from = null;
+                        to = null;
+                        reply(out, "250 Queued");
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        to = null;
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+        }
+        return data.toString();
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start >= 0 && end > start ? line.substring(start + 1, end) : "";
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+}
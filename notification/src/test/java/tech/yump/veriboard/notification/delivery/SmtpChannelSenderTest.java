@@ -0,0 +1,139 @@
+package tech.yump.veriboard.notification.delivery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.yump.veriboard.notification.Notification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SMTP Channel Sender Tests")
+class SmtpChannelSenderTest {
+
+    private LocalSmtpServer server;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pipeline a whole batch over a single SMTP session")
+    void deliver_WithPipeliningServer_ShouldSendBatchOverOneSession() throws Exception {
+        // Given
+        server = new LocalSmtpServer(true);
+        List<Notification> batch = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> notification(i, "customer" + i + "@example.com", "Hello " + i))
+                .toList();
+
+        // When
+        List<DeliveryResult> results;
+        try (SmtpSession session = (SmtpSession) sender().openSession()) {
+            assertThat(session.isPipelining()).isTrue();
+            results = session.deliver(batch);
+        }
+
+        // Then
+        assertThat(results).hasSize(5).allMatch(result -> result.status() == DeliveryStatus.SENT);
+        assertThat(server.sessions()).isEqualTo(1);
+        assertThat(server.messages()).extracting(LocalSmtpServer.ReceivedMessage::to)
+                .containsExactly("customer1@example.com", "customer2@example.com", "customer3@example.com",
+                        "customer4@example.com", "customer5@example.com");
+        assertThat(server.pipelinedEnvelopes()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should fall back to one command per round trip without PIPELINING")
+    void deliver_WithoutPipeliningServer_ShouldStillDeliver() throws Exception {
+        // Given
+        server = new LocalSmtpServer(false);
+        List<Notification> batch = List.of(
+                notification(1, "first@example.com", "First"),
+                notification(2, "second@example.com", "Second"));
+
+        // When
+        List<DeliveryResult> results;
+        try (SmtpSession session = (SmtpSession) sender().openSession()) {
+            assertThat(session.isPipelining()).isFalse();
+            results = session.deliver(batch);
+        }
+
+        // Then
+        assertThat(results).extracting(DeliveryResult::status)
+                .containsExactly(DeliveryStatus.SENT, DeliveryStatus.SENT);
+        assertThat(server.pipelinedEnvelopes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should mark rejected recipients as failed and keep delivering the rest")
+    void deliver_WithRejectedRecipient_ShouldFailOnlyThatNotification() throws Exception {
+        // Given
+        server = new LocalSmtpServer(true);
+        List<Notification> batch = List.of(
+                notification(1, "first@example.com", "First"),
+                notification(2, "rejected@example.com", "Second"),
+                notification(3, "third@example.com", "Third"),
+                notification(4, null, "No address"));
+
+        // When
+        List<DeliveryResult> results;
+        try (ChannelSession session = sender().openSession()) {
+            results = session.deliver(batch);
+        }
+
+        // Then
+        assertThat(results).filteredOn(result -> result.status() == DeliveryStatus.SENT)
+                .extracting(DeliveryResult::notificationId)
+                .containsExactlyInAnyOrder(1, 3);
+        assertThat(results).filteredOn(result -> result.status() == DeliveryStatus.FAILED)
+                .extracting(DeliveryResult::notificationId)
+                .containsExactlyInAnyOrder(2, 4);
+        assertThat(server.messages()).extracting(LocalSmtpServer.ReceivedMessage::to)
+                .containsExactly("first@example.com", "third@example.com");
+    }
+
+    @Test
+    @DisplayName("Should dot-stuff message lines starting with a period")
+    void deliver_WithLeadingDots_ShouldTransmitBodyUnchanged() throws Exception {
+        // Given
+        server = new LocalSmtpServer(true);
+        Notification notification = notification(1, "dots@example.com", "Line one\n.hidden\n.");
+
+        // When
+        try (ChannelSession session = sender().openSession()) {
+            session.deliver(List.of(notification));
+        }
+
+        // Then
+        assertThat(server.messages()).hasSize(1);
+        assertThat(server.messages().get(0).data()).endsWith("\nLine one\n.hidden\n.\n");
+    }
+
+    private SmtpChannelSender sender() {
+        return new SmtpChannelSender(
+                server.host(),
+                server.port(),
+                "test.local",
+                "no-reply@veriboard.tech",
+                Duration.ofSeconds(5),
+                new ChannelLimits(1, 10, 10, Duration.ofSeconds(1)));
+    }
+
+    static Notification notification(int id, String email, String message) {
+        return Notification.builder()
+                .id(id)
+                .toCustomerId(id)
+                .toCustomerEmail(email)
+                .sender("VeriBoard")
+                .message(message)
+                .sentAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tech.yump.veriboard.clients.notification.NotificationRequest;
 import tech.yump.veriboard.notification.NotificationService;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,10 +34,10 @@ class NotificationConsumerTest {
         );
 
         // When
-        notificationConsumer.consumer(request);
+        notificationConsumer.consumer(request, "message-1");
 
         // Then
-        verify(notificationService).send(request);
+        verify(notificationService).send(request, "message-1");
     }
 
     @Test
@@ -49,10 +50,10 @@ class NotificationConsumerTest {
         );
 
         // When
-        notificationConsumer.consumer(request);
+        notificationConsumer.consumer(request, "message-1");
 
         // Then
-        verify(notificationService).send(request);
+        verify(notificationService).send(request, "message-1");
     }
 
     @Test
@@ -65,10 +66,21 @@ class NotificationConsumerTest {
         );
 
         // When
-        notificationConsumer.consumer(request);
+        notificationConsumer.consumer(request, "message-1");
 
         // Then
-        verify(notificationService, times(1)).send(request);
+        verify(notificationService, times(1)).send(request, "message-1");
         verifyNoMoreInteractions(notificationService);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void fallbackConsumer_ShouldPassTheFailureOnInsteadOfSwallowingIt() {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Test notification");
+        IllegalStateException failure = new IllegalStateException("circuit open");
+
+        // When / Then
+        assertThatThrownBy(() -> notificationConsumer.fallbackConsumer(request, "message-1", failure))
+                .isSameAs(failure);
+    }
+}
@@ -0,0 +1,166 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.MessagePostProcessor;
+import tech.yump.veriboard.amqp.PartitionRouter;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.clients.notification.NotificationRequest;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationLaneListenerTest {
+
+    @Mock
+    private NotificationConsumer notificationConsumer;
+
+    @Mock
+    private AmqpTemplate amqpTemplate;
+
+    @Mock
+    private Channel channel;
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<PartitionedDispatcher> dispatchers;
+    private NotificationLaneListener laneListener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatchers = List.of(
+                new PartitionedDispatcher("test-high", 2, 10),
+                new PartitionedDispatcher("test-normal", 2, 10),
+                new PartitionedDispatcher("test-bulk", 1, 10));
+        dispatchers.forEach(PartitionedDispatcher::start);
+        laneListener = new NotificationLaneListener(
+                notificationConsumer,
+                amqpTemplate,
+                new NotificationQueues("notification.queue", new PartitionRouter(0), List.of()),
+                meterRegistry, dispatchers.get(0), dispatchers.get(1), dispatchers.get(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchers.forEach(PartitionedDispatcher::stop);
+    }
+
+    @Test
+    void consumeHigh_ShouldRecordQueueLatencyForHighLane() throws Exception {
+        // Given
+        NotificationRequest request = new NotificationRequest(
+                1, "test@example.com", "Your account is on hold", NotificationPriority.HIGH);
+        long publishedAt = System.currentTimeMillis() - 250;
+
+        // When
+        laneListener.consumeHigh(request, publishedAt, "message-1", channel, 7L);
+
+        // Then
+        verify(notificationConsumer, timeout(1000)).consumer(eq(request), any());
+        verify(channel, timeout(1000)).basicAck(7L, false);
+        var timer = meterRegistry.get("notification.queue.latency").tag("priority", "HIGH").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(250);
+        assertThat(meterRegistry.get("notification.queue.latency").tag("priority", "BULK").timer().count())
+                .isZero();
+    }
+
+    @Test
+    void consumeBulk_WithoutTimestamp_ShouldStillDelegate() throws Exception {
+        // Given
+        NotificationRequest request = new NotificationRequest(
+                1, "test@example.com", "Welcome!", NotificationPriority.BULK);
+
+        // When
+        laneListener.consumeBulk(request, null, null, channel, 1L);
+
+        // Then
+        verify(notificationConsumer, timeout(1000)).consumer(eq(request), any());
+        assertThat(meterRegistry.get("notification.queue.latency").tag("priority", "BULK").timer().count())
+                .isZero();
+    }
+
+    @Test
+    void consumeNormal_WithMismatchedPriority_ShouldUseArrivalLane() throws Exception {
+        // Given
+        NotificationRequest request = new NotificationRequest(
+                1, "test@example.com", "Hello", NotificationPriority.HIGH);
+
+        // When
+        laneListener.consumeNormal(request, System.currentTimeMillis(), "message-1", channel, 1L);
+
+        // Then
+        verify(notificationConsumer, timeout(1000)).consumer(
+                new NotificationRequest(1, "test@example.com", "Hello", NotificationPriority.NORMAL), "message-1");
+    }
+
+    @Test
+    void consumeNormal_WhenProcessingFails_ShouldDeadLetterInsteadOfRequeueing() throws Exception {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Hello");
+        doThrow(new IllegalStateException("database down")).when(notificationConsumer).consumer(request, "message-3");
+
+        // When
+        laneListener.consumeNormal(request, System.currentTimeMillis(), "message-3", channel, 3L);
+
+        // Then
+        verify(channel, timeout(1000)).basicAck(3L, false);
+        verify(amqpTemplate).convertAndSend(
+                eq(""), eq("notification.queue.dead-letter"), eq(request), any(MessagePostProcessor.class));
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void consumeNormal_WhenDeadLetteringFails_ShouldRequeueAsLastResort() throws Exception {
+        // Given
+        NotificationRequest request = new NotificationRequest(1, "test@example.com", "Hello");
+        doThrow(new IllegalStateException("database down")).when(notificationConsumer).consumer(request, "message-4");
+        doThrow(new AmqpConnectException(new java.net.ConnectException("refused"))).when(amqpTemplate)
+                .convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+
+        // When
+        laneListener.consumeNormal(request, System.currentTimeMillis(), "message-4", channel, 4L);
+
+        // Then
+        verify(channel, timeout(1000)).basicNack(4L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void drain_ShouldFinishDispatchedNotificationsAndLeaveLaterDeliveriesUnacknowledged() throws Exception {
+        // Given
+        NotificationRequest first = new NotificationRequest(1, "test@example.com", "First");
+        NotificationRequest second = new NotificationRequest(1, "test@example.com", "Second");
+        CountDownLatch processing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            processing.countDown();
+            Thread.sleep(200);
+            return null;
+        }).when(notificationConsumer).consumer(first, "message-1");
+        laneListener.consumeNormal(first, System.currentTimeMillis(), "message-1", channel, 1L);
+        assertThat(processing.await(1, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        laneListener.drain();
+        laneListener.consumeNormal(second, System.currentTimeMillis(), "message-2", channel, 2L);
+
+        // Then
+        verify(channel).basicAck(1L, false);
+        verify(notificationConsumer, never()).consumer(second, "message-2");
+        verify(channel, never()).basicAck(eq(2L), anyBoolean());
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+}
@@ -0,0 +1,56 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tech.yump.veriboard.amqp.PartitionRouter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Notification Queues Tests")
+class NotificationQueuesTest {
+
+    @Test
+    @DisplayName("Should consume only the lane queues when not partitioned")
+    void withoutPartitions_ShouldListLaneQueues() {
+        // When
+        NotificationQueues queues = new NotificationQueues("notification.queue", new PartitionRouter(0), List.of());
+
+        // Then
+        assertThat(queues.high()).containsExactly("notification.queue.high");
+        assertThat(queues.normal()).containsExactly("notification.queue");
+        assertThat(queues.bulk()).containsExactly("notification.queue.bulk");
+    }
+
+    @Test
+    @DisplayName("Should consume every partition queue by default")
+    void withPartitions_ShouldListAllPartitionQueues() {
+        // When
+        NotificationQueues queues = new NotificationQueues("notification.queue", new PartitionRouter(2), List.of());
+
+        // Then
+        assertThat(queues.normal()).containsExactly("notification.queue", "notification.queue.p0", "notification.queue.p1");
+        assertThat(queues.bulk())
+                .containsExactly("notification.queue.bulk", "notification.queue.bulk.p0", "notification.queue.bulk.p1");
+    }
+
+    @Test
+    @DisplayName("Should consume only the owned subset of partitions")
+    void ownedPartitions_ShouldRestrictQueues() {
+        // When
+        NotificationQueues queues = new NotificationQueues("notification.queue", new PartitionRouter(4), List.of(1, 3));
+
+        // Then
+        assertThat(queues.high())
+                .containsExactly("notification.queue.high", "notification.queue.high.p1", "notification.queue.high.p3");
+    }
+
+    @Test
+    @DisplayName("Should reject owned partitions that do not exist")
+    void ownedPartitions_OutOfRange_ShouldFail() {
+        assertThatThrownBy(() -> new NotificationQueues("notification.queue", new PartitionRouter(4), List.of(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package tech.yump.veriboard.notification.rabbitmq;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Partitioned Dispatcher Tests")
+class PartitionedDispatcherTest {
+
+    private PartitionedDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null && dispatcher.isRunning()) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should process tasks for the same customer in submission order")
+    void dispatch_ShouldKeepOrderPerKey() throws Exception {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 4, 1000);
+        dispatcher.start();
+        Map<Integer, List<Integer>> processed = new ConcurrentHashMap<>();
+
+        // When
+        for (int sequence = 0; sequence < 200; sequence++) {
+            for (int customerId = 1; customerId <= 10; customerId++) {
+                int customer = customerId;
+                int seq = sequence;
+                dispatcher.dispatch(customer, () ->
+                        processed.computeIfAbsent(customer, key -> new CopyOnWriteArrayList<>()).add(seq));
+            }
+        }
+        dispatcher.stop();
+
+        // Then
+        assertThat(processed).hasSize(10);
+        processed.values().forEach(sequences -> assertThat(sequences).isSorted().hasSize(200));
+    }
+
+    @Test
+    @DisplayName("Should run different customers in parallel")
+    void dispatch_ShouldNotBlockOtherPartitions() throws Exception {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 2, 10);
+        dispatcher.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherCustomerDone = new CountDownLatch(1);
+
+        // When
+        dispatcher.dispatch(0, () -> await(release));
+        dispatcher.dispatch(1, otherCustomerDone::countDown);
+
+        // Then
+        assertThat(otherCustomerDone.await(1, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should block the caller while the partition is full")
+    void dispatch_WithFullPartition_ShouldApplyBackpressure() throws Exception {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 1, 1);
+        dispatcher.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        dispatcher.dispatch(1, () -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(1, TimeUnit.SECONDS);
+        dispatcher.dispatch(1, () -> { });
+        AtomicBoolean thirdAccepted = new AtomicBoolean();
+
+        // When
+        Thread producer = new Thread(() -> {
+            try {
+                dispatcher.dispatch(1, () -> { });
+                thirdAccepted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        // Then
+        assertThat(thirdAccepted).isFalse();
+        release.countDown();
+        producer.join(1000);
+        assertThat(thirdAccepted).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should map null keys and negative ids onto valid partitions")
+    void partition_ShouldAlwaysBeInRange() {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 3, 1);
+
+        // When & Then
+        assertThat(dispatcher.partition(null)).isZero();
+        assertThat(dispatcher.partition(-4)).isBetween(0, 2);
+        assertThat(dispatcher.partition(7)).isEqualTo(dispatcher.partition(7));
+    }
+
+    @Test
+    @DisplayName("Should wait for dispatched tasks on drain without stopping the workers")
+    void drain_ShouldWaitForOutstandingTasks() throws Exception {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 2, 10);
+        dispatcher.start();
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        for (int customerId = 1; customerId <= 4; customerId++) {
+            int customer = customerId;
+            dispatcher.dispatch(customer, () -> {
+                sleep(50);
+                processed.add(customer);
+            });
+        }
+
+        // When
+        boolean drained = dispatcher.drain(5000);
+
+        // Then
+        assertThat(drained).isTrue();
+        assertThat(processed).hasSize(4);
+        assertThat(dispatcher.isRunning()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should report tasks still outstanding when the drain times out")
+    void drain_WithSlowTask_ShouldTimeOut() throws Exception {
+        // Given
+        dispatcher = new PartitionedDispatcher("test", 1, 10);
+        dispatcher.start();
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(1, () -> await(release));
+
+        // When
+        boolean drained = dispatcher.drain(50);
+        release.countDown();
+
+        // Then
+        assertThat(drained).isFalse();
+        assertThat(dispatcher.drain(5000)).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
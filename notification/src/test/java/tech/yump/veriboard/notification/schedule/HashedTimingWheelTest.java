@@ -0,0 +1,112 @@
+package tech.yump.veriboard.notification.schedule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Hashed Timing Wheel Tests")
+class HashedTimingWheelTest {
+
+    private final List<String> expired = new CopyOnWriteArrayList<>();
+    private HashedTimingWheel<String> wheel;
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    @DisplayName("Should expire a task after its delay")
+    void schedule_ShouldExpireAfterDelay() throws Exception {
+        // Given
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel = start(8, tasks -> fired.countDown());
+        long scheduledAt = System.nanoTime();
+
+        // When
+        wheel.schedule("reminder", Duration.ofMillis(100));
+
+        // Then
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt)).isGreaterThanOrEqualTo(90);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should expire delays longer than one wheel rotation in the right round")
+    void schedule_WithDelayBeyondOneRotation_ShouldWaitForRemainingRounds() throws Exception {
+        // Given: 4 buckets of 10ms make one rotation 40ms
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel = start(4, tasks -> fired.countDown());
+        long scheduledAt = System.nanoTime();
+
+        // When
+        wheel.schedule("later", Duration.ofMillis(150));
+
+        // Then
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt)).isGreaterThanOrEqualTo(140);
+    }
+
+    @Test
+    @DisplayName("Should not expire cancelled tasks")
+    void cancel_ShouldPreventExpiry() throws Exception {
+        // Given
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel = start(8, tasks -> {
+            expired.addAll(tasks);
+            fired.countDown();
+        });
+        HashedTimingWheel<String>.Timeout cancelled = wheel.schedule("cancelled", Duration.ofMillis(50));
+        wheel.schedule("kept", Duration.ofMillis(60));
+
+        // When
+        boolean result = cancelled.cancel();
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(expired).containsExactly("kept");
+    }
+
+    @Test
+    @DisplayName("Should hand all tasks due in one tick over as a single batch")
+    void schedule_ManyTasksInSameTick_ShouldExpireAsOneBatch() throws Exception {
+        // Given
+        CountDownLatch fired = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        wheel = start(8, tasks -> {
+            batchSizes.add(tasks.size());
+            fired.countDown();
+        });
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            wheel.schedule("task-" + i, Duration.ZERO);
+        }
+
+        // Then
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1000);
+        assertThat(batchSizes.size()).isLessThanOrEqualTo(2);
+    }
+
+    private HashedTimingWheel<String> start(int ticksPerWheel, Consumer<List<String>> handler) {
+        HashedTimingWheel<String> timingWheel = new HashedTimingWheel<>(
+                "test-wheel", Duration.ofMillis(10), ticksPerWheel, handler);
+        timingWheel.start();
+        return timingWheel;
+    }
+}
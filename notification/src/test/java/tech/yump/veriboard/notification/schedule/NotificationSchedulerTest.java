@@ -0,0 +1,182 @@
+package tech.yump.veriboard.notification.schedule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tech.yump.veriboard.clients.notification.NotificationPriority;
+import tech.yump.veriboard.clients.notification.ScheduledNotificationRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Notification Scheduler Tests")
+class NotificationSchedulerTest {
+
+    @Mock
+    private ScheduledNotificationService scheduledNotificationService;
+
+    private NotificationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new NotificationScheduler(
+                scheduledNotificationService,
+                new SimpleMeterRegistry(),
+                Duration.ofMillis(10),
+                64,
+                Duration.ofMinutes(10),
+                2,
+                1000,
+                Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler.isRunning()) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load the window page by page and send notifications when due")
+    void loadWindow_ShouldArmDueNotificationsAndSendThem() {
+        // Given
+        Instant soon = Instant.now().plusMillis(100);
+        when(scheduledNotificationService.loadWindow(any(), eq(Instant.EPOCH), eq(0L), eq(2)))
+                .thenReturn(List.of(scheduled(1L, soon), scheduled(2L, soon)));
+        when(scheduledNotificationService.loadWindow(any(), eq(soon), eq(2L), eq(2)))
+                .thenReturn(List.of(scheduled(3L, soon)));
+
+        // When
+        scheduler.start();
+
+        // Then
+        verify(scheduledNotificationService, timeout(2000).atLeastOnce()).sendDue(List.of(1L, 2L, 3L));
+        assertThat(scheduler.inMemory()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should resume loading as soon as a full wheel drains below the low-water mark")
+    void loadWindow_WhenWheelIsFull_ShouldResumeOnceDrained() {
+        // Given
+        scheduler = new NotificationScheduler(
+                scheduledNotificationService,
+                new SimpleMeterRegistry(),
+                Duration.ofMillis(10),
+                64,
+                Duration.ofMinutes(10),
+                2,
+                2,
+                Duration.ofSeconds(30));
+        Instant soon = Instant.now().plusMillis(100);
+        Instant later = Instant.now().plusMillis(300);
+        when(scheduledNotificationService.loadWindow(any(), eq(Instant.EPOCH), eq(0L), eq(2)))
+                .thenReturn(List.of(scheduled(1L, soon), scheduled(2L, soon)));
+        when(scheduledNotificationService.loadWindow(any(), eq(soon), eq(2L), eq(2)))
+                .thenReturn(List.of(scheduled(3L, later)));
+
+        // When
+        scheduler.start();
+
+        // Then
+        verify(scheduledNotificationService, timeout(2000)).sendDue(List.of(1L, 2L));
+        verify(scheduledNotificationService, timeout(2000)).sendDue(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("Should arm notifications scheduled inside the loaded window directly")
+    void schedule_InsideLoadedWindow_ShouldArmTimer() {
+        // Given
+        when(scheduledNotificationService.loadWindow(any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+        scheduler.loadWindow();
+        Instant sendAt = Instant.now().plusMillis(50);
+        ScheduledNotificationRequest request = request(sendAt);
+        when(scheduledNotificationService.save(request)).thenReturn(scheduled(42L, sendAt));
+        scheduler.start();
+
+        // When
+        Long id = scheduler.schedule(request);
+
+        // Then
+        assertThat(id).isEqualTo(42L);
+        verify(scheduledNotificationService, timeout(2000)).sendDue(List.of(42L));
+    }
+
+    @Test
+    @DisplayName("Should only persist notifications due after the loaded window")
+    void schedule_BeyondLoadedWindow_ShouldOnlyPersist() {
+        // Given
+        when(scheduledNotificationService.loadWindow(any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+        scheduler.loadWindow();
+        Instant sendAt = Instant.now().plus(Duration.ofHours(3));
+        ScheduledNotificationRequest request = request(sendAt);
+        when(scheduledNotificationService.save(request)).thenReturn(scheduled(7L, sendAt));
+
+        // When
+        scheduler.schedule(request);
+
+        // Then
+        assertThat(scheduler.inMemory()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should cancel both the persisted row and the armed timer")
+    void cancel_ShouldDisarmTimer() throws Exception {
+        // Given
+        when(scheduledNotificationService.loadWindow(any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+        scheduler.loadWindow();
+        Instant sendAt = Instant.now().plusMillis(100);
+        ScheduledNotificationRequest request = request(sendAt);
+        when(scheduledNotificationService.save(request)).thenReturn(scheduled(5L, sendAt));
+        when(scheduledNotificationService.cancel(5L)).thenReturn(true);
+        scheduler.start();
+        scheduler.schedule(request);
+
+        // When
+        boolean cancelled = scheduler.cancel(5L);
+
+        // Then
+        assertThat(cancelled).isTrue();
+        assertThat(scheduler.inMemory()).isZero();
+        Thread.sleep(250);
+        verify(scheduledNotificationService, never()).sendDue(List.of(5L));
+    }
+
+    @Test
+    @DisplayName("Should reject requests without a send time")
+    void schedule_WithoutSendAt_ShouldThrow() {
+        assertThatThrownBy(() -> scheduler.schedule(request(null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(scheduledNotificationService);
+    }
+
+    private static ScheduledNotificationRequest request(Instant sendAt) {
+        return new ScheduledNotificationRequest(
+                1, "customer@example.com", "Complete your profile", NotificationPriority.BULK, sendAt);
+    }
+
+    private static ScheduledNotification scheduled(Long id, Instant sendAt) {
+        return ScheduledNotification.builder()
+                .id(id)
+                .toCustomerId(1)
+                .toCustomerEmail("customer@example.com")
+                .message("Complete your profile")
+                .sendAt(sendAt)
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+-- Idempotency keys of the customer service (IdempotencyRecord)
+-- Apply before setting veriboard.idempotency.enabled where ddl-auto is validate, e.g. prod:
+--   ./scripts/init-databases.sh sql customer ./scripts/customer-idempotency-schema.sql
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(64) PRIMARY KEY,   -- SHA-256 of caller and key, hex
+    fingerprint VARCHAR(64) NOT NULL,          -- SHA-256 of method, path and body, hex
+    created_at TIMESTAMP(6) NOT NULL,
+    response_status INTEGER,                   -- null while the request is being processed
+    response_content_type VARCHAR(255),
+    response_body BYTEA,
+    completed_at TIMESTAMP(6),
+    version BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);